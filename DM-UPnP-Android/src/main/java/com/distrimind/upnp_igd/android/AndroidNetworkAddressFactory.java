@@ -25,6 +25,7 @@ import java.net.Inet6Address;
 import java.net.InetAddress;
 import java.net.NetworkInterface;
 import java.util.Collections;
+import java.util.List;
 import com.distrimind.flexilogxml.log.DMLogger;
 import com.distrimind.upnp.Log;
 
@@ -98,8 +99,10 @@ public class AndroidNetworkAddressFactory extends NetworkAddressFactoryImpl {
     @Override
     public InetAddress getLocalAddress(NetworkInterface networkInterface, boolean isIPv6, InetAddress remoteAddress) {
         // TODO: This is totally random because we can't access low level InterfaceAddress on Android!
-		for (NetworkInterface ni : (networkInterface==null?networkInterfaces: Collections.singletonList(networkInterface))) {
-			for (InetAddress localAddress : getInetAddresses(ni)) {
+		AddressTable table = getAddressTable();
+		for (NetworkInterface ni : (networkInterface==null?table.getNetworkInterfaces(): Collections.singletonList(networkInterface))) {
+			List<InetAddress> addresses = table.getInetAddresses(ni);
+			for (InetAddress localAddress : addresses.isEmpty() ? getInetAddresses(ni) : addresses) {
 				if (isIPv6 && localAddress instanceof Inet6Address)
 					return localAddress;
 				if (!isIPv6 && localAddress instanceof Inet4Address)
@@ -43,6 +43,15 @@ import java.util.concurrent.ExecutorService;
  * @since 1.2.0
  */
 public class AndroidPlatformUpnpServiceConfiguration extends PlatformUpnpServiceConfiguration {
+	/**
+	 * @return <code>false</code>, the Android runtime has no virtual threads.
+	 */
+	@Override
+	public boolean isVirtualThreadExecutorEnabled()
+	{
+		return false;
+	}
+
 	@Override
 	public ExecutorService createDefaultAndroidExecutorService() throws IOException
 	{
@@ -15,6 +15,7 @@
 
 package com.distrimind.upnp.android.transport.impl;
 
+import com.distrimind.upnp.http.ContentEncoding;
 import com.distrimind.upnp.transport.Router;
 import com.distrimind.upnp.android.transport.spi.ServletContainerAdapter;
 import com.distrimind.upnp.transport.spi.StreamServerConfiguration;
@@ -34,6 +35,7 @@ public class AsyncServletStreamServerConfigurationImpl implements StreamServerCo
     protected ServletContainerAdapter servletContainerAdapter;
     protected int listenPort = 0;
     protected int asyncTimeoutSeconds = 60;
+    protected int minCompressedBodyLength = -1;
 
     /**
      * Defaults to port '0', ephemeral.
@@ -82,6 +84,23 @@ public class AsyncServletStreamServerConfigurationImpl implements StreamServerCo
         this.asyncTimeoutSeconds = asyncTimeoutSeconds;
     }
 
+    /**
+     * @return Minimum length of a textual response body compressed with <code>gzip</code> or <code>deflate</code>,
+     *         when the request accepts it. Default is <code>-1</code>, a negative value disables compression,
+     *         see {@link ContentEncoding#DEFAULT_MIN_COMPRESSED_BODY_LENGTH} to enable it.
+     * @since 1.5.0
+     */
+    public int getMinCompressedBodyLength() {
+        return minCompressedBodyLength;
+    }
+
+    /**
+     * @since 1.5.0
+     */
+    public void setMinCompressedBodyLength(int minCompressedBodyLength) {
+        this.minCompressedBodyLength = minCompressedBodyLength;
+    }
+
     public ServletContainerAdapter getServletContainerAdapter() {
         return servletContainerAdapter;
     }
@@ -162,6 +162,11 @@ public class AsyncServletStreamServerImpl implements StreamServer<AsyncServletSt
                         protected Connection createConnection() {
                             return new AsyncServletConnection(getRequest());
                         }
+
+                        @Override
+                        protected int getMinCompressedBodyLength() {
+                            return getConfiguration().getMinCompressedBodyLength();
+                        }
                     };
 
                 router.received(stream);
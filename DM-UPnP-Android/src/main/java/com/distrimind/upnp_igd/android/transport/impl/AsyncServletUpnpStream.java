@@ -15,6 +15,7 @@
 
 package com.distrimind.upnp.android.transport.impl;
 
+import com.distrimind.upnp.http.ContentEncoding;
 import com.distrimind.upnp.model.message.*;
 import com.distrimind.upnp.protocol.ProtocolFactory;
 import com.distrimind.upnp.transport.spi.UpnpStream;
@@ -68,6 +69,11 @@ public abstract class AsyncServletUpnpStream extends UpnpStream implements Async
         return request;
     }
 
+    @Override
+    public UpnpRequest.Method getRequestMethod() {
+        return UpnpRequest.Method.getByHttpName(getRequest().getMethod());
+    }
+
     protected HttpServletResponse getResponse() {
         ServletResponse response;
         if ((response = asyncContext.getResponse()) == null) {
@@ -236,6 +242,15 @@ public abstract class AsyncServletUpnpStream extends UpnpStream implements Async
 
         // Body
         byte[] responseBodyBytes = responseMessage.hasBody() ? responseMessage.getBodyBytes() : null;
+        if (responseBodyBytes != null) {
+            ContentEncoding contentEncoding = getResponseContentEncoding(
+                    getRequest().getHeader(ContentEncoding.ACCEPT_ENCODING), responseMessage, responseBodyBytes.length);
+            if (contentEncoding != null) {
+                responseBodyBytes = contentEncoding.encode(responseBodyBytes);
+                getResponse().setHeader(ContentEncoding.CONTENT_ENCODING, contentEncoding.getHttpName());
+                getResponse().addHeader(ContentEncoding.VARY, ContentEncoding.ACCEPT_ENCODING);
+            }
+        }
         int contentLength = responseBodyBytes != null ? responseBodyBytes.length : -1;
 
         if (contentLength > 0) {
@@ -0,0 +1,272 @@
+/*
+ *     This library is free software; you can redistribute it and/or
+ *     modify it under the terms of the GNU Lesser General Public
+ *     License as published by the Free Software Foundation; either
+ *     version 2.1 of the License.
+ *
+ *     This library is distributed in the hope that it will be useful,
+ *     but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *     MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ *     Lesser General Public License for more details.
+ *
+ *     You should have received a copy of the GNU Lesser General Public
+ *     License along with this library; if not, write to the Free Software
+ *     Foundation, Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301  USA
+ */
+
+package com.distrimind.upnp.android.transport.impl.undertow;
+
+import io.undertow.client.ClientConnection;
+import org.xnio.IoUtils;
+
+import java.net.URI;
+import java.util.ArrayDeque;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.Locale;
+import java.util.Map;
+
+/**
+ * Per-host pool of keep-alive {@link ClientConnection}s, reused across the requests of an {@link UndertowStreamClientImpl}.
+ * <p>
+ * A connection is leased by {@link #acquire(String)} or, once freshly opened, by {@link #lease(String)}, and must
+ * be given back with {@link #release(String, ClientConnection, boolean)}. At most
+ * {@link #getMaxConnectionsPerHost()} connections, leased or idle, are managed per host. Connections opened
+ * beyond this limit are not pooled, the caller closes them after use.
+ * </p>
+ * <p>
+ * An idle connection is checked before being handed out again: it must still be open, and must not have been
+ * idle for longer than the idle timeout, after which the server has probably closed its end.
+ * </p>
+ * <p>
+ * This class is thread-safe.
+ * </p>
+ *
+ * @author Jason Mahdjoub
+ * @since 1.5.0
+ */
+public class UndertowConnectionPool {
+
+	private static final class IdleConnection {
+		final ClientConnection connection;
+		final long idleSinceNanos;
+
+		IdleConnection(ClientConnection connection, long idleSinceNanos) {
+			this.connection = connection;
+			this.idleSinceNanos = idleSinceNanos;
+		}
+	}
+
+	private static final class HostPool {
+		final ArrayDeque<IdleConnection> idle = new ArrayDeque<>();
+		int leased;
+	}
+
+	final private Map<String, HostPool> hosts = new HashMap<>();
+	final private int maxConnectionsPerHost;
+	final private long idleTimeoutNanos;
+	private long nextSweepNanos;
+	private boolean closed;
+
+	private long createdConnections;
+	private long reusedConnections;
+	private long evictedConnections;
+	private long unpooledConnections;
+
+	/**
+	 * @param maxConnectionsPerHost The maximum number of leased and idle connections per host.
+	 * @param idleTimeoutMillis The time after which an idle connection is closed.
+	 */
+	public UndertowConnectionPool(int maxConnectionsPerHost, long idleTimeoutMillis) {
+		if (maxConnectionsPerHost < 1)
+			throw new IllegalArgumentException("maxConnectionsPerHost=" + maxConnectionsPerHost);
+		if (idleTimeoutMillis < 0)
+			throw new IllegalArgumentException("idleTimeoutMillis=" + idleTimeoutMillis);
+		this.maxConnectionsPerHost = maxConnectionsPerHost;
+		this.idleTimeoutNanos = idleTimeoutMillis * 1000000L;
+		this.nextSweepNanos = System.nanoTime() + idleTimeoutNanos;
+	}
+
+	/**
+	 * @return The key of the pool serving the given URI: scheme, host and port.
+	 */
+	public static String getKey(URI uri) {
+		String scheme = uri.getScheme() == null ? "http" : uri.getScheme().toLowerCase(Locale.ROOT);
+		int port = uri.getPort();
+		if (port == -1)
+			port = "https".equals(scheme) ? 443 : 80;
+		return scheme + "://" + uri.getHost() + ":" + port;
+	}
+
+	/**
+	 * @param key See {@link #getKey(URI)}.
+	 * @return An idle and healthy connection, now leased, or <code>null</code> if there is none.
+	 */
+	public synchronized ClientConnection acquire(String key) {
+		long now = System.nanoTime();
+		sweep(now);
+		HostPool hostPool = hosts.get(key);
+		if (hostPool == null)
+			return null;
+		IdleConnection idleConnection;
+		// Most recently used first, it is the least likely to have been closed by the server
+		while ((idleConnection = hostPool.idle.pollLast()) != null) {
+			if (isHealthy(idleConnection, now)) {
+				++hostPool.leased;
+				++reusedConnections;
+				return idleConnection.connection;
+			}
+			evict(idleConnection);
+		}
+		return null;
+	}
+
+	/**
+	 * Leases a newly opened connection.
+	 *
+	 * @param key See {@link #getKey(URI)}.
+	 * @return <code>true</code> if the connection is managed by the pool and must be released, <code>false</code>
+	 *         if the host has reached its limit and the connection must be closed after use.
+	 */
+	public synchronized boolean lease(String key) {
+		HostPool hostPool = hosts.computeIfAbsent(key, k -> new HostPool());
+		if (closed || hostPool.leased + hostPool.idle.size() >= maxConnectionsPerHost) {
+			++unpooledConnections;
+			if (hostPool.leased == 0 && hostPool.idle.isEmpty())
+				hosts.remove(key);
+			return false;
+		}
+		++hostPool.leased;
+		++createdConnections;
+		return true;
+	}
+
+	/**
+	 * Gives back a leased connection.
+	 *
+	 * @param key See {@link #getKey(URI)}.
+	 * @param connection The leased connection.
+	 * @param reusable <code>false</code> if the last exchange did not complete cleanly, the connection is closed.
+	 */
+	public void release(String key, ClientConnection connection, boolean reusable) {
+		synchronized (this) {
+			HostPool hostPool = hosts.get(key);
+			if (hostPool != null) {
+				--hostPool.leased;
+				if (reusable && !closed && connection.isOpen()) {
+					hostPool.idle.addLast(new IdleConnection(connection, System.nanoTime()));
+					return;
+				}
+				if (hostPool.leased == 0 && hostPool.idle.isEmpty())
+					hosts.remove(key);
+			}
+		}
+		IoUtils.safeClose(connection);
+	}
+
+	/**
+	 * Closes the idle connections, and the leased ones once released. The pool does not accept connections anymore.
+	 */
+	public void close() {
+		synchronized (this) {
+			closed = true;
+			for (HostPool hostPool : hosts.values()) {
+				IdleConnection idleConnection;
+				while ((idleConnection = hostPool.idle.poll()) != null)
+					IoUtils.safeClose(idleConnection.connection);
+			}
+			hosts.clear();
+		}
+	}
+
+	private boolean isHealthy(IdleConnection idleConnection, long now) {
+		return idleConnection.connection.isOpen() && now - idleConnection.idleSinceNanos < idleTimeoutNanos;
+	}
+
+	private void evict(IdleConnection idleConnection) {
+		++evictedConnections;
+		IoUtils.safeClose(idleConnection.connection);
+	}
+
+	/**
+	 * Evicts the expired idle connections of all hosts, at most once per idle timeout.
+	 */
+	private void sweep(long now) {
+		if (now - nextSweepNanos < 0)
+			return;
+		nextSweepNanos = now + idleTimeoutNanos;
+		for (Iterator<HostPool> it = hosts.values().iterator(); it.hasNext(); ) {
+			HostPool hostPool = it.next();
+			for (Iterator<IdleConnection> itIdle = hostPool.idle.iterator(); itIdle.hasNext(); ) {
+				IdleConnection idleConnection = itIdle.next();
+				if (!isHealthy(idleConnection, now)) {
+					itIdle.remove();
+					evict(idleConnection);
+				}
+			}
+			if (hostPool.leased == 0 && hostPool.idle.isEmpty())
+				it.remove();
+		}
+	}
+
+	public int getMaxConnectionsPerHost() {
+		return maxConnectionsPerHost;
+	}
+
+	/**
+	 * @return The number of connections opened and managed by the pool.
+	 */
+	public synchronized long getCreatedConnections() {
+		return createdConnections;
+	}
+
+	/**
+	 * @return The number of requests sent over an idle connection of the pool.
+	 */
+	public synchronized long getReusedConnections() {
+		return reusedConnections;
+	}
+
+	/**
+	 * @return The number of idle connections closed because they were expired or closed by the server.
+	 */
+	public synchronized long getEvictedConnections() {
+		return evictedConnections;
+	}
+
+	/**
+	 * @return The number of connections not managed by the pool because their host had reached its limit.
+	 */
+	public synchronized long getUnpooledConnections() {
+		return unpooledConnections;
+	}
+
+	/**
+	 * @return The number of connections currently leased.
+	 */
+	public synchronized int getLeasedConnections() {
+		int count = 0;
+		for (HostPool hostPool : hosts.values())
+			count += hostPool.leased;
+		return count;
+	}
+
+	/**
+	 * @return The number of connections currently idle.
+	 */
+	public synchronized int getIdleConnections() {
+		int count = 0;
+		for (HostPool hostPool : hosts.values())
+			count += hostPool.idle.size();
+		return count;
+	}
+
+	@Override
+	public synchronized String toString() {
+		return "(" + getClass().getSimpleName() + ") hosts: " + hosts.size()
+				+ ", created: " + createdConnections
+				+ ", reused: " + reusedConnections
+				+ ", evicted: " + evictedConnections
+				+ ", unpooled: " + unpooledConnections;
+	}
+}
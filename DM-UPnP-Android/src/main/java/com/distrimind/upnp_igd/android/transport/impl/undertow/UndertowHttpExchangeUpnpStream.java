@@ -18,6 +18,7 @@ package com.distrimind.upnp.android.transport.impl.undertow;
 
 import com.distrimind.flexilogxml.log.DMLogger;
 import com.distrimind.upnp.Log;
+import com.distrimind.upnp.http.ContentEncoding;
 import com.distrimind.upnp.model.message.*;
 import com.distrimind.upnp.protocol.ProtocolFactory;
 import com.distrimind.upnp.transport.spi.UpnpStream;
@@ -27,6 +28,7 @@ import io.undertow.server.BlockingHttpExchange;
 import io.undertow.server.HttpServerExchange;
 import io.undertow.util.HeaderMap;
 import io.undertow.util.HeaderValues;
+import io.undertow.util.Headers;
 
 import java.io.InputStream;
 import java.io.OutputStream;
@@ -54,7 +56,8 @@ public abstract class UndertowHttpExchangeUpnpStream extends UpnpStream {
 		return httpExchange;
 	}
 
-	private UpnpRequest.Method getRequestMethod()
+	@Override
+	public UpnpRequest.Method getRequestMethod()
 	{
 		return UpnpRequest.Method.getByHttpName(getHttpExchange().getRequestMethod().toString());
 	}
@@ -172,6 +175,15 @@ public abstract class UndertowHttpExchangeUpnpStream extends UpnpStream {
 
 						// Body
 						byte[] responseBodyBytes = responseMessage.hasBody() ? responseMessage.getBodyBytes() : null;
+						if (responseBodyBytes != null) {
+							ContentEncoding contentEncoding = getResponseContentEncoding(
+									requestMessage.getHeaders().getFirstHeader(ContentEncoding.ACCEPT_ENCODING), responseMessage, responseBodyBytes.length);
+							if (contentEncoding != null) {
+								responseBodyBytes = contentEncoding.encode(responseBodyBytes);
+								httpExchange.getResponseHeaders().put(Headers.CONTENT_ENCODING, contentEncoding.getHttpName());
+								httpExchange.getResponseHeaders().add(Headers.VARY, ContentEncoding.ACCEPT_ENCODING);
+							}
+						}
 						int contentLength = responseBodyBytes != null ? responseBodyBytes.length : -1;
 
 						if (log.isDebugEnabled()) {
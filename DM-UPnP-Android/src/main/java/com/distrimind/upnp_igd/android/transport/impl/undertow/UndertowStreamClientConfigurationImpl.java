@@ -27,6 +27,8 @@ import java.util.concurrent.ExecutorService;
  */
 public class UndertowStreamClientConfigurationImpl extends AbstractStreamClientConfiguration {
 	private boolean usePersistentConnections = false;
+	private int maxConnectionsPerHost = 4;
+	private int idleConnectionTimeoutSeconds = 10;
 	public UndertowStreamClientConfigurationImpl(XnioWorker timeoutExecutorService) {
 		super(timeoutExecutorService);
 	}
@@ -39,7 +41,8 @@ public class UndertowStreamClientConfigurationImpl extends AbstractStreamClientC
 	}
 
 	/**
-	 * Defaults to <code>false</code>, avoiding obscure bugs in the JDK.
+	 * Defaults to <code>false</code>, each request opens its own connection. When enabled, connections are kept
+	 * alive in a {@link UndertowConnectionPool}.
 	 */
 	public boolean isUsePersistentConnections() {
 		return usePersistentConnections;
@@ -49,6 +52,28 @@ public class UndertowStreamClientConfigurationImpl extends AbstractStreamClientC
 		this.usePersistentConnections = usePersistentConnections;
 	}
 
+	/**
+	 * Defaults to <code>4</code>, connections opened beyond this limit are closed after use.
+	 */
+	public int getMaxConnectionsPerHost() {
+		return maxConnectionsPerHost;
+	}
+
+	public void setMaxConnectionsPerHost(int maxConnectionsPerHost) {
+		this.maxConnectionsPerHost = maxConnectionsPerHost;
+	}
+
+	/**
+	 * Defaults to <code>10</code> seconds, below the keep-alive timeout of most servers.
+	 */
+	public int getIdleConnectionTimeoutSeconds() {
+		return idleConnectionTimeoutSeconds;
+	}
+
+	public void setIdleConnectionTimeoutSeconds(int idleConnectionTimeoutSeconds) {
+		this.idleConnectionTimeoutSeconds = idleConnectionTimeoutSeconds;
+	}
+
 	@Override
 	public XnioWorker getRequestExecutorService() {
 		return (XnioWorker)super.getRequestExecutorService();
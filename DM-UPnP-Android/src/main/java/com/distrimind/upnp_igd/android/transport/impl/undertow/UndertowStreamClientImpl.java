@@ -18,11 +18,12 @@ package com.distrimind.upnp.android.transport.impl.undertow;
 
 import com.distrimind.flexilogxml.log.DMLogger;
 import com.distrimind.upnp.Log;
+import com.distrimind.upnp.http.ContentEncoding;
 import com.distrimind.upnp.http.IHeaders;
 import com.distrimind.upnp.model.message.*;
 import com.distrimind.upnp.model.message.header.UpnpHeader;
+import com.distrimind.upnp.transport.spi.AbstractStreamClient;
 import com.distrimind.upnp.transport.spi.InitializationException;
-import com.distrimind.upnp.transport.spi.StreamClient;
 import com.distrimind.upnp.util.Exceptions;
 import com.distrimind.upnp.util.io.IO;
 import io.undertow.client.*;
@@ -36,27 +37,94 @@ import org.xnio.channels.StreamSourceChannel;
 
 import java.io.IOException;
 import java.io.InputStream;
+import java.io.InterruptedIOException;
 import java.net.*;
 import java.nio.ByteBuffer;
 import java.nio.channels.Channels;
 import java.nio.charset.StandardCharsets;
 import java.util.Objects;
+import java.util.concurrent.Callable;
 import java.util.concurrent.CompletableFuture;
-import java.util.concurrent.TimeUnit;
 
 
 /**
+ * Implementation based on the Undertow client.
+ * <p>
+ * Requests are sent asynchronously over the XNIO worker of the configuration: no thread waits for a connection
+ * or a response, except the caller of {@link #sendRequest(StreamRequestMessage)}. The timeouts are enforced by
+ * the scheduler of {@link AbstractStreamClient}, which aborts the request.
+ * </p>
+ *
  * @author Jason Mahdjoub
  * @since 1.2.0
  */
-public class UndertowStreamClientImpl implements StreamClient<UndertowStreamClientConfigurationImpl> {
+public class UndertowStreamClientImpl extends AbstractStreamClient<UndertowStreamClientConfigurationImpl, UndertowStreamClientImpl.UndertowRequest> {
 
 	final private static DMLogger log = Log.getLogger(UndertowStreamClientImpl.class);
 	public static final String COULD_NOT_CREATE_REQUEST = "Could not create request: ";
 
+	/**
+	 * A request being sent, with the connection or the response it is waiting for.
+	 *
+	 * @since 1.5.0
+	 */
+	protected static final class UndertowRequest {
+		private final ClientRequest clientRequest;
+		private final String poolKey;
+		private IoFuture<ClientConnection> connectionFuture;
+		private CompletableFuture<StreamResponseMessage> responseFuture;
+		private boolean aborted;
+
+		UndertowRequest(ClientRequest clientRequest, String poolKey) {
+			this.clientRequest = clientRequest;
+			this.poolKey = poolKey;
+		}
+
+		public ClientRequest getClientRequest() {
+			return clientRequest;
+		}
+
+		public String getPoolKey() {
+			return poolKey;
+		}
+
+		/**
+		 * @return <code>false</code> if the request has been aborted, the connection must not be used.
+		 */
+		synchronized boolean setConnectionFuture(IoFuture<ClientConnection> connectionFuture) {
+			this.connectionFuture = connectionFuture;
+			return !aborted;
+		}
+
+		/**
+		 * @return <code>false</code> if the request has been aborted, the response must not be awaited.
+		 */
+		synchronized boolean setResponseFuture(CompletableFuture<StreamResponseMessage> responseFuture) {
+			this.responseFuture = responseFuture;
+			return !aborted;
+		}
+
+		void abort() {
+			IoFuture<ClientConnection> connectionFuture;
+			CompletableFuture<StreamResponseMessage> responseFuture;
+			synchronized (this) {
+				aborted = true;
+				connectionFuture = this.connectionFuture;
+				responseFuture = this.responseFuture;
+			}
+			if (connectionFuture != null)
+				connectionFuture.cancel();
+			// The connection is given back to the pool, or closed, by the listener of the response
+			if (responseFuture != null)
+				responseFuture.cancel(true);
+		}
+	}
+
 	final protected UndertowStreamClientConfigurationImpl configuration;
 	private final UndertowClient client;
 	private final OptionMap options;
+	private final ByteBufferPool bufferPool;
+	private final UndertowConnectionPool connectionPool;
 	public UndertowStreamClientImpl(UndertowStreamClientConfigurationImpl configuration) throws InitializationException {
 		this.configuration = configuration;
 
@@ -74,6 +142,11 @@ public class UndertowStreamClientImpl implements StreamClient<UndertowStreamClie
 				.set(Options.SSL_CLIENT_SESSION_TIMEOUT, timeout)
 				.set(Options.SSL_SERVER_SESSION_TIMEOUT, timeout)
 				.getMap();
+		// Shared by all connections, pooled connections outlive a single request
+		this.bufferPool = new DefaultByteBufferPool(true, 4096);
+		this.connectionPool = configuration.isUsePersistentConnections()
+				? new UndertowConnectionPool(configuration.getMaxConnectionsPerHost(), configuration.getIdleConnectionTimeoutSeconds() * 1000L)
+				: null;
 	}
 
 	@Override
@@ -82,83 +155,159 @@ public class UndertowStreamClientImpl implements StreamClient<UndertowStreamClie
 	}
 
 	@Override
-	public StreamResponseMessage sendRequest(StreamRequestMessage requestMessage) throws InterruptedException {
-
+	protected UndertowRequest createRequest(StreamRequestMessage requestMessage) {
 		final UpnpRequest requestOperation = requestMessage.getOperation();
 		if (log.isDebugEnabled()) {
 			log.debug("Preparing HTTP request message with method '" + requestOperation.getHttpMethodName() + "': " + requestMessage);
 		}
+		try {
+			ClientRequest request = new ClientRequest()
+					.setPath(requestOperation.getURI().getPath())
+					.setMethod(Objects.requireNonNull(Methods.fromString(requestOperation.getHttpMethodName())));
+			applyRequestProperties(request, requestMessage, requestOperation);
+			return new UndertowRequest(request, UndertowConnectionPool.getKey(requestOperation.getURI()));
+		} catch (RuntimeException ex) {
+			if (log.isWarnEnabled()) log.warn(COULD_NOT_CREATE_REQUEST + requestMessage, Exceptions.unwrap(ex));
+			return null;
+		}
+	}
 
+	@Override
+	protected CompletableFuture<StreamResponseMessage> execute(StreamRequestMessage requestMessage, UndertowRequest request) {
+		CompletableFuture<StreamResponseMessage> execution = new CompletableFuture<>();
+		ClientConnection connection = connectionPool == null ? null : connectionPool.acquire(request.getPoolKey());
+		if (connection != null) {
+			if (log.isDebugEnabled())
+				log.debug("Reusing pooled connection to: " + request.getPoolKey());
+			send(connection, true, true, requestMessage, request, execution);
+		}
+		else
+			connect(requestMessage, request, execution);
+		return execution;
+	}
 
-		IoFuture<ClientConnection> connectionFuture=null;
-		CompletableFuture<StreamResponseMessage> responseFuture=null;
-		try (ByteBufferPool bufferPool = new DefaultByteBufferPool(true, 4096)){
-
-			int timeout=configuration.getTimeoutSeconds();
-
-			connectionFuture= client.connect(requestOperation.getURI(), configuration.getRequestExecutorService(), bufferPool, options);
-
-			if (connectionFuture.await(timeout, TimeUnit.SECONDS)==IoFuture.Status.DONE) {
-				try(ClientConnection connection=connectionFuture.get()) {
-					connectionFuture = null;
-
-					ClientRequest request = new ClientRequest()
-							.setPath(requestOperation.getURI().getPath())
-							.setMethod(Objects.requireNonNull(Methods.fromString(requestOperation.getHttpMethodName())));
-
+	@Override
+	protected Callable<StreamResponseMessage> createCallable(StreamRequestMessage requestMessage, UndertowRequest request) {
+		// Blocking form of execute(), which is used instead
+		return () -> execute(requestMessage, request).get();
+	}
 
-					applyRequestProperties(request, requestMessage, requestOperation);
-					responseFuture = new CompletableFuture<>();
-					applyRequestBodyAndGetResponse(connection, request, requestMessage, responseFuture);
-					StreamResponseMessage r = responseFuture.get();
-					responseFuture = null;
-					return r;
-				}
-			}
-			else {
-				if (log.isWarnEnabled())
-					log.warn("HTTP request failed: " + requestMessage);
-				return null;
+	/**
+	 * Opens a new connection, then sends the request over it.
+	 */
+	protected void connect(StreamRequestMessage requestMessage, UndertowRequest request, CompletableFuture<StreamResponseMessage> execution) {
+		IoFuture<ClientConnection> connectionFuture = client.connect(requestMessage.getOperation().getURI(), configuration.getRequestExecutorService(), bufferPool, options);
+		if (!request.setConnectionFuture(connectionFuture)) {
+			connectionFuture.cancel();
+			return;
+		}
+		connectionFuture.addNotifier((future, attachment) -> {
+			switch (future.getStatus()) {
+				case DONE:
+					ClientConnection connection;
+					try {
+						connection = future.get();
+					} catch (IOException e) {
+						execution.completeExceptionally(e);
+						return;
+					}
+					send(connection, connectionPool != null && connectionPool.lease(request.getPoolKey()), false, requestMessage, request, execution);
+					break;
+				case FAILED:
+					execution.completeExceptionally(future.getException());
+					break;
+				default:
+					// Aborted
+					execution.cancel(false);
+					break;
 			}
+		}, null);
+	}
 
+	/**
+	 * Sends the request over the given connection, then gives the connection back to the pool or closes it.
+	 *
+	 * @param pooled <code>true</code> if the connection is leased from the pool.
+	 * @param retry <code>true</code> if the request is sent again over a new connection when this one fails, i.e.
+	 *              when the server has closed this idle connection before the request could be sent, or before
+	 *              responding. See {@link #isRetryable(Throwable, StreamRequestMessage)}.
+	 */
+	protected void send(ClientConnection connection, boolean pooled, boolean retry, StreamRequestMessage requestMessage, UndertowRequest request, CompletableFuture<StreamResponseMessage> execution) {
+		CompletableFuture<StreamResponseMessage> responseFuture = new CompletableFuture<>();
+		responseFuture.whenComplete((response, ex) -> {
+			boolean reusable = ex == null && response != null
+					&& !"close".equalsIgnoreCase(response.getHeaders().getFirstHeader(Headers.CONNECTION_STRING));
+			if (pooled)
+				connectionPool.release(request.getPoolKey(), connection, reusable);
+			else
+				IoUtils.safeClose(connection);
+			if (ex == null)
+				execution.complete(response);
+			else if (retry && isRetryable(ex, requestMessage)) {
+				if (log.isDebugEnabled())
+					log.debug("Pooled connection failed, retrying with a new connection: " + ex);
+				connect(requestMessage, request, execution);
+			}
+			else
+				execution.completeExceptionally(ex instanceof RequestNotSentException ? ex.getCause() : ex);
+		});
+		if (!request.setResponseFuture(responseFuture)) {
+			responseFuture.cancel(true);
+			return;
 		}
-		catch (InterruptedException ex) {
-			if (log.isDebugEnabled())
-				log.debug("Interruption, aborting request: " + requestMessage);
+		try {
+			applyRequestBodyAndGetResponse(connection, request.getClientRequest(), requestMessage, responseFuture);
+		} catch (IOException | RuntimeException e) {
+			responseFuture.completeExceptionally(e);
+		}
+	}
 
-			throw new InterruptedException("HTTP request interrupted and aborted");
+	/**
+	 * A request which could not be sent is always retried. Once it was sent, the server may have processed it before
+	 * the connection failed, so only a <code>GET</code> request, which has no side effect, is sent again.
+	 * A timeout is not retried, the request has already taken the whole time.
+	 *
+	 * @param ex The failure of the request over a pooled connection.
+	 * @param requestMessage The request.
+	 * @return <code>true</code> if the request can be sent again over a new connection.
+	 */
+	protected boolean isRetryable(Throwable ex, StreamRequestMessage requestMessage) {
+		if (ex instanceof RequestNotSentException)
+			return !(ex.getCause() instanceof InterruptedIOException);
+		return ex instanceof IOException && !(ex instanceof InterruptedIOException)
+				&& requestMessage.getOperation().getMethod() == UpnpRequest.Method.GET;
+	}
 
-		}
-		catch (ProtocolException ex) {
-			if (log.isWarnEnabled()) log.warn("HTTP request failed: " + requestMessage, Exceptions.unwrap(ex));
-			return null;
-		}
-		catch (IOException ex) {
+	@Override
+	protected void abort(UndertowRequest request) {
+		request.abort();
+	}
 
+	@Override
+	protected boolean logExecutionException(Throwable t) {
+		if (t instanceof IOException && !(t instanceof ProtocolException)) {
 			if (log.isDebugEnabled())
-				log.debug("Exception occurred, trying to read the error stream: ", Exceptions.unwrap(ex));
-			return null;
+				log.debug("HTTP request failed: ", Exceptions.unwrap(t));
+			return true;
 		}
-		catch (Exception ex) {
-			if (log.isWarnEnabled()) log.warn("HTTP request failed: " + requestMessage, Exceptions.unwrap(ex));
-			return null;
-
-		} finally {
-
-			if (connectionFuture != null) {
-				connectionFuture.cancel();
-			}
-			if (responseFuture!=null) {
-
-				responseFuture.cancel(true);
+		return false;
+	}
 
-			}
-		}
+	/**
+	 * @return The pool of keep-alive connections, or <code>null</code> if persistent connections are disabled.
+	 */
+	public UndertowConnectionPool getConnectionPool() {
+		return connectionPool;
 	}
 
 	@Override
 	public void stop() {
-		// NOOP
+		if (connectionPool != null) {
+			if (log.isDebugEnabled())
+				log.debug("Closing pooled connections: " + connectionPool);
+			connectionPool.close();
+		}
+		bufferPool.close();
 	}
 
 	protected void applyRequestProperties(ClientRequest request, StreamRequestMessage requestMessage, UpnpRequest requestOperation) {
@@ -175,8 +324,11 @@ public class UndertowStreamClientImpl implements StreamClient<UndertowStreamClie
 					requestMessage.getUdaMinorVersion()));
 		}
 
-
-
+		// Let the server compress large responses
+		if (getConfiguration().isAcceptCompressedResponses()
+				&& headers.getFirstHeader(ContentEncoding.ACCEPT_ENCODING) == null) {
+			request.getRequestHeaders().put(Headers.ACCEPT_ENCODING, ContentEncoding.ACCEPTED_ENCODINGS);
+		}
 
 		// Other headers
 		applyHeaders(request, requestMessage.getHeaders(), requestOperation);
@@ -243,26 +395,36 @@ public class UndertowStreamClientImpl implements StreamClient<UndertowStreamClie
 
 						@Override
 						public void failed(IOException e) {
-							log.error("Failed to get response", e);
-							responseFuture.complete(null);
+							// Reported by the caller, which might retry on a new connection
+							responseFuture.completeExceptionally(e);
 						}
 					});
 				} catch (IOException e) {
-					log.error("Failed to write body", e);
-					responseFuture.complete(null);
+					responseFuture.completeExceptionally(e);
 				}
 			}
 
 			@Override
 			public void failed(IOException e) {
-				log.error("Failed to send request", e);
-				responseFuture.complete(null);
+				// Reported by the caller, which might retry on a new connection
+				responseFuture.completeExceptionally(new RequestNotSentException(e));
 			}
 		});
 
 
 	}
 
+	/**
+	 * Failure of a request which was not sent, reported with its cause.
+	 */
+	protected static class RequestNotSentException extends IOException {
+		private static final long serialVersionUID = 1L;
+
+		public RequestNotSentException(IOException cause) {
+			super(cause.getMessage(), cause);
+		}
+	}
+
 	protected StreamResponseMessage createResponse(ClientExchange result, ClientRequest request) throws Exception {
 
 		final ClientResponse response=result.getResponse();
@@ -299,6 +461,8 @@ public class UndertowStreamClientImpl implements StreamClient<UndertowStreamClie
 				bodyBytes = IO.readBytes(is);
 			}
 		}
+		bodyBytes = ContentEncoding.decode(responseMessage.getHeaders().getFirstHeader(ContentEncoding.CONTENT_ENCODING), bodyBytes);
+		responseMessage.getHeaders().remove(ContentEncoding.CONTENT_ENCODING);
 
 		if (bodyBytes != null && bodyBytes.length > 0 && responseMessage.isContentTypeMissingOrText()) {
 
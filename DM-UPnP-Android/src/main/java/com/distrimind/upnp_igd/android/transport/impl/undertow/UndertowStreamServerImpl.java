@@ -144,6 +144,11 @@ public class UndertowStreamServerImpl implements StreamServer<StreamServerConfig
 						protected Connection createConnection() {
 							return new HttpServerConnection(exchange);
 						}
+
+						@Override
+						protected int getMinCompressedBodyLength() {
+							return configuration.getMinCompressedBodyLength();
+						}
 					}
 			);
 		}
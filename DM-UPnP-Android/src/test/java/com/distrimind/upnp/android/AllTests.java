@@ -52,9 +52,15 @@ package com.distrimind.upnp.android;
 import com.distrimind.flexilogxml.FlexiLogXML;
 import com.distrimind.flexilogxml.TestGroup;
 import com.distrimind.flexilogxml.Tests;
+import com.distrimind.upnp.android.transport.JDKServerHttpClientTest;
 import com.distrimind.upnp.android.transport.JDKServerJDKClientTest;
+import com.distrimind.upnp.android.transport.JDKServerThreadPerRequestTest;
 import com.distrimind.upnp.android.transport.JDKServerUndertowClientTest;
+import com.distrimind.upnp.android.transport.NioServerJDKClientTest;
+import com.distrimind.upnp.android.transport.UndertowServerHttpClientTest;
+import com.distrimind.upnp.android.transport.UndertowConnectionPoolTest;
 import com.distrimind.upnp.android.transport.UndertowServerJDKClientTest;
+import com.distrimind.upnp.android.transport.UndertowServerPooledUndertowClientTest;
 import com.distrimind.upnp.android.transport.UndertowServerUndertowClientTest;
 import com.distrimind.flexilogxml.log.Level;
 
@@ -71,7 +77,13 @@ public class AllTests {
 						JDKServerJDKClientTest.class,
 						UndertowServerUndertowClientTest.class,
 						UndertowServerJDKClientTest.class,
-						JDKServerUndertowClientTest.class
+						JDKServerUndertowClientTest.class,
+						JDKServerHttpClientTest.class,
+						UndertowServerHttpClientTest.class,
+						UndertowServerPooledUndertowClientTest.class,
+						JDKServerThreadPerRequestTest.class,
+						NioServerJDKClientTest.class,
+						UndertowConnectionPoolTest.class
 				))
 		);
 		if (additionalTestGroups!=null)
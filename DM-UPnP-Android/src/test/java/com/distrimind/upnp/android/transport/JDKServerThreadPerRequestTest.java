@@ -0,0 +1,119 @@
+/*
+ *     This library is free software; you can redistribute it and/or
+ *     modify it under the terms of the GNU Lesser General Public
+ *     License as published by the Free Software Foundation; either
+ *     version 2.1 of the License.
+ *
+ *     This library is distributed in the hope that it will be useful,
+ *     but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *     MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ *     Lesser General Public License for more details.
+ *
+ *     You should have received a copy of the GNU Lesser General Public
+ *     License along with this library; if not, write to the Free Software
+ *     Foundation, Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301  USA
+ */
+
+package com.distrimind.upnp.android.transport;
+
+import com.distrimind.upnp.desktop.transport.impl.StreamServerImpl;
+import com.distrimind.upnp.model.message.StreamResponseMessage;
+import com.distrimind.upnp.platform.Platform;
+import com.distrimind.upnp.transport.impl.StreamServerConfigurationImpl;
+import com.distrimind.upnp.transport.spi.StreamServer;
+import org.testng.annotations.Test;
+
+import java.io.IOException;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executor;
+import java.util.concurrent.TimeUnit;
+
+import static org.testng.Assert.*;
+
+/**
+ * Tests the JDK server handling each request on its own thread, with at most one concurrent request.
+ *
+ * @author Jason Mahdjoub
+ * @since 1.5.0
+ */
+public class JDKServerThreadPerRequestTest extends StreamServerClientTest {
+
+	private volatile Executor virtualThreadExecutor;
+
+	protected JDKServerThreadPerRequestTest() throws IOException {
+		super(Platform.DESKTOP, Platform.DESKTOP);
+	}
+
+	@Override
+	protected StreamServer<?> createStreamServer(int port) {
+		StreamServerConfigurationImpl configuration = new StreamServerConfigurationImpl(port);
+		configuration.setVirtualThreadPerRequest(true);
+		configuration.setMaxConcurrentRequests(1);
+		return new StreamServerImpl(configuration) {
+			@Override
+			protected Executor createVirtualThreadExecutor() {
+				virtualThreadExecutor = super.createVirtualThreadExecutor();
+				// A thread per request on JDKs without virtual threads, so that the limit is tested anyway
+				return virtualThreadExecutor != null
+						? virtualThreadExecutor
+						: runnable -> new Thread(runnable).start();
+			}
+		};
+	}
+
+	@Test
+	public void saturated() throws Exception {
+		CompletableFuture<StreamResponseMessage> delayed = client.sendRequestAsync(createRequestMessage(DelayedResponse.PATH));
+		Thread.sleep(500);
+
+		// The only permit is held by the delayed request
+		StreamResponseMessage responseMessage = client.sendRequest(createRequestMessage(OKBodyResponse.PATH));
+		assertEquals(responseMessage.getOperation().getStatusCode(), 503);
+
+		responseMessage = delayed.get(5, TimeUnit.SECONDS);
+		assertEquals(responseMessage.getOperation().getStatusCode(), 200);
+
+		// The permit is released once the response has been sent
+		Thread.sleep(500);
+		responseMessage = client.sendRequest(createRequestMessage(OKBodyResponse.PATH));
+		assertEquals(responseMessage.getOperation().getStatusCode(), 200);
+		assertEquals(responseMessage.getBodyString(), "foo");
+	}
+
+	@Test
+	public void virtualThreadExecutor() throws Exception {
+		if (Runtime.version().feature() < 21) {
+			assertNull(virtualThreadExecutor);
+			return;
+		}
+		assertNotNull(virtualThreadExecutor);
+		CompletableFuture<Object> virtual = new CompletableFuture<>();
+		virtualThreadExecutor.execute(() -> {
+			try {
+				// Thread.isVirtual() is not available with the release level of this build
+				virtual.complete(Thread.class.getMethod("isVirtual").invoke(Thread.currentThread()));
+			} catch (ReflectiveOperationException e) {
+				virtual.completeExceptionally(e);
+			}
+		});
+		assertEquals(virtual.get(5, TimeUnit.SECONDS), Boolean.TRUE);
+	}
+
+	// DISABLED, NOT SUPPORTED
+
+	@Override
+	public void cancelled()  {
+	}
+
+	@Override
+	public void checkAlive(){
+	}
+
+	@Override
+	public void checkAliveExpired() {
+	}
+
+	@Override
+	public void checkAliveCancelled() {
+	}
+}
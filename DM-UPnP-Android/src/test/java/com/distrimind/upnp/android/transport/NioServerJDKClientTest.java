@@ -0,0 +1,230 @@
+/*
+ *     This library is free software; you can redistribute it and/or
+ *     modify it under the terms of the GNU Lesser General Public
+ *     License as published by the Free Software Foundation; either
+ *     version 2.1 of the License.
+ *
+ *     This library is distributed in the hope that it will be useful,
+ *     but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *     MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ *     Lesser General Public License for more details.
+ *
+ *     You should have received a copy of the GNU Lesser General Public
+ *     License along with this library; if not, write to the Free Software
+ *     Foundation, Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301  USA
+ */
+
+package com.distrimind.upnp.android.transport;
+
+import com.distrimind.upnp.platform.Platform;
+import com.distrimind.upnp.transport.impl.NioStreamServerImpl;
+import com.distrimind.upnp.transport.impl.StreamServerConfigurationImpl;
+import com.distrimind.upnp.transport.spi.StreamServer;
+import org.testng.annotations.Test;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.Socket;
+import java.nio.charset.StandardCharsets;
+import java.util.HashMap;
+import java.util.Locale;
+import java.util.Map;
+
+import static org.testng.Assert.*;
+
+/**
+ * Tests the NIO server with the JDK client, and over raw sockets for the connection handling.
+ *
+ * @author Jason Mahdjoub
+ * @since 1.5.0
+ */
+public class NioServerJDKClientTest extends StreamServerClientTest {
+
+	protected NioServerJDKClientTest() throws IOException {
+		super(Platform.DESKTOP, Platform.DESKTOP);
+	}
+
+	@Override
+	protected StreamServer<?> createStreamServer(int port) {
+		return new NioStreamServerImpl(new StreamServerConfigurationImpl(port));
+	}
+
+	@Test
+	public void keepAlive() throws Exception {
+		try (Socket socket = connect()) {
+			write(socket, "GET " + OKBodyResponse.PATH + " HTTP/1.1\r\nHost: " + TEST_HOST + "\r\n\r\n");
+			Response response = read(socket.getInputStream());
+			assertEquals(response.statusCode, 200);
+			assertNull(response.headers.get("connection"));
+			assertEquals(response.body, "foo");
+
+			// Same connection
+			write(socket, "GET " + OKEmptyResponse.PATH + " HTTP/1.1\r\nHost: " + TEST_HOST + "\r\n\r\n");
+			response = read(socket.getInputStream());
+			assertEquals(response.statusCode, 200);
+			assertEquals(response.body, "");
+
+			write(socket, "GET " + NoResponse.PATH + " HTTP/1.1\r\nHost: " + TEST_HOST + "\r\n\r\n");
+			response = read(socket.getInputStream());
+			assertEquals(response.statusCode, 404);
+		}
+	}
+
+	@Test
+	public void partialReads() throws Exception {
+		try (Socket socket = connect()) {
+			String body = "<test>partial</test>";
+			String request = "POST " + OKBodyResponse.PATH + " HTTP/1.1\r\nHost: " + TEST_HOST
+					+ "\r\nContent-Type: text/xml\r\nContent-Length: " + body.length() + "\r\n\r\n" + body;
+			// Cut within the request line, a header, the blank line and the body
+			int[] cuts = {3, 30, request.indexOf("\r\n\r\n") + 2, request.length() - 5};
+			int start = 0;
+			for (int cut : cuts) {
+				write(socket, request.substring(start, cut));
+				Thread.sleep(100);
+				start = cut;
+			}
+			write(socket, request.substring(start));
+
+			Response response = read(socket.getInputStream());
+			assertEquals(response.statusCode, 200);
+			assertEquals(response.body, "foo");
+		}
+	}
+
+	@Test
+	public void pipelined() throws Exception {
+		try (Socket socket = connect()) {
+			write(socket, "GET " + OKBodyResponse.PATH + " HTTP/1.1\r\nHost: " + TEST_HOST + "\r\n\r\n"
+					+ "GET " + NoResponse.PATH + " HTTP/1.1\r\nHost: " + TEST_HOST + "\r\n\r\n");
+			InputStream in = socket.getInputStream();
+			// In order
+			Response response = read(in);
+			assertEquals(response.statusCode, 200);
+			assertEquals(response.body, "foo");
+			response = read(in);
+			assertEquals(response.statusCode, 404);
+		}
+	}
+
+	@Test
+	public void connectionClose() throws Exception {
+		try (Socket socket = connect()) {
+			write(socket, "GET " + OKBodyResponse.PATH + " HTTP/1.1\r\nHost: " + TEST_HOST + "\r\nConnection: close\r\n\r\n");
+			InputStream in = socket.getInputStream();
+			Response response = read(in);
+			assertEquals(response.statusCode, 200);
+			assertEquals(response.headers.get("connection"), "close");
+			assertEquals(response.body, "foo");
+			assertEquals(in.read(), -1);
+		}
+	}
+
+	@Test
+	public void head() throws Exception {
+		try (Socket socket = connect()) {
+			write(socket, "HEAD " + OKBodyResponse.PATH + " HTTP/1.1\r\nHost: " + TEST_HOST + "\r\n\r\n");
+			InputStream in = socket.getInputStream();
+			Response response = read(in, false);
+			assertEquals(response.statusCode, 200);
+			assertEquals(response.headers.get("content-length"), "3");
+
+			// No body was sent, the next response follows the head
+			write(socket, "GET " + OKBodyResponse.PATH + " HTTP/1.1\r\nHost: " + TEST_HOST + "\r\n\r\n");
+			response = read(in);
+			assertEquals(response.statusCode, 200);
+			assertEquals(response.body, "foo");
+		}
+	}
+
+	@Test
+	public void invalidRequest() throws Exception {
+		try (Socket socket = connect()) {
+			write(socket, "INVALID\r\n\r\n");
+			InputStream in = socket.getInputStream();
+			Response response = read(in);
+			assertEquals(response.statusCode, 400);
+			assertEquals(in.read(), -1);
+		}
+	}
+
+	protected Socket connect() throws IOException {
+		Socket socket = new Socket(TEST_HOST, testPort);
+		socket.setSoTimeout(5000);
+		return socket;
+	}
+
+	protected static void write(Socket socket, String s) throws IOException {
+		OutputStream out = socket.getOutputStream();
+		out.write(s.getBytes(StandardCharsets.ISO_8859_1));
+		out.flush();
+	}
+
+	/**
+	 * Reads one response, framed by its <code>Content-Length</code>.
+	 */
+	protected static Response read(InputStream in) throws IOException {
+		return read(in, true);
+	}
+
+	/**
+	 * Reads one response head, and its body if there is one.
+	 */
+	protected static Response read(InputStream in, boolean withBody) throws IOException {
+		Response response = new Response();
+		String statusLine = readLine(in);
+		assertTrue(statusLine.startsWith("HTTP/1.1 "), statusLine);
+		response.statusCode = Integer.parseInt(statusLine.substring(9, 12));
+		String line;
+		while (!(line = readLine(in)).isEmpty()) {
+			int colon = line.indexOf(':');
+			response.headers.put(line.substring(0, colon).trim().toLowerCase(Locale.ROOT), line.substring(colon + 1).trim());
+		}
+		String contentLength = response.headers.get("content-length");
+		assertNotNull(contentLength);
+		if (!withBody)
+			return response;
+		byte[] body = new byte[Integer.parseInt(contentLength)];
+		int read = 0;
+		while (read < body.length) {
+			int n = in.read(body, read, body.length - read);
+			assertTrue(n > 0, "Connection closed before the end of the body");
+			read += n;
+		}
+		response.body = new String(body, StandardCharsets.UTF_8);
+		return response;
+	}
+
+	private static String readLine(InputStream in) throws IOException {
+		ByteArrayOutputStream line = new ByteArrayOutputStream();
+		int b;
+		while ((b = in.read()) != '\n') {
+			assertTrue(b >= 0, "Connection closed before the end of the head");
+			if (b != '\r')
+				line.write(b);
+		}
+		return new String(line.toByteArray(), StandardCharsets.ISO_8859_1);
+	}
+
+	protected static class Response {
+		int statusCode;
+		final Map<String, String> headers = new HashMap<>();
+		String body;
+	}
+
+	// DISABLED, NOT SUPPORTED BY THE JDK CLIENT
+
+	@Override
+	public void cancelled()  {
+	}
+
+	@Override
+	public void checkAliveExpired() {
+	}
+
+	@Override
+	public void checkAliveCancelled() {
+	}
+}
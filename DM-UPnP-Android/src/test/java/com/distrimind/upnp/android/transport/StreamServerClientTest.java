@@ -156,13 +156,13 @@ abstract public class StreamServerClientTest {
         try {
             testPort=8081;
 
-            server = configurationServer.createStreamServer(testPort);
+            server = createStreamServer(testPort);
 
             server.init(InetAddress.getByName(TEST_HOST), router, configurationServer.createNetworkAddressFactory());
             configurationServer.getStreamServerExecutorService().execute(server);
             Thread.sleep(2000);
             testPort =server.getPort();
-            client = configurationClient.createStreamClient(3);
+            client = createStreamClient();
 
         }
         catch (Throwable e)
@@ -190,6 +190,20 @@ abstract public class StreamServerClientTest {
         }
     }
 
+    /**
+     * @return The server under test, the one of the server configuration by default.
+     */
+    protected StreamServer<?> createStreamServer(int port) {
+        return configurationServer.createStreamServer(port);
+    }
+
+    /**
+     * @return The client under test, the one of the client configuration by default.
+     */
+    protected StreamClient<?> createStreamClient() {
+        return configurationClient.createStreamClient(3);
+    }
+
     @BeforeMethod
     public void clearLastProtocol() {
         lastExecutedServerProtocol = null;
@@ -0,0 +1,172 @@
+/*
+ *     This library is free software; you can redistribute it and/or
+ *     modify it under the terms of the GNU Lesser General Public
+ *     License as published by the Free Software Foundation; either
+ *     version 2.1 of the License.
+ *
+ *     This library is distributed in the hope that it will be useful,
+ *     but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *     MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ *     Lesser General Public License for more details.
+ *
+ *     You should have received a copy of the GNU Lesser General Public
+ *     License along with this library; if not, write to the Free Software
+ *     Foundation, Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301  USA
+ */
+
+package com.distrimind.upnp.android.transport;
+
+import com.distrimind.upnp.android.transport.impl.undertow.UndertowConnectionPool;
+import io.undertow.client.ClientConnection;
+import org.testng.annotations.Test;
+
+import java.lang.reflect.Proxy;
+import java.net.URI;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import static org.testng.Assert.*;
+
+/**
+ * @author Jason Mahdjoub
+ * @since 1.5.0
+ */
+public class UndertowConnectionPoolTest {
+
+    static final String HOST = UndertowConnectionPool.getKey(URI.create("http://192.168.1.10:8080/dev/desc.xml"));
+    static final String OTHER_HOST = UndertowConnectionPool.getKey(URI.create("http://192.168.1.20/dev/desc.xml"));
+
+    @Test
+    public void keys() {
+        assertEquals(HOST, "http://192.168.1.10:8080");
+        assertEquals(OTHER_HOST, "http://192.168.1.20:80");
+        assertEquals(UndertowConnectionPool.getKey(URI.create("HTTPS://192.168.1.20/")), "https://192.168.1.20:443");
+    }
+
+    @Test
+    public void reuse() {
+        UndertowConnectionPool pool = new UndertowConnectionPool(2, 60000);
+        assertNull(pool.acquire(HOST));
+
+        TestConnection connection = new TestConnection();
+        assertTrue(pool.lease(HOST));
+        assertEquals(pool.getLeasedConnections(), 1);
+        pool.release(HOST, connection.proxy, true);
+        assertEquals(pool.getLeasedConnections(), 0);
+        assertEquals(pool.getIdleConnections(), 1);
+        assertFalse(connection.closed.get());
+
+        // Only reused by the same host
+        assertNull(pool.acquire(OTHER_HOST));
+        assertSame(pool.acquire(HOST), connection.proxy);
+        assertEquals(pool.getReusedConnections(), 1);
+        assertEquals(pool.getLeasedConnections(), 1);
+        assertEquals(pool.getIdleConnections(), 0);
+
+        // Not given back to the pool after a failed exchange
+        pool.release(HOST, connection.proxy, false);
+        assertTrue(connection.closed.get());
+        assertEquals(pool.getIdleConnections(), 0);
+        assertNull(pool.acquire(HOST));
+        assertEquals(pool.getCreatedConnections(), 1);
+    }
+
+    @Test
+    public void closedByServer() {
+        UndertowConnectionPool pool = new UndertowConnectionPool(2, 60000);
+        TestConnection first = new TestConnection();
+        TestConnection second = new TestConnection();
+        assertTrue(pool.lease(HOST));
+        assertTrue(pool.lease(HOST));
+        pool.release(HOST, first.proxy, true);
+        pool.release(HOST, second.proxy, true);
+        assertEquals(pool.getIdleConnections(), 2);
+
+        // The most recently used one is closed, the other one is handed out
+        second.closed.set(true);
+        assertSame(pool.acquire(HOST), first.proxy);
+        assertEquals(pool.getEvictedConnections(), 1);
+        assertEquals(pool.getIdleConnections(), 0);
+    }
+
+    @Test
+    public void maxConnectionsPerHost() {
+        UndertowConnectionPool pool = new UndertowConnectionPool(2, 60000);
+        assertTrue(pool.lease(HOST));
+        assertTrue(pool.lease(HOST));
+        assertFalse(pool.lease(HOST));
+        assertEquals(pool.getUnpooledConnections(), 1);
+        assertTrue(pool.lease(OTHER_HOST));
+
+        // Idle connections count for the limit too
+        TestConnection connection = new TestConnection();
+        pool.release(HOST, connection.proxy, true);
+        assertEquals(pool.getIdleConnections(), 1);
+        assertFalse(pool.lease(HOST));
+        assertEquals(pool.getUnpooledConnections(), 2);
+
+        // A connection closed instead of being given back frees its place
+        pool.release(HOST, new TestConnection().proxy, false);
+        assertTrue(pool.lease(HOST));
+        assertEquals(pool.getCreatedConnections(), 4);
+        assertEquals(pool.getLeasedConnections(), 2);
+    }
+
+    @Test
+    public void idleEviction() throws Exception {
+        UndertowConnectionPool pool = new UndertowConnectionPool(2, 100);
+        TestConnection expired = new TestConnection();
+        TestConnection otherHost = new TestConnection();
+        assertTrue(pool.lease(HOST));
+        pool.release(HOST, expired.proxy, true);
+        assertTrue(pool.lease(OTHER_HOST));
+        pool.release(OTHER_HOST, otherHost.proxy, true);
+
+        Thread.sleep(250);
+
+        // The expired connection is not handed out, and the idle connections of the other hosts are swept
+        assertNull(pool.acquire(HOST));
+        assertTrue(expired.closed.get());
+        assertTrue(otherHost.closed.get());
+        assertEquals(pool.getEvictedConnections(), 2);
+        assertEquals(pool.getIdleConnections(), 0);
+    }
+
+    @Test
+    public void close() {
+        UndertowConnectionPool pool = new UndertowConnectionPool(2, 60000);
+        TestConnection idle = new TestConnection();
+        TestConnection leased = new TestConnection();
+        assertTrue(pool.lease(HOST));
+        assertTrue(pool.lease(HOST));
+        pool.release(HOST, idle.proxy, true);
+
+        pool.close();
+        assertTrue(idle.closed.get());
+        assertFalse(leased.closed.get());
+        pool.release(HOST, leased.proxy, true);
+        assertTrue(leased.closed.get());
+        assertFalse(pool.lease(HOST));
+    }
+
+    static class TestConnection {
+        final AtomicBoolean closed = new AtomicBoolean();
+        final ClientConnection proxy = (ClientConnection) Proxy.newProxyInstance(
+                ClientConnection.class.getClassLoader(),
+                new Class<?>[]{ClientConnection.class},
+                (p, method, args) -> {
+                    switch (method.getName()) {
+                        case "isOpen":
+                            return !closed.get();
+                        case "close":
+                            closed.set(true);
+                            return null;
+                        case "hashCode":
+                            return System.identityHashCode(p);
+                        case "equals":
+                            return p == args[0];
+                        default:
+                            throw new UnsupportedOperationException(method.getName());
+                    }
+                });
+    }
+}
@@ -0,0 +1,47 @@
+/*
+ *     This library is free software; you can redistribute it and/or
+ *     modify it under the terms of the GNU Lesser General Public
+ *     License as published by the Free Software Foundation; either
+ *     version 2.1 of the License.
+ *
+ *     This library is distributed in the hope that it will be useful,
+ *     but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *     MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ *     Lesser General Public License for more details.
+ *
+ *     You should have received a copy of the GNU Lesser General Public
+ *     License along with this library; if not, write to the Free Software
+ *     Foundation, Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301  USA
+ */
+
+package com.distrimind.upnp.android.transport;
+
+import com.distrimind.upnp.desktop.transport.impl.HttpClientStreamClientConfigurationImpl;
+import com.distrimind.upnp.desktop.transport.impl.HttpClientStreamClientImpl;
+import com.distrimind.upnp.platform.Platform;
+import com.distrimind.upnp.transport.spi.StreamClient;
+
+import java.io.IOException;
+
+/**
+ * @author Jason Mahdjoub
+ * @since 1.5.0
+ */
+public class UndertowServerHttpClientTest extends StreamServerClientTest {
+	protected UndertowServerHttpClientTest() throws IOException {
+		super(Platform.ANDROID, Platform.DESKTOP);
+	}
+
+	@Override
+	protected StreamClient<?> createStreamClient() {
+		return new HttpClientStreamClientImpl(new HttpClientStreamClientConfigurationImpl(null, 3));
+	}
+
+	@Override
+	public void checkAliveCancelled() {
+	}
+
+	@Override
+	public void checkAliveExpired() {
+	}
+}
@@ -0,0 +1,75 @@
+/*
+ *     This library is free software; you can redistribute it and/or
+ *     modify it under the terms of the GNU Lesser General Public
+ *     License as published by the Free Software Foundation; either
+ *     version 2.1 of the License.
+ *
+ *     This library is distributed in the hope that it will be useful,
+ *     but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *     MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ *     Lesser General Public License for more details.
+ *
+ *     You should have received a copy of the GNU Lesser General Public
+ *     License along with this library; if not, write to the Free Software
+ *     Foundation, Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301  USA
+ */
+
+package com.distrimind.upnp.android.transport;
+
+import com.distrimind.upnp.android.transport.impl.undertow.UndertowConnectionPool;
+import com.distrimind.upnp.android.transport.impl.undertow.UndertowStreamClientConfigurationImpl;
+import com.distrimind.upnp.android.transport.impl.undertow.UndertowStreamClientImpl;
+import com.distrimind.upnp.android.transport.impl.undertow.Worker;
+import com.distrimind.upnp.model.message.StreamResponseMessage;
+import com.distrimind.upnp.platform.Platform;
+import com.distrimind.upnp.transport.spi.InitializationException;
+import com.distrimind.upnp.transport.spi.StreamClient;
+import org.testng.annotations.Test;
+
+import java.io.IOException;
+
+import static org.testng.Assert.*;
+
+/**
+ * Runs the tests with keep-alive connections, reused from a {@link UndertowConnectionPool}.
+ *
+ * @author Jason Mahdjoub
+ * @since 1.5.0
+ */
+public class UndertowServerPooledUndertowClientTest extends StreamServerClientTest {
+	protected UndertowServerPooledUndertowClientTest() throws IOException {
+		super(Platform.ANDROID, Platform.ANDROID);
+	}
+
+	@Override
+	protected StreamClient<?> createStreamClient() {
+		UndertowStreamClientConfigurationImpl configuration = new UndertowStreamClientConfigurationImpl(Worker.createDefaultWorker(), 3);
+		configuration.setUsePersistentConnections(true);
+		try {
+			return new UndertowStreamClientImpl(configuration);
+		} catch (InitializationException e) {
+			throw new IllegalStateException(e);
+		}
+	}
+
+	@Test
+	public void reusedConnections() throws Exception {
+		UndertowConnectionPool pool = ((UndertowStreamClientImpl) client).getConnectionPool();
+		assertNotNull(pool);
+		long reused = pool.getReusedConnections();
+		for (int i = 0; i < 3; i++) {
+			StreamResponseMessage responseMessage = client.sendRequest(createRequestMessage(OKBodyResponse.PATH));
+			assertEquals(responseMessage.getOperation().getStatusCode(), 200);
+			assertEquals(responseMessage.getBodyString(), "foo");
+		}
+		assertTrue(pool.getReusedConnections() >= reused + 2);
+	}
+
+	@Override
+	public void checkAliveCancelled() {
+	}
+
+	@Override
+	public void checkAliveExpired() {
+	}
+}
@@ -25,16 +25,24 @@ import com.distrimind.upnp.model.message.UpnpHeaders;
 import com.distrimind.upnp.model.meta.RemoteDeviceIdentity;
 import com.distrimind.upnp.model.meta.RemoteService;
 import com.distrimind.upnp.model.types.ServiceType;
+import com.distrimind.upnp.platform.ExecutorPoolConfiguration;
+import com.distrimind.upnp.platform.ExecutorRole;
 import com.distrimind.upnp.platform.Platform;
 import com.distrimind.upnp.platform.PlatformUpnpServiceConfiguration;
+import com.distrimind.upnp.platform.ProtocolPriorityExecutor;
+import com.distrimind.upnp.transport.impl.DatagramBufferPool;
+import com.distrimind.upnp.transport.impl.DatagramDuplicateFilter;
 import com.distrimind.upnp.transport.impl.DatagramProcessorImpl;
 import com.distrimind.upnp.transport.impl.NetworkAddressFactoryImpl;
 import com.distrimind.upnp.transport.spi.*;
 import jakarta.enterprise.inject.Alternative;
 
 import java.io.IOException;
+import java.util.EnumMap;
+import java.util.Map;
 import java.util.concurrent.Executor;
 import java.util.concurrent.ExecutorService;
+import java.util.concurrent.ScheduledExecutorService;
 
 import com.distrimind.flexilogxml.log.DMLogger;
 
@@ -49,8 +57,22 @@ import com.distrimind.flexilogxml.log.DMLogger;
  * {@link com.distrimind.upnp.binding.xml}.
  * </p>
  * <p>
+ * Datagrams are received by one blocking thread per network interface and bind address. Enable
+ * {@link PlatformUpnpServiceConfiguration#isDatagramSelectorEnabled()} to serve all of them with a single
+ * selector thread.
+ * </p>
+ * <p>
+ * Likewise, {@link PlatformUpnpServiceConfiguration#createNioStreamServer(int)} creates a stream server
+ * served by a single selector thread, which needs no HTTP server library.
+ * </p>
+ * <p>
  * Note that this pool is effectively unlimited, so the number of threads will
- * grow (and shrink) as needed - or restricted by your JVM.
+ * grow (and shrink) as needed - or restricted by your JVM. On runtimes supporting virtual threads, each task
+ * runs on its own virtual thread, see {@link PlatformUpnpServiceConfiguration#isVirtualThreadExecutorEnabled()}. Call {@link #setBoundedExecutors()} or
+ * {@link #setBoundedExecutor(ExecutorRole, ExecutorPoolConfiguration)} before starting the UPnP service to
+ * run each {@link ExecutorRole} on its own bounded and named pool instead, so that a burst of work in one
+ * role cannot starve the others. The behaviour of a saturated pool is documented for each role. With
+ * {@link #setProtocolPriorityExecutor(ProtocolPriorityExecutor)}, the protocols are run by priority instead.
  * </p>
  * <p>
  * The default {@link Namespace} is configured without any
@@ -69,6 +91,7 @@ public class DefaultUpnpServiceConfiguration implements UpnpServiceConfiguration
     protected final PlatformUpnpServiceConfiguration platformUpnpServiceConfiguration;
     private final ExecutorService defaultExecutorService;
     private final ExecutorService defaultAndroidExecutorService;
+    private final ScheduledExecutorService asyncProtocolScheduledExecutorService;
     final private DatagramProcessor datagramProcessor;
     final private SOAPActionProcessor soapActionProcessor;
     final private GENAEventProcessor genaEventProcessor;
@@ -79,6 +102,8 @@ public class DefaultUpnpServiceConfiguration implements UpnpServiceConfiguration
     final private Namespace namespace;
     final private int multicastPort;
     private NetworkAddressFactory networkAddressFactory;
+    // Copied on write, read for every task submission
+    private volatile Map<ExecutorRole, ExecutorService> boundedExecutorServices = new EnumMap<>(ExecutorRole.class);
     /**
      * Defaults to port '0', ephemeral.
      */
@@ -124,6 +149,7 @@ public class DefaultUpnpServiceConfiguration implements UpnpServiceConfiguration
         platformUpnpServiceConfiguration = platform.getInstance();
         defaultExecutorService=createDefaultExecutorService();
         defaultAndroidExecutorService=platform==Platform.ANDROID?platform.getInstance().createDefaultAndroidExecutorService():defaultExecutorService;
+        asyncProtocolScheduledExecutorService=createAsyncProtocolScheduledExecutorService();
         datagramProcessor = createDatagramProcessor();
         soapActionProcessor = createSOAPActionProcessor();
         genaEventProcessor = createGENAEventProcessor();
@@ -169,6 +195,13 @@ public class DefaultUpnpServiceConfiguration implements UpnpServiceConfiguration
         return platformUpnpServiceConfiguration.createDatagramIO(networkAddressFactory);
     }
 
+    /**
+     * @return The receive buffers shared by the datagram receivers of this stack.
+     */
+    public DatagramBufferPool getDatagramBufferPool() {
+        return platformUpnpServiceConfiguration.getDatagramBufferPool();
+    }
+
     @Override
     public StreamServer<?> createStreamServer(NetworkAddressFactory networkAddressFactory) {
         return platformUpnpServiceConfiguration.createStreamServer(networkAddressFactory);
@@ -180,17 +213,17 @@ public class DefaultUpnpServiceConfiguration implements UpnpServiceConfiguration
 
     @Override
     public Executor getMulticastReceiverExecutor() {
-        return getDefaultExecutorService();
+        return getExecutorService(ExecutorRole.MULTICAST_RECEIVER);
     }
 
     @Override
     public Executor getDatagramIOExecutor() {
-        return getDefaultExecutorService();
+        return getExecutorService(ExecutorRole.DATAGRAM_IO);
     }
 
     @Override
     public ExecutorService getStreamServerExecutorService() {
-        return getDefaultExecutorService();
+        return getExecutorService(ExecutorRole.STREAM_SERVER);
     }
 
     @Override
@@ -244,6 +277,14 @@ public class DefaultUpnpServiceConfiguration implements UpnpServiceConfiguration
     	return platformUpnpServiceConfiguration.getAliveIntervalMillis();
     }
 
+    /**
+     * @return Defaults to <code>0</code>, the network is not polled.
+     */
+    @Override
+    public int getNetworkMonitorIntervalMillis() {
+        return platformUpnpServiceConfiguration.getNetworkMonitorIntervalMillis();
+    }
+
     @Override
     public Integer getRemoteDeviceMaxAgeSeconds() {
         return platformUpnpServiceConfiguration.getRemoteDeviceMaxAgeSeconds();
@@ -251,12 +292,17 @@ public class DefaultUpnpServiceConfiguration implements UpnpServiceConfiguration
 
     @Override
     public Executor getAsyncProtocolExecutor() {
-        return getDefaultExecutorService();
+        return getExecutorService(ExecutorRole.ASYNC_PROTOCOL);
     }
 
     @Override
     public ExecutorService getSyncProtocolExecutorService() {
-        return getDefaultExecutorService();
+        return getExecutorService(ExecutorRole.SYNC_PROTOCOL);
+    }
+
+    @Override
+    public ScheduledExecutorService getAsyncProtocolScheduledExecutorService() {
+        return asyncProtocolScheduledExecutorService;
     }
 
     @Override
@@ -266,12 +312,12 @@ public class DefaultUpnpServiceConfiguration implements UpnpServiceConfiguration
 
     @Override
     public Executor getRegistryMaintainerExecutor() {
-        return getDefaultExecutorService();
+        return getExecutorService(ExecutorRole.REGISTRY_MAINTAINER);
     }
 
     @Override
     public Executor getRegistryListenerExecutor() {
-        return getDefaultExecutorService();
+        return getExecutorService(ExecutorRole.REGISTRY_LISTENER);
     }
 
     @Override
@@ -283,6 +329,10 @@ public class DefaultUpnpServiceConfiguration implements UpnpServiceConfiguration
     public void shutdown() {
         log.debug("Shutting down default executor service");
         getDefaultExecutorService().shutdownNow();
+        for (ExecutorService executorService : boundedExecutorServices.values())
+            executorService.shutdownNow();
+        if (asyncProtocolScheduledExecutorService != null)
+            asyncProtocolScheduledExecutorService.shutdownNow();
     }
 
     public NetworkAddressFactory getNetworkAddressFactory() {
@@ -295,6 +345,14 @@ public class DefaultUpnpServiceConfiguration implements UpnpServiceConfiguration
         return platformUpnpServiceConfiguration.createNetworkAddressFactory(streamListenPort, multicastPort);
     }
 
+    /**
+     * @return Drops the SSDP messages received again within {@link DatagramDuplicateFilter#DEFAULT_WINDOW_MILLISECONDS}.
+     */
+    @Override
+    public DatagramDuplicateFilter createDatagramDuplicateFilter() {
+        return new DatagramDuplicateFilter();
+    }
+
     protected DatagramProcessor createDatagramProcessor() {
         return new DatagramProcessorImpl();
     }
@@ -323,6 +381,76 @@ public class DefaultUpnpServiceConfiguration implements UpnpServiceConfiguration
         return defaultExecutorService;
     }
 
+    /**
+     * @param role The role of the executor.
+     * @return The bounded pool of the role, or the default executor if the role has none.
+     * @since 1.5.0
+     */
+    protected ExecutorService getExecutorService(ExecutorRole role) {
+        ExecutorService executorService = boundedExecutorServices.get(role);
+        return executorService != null ? executorService : getDefaultExecutorService();
+    }
+
+    /**
+     * Runs each role on its own bounded pool, sized with {@link ExecutorRole#getDefaultPoolConfiguration()}.
+     * <p>
+     * Must be called before the UPnP service is started.
+     * </p>
+     *
+     * @since 1.5.0
+     */
+    public void setBoundedExecutors() {
+        for (ExecutorRole role : ExecutorRole.values())
+            setBoundedExecutor(role, role.getDefaultPoolConfiguration());
+    }
+
+    /**
+     * Runs the role on its own bounded pool, a pool previously created for this role is shut down.
+     * <p>
+     * Must be called before the UPnP service is started.
+     * </p>
+     *
+     * @param role The role of the executor.
+     * @param poolConfiguration The sizing and saturation behaviour of the pool, or <code>null</code> to run the
+     *                          role on the default executor again.
+     * @since 1.5.0
+     */
+    public void setBoundedExecutor(ExecutorRole role, ExecutorPoolConfiguration poolConfiguration) {
+        setExecutorService(role, poolConfiguration == null ? null : createExecutorService(role, poolConfiguration));
+    }
+
+    /**
+     * Runs the asynchronous and synchronous protocols on the given executor, which runs them by priority.
+     * <p>
+     * Must be called before the UPnP service is started, which sets the classifier of the executor, see
+     * {@link com.distrimind.upnp.protocol.ProtocolFactory#getProtocolPriority(Runnable)}.
+     * </p>
+     *
+     * @param executor The executor, for example a new {@link ProtocolPriorityExecutor}.
+     * @since 1.5.0
+     */
+    public void setProtocolPriorityExecutor(ProtocolPriorityExecutor executor) {
+        setExecutorService(ExecutorRole.ASYNC_PROTOCOL, executor);
+        setExecutorService(ExecutorRole.SYNC_PROTOCOL, executor);
+    }
+
+    synchronized private void setExecutorService(ExecutorRole role, ExecutorService executorService) {
+        Map<ExecutorRole, ExecutorService> executorServices = new EnumMap<>(boundedExecutorServices);
+        ExecutorService previous = executorService == null
+                ? executorServices.remove(role)
+                : executorServices.put(role, executorService);
+        boundedExecutorServices = executorServices;
+        // A pool can be shared by several roles
+        if (previous != null && previous != executorService && !executorServices.containsValue(previous))
+            previous.shutdown();
+    }
+
+    protected ExecutorService createExecutorService(ExecutorRole role, ExecutorPoolConfiguration poolConfiguration) {
+        if (log.isDebugEnabled())
+            log.debug("Creating bounded executor service of role " + role + ": " + poolConfiguration);
+        return platformUpnpServiceConfiguration.createExecutorService(role, poolConfiguration);
+    }
+
     protected ExecutorService getDefaultAndroidExecutorService() {
         return defaultAndroidExecutorService;
     }
@@ -330,6 +458,13 @@ public class DefaultUpnpServiceConfiguration implements UpnpServiceConfiguration
     protected ExecutorService createDefaultExecutorService() throws IOException {
         return platformUpnpServiceConfiguration.createDefaultExecutorService();
     }
+
+    /**
+     * Override this and return <code>null</code> to make the asynchronous protocols wait on their executor thread.
+     */
+    protected ScheduledExecutorService createAsyncProtocolScheduledExecutorService() {
+        return platformUpnpServiceConfiguration.createAsyncProtocolScheduledExecutorService();
+    }
     @Override
     public Platform getPlatformType()
     {
@@ -24,6 +24,8 @@ import com.distrimind.upnp.model.profile.ClientInfo;
 import com.distrimind.upnp.platform.Platform;
 import com.distrimind.upnp.registry.Registry;
 import com.distrimind.upnp.transport.Router;
+import com.distrimind.upnp.transport.impl.DatagramAdmissionControl;
+import com.distrimind.upnp.transport.impl.DatagramDuplicateFilter;
 import com.distrimind.upnp.model.Namespace;
 import com.distrimind.upnp.model.message.UpnpHeaders;
 import com.distrimind.upnp.model.meta.RemoteDeviceIdentity;
@@ -40,6 +42,7 @@ import com.distrimind.upnp.transport.spi.StreamServer;
 
 import java.util.concurrent.Executor;
 import java.util.concurrent.ExecutorService;
+import java.util.concurrent.ScheduledExecutorService;
 
 /**
  * Shared configuration data of the UPnP stack.
@@ -67,6 +70,25 @@ public interface UpnpServiceConfiguration {
      */
 	DatagramProcessor getDatagramProcessor();
 
+    /**
+     * The admission control is disabled by default. Override this method to enable it, e.g. with the default limits
+     * of {@link DatagramAdmissionControl.MessageType}: <code>return new DatagramAdmissionControl();</code>
+     *
+     * @return A new rate limiter of the SSDP messages, per source address and message type, or <code>null</code>
+     *         to admit every received datagram.
+     */
+	default DatagramAdmissionControl createDatagramAdmissionControl() {
+		return null;
+	}
+
+    /**
+     * @return A new filter of the SSDP messages received again within a short window, or <code>null</code>
+     *         to process every received datagram.
+     */
+	default DatagramDuplicateFilter createDatagramDuplicateFilter() {
+		return null;
+	}
+
     /**
      * @return The shared implementation of {@link SOAPActionProcessor}.
      */
@@ -158,6 +180,9 @@ public interface UpnpServiceConfiguration {
 	ServiceType[] getExclusiveServiceTypes();
 
     /**
+     * The registry is maintained when its next item is due, this interval is the minimum time between two
+     * maintenance operations.
+     *
      * @return The time in milliseconds to wait between each registry maintenance operation.
      */
 	int getRegistryMaintenanceIntervalMillis();
@@ -253,13 +278,35 @@ public interface UpnpServiceConfiguration {
      */
 	ExecutorService getSyncProtocolExecutorService();
 
+    /**
+     * The scheduled tasks must be short, they should hand over the protocol to the
+     * {@link #getAsyncProtocolExecutor()}.
+     *
+     * @return The scheduler which delays and repeats asynchronous protocols (search responses, advertisements),
+     *         or <code>null</code> if these protocols wait on their own executor thread.
+     */
+	default ScheduledExecutorService getAsyncProtocolScheduledExecutorService() {
+		return null;
+	}
+
+    /**
+     * The network is checked on the {@link #getAsyncProtocolScheduledExecutorService()}, which must be available.
+     *
+     * @return The interval of the checks for changed network interfaces and addresses, <code>0</code> (the default)
+     *         to never check them.
+     */
+	default int getNetworkMonitorIntervalMillis() {
+		return 0;
+	}
+
     /**
      * @return An instance of {@link Namespace} for this UPnP stack.
      */
 	Namespace getNamespace();
 
     /**
-     * @return The executor which runs the background thread for maintaining the registry.
+     * @return The executor which runs the registry maintenances when they are due, or the maintenance loop
+     *         if there is no {@link #getAsyncProtocolScheduledExecutorService()}.
      */
 	Executor getRegistryMaintainerExecutor();
 
@@ -18,11 +18,13 @@ package com.distrimind.upnp;
 
 import com.distrimind.upnp.controlpoint.ControlPoint;
 import com.distrimind.upnp.controlpoint.ControlPointImpl;
+import com.distrimind.upnp.platform.ProtocolPriorityExecutor;
 import com.distrimind.upnp.protocol.ProtocolFactory;
 import com.distrimind.upnp.protocol.ProtocolFactoryImpl;
 import com.distrimind.upnp.registry.Registry;
 import com.distrimind.upnp.registry.RegistryImpl;
 import com.distrimind.upnp.registry.RegistryListener;
+import com.distrimind.upnp.transport.NetworkMonitor;
 import com.distrimind.upnp.transport.Router;
 import com.distrimind.upnp.transport.RouterException;
 import com.distrimind.upnp.transport.RouterImpl;
@@ -32,6 +34,8 @@ import jakarta.enterprise.inject.Alternative;
 import com.distrimind.flexilogxml.log.DMLogger;
 
 import java.io.IOException;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ScheduledExecutorService;
 
 /**
  * Default implementation of {@link UpnpService}, starts immediately on construction.
@@ -58,6 +62,7 @@ public class UpnpServiceImpl implements UpnpService {
     protected final ProtocolFactory protocolFactory;
     protected final Registry registry;
     protected final Router router;
+    protected final NetworkMonitor networkMonitor;
 
     public UpnpServiceImpl() throws IOException {
         this(new DefaultUpnpServiceConfiguration());
@@ -78,6 +83,7 @@ public class UpnpServiceImpl implements UpnpService {
         // Instantiation order is important: Router needs to start its network services after registry is ready
 
         this.protocolFactory = createProtocolFactory();
+        initProtocolPriorityExecutors(protocolFactory);
 
         this.registry = createRegistry(protocolFactory);
         for (RegistryListener registryListener : registryListeners) {
@@ -91,6 +97,7 @@ public class UpnpServiceImpl implements UpnpService {
         } catch (RouterException ex) {
             throw new RuntimeException("Enabling network router failed: " + ex, ex);
         }
+        this.networkMonitor = createNetworkMonitor();
 
         this.controlPoint = createControlPoint(protocolFactory, registry);
 
@@ -101,6 +108,20 @@ public class UpnpServiceImpl implements UpnpService {
         return new ProtocolFactoryImpl(this);
     }
 
+    /**
+     * Lets the {@link ProtocolPriorityExecutor}s of the configuration classify their tasks with the protocol factory.
+     */
+    protected void initProtocolPriorityExecutors(ProtocolFactory protocolFactory) {
+        Executor[] executors = {
+                getConfiguration().getAsyncProtocolExecutor(),
+                getConfiguration().getSyncProtocolExecutorService()
+        };
+        for (Executor executor : executors) {
+            if (executor instanceof ProtocolPriorityExecutor)
+                ((ProtocolPriorityExecutor) executor).setClassifier(protocolFactory::getProtocolPriority);
+        }
+    }
+
     protected Registry createRegistry(ProtocolFactory protocolFactory) {
         return new RegistryImpl(this);
     }
@@ -109,6 +130,20 @@ public class UpnpServiceImpl implements UpnpService {
         return new RouterImpl(getConfiguration(), protocolFactory);
     }
 
+    /**
+     * @return The started monitor of the network interfaces, or <code>null</code> if it is disabled, see
+     *         {@link UpnpServiceConfiguration#getNetworkMonitorIntervalMillis()}.
+     */
+    protected NetworkMonitor createNetworkMonitor() {
+        int interval = getConfiguration().getNetworkMonitorIntervalMillis();
+        ScheduledExecutorService scheduler = getConfiguration().getAsyncProtocolScheduledExecutorService();
+        if (interval <= 0 || scheduler == null)
+            return null;
+        NetworkMonitor monitor = new NetworkMonitor(this);
+        monitor.start(scheduler, interval);
+        return monitor;
+    }
+
     protected ControlPoint createControlPoint(ProtocolFactory protocolFactory, Registry registry) {
         return new ControlPointImpl(getConfiguration(), protocolFactory, registry);
     }
@@ -146,6 +181,8 @@ public class UpnpServiceImpl implements UpnpService {
     protected void shutdown(boolean separateThread) {
         Runnable shutdown = () -> {
 			log.info(">>> Shutting down UPnP service...");
+			if (networkMonitor != null)
+				networkMonitor.stop();
 			shutdownRegistry();
 			shutdownRouter();
 			shutdownConfiguration();
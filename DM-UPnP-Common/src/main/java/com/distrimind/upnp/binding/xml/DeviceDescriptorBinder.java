@@ -15,13 +15,19 @@
 
 package com.distrimind.upnp.binding.xml;
 
+import com.distrimind.flexilogxml.exceptions.XMLStreamException;
 import com.distrimind.flexilogxml.xml.IXmlReader;
 import com.distrimind.upnp.model.Namespace;
 import com.distrimind.upnp.model.ValidationException;
+import com.distrimind.upnp.model.XMLUtil;
 import com.distrimind.upnp.model.meta.Device;
 import com.distrimind.upnp.model.meta.Service;
 import com.distrimind.upnp.model.profile.RemoteClientInfo;
 
+import java.io.InputStream;
+import java.nio.charset.Charset;
+import java.nio.charset.StandardCharsets;
+
 /**
  * Reads and generates device descriptor XML metadata.
  *
@@ -35,8 +41,36 @@ public interface DeviceDescriptorBinder {
     <D extends Device<?, D, S>, S extends Service<?, D, S>> D describe(D undescribedDevice, IXmlReader xmlReader)
             throws DescriptorBindingException, ValidationException;
 
+    /**
+     * Reads the descriptor directly from a streamed message body, without buffering it into a string.
+     *
+     * @param descriptor The descriptor, closed by the caller.
+     * @param charset The charset of the descriptor.
+     * @since 1.5.0
+     */
+    default <D extends Device<?, D, S>, S extends Service<?, D, S>> D describe(D undescribedDevice, InputStream descriptor, Charset charset)
+            throws DescriptorBindingException, ValidationException {
+        IXmlReader xmlReader;
+        try {
+            xmlReader = XMLUtil.getXMLReader(descriptor, charset);
+        } catch (XMLStreamException ex) {
+            throw DescriptorBindingException.getDescriptorBindingException("Could not parse device descriptor: " + ex, ex);
+        }
+        return describe(undescribedDevice, xmlReader);
+    }
+
     String generate(Device<?, ?, ?> device, RemoteClientInfo info, Namespace namespace) throws DescriptorBindingException;
 
+    /**
+     * Generates the descriptor as UTF-8 bytes, sent as is in a response body. Implementations overriding
+     * {@link #generate(Device, RemoteClientInfo, Namespace)} should override this method as well.
+     *
+     * @since 1.5.0
+     */
+    default byte[] generateUTF8(Device<?, ?, ?> device, RemoteClientInfo info, Namespace namespace) throws DescriptorBindingException {
+        return generate(device, info, namespace).getBytes(StandardCharsets.UTF_8);
+    }
+
     String buildXMLString(Device<?, ?, ?> device, RemoteClientInfo info, Namespace namespace) throws DescriptorBindingException;
 
 }
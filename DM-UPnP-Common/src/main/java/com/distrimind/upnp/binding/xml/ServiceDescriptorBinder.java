@@ -15,11 +15,17 @@
 
 package com.distrimind.upnp.binding.xml;
 
+import com.distrimind.flexilogxml.exceptions.XMLStreamException;
 import com.distrimind.flexilogxml.xml.IXmlReader;
 import com.distrimind.upnp.model.ValidationException;
+import com.distrimind.upnp.model.XMLUtil;
 import com.distrimind.upnp.model.meta.Device;
 import com.distrimind.upnp.model.meta.Service;
 
+import java.io.InputStream;
+import java.nio.charset.Charset;
+import java.nio.charset.StandardCharsets;
+
 /**
  * Reads and generates service descriptor XML metadata.
  *
@@ -33,7 +39,35 @@ public interface ServiceDescriptorBinder {
     <D extends Device<?, D, S>, S extends Service<?, D, S>> S describe(S undescribedService, IXmlReader xmlReader)
             throws DescriptorBindingException, ValidationException;
 
+    /**
+     * Reads the descriptor directly from a streamed message body, without buffering it into a string.
+     *
+     * @param descriptor The descriptor, closed by the caller.
+     * @param charset The charset of the descriptor.
+     * @since 1.5.0
+     */
+    default <D extends Device<?, D, S>, S extends Service<?, D, S>> S describe(S undescribedService, InputStream descriptor, Charset charset)
+            throws DescriptorBindingException, ValidationException {
+        IXmlReader xmlReader;
+        try {
+            xmlReader = XMLUtil.getXMLReader(descriptor, charset);
+        } catch (XMLStreamException ex) {
+            throw DescriptorBindingException.getDescriptorBindingException("Could not parse service descriptor: " + ex, ex);
+        }
+        return describe(undescribedService, xmlReader);
+    }
+
     String generate(Service<?, ?, ?> service) throws DescriptorBindingException;
 
+    /**
+     * Generates the descriptor as UTF-8 bytes, sent as is in a response body. Implementations overriding
+     * {@link #generate(Service)} should override this method as well.
+     *
+     * @since 1.5.0
+     */
+    default byte[] generateUTF8(Service<?, ?, ?> service) throws DescriptorBindingException {
+        return generate(service).getBytes(StandardCharsets.UTF_8);
+    }
+
     String buildXMLString(Service<?, ?, ?> service) throws DescriptorBindingException;
 }
\ No newline at end of file
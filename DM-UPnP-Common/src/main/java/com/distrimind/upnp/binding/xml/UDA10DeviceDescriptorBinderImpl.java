@@ -442,6 +442,17 @@ public class UDA10DeviceDescriptorBinderImpl implements DeviceDescriptorBinder,
             throw DescriptorBindingException.getDescriptorBindingException("Could not build DOM: " + ex.getMessage(), ex);
         }
     }
+    @Override
+    public byte[] generateUTF8(Device<?, ?, ?> deviceModel, RemoteClientInfo info, Namespace namespace) throws DescriptorBindingException {
+        try {
+            log.debug(() -> "Generating XML descriptor from device model: " + deviceModel);
+            return XMLUtil.generateXMLToBytes(xmlStreamWriter -> generateRoot(namespace, deviceModel, xmlStreamWriter, info));
+
+        } catch (Exception ex) {
+            throw DescriptorBindingException.getDescriptorBindingException("Could not generate device descriptor: " + ex.getMessage(), ex);
+        }
+    }
+
     @Override
     public String buildXMLString(Device<?, ?, ?> deviceModel, RemoteClientInfo info, Namespace namespace) throws DescriptorBindingException {
 
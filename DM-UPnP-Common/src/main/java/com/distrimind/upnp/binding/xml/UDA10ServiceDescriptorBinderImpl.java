@@ -357,6 +357,19 @@ public class UDA10ServiceDescriptorBinderImpl implements ServiceDescriptorBinder
         }
     }
 
+    @Override
+    public byte[] generateUTF8(Service<?, ?, ?> service) throws DescriptorBindingException {
+        try {
+            if (log.isDebugEnabled()) {
+                log.debug("Generating XML descriptor from service model: " + service);
+            }
+            return XMLUtil.generateXMLToBytes(xmlStreamWriter -> generateScpd(service, xmlStreamWriter));
+
+        } catch (Exception ex) {
+            throw DescriptorBindingException.getDescriptorBindingException("Could not generate service descriptor: " + ex.getMessage(), ex);
+        }
+    }
+
     @Override
     public String buildXMLString(Service<?, ?, ?> service) throws DescriptorBindingException {
 
@@ -0,0 +1,230 @@
+/*
+ *     This library is free software; you can redistribute it and/or
+ *     modify it under the terms of the GNU Lesser General Public
+ *     License as published by the Free Software Foundation; either
+ *     version 2.1 of the License.
+ *
+ *     This library is distributed in the hope that it will be useful,
+ *     but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *     MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ *     Lesser General Public License for more details.
+ *
+ *     You should have received a copy of the GNU Lesser General Public
+ *     License along with this library; if not, write to the Free Software
+ *     Foundation, Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301  USA
+ */
+
+package com.distrimind.upnp.http;
+
+import com.distrimind.upnp.model.Constants;
+import com.distrimind.upnp.util.io.IO;
+import com.distrimind.upnp.util.io.LimitedInputStream;
+
+import java.io.BufferedInputStream;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.util.Locale;
+import java.util.zip.DeflaterOutputStream;
+import java.util.zip.GZIPInputStream;
+import java.util.zip.GZIPOutputStream;
+import java.util.zip.Inflater;
+import java.util.zip.InflaterInputStream;
+
+/**
+ * HTTP content codings supported for message bodies, negotiated with the <code>Accept-Encoding</code> and
+ * <code>Content-Encoding</code> headers.
+ * <p>
+ * Decoded bodies are limited to {@link Constants#MAX_BODY_LENGTH}, like any other received body. The
+ * <code>deflate</code> coding is written in the zlib format required by HTTP, raw deflate data sent by
+ * some servers is accepted as well.
+ * </p>
+ *
+ * @author Jason Mahdjoub
+ * @since 1.5.0
+ */
+public enum ContentEncoding {
+
+    GZIP("gzip"),
+    DEFLATE("deflate");
+
+    public static final String ACCEPT_ENCODING = "Accept-Encoding";
+    public static final String CONTENT_ENCODING = "Content-Encoding";
+    public static final String VARY = "Vary";
+
+    /**
+     * The <code>Accept-Encoding</code> value sent by the stream clients.
+     */
+    public static final String ACCEPTED_ENCODINGS = "gzip, deflate";
+
+    /**
+     * Suggested minimum body length when compression is enabled on a stream server. Bodies shorter
+     * than this are not worth compressing, the coding overhead eats most of the gain.
+     */
+    public static final int DEFAULT_MIN_COMPRESSED_BODY_LENGTH = 1024;
+
+    private final String httpName;
+
+    ContentEncoding(String httpName) {
+        this.httpName = httpName;
+    }
+
+    public String getHttpName() {
+        return httpName;
+    }
+
+    /**
+     * @param httpName A content coding token, case-insensitive.
+     * @return The matching coding, or <code>null</code> if unknown or if <code>identity</code>.
+     */
+    public static ContentEncoding getByHttpName(String httpName) {
+        if (httpName == null)
+            return null;
+        String name = httpName.trim().toLowerCase(Locale.ROOT);
+        if ("gzip".equals(name) || "x-gzip".equals(name))
+            return GZIP;
+        if ("deflate".equals(name))
+            return DEFLATE;
+        return null;
+    }
+
+    /**
+     * Selects the coding of a response body, <code>gzip</code> is preferred when both are equally acceptable.
+     *
+     * @param acceptEncoding The <code>Accept-Encoding</code> header of the request, can be <code>null</code>.
+     * @return The coding with the highest quality value, or <code>null</code> if the body must be sent as is.
+     */
+    public static ContentEncoding negotiate(String acceptEncoding) {
+        if (acceptEncoding == null || acceptEncoding.isEmpty())
+            return null;
+        float gzipQuality = -1;
+        float deflateQuality = -1;
+        float wildcardQuality = -1;
+        for (String coding : acceptEncoding.split(",")) {
+            String[] params = coding.split(";");
+            String name = params[0].trim();
+            float quality = 1;
+            for (int i = 1; i < params.length; i++) {
+                String param = params[i].trim();
+                if (param.length() > 2 && (param.charAt(0) == 'q' || param.charAt(0) == 'Q') && param.charAt(1) == '=') {
+                    try {
+                        quality = Float.parseFloat(param.substring(2).trim());
+                    } catch (NumberFormatException ex) {
+                        quality = 0;
+                    }
+                }
+            }
+            if ("*".equals(name)) {
+                wildcardQuality = quality;
+            } else {
+                ContentEncoding encoding = getByHttpName(name);
+                if (encoding == GZIP)
+                    gzipQuality = quality;
+                else if (encoding == DEFLATE)
+                    deflateQuality = quality;
+            }
+        }
+        if (gzipQuality < 0)
+            gzipQuality = wildcardQuality;
+        if (deflateQuality < 0)
+            deflateQuality = wildcardQuality;
+        if (gzipQuality > 0 && gzipQuality >= deflateQuality)
+            return GZIP;
+        if (deflateQuality > 0)
+            return DEFLATE;
+        return null;
+    }
+
+    /**
+     * @param out The stream receiving the encoded bytes, closed with the returned stream.
+     * @return The stream encoding the bytes written into it, it must be closed to write the trailer.
+     * @throws IOException If the header could not be written.
+     */
+    public OutputStream encode(OutputStream out) throws IOException {
+        if (this == GZIP)
+            return new GZIPOutputStream(out);
+        return new DeflaterOutputStream(out);
+    }
+
+    /**
+     * @param body The bytes to encode.
+     * @return The encoded bytes.
+     */
+    public byte[] encode(byte[] body) {
+        ByteArrayOutputStream bos = new ByteArrayOutputStream(body.length / 4 + 64);
+        try (OutputStream os = encode(bos)) {
+            os.write(body);
+        } catch (IOException ex) {
+            // Never thrown in memory
+            throw new IllegalStateException(ex);
+        }
+        return bos.toByteArray();
+    }
+
+    /**
+     * @param in The encoded stream, closed with the returned stream.
+     * @return The stream decoding the given stream, not limited in length.
+     * @throws IOException If the header of the encoded stream is invalid.
+     */
+    public InputStream decode(InputStream in) throws IOException {
+        if (this == GZIP)
+            return new GZIPInputStream(in);
+        BufferedInputStream bis = new BufferedInputStream(in);
+        bis.mark(2);
+        int cmf = bis.read();
+        int flg = bis.read();
+        bis.reset();
+        // RFC 1950 header: deflate method, and check bits making the first two bytes a multiple of 31
+        boolean zlib = cmf >= 0 && flg >= 0 && (cmf & 0x0F) == 8 && ((cmf << 8) | flg) % 31 == 0;
+        Inflater inflater = new Inflater(!zlib);
+        return new InflaterInputStream(bis, inflater) {
+            @Override
+            public void close() throws IOException {
+                try {
+                    super.close();
+                } finally {
+                    inflater.end();
+                }
+            }
+        };
+    }
+
+    /**
+     * @param contentEncoding The <code>Content-Encoding</code> header of a received message, can be <code>null</code>.
+     * @param body The received body.
+     * @return The decoded body, or the given body if it is not encoded.
+     * @throws IOException If the coding is not supported, if the body is corrupted, or if the decoded body is
+     *                     longer than {@link Constants#MAX_BODY_LENGTH}.
+     */
+    public static byte[] decode(String contentEncoding, byte[] body) throws IOException {
+        if (body == null || body.length == 0 || isIdentity(contentEncoding))
+            return body;
+        try (InputStream in = new LimitedInputStream(decode(contentEncoding, new ByteArrayInputStream(body)), Constants.MAX_BODY_LENGTH)) {
+            return IO.readBytes(in);
+        }
+    }
+
+    /**
+     * @param contentEncoding The <code>Content-Encoding</code> header of a received message, can be <code>null</code>.
+     * @param body The received body, closed with the returned stream.
+     * @return The stream decoding the body, not limited in length, or the given body if it is not encoded.
+     * @throws IOException If the coding is not supported, or if the header of the encoded body is invalid.
+     */
+    public static InputStream decode(String contentEncoding, InputStream body) throws IOException {
+        if (body == null || isIdentity(contentEncoding))
+            return body;
+        ContentEncoding encoding = getByHttpName(contentEncoding.trim());
+        if (encoding == null)
+            throw new IOException("Unsupported content encoding: " + contentEncoding);
+        return encoding.decode(body);
+    }
+
+    private static boolean isIdentity(String contentEncoding) {
+        if (contentEncoding == null)
+            return true;
+        String name = contentEncoding.trim();
+        return name.isEmpty() || "identity".equalsIgnoreCase(name);
+    }
+}
@@ -29,6 +29,7 @@ import jakarta.enterprise.inject.Alternative;
 import java.io.IOException;
 import java.util.concurrent.Executor;
 import java.util.concurrent.ExecutorService;
+import java.util.concurrent.ScheduledExecutorService;
 
 /**
  * @author Christian Bauer
@@ -106,6 +107,15 @@ public class MockUpnpServiceConfiguration extends DefaultUpnpServiceConfiguratio
             return platformUpnpServiceConfiguration.createMockDefaultExecutorService();
     }
 
+    @Override
+    public ScheduledExecutorService getAsyncProtocolScheduledExecutorService() {
+        if (isMultiThreaded()) {
+            return super.getAsyncProtocolScheduledExecutorService();
+        }
+        // Protocols wait on the calling thread, as the mock executor runs them
+        return null;
+    }
+
     @Override
     protected SOAPActionProcessor createSOAPActionProcessor() {
         return desktopPlatformUpnpServiceConfiguration.createSOAPActionProcessor();
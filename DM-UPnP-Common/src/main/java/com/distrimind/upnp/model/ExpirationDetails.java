@@ -15,8 +15,6 @@
 
 package com.distrimind.upnp.model;
 
-import java.util.Date;
-
 /**
  * @author Christian Bauer
  */
@@ -64,6 +62,18 @@ public class ExpirationDetails {
                 (lastRefreshTimestampSeconds + (maxAgeSeconds/(halfTime ? 2 : 1))) < getCurrentTimestampSeconds();
     }
 
+    /**
+     * @param halfTime If <code>true</code> then half maximum age is used to determine expiration.
+     * @return The time in milliseconds from which {@link #hasExpired(boolean)} returns <code>true</code>,
+     *         or {@link Long#MAX_VALUE} if the age is unlimited.
+     * @since 1.5.0
+     */
+    public long getExpirationMillis(boolean halfTime) {
+        return maxAgeSeconds == UNLIMITED_AGE
+                ? Long.MAX_VALUE
+                : (lastRefreshTimestampSeconds + (maxAgeSeconds/(halfTime ? 2 : 1)) + 1) * 1000;
+    }
+
     public long getSecondsUntilExpiration() {
         // Note: Uses direct field access for performance reasons on Android
         return maxAgeSeconds == UNLIMITED_AGE
@@ -72,7 +82,7 @@ public class ExpirationDetails {
     }
 
     protected long getCurrentTimestampSeconds() {
-        return new Date().getTime()/1000;
+        return System.currentTimeMillis()/1000;
     }
 
     // Performance optimization on Android
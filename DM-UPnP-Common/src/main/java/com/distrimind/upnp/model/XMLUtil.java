@@ -25,7 +25,9 @@ import com.distrimind.upnp.model.types.InvalidValueException;
 
 import java.io.ByteArrayInputStream;
 import java.io.ByteArrayOutputStream;
+import java.io.InputStream;
 import java.io.OutputStream;
+import java.nio.charset.Charset;
 import java.nio.charset.StandardCharsets;
 import java.util.ArrayList;
 import java.util.List;
@@ -177,14 +179,38 @@ public class XMLUtil {
     }
     public static String generateXMLToString(XMLWriteConsumer c) throws XMLStreamException {
         try(ByteArrayOutputStream out=new ByteArrayOutputStream()) {
+            generateXML(c, out);
+            return new String(out.toByteArray(), StandardCharsets.UTF_8);
+        } catch (XMLStreamException e) {
+            throw e;
+        } catch (Exception e) {
+            throw XMLStreamException.getXmlStreamException(e);
+        }
+    }
+
+    /**
+     * Generates the UTF-8 document as bytes, ready to be sent as a message body without being encoded again,
+     * see {@link com.distrimind.upnp.model.message.UpnpMessage#setBodyUTF8(byte[])}.
+     * @since 1.5.0
+     */
+    public static byte[] generateXMLToBytes(XMLWriteConsumer c) throws XMLStreamException {
+        ByteArrayOutputStream out=new ByteArrayOutputStream(1024);
+        generateXML(c, out);
+        return out.toByteArray();
+    }
 
+    /**
+     * Writes the UTF-8 document directly into the given stream.
+     * @since 1.5.0
+     */
+    public static void generateXML(XMLWriteConsumer c, OutputStream out) throws XMLStreamException {
+        try {
             IXmlWriter xmlStreamWriter = getXMLWriter(false, out);
 
             c.accept(xmlStreamWriter);
             xmlStreamWriter.writeEndDocument();
             xmlStreamWriter.close();
             out.flush();
-            return new String(out.toByteArray(), StandardCharsets.UTF_8);
         } catch (Exception e) {
             throw XMLStreamException.getXmlStreamException(e);
         }
@@ -291,9 +317,39 @@ public class XMLUtil {
         return factory.getXMLReader(new ByteArrayInputStream(xmlString.getBytes(StandardCharsets.UTF_8)), StandardCharsets.UTF_8);
     }
 
+    /**
+     * @param in The document, not buffered into a string, closed by the caller.
+     * @param charset The charset of the document.
+     * @since 1.5.0
+     */
+    public static IXmlReader getXMLReader(InputStream in, Charset charset) throws XMLStreamException {
+        if (in == null)
+            throw new XMLStreamException("XML not valid");
+        XmlInputFactory factory=XmlParserFactory.getXmlInputFactory();
+        factory.setNameSpaceAware(true);
+        return factory.getXMLReader(in, charset);
+    }
+
     public static <R> R readXML(XMLReadFunction<R> c, ErrorHandler errorHandler, String xmlString) throws XMLStreamException, ValidationException, DescriptorBindingException {
+        return readXML(c, errorHandler, () -> getXMLReader(xmlString));
+    }
+
+    /**
+     * Reads the document directly from the stream, see {@link #getXMLReader(InputStream, Charset)}.
+     * @since 1.5.0
+     */
+    public static <R> R readXML(XMLReadFunction<R> c, ErrorHandler errorHandler, InputStream in, Charset charset) throws XMLStreamException, ValidationException, DescriptorBindingException {
+        return readXML(c, errorHandler, () -> getXMLReader(in, charset));
+    }
+
+    @FunctionalInterface
+    private interface XMLReaderSupplier {
+        IXmlReader get() throws XMLStreamException;
+    }
+
+    private static <R> R readXML(XMLReadFunction<R> c, ErrorHandler errorHandler, XMLReaderSupplier xmlReaderSupplier) throws XMLStreamException, ValidationException, DescriptorBindingException {
         try {
-            IXmlReader xmlReader=getXMLReader(xmlString);
+            IXmlReader xmlReader=xmlReaderSupplier.get();
             R r=c.accept(xmlReader);
             while (xmlReader.hasNext())
             {
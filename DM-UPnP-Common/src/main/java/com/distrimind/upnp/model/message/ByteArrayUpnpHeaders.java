@@ -0,0 +1,416 @@
+/*
+ *     This library is free software; you can redistribute it and/or
+ *     modify it under the terms of the GNU Lesser General Public
+ *     License as published by the Free Software Foundation; either
+ *     version 2.1 of the License.
+ *
+ *     This library is distributed in the hope that it will be useful,
+ *     but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *     MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ *     Lesser General Public License for more details.
+ *
+ *     You should have received a copy of the GNU Lesser General Public
+ *     License along with this library; if not, write to the Free Software
+ *     Foundation, Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301  USA
+ */
+
+package com.distrimind.upnp.model.message;
+
+import com.distrimind.upnp.model.Constants;
+import com.distrimind.upnp.model.message.header.UpnpHeader;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * UPnP headers tokenized directly over the raw bytes of a received message.
+ * <p>
+ * The constructor only locates the header names and values, it creates no string. A value is decoded
+ * and converted into an {@link UpnpHeader} when its type is queried for the first time, headers never
+ * queried are never decoded. Any access to the plain multimap HTTP header API decodes all headers once,
+ * this instance then behaves like {@link UpnpHeaders}.
+ * </p>
+ * <p>
+ * The header bytes are copied, the given buffer can be reused as soon as the constructor returns.
+ * Parsing follows the rules of {@link com.distrimind.upnp.http.Headers}: lines end with CRLF or LF,
+ * the header block ends with an empty line, and folded lines are appended to the previous value.
+ * </p>
+ *
+ * @author Jason Mahdjoub
+ * @since 1.5.0
+ */
+@SuppressWarnings("PMD.LooseCoupling")
+public class ByteArrayUpnpHeaders extends UpnpHeaders {
+
+    private static final UpnpHeader.Type[] TYPES = UpnpHeader.Type.values();
+    private static final byte[][] TYPE_NAMES = new byte[TYPES.length][];
+    static {
+        for (int i = 0; i < TYPES.length; i++) {
+            TYPE_NAMES[i] = TYPES[i].getHttpName().getBytes(StandardCharsets.US_ASCII);
+        }
+    }
+
+    // Four ints per header line: name start (-1 for folded lines), name end, value start, value end
+    private static final int FIELDS = 4;
+
+    private byte[] data;
+    private int[] lines;
+    private UpnpHeader.Type[] lineTypes;
+    private int lineCount;
+    private boolean[] parsedTypes;
+    final private int length;
+
+    /**
+     * @param buffer The buffer holding the header lines.
+     * @param offset The offset of the first header line, just after the start line.
+     * @param end The end of the message in the buffer.
+     */
+    public ByteArrayUpnpHeaders(byte[] buffer, int offset, int end) {
+        if (end - offset > Constants.MAX_HEADER_LENGTH_IN_BYTES)
+            throw new IllegalArgumentException();
+
+        int[] lines = new int[FIELDS * 16];
+        int count = 0;
+        int pos = offset;
+        while (pos < end) {
+            int lineEnd = findLineEnd(buffer, pos, end);
+            if (lineEnd == pos)
+                break; // Empty line, end of headers
+
+            if (lines.length < (count + 1) * FIELDS) {
+                int[] l = new int[lines.length * 2];
+                System.arraycopy(lines, 0, l, 0, lines.length);
+                lines = l;
+            }
+            int i = count * FIELDS;
+            byte firstChar = buffer[pos];
+            if (count > 0 && (firstChar == ' ' || firstChar == '\t')) {
+                // Folded line, trimmed like String.trim()
+                int valueStart = pos;
+                int valueEnd = lineEnd;
+                while (valueStart < valueEnd && (buffer[valueStart] & 0xFF) <= ' ')
+                    valueStart++;
+                while (valueEnd > valueStart && (buffer[valueEnd - 1] & 0xFF) <= ' ')
+                    valueEnd--;
+                lines[i] = -1;
+                lines[i + 1] = -1;
+                lines[i + 2] = valueStart - offset;
+                lines[i + 3] = valueEnd - offset;
+            } else {
+                int nameStart = pos;
+                while (nameStart < lineEnd && isWhitespace(buffer[nameStart]))
+                    nameStart++;
+                int nameEnd = nameStart;
+                while (nameEnd < lineEnd && buffer[nameEnd] != ':' && !isWhitespace(buffer[nameEnd]))
+                    nameEnd++;
+                int colonEnd = nameEnd;
+                while (colonEnd < lineEnd) {
+                    if (buffer[colonEnd++] == ':')
+                        break;
+                }
+                int valueStart = colonEnd;
+                while (valueStart < lineEnd && isWhitespace(buffer[valueStart]))
+                    valueStart++;
+                int valueEnd = lineEnd;
+                while (valueEnd > pos && isWhitespace(buffer[valueEnd - 1]))
+                    valueEnd--;
+                lines[i] = nameStart - offset;
+                lines[i + 1] = nameEnd - offset;
+                lines[i + 2] = valueStart - offset;
+                lines[i + 3] = valueEnd - offset;
+            }
+            count++;
+            pos = skipLineTerminator(buffer, lineEnd, end);
+        }
+
+        this.length = pos - offset;
+        this.data = new byte[length];
+        System.arraycopy(buffer, offset, data, 0, length);
+        this.lines = lines;
+        this.lineCount = count;
+        this.lineTypes = new UpnpHeader.Type[count];
+        for (int l = 0; l < count; l++) {
+            if (lines[l * FIELDS] >= 0)
+                lineTypes[l] = getType(data, lines[l * FIELDS], lines[l * FIELDS + 1]);
+        }
+        this.parsedTypes = new boolean[TYPES.length];
+    }
+
+    /**
+     * @return The index of the CR of a CRLF pair, or of a single LF, or <code>end</code>.
+     */
+    public static int findLineEnd(byte[] buffer, int offset, int end) {
+        for (int i = offset; i < end; i++) {
+            byte b = buffer[i];
+            if (b == '\n' || (b == '\r' && i + 1 < end && buffer[i + 1] == '\n'))
+                return i;
+        }
+        return end;
+    }
+
+    /**
+     * @return The index of the first byte of the next line.
+     */
+    public static int skipLineTerminator(byte[] buffer, int lineEnd, int end) {
+        if (lineEnd < end && buffer[lineEnd] == '\r')
+            return Math.min(lineEnd + 2, end);
+        return Math.min(lineEnd + 1, end);
+    }
+
+    private static boolean isWhitespace(byte b) {
+        return Character.isWhitespace((char) (b & 0xFF));
+    }
+
+    private static UpnpHeader.Type getType(byte[] data, int nameStart, int nameEnd) {
+        int len = nameEnd - nameStart;
+        for (int t = 0; t < TYPES.length; t++) {
+            byte[] name = TYPE_NAMES[t];
+            if (name.length != len)
+                continue;
+            int i = 0;
+            while (i < len && toUpperCase(data[nameStart + i]) == name[i])
+                i++;
+            if (i == len)
+                return TYPES[t];
+        }
+        return null;
+    }
+
+    private static byte toUpperCase(byte b) {
+        return b >= 'a' && b <= 'z' ? (byte) (b - ('a' - 'A')) : b;
+    }
+
+    /**
+     * @return The number of bytes of the header block, including the final empty line.
+     */
+    public int getLength() {
+        return length;
+    }
+
+    private String decode(int start, int end) {
+        return new String(data, start, end - start, StandardCharsets.ISO_8859_1);
+    }
+
+    private String getValue(int line) {
+        int i = line * FIELDS;
+        String value = lines[i + 2] < lines[i + 3] ? decode(lines[i + 2], lines[i + 3]) : null;
+        for (int l = line + 1; l < lineCount && lines[l * FIELDS] < 0; l++) {
+            value = value + decode(lines[l * FIELDS + 2], lines[l * FIELDS + 3]);
+        }
+        return value;
+    }
+
+    private boolean isLazy() {
+        return data != null;
+    }
+
+    /**
+     * Decodes all header lines into the plain HTTP header map.
+     */
+    protected void decodeAll() {
+        if (!isLazy())
+            return;
+        int count = lineCount;
+        String[] names = new String[count];
+        String[] values = new String[count];
+        for (int l = 0; l < count; l++) {
+            if (lines[l * FIELDS] >= 0) {
+                names[l] = decode(lines[l * FIELDS], lines[l * FIELDS + 1]);
+                values[l] = getValue(l);
+            }
+        }
+        // Switch to the plain map before filling it
+        data = null;
+        lines = null;
+        lineTypes = null;
+        parsedTypes = null;
+        parsedHeaders = null;
+        for (int l = 0; l < count; l++) {
+            if (names[l] != null)
+                super.add(names[l], values[l]);
+        }
+    }
+
+    protected List<UpnpHeader<?>> parseHeaders(UpnpHeader.Type type) {
+        if (parsedHeaders == null)
+            parsedHeaders = new LinkedHashMap<>();
+        if (!parsedTypes[type.ordinal()]) {
+            parsedTypes[type.ordinal()] = true;
+            for (int l = 0; l < lineCount; l++) {
+                if (lineTypes[l] != type)
+                    continue;
+                String value = getValue(l);
+                UpnpHeader<?> upnpHeader = UpnpHeader.newInstance(type, value);
+                if (upnpHeader != null && upnpHeader.getValue() != null)
+                    addParsedValue(type, upnpHeader);
+            }
+        }
+        return parsedHeaders.get(type);
+    }
+
+    @Override
+    public boolean containsKey(UpnpHeader.Type type) {
+        if (!isLazy())
+            return super.containsKey(type);
+        return parseHeaders(type) != null;
+    }
+
+    @Override
+    public List<UpnpHeader<?>> get(UpnpHeader.Type type) {
+        if (!isLazy())
+            return super.get(type);
+        return parseHeaders(type);
+    }
+
+    @Override
+    public List<UpnpHeader<?>> getList(UpnpHeader.Type type) {
+        if (!isLazy())
+            return super.getList(type);
+        List<UpnpHeader<?>> l = parseHeaders(type);
+        return l != null ? Collections.unmodifiableList(l) : Collections.emptyList();
+    }
+
+    @Override
+    public String getFirstRawHeader(UpnpHeader.Type type) {
+        if (!isLazy())
+            return super.getFirstRawHeader(type);
+        // Only the lines of this type are decoded
+        for (int l = 0; l < lineCount; l++) {
+            if (lineTypes[l] == type)
+                return getValue(l);
+        }
+        return null;
+    }
+
+    @Override
+    public void add(UpnpHeader.Type type, UpnpHeader<?> value) {
+        decodeAll();
+        super.add(type, value);
+    }
+
+    @Override
+    public void remove(UpnpHeader.Type type) {
+        decodeAll();
+        super.remove(type);
+    }
+
+    @Override
+    public int size() {
+        decodeAll();
+        return super.size();
+    }
+
+    @Override
+    public boolean isEmpty() {
+        if (isLazy())
+            return lineCount == 0;
+        return super.isEmpty();
+    }
+
+    @Override
+    public boolean containsKey(Object key) {
+        decodeAll();
+        return super.containsKey(key);
+    }
+
+    @Override
+    public boolean containsValue(Object value) {
+        decodeAll();
+        return super.containsValue(value);
+    }
+
+    @Override
+    public List<String> get(Object key) {
+        decodeAll();
+        return super.get(key);
+    }
+
+    @Override
+    public List<String> put(String key, List<String> values) {
+        decodeAll();
+        return super.put(key, values);
+    }
+
+    @Override
+    public void putAll(Map<? extends String, ? extends List<String>> t) {
+        decodeAll();
+        super.putAll(t);
+    }
+
+    @Override
+    public List<String> remove(Object key) {
+        decodeAll();
+        return super.remove(key);
+    }
+
+    @Override
+    public void clear() {
+        decodeAll();
+        super.clear();
+    }
+
+    @Override
+    public Set<String> keySet() {
+        decodeAll();
+        return super.keySet();
+    }
+
+    @Override
+    public Collection<List<String>> values() {
+        decodeAll();
+        return super.values();
+    }
+
+    @Override
+    public Set<Map.Entry<String, List<String>>> entrySet() {
+        decodeAll();
+        return super.entrySet();
+    }
+
+    @Override
+    public String getFirstHeader(String key) {
+        decodeAll();
+        return super.getFirstHeader(key);
+    }
+
+    @Override
+    public void add(String key, String value) {
+        decodeAll();
+        super.add(key, value);
+    }
+
+    @Override
+    public void set(String key, String value) {
+        decodeAll();
+        super.set(key, value);
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        decodeAll();
+        return super.equals(o);
+    }
+
+    @Override
+    public int hashCode() {
+        decodeAll();
+        return super.hashCode();
+    }
+
+    @Override
+    public String toString() {
+        decodeAll();
+        return super.toString();
+    }
+
+    @Override
+    public void log() {
+        decodeAll();
+        super.log();
+    }
+}
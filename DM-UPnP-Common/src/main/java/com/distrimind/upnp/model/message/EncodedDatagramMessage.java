@@ -0,0 +1,74 @@
+/*
+ *     This library is free software; you can redistribute it and/or
+ *     modify it under the terms of the GNU Lesser General Public
+ *     License as published by the Free Software Foundation; either
+ *     version 2.1 of the License.
+ *
+ *     This library is distributed in the hope that it will be useful,
+ *     but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *     MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ *     Lesser General Public License for more details.
+ *
+ *     You should have received a copy of the GNU Lesser General Public
+ *     License along with this library; if not, write to the Free Software
+ *     Foundation, Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301  USA
+ */
+
+package com.distrimind.upnp.model.message;
+
+import java.net.InetAddress;
+
+/**
+ * An outgoing datagram message together with its already serialized bytes.
+ * <p>
+ * The {@link com.distrimind.upnp.transport.spi.DatagramProcessor} sends the bytes as they are, the
+ * operation and the headers of the original message are only exposed for logging and inspection,
+ * and must not be modified.
+ * </p>
+ *
+ * @author Jason Mahdjoub
+ * @since 1.5.0
+ */
+public class EncodedDatagramMessage<O extends UpnpOperation> extends OutgoingDatagramMessage<O> {
+
+    private final OutgoingDatagramMessage<O> message;
+    private final byte[] data;
+
+    /**
+     * @param message The original message.
+     * @param data The serialized message, including the start line and the headers.
+     */
+    public EncodedDatagramMessage(OutgoingDatagramMessage<O> message, byte[] data) {
+        this(message, data, message.getDestinationAddress(), message.getDestinationPort());
+    }
+
+    protected EncodedDatagramMessage(OutgoingDatagramMessage<O> message, byte[] data,
+                                     InetAddress destinationAddress, int destinationPort) {
+        super(message.getOperation(), destinationAddress, destinationPort);
+        this.message = message;
+        this.data = data;
+    }
+
+    /**
+     * @return A message with the same bytes, sent to another destination.
+     */
+    public EncodedDatagramMessage<O> withDestination(InetAddress destinationAddress, int destinationPort) {
+        return new EncodedDatagramMessage<>(message, data, destinationAddress, destinationPort);
+    }
+
+    public OutgoingDatagramMessage<O> getMessage() {
+        return message;
+    }
+
+    /**
+     * @return The serialized message, shared by all copies and not to be modified.
+     */
+    public byte[] getData() {
+        return data;
+    }
+
+    @Override
+    public IUpnpHeaders getHeaders() {
+        return message.getHeaders();
+    }
+}
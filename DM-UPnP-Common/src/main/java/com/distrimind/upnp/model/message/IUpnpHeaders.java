@@ -18,5 +18,12 @@ public interface IUpnpHeaders extends IHeaders {
 
 	String getFirstHeaderString(UpnpHeader.Type type);
 
+	/**
+	 * @param type The header type.
+	 * @return The unparsed value of the first header of this type, or <code>null</code>.
+	 * @since 1.5.0
+	 */
+	String getFirstRawHeader(UpnpHeader.Type type);
+
 	void log();
 }
@@ -177,6 +177,11 @@ public class UpnpHeaders extends Headers implements IUpnpHeaders {
         return header != null ? header.getString() : null;
     }
 
+    @Override
+    public String getFirstRawHeader(UpnpHeader.Type type) {
+        return getFirstHeader(type.getHttpName());
+    }
+
     @Override
 
     public void log() {
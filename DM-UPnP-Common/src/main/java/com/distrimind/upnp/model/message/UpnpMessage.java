@@ -19,15 +19,26 @@ import com.distrimind.upnp.model.Constants;
 import com.distrimind.upnp.model.ModelUtil;
 import com.distrimind.upnp.model.message.header.ContentTypeHeader;
 import com.distrimind.upnp.model.message.header.UpnpHeader;
+import com.distrimind.upnp.util.io.IO;
+import com.distrimind.upnp.util.io.LimitedInputStream;
 
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
 import java.io.UnsupportedEncodingException;
+import java.nio.charset.Charset;
 import java.nio.charset.StandardCharsets;
 
 /**
- * A non-streaming message, the interface between the transport layer and the protocols.
+ * A message, the interface between the transport layer and the protocols.
  * <p>
- * Defaults to UDA version 1.0 and a string body type. Message content is not streamed,
- * it is always read into memory and transported as a string or bytes message body.
+ * Defaults to UDA version 1.0 and a string body type. Message content is usually read into memory
+ * and transported as a string or bytes message body. A {@link BodyType#STREAM} body is instead
+ * the bounded {@link InputStream} of a received message, see {@link #setBodyStream(InputStream)}.
+ * Such a body is read once with {@link #getBodyInputStream()} or written once with
+ * {@link #writeBody(OutputStream)}. The string and bytes accessors still work on streamed bodies,
+ * the body is then buffered first, see {@link #bufferBody()}.
  * </p>
  * <p>
  * Subtypes of this class typically implement the integrity rules for individual UPnP
@@ -43,7 +54,11 @@ import java.nio.charset.StandardCharsets;
 public abstract class UpnpMessage<O extends UpnpOperation> {
 
     public enum BodyType {
-        STRING, BYTES
+        STRING, BYTES,
+        /**
+         * @since 1.5.0
+         */
+        STREAM
     }
 
     private int udaMajorVersion = 1;
@@ -120,6 +135,17 @@ public abstract class UpnpMessage<O extends UpnpOperation> {
         this.body = body;
     }
 
+    /**
+     * Sets a textual body already encoded in UTF-8, like a generated XML document. The transports send these
+     * bytes as is, {@link #getBodyString()} decodes them.
+     *
+     * @param utf8 The encoded body.
+     * @since 1.5.0
+     */
+    public void setBodyUTF8(byte[] utf8) {
+        setBody(BodyType.BYTES, utf8);
+    }
+
     public void setBodyCharacters(byte[] characterData) throws UnsupportedEncodingException {
         if (characterData.length>Constants.MAX_DESCRIPTOR_LENGTH)
             throw new IllegalArgumentException();
@@ -134,6 +160,93 @@ public abstract class UpnpMessage<O extends UpnpOperation> {
         );
     }
 
+    /**
+     * Sets the body of a received message, to be read by the protocols without being buffered.
+     * <p>
+     * The stream must be bounded by the transport, it is read once and closed by the consumer.
+     * </p>
+     *
+     * @param in The body of the received message.
+     * @since 1.5.0
+     */
+    public void setBodyStream(InputStream in) {
+        this.bodyType = BodyType.STREAM;
+        this.body = in;
+    }
+
+    /**
+     * @return <code>true</code> if the body is an unread {@link BodyType#STREAM} body.
+     * @since 1.5.0
+     */
+    public boolean isBodyStreamed() {
+        return bodyType == BodyType.STREAM && body != null;
+    }
+
+    /**
+     * Opens the body for reading.
+     * <p>
+     * A received streamed body is returned as is, and can't be read again. Other bodies are read from memory.
+     * </p>
+     *
+     * @return The body, or <code>null</code> if there is no body.
+     * @since 1.5.0
+     */
+    public InputStream getBodyInputStream() {
+        if (!hasBody())
+            return null;
+        if (getBody() instanceof InputStream) {
+            InputStream in = (InputStream) getBody();
+            // Consumed by the caller
+            this.body = null;
+            return in;
+        }
+        if (getBodyType().equals(BodyType.STRING))
+            return new ByteArrayInputStream(getBodyString().getBytes(StandardCharsets.UTF_8));
+        return new ByteArrayInputStream((byte[]) getBody());
+    }
+
+    /**
+     * Writes the body, string bodies are encoded in UTF-8. A streamed body can be written only once.
+     *
+     * @param out The destination.
+     * @throws IOException If the body could not be written.
+     * @since 1.5.0
+     */
+    public void writeBody(OutputStream out) throws IOException {
+        if (!hasBody())
+            return;
+        if (getBody() instanceof InputStream) {
+            try (InputStream in = getBodyInputStream()) {
+                IO.copyLarge(in, out);
+            }
+        } else if (getBodyType().equals(BodyType.STRING)) {
+            out.write(getBodyString().getBytes(StandardCharsets.UTF_8));
+        } else {
+            out.write((byte[]) getBody());
+        }
+    }
+
+    /**
+     * Reads a streamed body into memory, as a string if the content type is missing or textual, otherwise as bytes.
+     * Does nothing if the body is not streamed.
+     *
+     * @throws IOException If the body could not be read, or if it is longer than {@link Constants#MAX_BODY_LENGTH},
+     * in which case the reading stops at this limit.
+     * @since 1.5.0
+     */
+    public void bufferBody() throws IOException {
+        if (!isBodyStreamed())
+            return;
+        byte[] bytes;
+        try (InputStream in = new LimitedInputStream(getBodyInputStream(), Constants.MAX_BODY_LENGTH)) {
+            bytes = IO.readBytes(in);
+        }
+        if (isContentTypeMissingOrText())
+            setBodyCharacters(bytes);
+        else
+            setBody(BodyType.BYTES, bytes);
+    }
+
     public boolean hasBody() {
         return getBody() != null;
     }
@@ -150,6 +263,7 @@ public abstract class UpnpMessage<O extends UpnpOperation> {
 
     public String getBodyString() {
         try {
+                bufferBody();
                 if(!hasBody()) {
                     return null;
                 }
@@ -169,11 +283,12 @@ public abstract class UpnpMessage<O extends UpnpOperation> {
     @SuppressWarnings("PMD.ReturnEmptyCollectionRatherThanNull")
     public byte[] getBodyBytes() {
         try {
+            bufferBody();
             if(!hasBody()) {
                 return null;
             }
             if(getBodyType().equals(BodyType.STRING)) {
-                return getBodyString().getBytes();
+                return getBodyString().getBytes(getBodyCharset());
             } else {
                 return (byte[]) getBody();
             }
@@ -216,14 +331,34 @@ public abstract class UpnpMessage<O extends UpnpOperation> {
         return ct != null ? ct.getValue().getParameters().get("charset") : null;
     }
 
+    /**
+     * @return The charset of the content type, or UTF-8 if it is missing or not supported.
+     * @since 1.5.0
+     */
+    public Charset getBodyCharset() {
+        String charset = getContentTypeCharset();
+        try {
+            if (charset != null)
+                return Charset.forName(charset);
+        } catch (IllegalArgumentException ignored) {
+            // Unsupported, like in setBodyCharacters() which would fail
+        }
+        return StandardCharsets.UTF_8;
+    }
+
     public boolean hasHostHeader() {
         return getHeaders().getFirstHeader(UpnpHeader.Type.HOST) != null;
     }
 
 
     public boolean isBodyNonEmptyString() {
+        try {
+            bufferBody();
+        } catch (IOException | IllegalArgumentException ex) {
+            return false;
+        }
         return hasBody()
-            && getBodyType().equals(UpnpMessage.BodyType.STRING)
+            && (getBodyType().equals(UpnpMessage.BodyType.STRING) || isContentTypeMissingOrText())
             && !ModelUtil.checkDescriptionXMLNotValid(getBodyString());
     }
 
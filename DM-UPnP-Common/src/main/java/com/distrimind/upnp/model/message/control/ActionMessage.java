@@ -15,6 +15,10 @@
 
 package com.distrimind.upnp.model.message.control;
 
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.Charset;
+
 /**
  * A narrowing interface for action request/response messages.
  *
@@ -27,5 +31,22 @@ public interface ActionMessage {
     boolean isBodyNonEmptyString();
     String getBodyString();
     void setBody(String string);
+    /**
+     * @since 1.5.0
+     */
+    void setBodyUTF8(byte[] utf8);
+
+    /**
+     * @since 1.5.0
+     */
+    boolean isBodyStreamed();
+    /**
+     * @since 1.5.0
+     */
+    InputStream getBodyInputStream() throws IOException;
+    /**
+     * @since 1.5.0
+     */
+    Charset getBodyCharset();
     
 }
@@ -0,0 +1,109 @@
+/*
+ *     This library is free software; you can redistribute it and/or
+ *     modify it under the terms of the GNU Lesser General Public
+ *     License as published by the Free Software Foundation; either
+ *     version 2.1 of the License.
+ *
+ *     This library is distributed in the hope that it will be useful,
+ *     but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *     MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ *     Lesser General Public License for more details.
+ *
+ *     You should have received a copy of the GNU Lesser General Public
+ *     License along with this library; if not, write to the Free Software
+ *     Foundation, Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301  USA
+ */
+
+package com.distrimind.upnp.platform;
+
+/**
+ * Sizing and saturation behaviour of a bounded executor pool, see {@link UPnPExecutor#UPnPExecutor(String, ExecutorPoolConfiguration)}.
+ * <p>
+ * The pool starts up to {@link #getMaxThreads()} threads before queuing tasks, idle threads terminate after
+ * {@link #getKeepAliveSeconds()}, or never if it is <code>0</code>. Once all threads are busy and {@link #getQueueCapacity()} tasks are waiting,
+ * the pool is saturated and further tasks are handled according to {@link #getSaturationPolicy()}.
+ * </p>
+ *
+ * @author Jason Mahdjoub
+ * @since 1.5.0
+ */
+public class ExecutorPoolConfiguration {
+
+	/**
+	 * What happens to a task submitted to a saturated pool. Rejections of a pool being shut down are never
+	 * reported as saturation, the task is discarded.
+	 */
+	public enum SaturationPolicy {
+		/**
+		 * A warning is logged and a {@link java.util.concurrent.RejectedExecutionException} is thrown to the caller.
+		 */
+		ABORT,
+		/**
+		 * The task is run by the calling thread, slowing down the producer of tasks.
+		 */
+		CALLER_RUNS,
+		/**
+		 * The task is logged and dropped.
+		 */
+		DISCARD,
+		/**
+		 * The oldest waiting task is logged and dropped, and the new task is queued.
+		 */
+		DISCARD_OLDEST
+	}
+
+	public static final long DEFAULT_KEEP_ALIVE_SECONDS = 60;
+
+	final private int maxThreads;
+	final private int queueCapacity;
+	final private long keepAliveSeconds;
+	final private SaturationPolicy saturationPolicy;
+
+	public ExecutorPoolConfiguration(int maxThreads, int queueCapacity, SaturationPolicy saturationPolicy) {
+		this(maxThreads, queueCapacity, DEFAULT_KEEP_ALIVE_SECONDS, saturationPolicy);
+	}
+
+	/**
+	 * @param maxThreads The maximum number of threads, at least <code>1</code>.
+	 * @param queueCapacity The maximum number of tasks waiting for a thread, <code>0</code> hands tasks over to threads without queuing.
+	 * @param keepAliveSeconds The time after which an idle thread terminates, <code>0</code> keeps the threads alive.
+	 * @param saturationPolicy What happens to the tasks submitted while the pool is saturated.
+	 */
+	public ExecutorPoolConfiguration(int maxThreads, int queueCapacity, long keepAliveSeconds, SaturationPolicy saturationPolicy) {
+		if (maxThreads < 1)
+			throw new IllegalArgumentException("maxThreads=" + maxThreads);
+		if (queueCapacity < 0)
+			throw new IllegalArgumentException("queueCapacity=" + queueCapacity);
+		if (keepAliveSeconds < 0)
+			throw new IllegalArgumentException("keepAliveSeconds=" + keepAliveSeconds);
+		if (saturationPolicy == null)
+			throw new NullPointerException();
+		this.maxThreads = maxThreads;
+		this.queueCapacity = queueCapacity;
+		this.keepAliveSeconds = keepAliveSeconds;
+		this.saturationPolicy = saturationPolicy;
+	}
+
+	public int getMaxThreads() {
+		return maxThreads;
+	}
+
+	public int getQueueCapacity() {
+		return queueCapacity;
+	}
+
+	public long getKeepAliveSeconds() {
+		return keepAliveSeconds;
+	}
+
+	public SaturationPolicy getSaturationPolicy() {
+		return saturationPolicy;
+	}
+
+	@Override
+	public String toString() {
+		return "(" + getClass().getSimpleName() + ") max threads: " + getMaxThreads()
+				+ ", queue capacity: " + getQueueCapacity()
+				+ ", saturation policy: " + getSaturationPolicy();
+	}
+}
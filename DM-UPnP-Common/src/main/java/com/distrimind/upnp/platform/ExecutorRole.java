@@ -0,0 +1,80 @@
+/*
+ *     This library is free software; you can redistribute it and/or
+ *     modify it under the terms of the GNU Lesser General Public
+ *     License as published by the Free Software Foundation; either
+ *     version 2.1 of the License.
+ *
+ *     This library is distributed in the hope that it will be useful,
+ *     but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *     MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ *     Lesser General Public License for more details.
+ *
+ *     You should have received a copy of the GNU Lesser General Public
+ *     License along with this library; if not, write to the Free Software
+ *     Foundation, Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301  USA
+ */
+
+package com.distrimind.upnp.platform;
+
+import static com.distrimind.upnp.platform.ExecutorPoolConfiguration.SaturationPolicy.*;
+
+/**
+ * The roles of the executors of a UPnP stack, with the default pool of each role when the roles run on
+ * separate bounded pools, see {@link com.distrimind.upnp.DefaultUpnpServiceConfiguration#setBoundedExecutors()}.
+ *
+ * @author Jason Mahdjoub
+ * @since 1.5.0
+ */
+public enum ExecutorRole {
+
+	/**
+	 * Runs one receiver loop per network interface, a saturated pool fails the start of the router.
+	 */
+	MULTICAST_RECEIVER("upnp-multicast-", new ExecutorPoolConfiguration(16, 0, ABORT)),
+	/**
+	 * Runs one datagram I/O loop per bind address, a saturated pool fails the start of the router.
+	 */
+	DATAGRAM_IO("upnp-datagram-", new ExecutorPoolConfiguration(16, 0, ABORT)),
+	/**
+	 * Runs one stream server per bind address, or the connector threads of servlet containers. The received
+	 * HTTP requests are handed to {@link #SYNC_PROTOCOL}, see
+	 * {@link com.distrimind.upnp.transport.Router#received(com.distrimind.upnp.transport.spi.UpnpStream)}.
+	 */
+	STREAM_SERVER("upnp-stream-server-", new ExecutorPoolConfiguration(64, 0, ABORT)),
+	/**
+	 * Runs the protocols of received datagrams and of asynchronous sending. A saturated pool drops the
+	 * received datagrams like a congested network would, and fails the asynchronous sending.
+	 */
+	ASYNC_PROTOCOL("upnp-async-", new ExecutorPoolConfiguration(32, 1024, ABORT)),
+	/**
+	 * Runs the protocols of received HTTP requests and the control point callbacks. A saturated pool runs
+	 * them on the calling thread, the stream server thread, which stops it from accepting more requests meanwhile.
+	 */
+	SYNC_PROTOCOL("upnp-sync-", new ExecutorPoolConfiguration(64, 256, CALLER_RUNS)),
+	/**
+	 * Runs the scheduled registry maintenances, one at a time. The next maintenance can wait in the queue
+	 * while the current one ends.
+	 */
+	REGISTRY_MAINTAINER("upnp-registry-", new ExecutorPoolConfiguration(1, 1, ABORT)),
+	/**
+	 * Notifies the registry listeners. A saturated pool notifies them on the calling thread, so that no
+	 * event is lost.
+	 */
+	REGISTRY_LISTENER("upnp-listener-", new ExecutorPoolConfiguration(4, 1024, CALLER_RUNS));
+
+	final private String threadNamePrefix;
+	final private ExecutorPoolConfiguration defaultPoolConfiguration;
+
+	ExecutorRole(String threadNamePrefix, ExecutorPoolConfiguration defaultPoolConfiguration) {
+		this.threadNamePrefix = threadNamePrefix;
+		this.defaultPoolConfiguration = defaultPoolConfiguration;
+	}
+
+	public String getThreadNamePrefix() {
+		return threadNamePrefix;
+	}
+
+	public ExecutorPoolConfiguration getDefaultPoolConfiguration() {
+		return defaultPoolConfiguration;
+	}
+}
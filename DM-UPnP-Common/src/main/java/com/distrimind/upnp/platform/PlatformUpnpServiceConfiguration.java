@@ -35,6 +35,8 @@ import java.util.Collections;
 import java.util.List;
 import java.util.concurrent.AbstractExecutorService;
 import java.util.concurrent.ExecutorService;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledThreadPoolExecutor;
 import java.util.concurrent.TimeUnit;
 
 /**
@@ -43,13 +45,62 @@ import java.util.concurrent.TimeUnit;
  */
 public abstract class PlatformUpnpServiceConfiguration {
 
+	/**
+	 * Set this system property to <code>true</code> to run the default executor on a pool of threads, even if the
+	 * runtime supports virtual threads, see {@link #isVirtualThreadExecutorEnabled()}.
+	 */
+	public static final String SYSTEM_PROPERTY_DISABLE_VIRTUAL_THREAD_EXECUTOR = "com.distrimind.upnp.disableVirtualThreadExecutor";
+
+	/**
+	 * Set this system property to <code>true</code> to serve all datagram sockets with a single selector thread,
+	 * see {@link #isDatagramSelectorEnabled()}.
+	 */
+	public static final String SYSTEM_PROPERTY_ENABLE_DATAGRAM_SELECTOR = "com.distrimind.upnp.enableDatagramSelector";
+
+	private DatagramSelectorLoop datagramSelectorLoop;
+	private DatagramBufferPool datagramBufferPool;
+
 	protected PlatformUpnpServiceConfiguration() {
 
 	}
+
+	/**
+	 * @return A {@link VirtualThreadUPnPExecutor} if {@link #isVirtualThreadExecutorEnabled()}, otherwise an
+	 *         unbounded {@link UPnPExecutor}.
+	 */
 	public ExecutorService createDefaultExecutorService()
 	{
+		if (isVirtualThreadExecutorEnabled())
+			return new VirtualThreadUPnPExecutor();
 		return new UPnPExecutor();
 	}
+
+	/**
+	 * @return <code>true</code> if the runtime supports virtual threads, unless
+	 *         {@link #SYSTEM_PROPERTY_DISABLE_VIRTUAL_THREAD_EXECUTOR} is set.
+	 * @since 1.5.0
+	 */
+	public boolean isVirtualThreadExecutorEnabled()
+	{
+		return VirtualThreadUPnPExecutor.isSupported() && !Boolean.getBoolean(SYSTEM_PROPERTY_DISABLE_VIRTUAL_THREAD_EXECUTOR);
+	}
+	/**
+	 * @param role The role of the executor.
+	 * @param poolConfiguration The sizing and saturation behaviour of the pool.
+	 * @return A bounded pool dedicated to the given role.
+	 * @since 1.5.0
+	 */
+	public ExecutorService createExecutorService(ExecutorRole role, ExecutorPoolConfiguration poolConfiguration)
+	{
+		return new UPnPExecutor(role.getThreadNamePrefix(), poolConfiguration);
+	}
+	public ScheduledExecutorService createAsyncProtocolScheduledExecutorService()
+	{
+		// A single thread is enough, the scheduled tasks only hand over the protocols to the default executor
+		ScheduledThreadPoolExecutor scheduledExecutorService = new ScheduledThreadPoolExecutor(1, new UPnPThreadFactory());
+		scheduledExecutorService.setRemoveOnCancelPolicy(true);
+		return scheduledExecutorService;
+	}
 	public ExecutorService createDefaultAndroidExecutorService() throws IOException
 	{
 		throw new RuntimeException("Unsupported operation");
@@ -62,17 +113,115 @@ public abstract class PlatformUpnpServiceConfiguration {
 
 	public abstract StreamClient<?> createStreamClient(ExecutorService syncProtocolExecutorService, int timeoutSeconds);
 
+	/**
+	 * @return A {@link SelectorMulticastReceiverImpl} if {@link #isDatagramSelectorEnabled()}, otherwise the
+	 *         receiver created by {@link #createMulticastReceiver(NetworkAddressFactory, DatagramBufferPool)}
+	 *         with the shared {@link #getDatagramBufferPool()}.
+	 */
 	public MulticastReceiver<?> createMulticastReceiver(NetworkAddressFactory networkAddressFactory) {
+		if (isDatagramSelectorEnabled())
+			return createSelectorMulticastReceiver(networkAddressFactory);
+		return createMulticastReceiver(networkAddressFactory, getDatagramBufferPool());
+	}
+
+	/**
+	 * @param networkAddressFactory The configured {@link NetworkAddressFactory}.
+	 * @param bufferPool The receive buffers shared by all datagram receivers.
+	 * @return A new instance of the {@link MulticastReceiver} interface.
+	 * @since 1.5.0
+	 */
+	public MulticastReceiver<?> createMulticastReceiver(NetworkAddressFactory networkAddressFactory, DatagramBufferPool bufferPool) {
 		return new MulticastReceiverImpl(
 				new MulticastReceiverConfigurationImpl(
 						networkAddressFactory.getMulticastGroup(),
 						networkAddressFactory.getMulticastPort()
-				)
+				),
+				bufferPool
 		);
 	}
 
+	/**
+	 * @return A {@link SelectorDatagramIOImpl} if {@link #isDatagramSelectorEnabled()}, otherwise the
+	 *         datagram I/O created by {@link #createDatagramIO(NetworkAddressFactory, DatagramBufferPool)}
+	 *         with the shared {@link #getDatagramBufferPool()}.
+	 */
 	public DatagramIO<?> createDatagramIO(NetworkAddressFactory networkAddressFactory) {
-		return new DatagramIOImpl(new DatagramIOConfigurationImpl());
+		if (isDatagramSelectorEnabled())
+			return createSelectorDatagramIO(networkAddressFactory);
+		return createDatagramIO(networkAddressFactory, getDatagramBufferPool());
+	}
+
+	/**
+	 * @param networkAddressFactory The configured {@link NetworkAddressFactory}.
+	 * @param bufferPool The receive buffers shared by all datagram receivers.
+	 * @return A new instance of the {@link DatagramIO} interface.
+	 * @since 1.5.0
+	 */
+	public DatagramIO<?> createDatagramIO(NetworkAddressFactory networkAddressFactory, DatagramBufferPool bufferPool) {
+		return new DatagramIOImpl(new DatagramIOConfigurationImpl(), bufferPool);
+	}
+
+	/**
+	 * @return The maximum number of idle datagram receive buffers kept for reuse, defaults to 16,
+	 *         <code>0</code> disables pooling.
+	 * @since 1.5.0
+	 */
+	public int getDatagramBufferPoolSize() {
+		return 16;
+	}
+
+	/**
+	 * @return The receive buffers shared by all datagram receivers created by this configuration.
+	 * @since 1.5.0
+	 */
+	public synchronized DatagramBufferPool getDatagramBufferPool() {
+		if (datagramBufferPool == null)
+			datagramBufferPool = new DatagramBufferPool(getDatagramBufferPoolSize());
+		return datagramBufferPool;
+	}
+
+	/**
+	 * @return <code>true</code> if the datagram receivers and datagram I/O share a single selector thread,
+	 *         see {@link #createSelectorMulticastReceiver(NetworkAddressFactory)}. Defaults to <code>false</code>,
+	 *         unless {@link #SYSTEM_PROPERTY_ENABLE_DATAGRAM_SELECTOR} is set.
+	 * @since 1.5.0
+	 */
+	public boolean isDatagramSelectorEnabled() {
+		return Boolean.getBoolean(SYSTEM_PROPERTY_ENABLE_DATAGRAM_SELECTOR);
+	}
+
+	/**
+	 * Alternative to {@link #createMulticastReceiver(NetworkAddressFactory)}: all the receivers and
+	 * datagram I/O created with these <code>createSelector*</code> methods share a single
+	 * {@link DatagramSelectorLoop} thread, instead of blocking one thread per network interface and bind address.
+	 * @param networkAddressFactory The configured {@link NetworkAddressFactory}.
+	 * @return A new instance of the {@link MulticastReceiver} interface.
+	 * @since 1.5.0
+	 */
+	public MulticastReceiver<?> createSelectorMulticastReceiver(NetworkAddressFactory networkAddressFactory) {
+		return new SelectorMulticastReceiverImpl(
+				new MulticastReceiverConfigurationImpl(
+						networkAddressFactory.getMulticastGroup(),
+						networkAddressFactory.getMulticastPort()
+				),
+				getDatagramSelectorLoop()
+		);
+	}
+
+	/**
+	 * Alternative to {@link #createDatagramIO(NetworkAddressFactory)}, see {@link #createSelectorMulticastReceiver(NetworkAddressFactory)}.
+	 * @param networkAddressFactory The configured {@link NetworkAddressFactory}.
+	 * @return A new instance of the {@link DatagramIO} interface.
+	 * @since 1.5.0
+	 */
+	public DatagramIO<?> createSelectorDatagramIO(NetworkAddressFactory networkAddressFactory) {
+		return new SelectorDatagramIOImpl(new DatagramIOConfigurationImpl(), getDatagramSelectorLoop());
+	}
+
+	public synchronized DatagramSelectorLoop getDatagramSelectorLoop() {
+		if (datagramSelectorLoop==null)
+			datagramSelectorLoop=new DatagramSelectorLoop();
+		return datagramSelectorLoop;
 	}
 	public StreamServer<?> createStreamServer(NetworkAddressFactory networkAddressFactory)
 	{
@@ -80,12 +229,33 @@ public abstract class PlatformUpnpServiceConfiguration {
 	}
 	public abstract StreamServer<?> createStreamServer(int streamServerPort);
 
+	/**
+	 * Alternative to {@link #createStreamServer(int)}, without dependency on any HTTP server: a single selector
+	 * thread reads and writes all the TCP connections, see {@link NioStreamServerImpl}.
+	 * @param streamServerPort The port of the stream server.
+	 * @return A new instance of the {@link StreamServer} interface.
+	 * @since 1.5.0
+	 */
+	public StreamServer<?> createNioStreamServer(int streamServerPort) {
+		return new NioStreamServerImpl(new StreamServerConfigurationImpl(streamServerPort));
+	}
+
 	public abstract int getRegistryMaintenanceIntervalMillis();
 
 	public int getAliveIntervalMillis() {
 		return 0;
 	}
 
+	/**
+	 * @return The interval of the checks for changed network interfaces and addresses, defaults to <code>0</code>:
+	 *         the network is not polled, e.g. on Android the router is notified of the connectivity changes.
+	 *         Desktop applications may return e.g. 10000 to follow cables being plugged in.
+	 * @since 1.5.0
+	 */
+	public int getNetworkMonitorIntervalMillis() {
+		return 0;
+	}
+
 	public boolean isReceivedSubscriptionTimeoutIgnored() {
 		return false;
 	}
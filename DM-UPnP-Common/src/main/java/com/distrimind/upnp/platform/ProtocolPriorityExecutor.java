@@ -0,0 +1,405 @@
+/*
+ *     This library is free software; you can redistribute it and/or
+ *     modify it under the terms of the GNU Lesser General Public
+ *     License as published by the Free Software Foundation; either
+ *     version 2.1 of the License.
+ *
+ *     This library is distributed in the hope that it will be useful,
+ *     but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *     MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ *     Lesser General Public License for more details.
+ *
+ *     You should have received a copy of the GNU Lesser General Public
+ *     License along with this library; if not, write to the Free Software
+ *     Foundation, Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301  USA
+ */
+
+package com.distrimind.upnp.platform;
+
+import com.distrimind.flexilogxml.log.DMLogger;
+import com.distrimind.upnp.Log;
+import com.distrimind.upnp.protocol.ProtocolPriority;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.EnumMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.AbstractExecutorService;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.Function;
+
+/**
+ * Bounded executor of the protocols, which runs the waiting tasks by {@link ProtocolPriority}.
+ * <p>
+ * Each task is classified, by default with {@link com.distrimind.upnp.protocol.ProtocolFactory#getProtocolPriority(Runnable)}
+ * once the UPnP service is created, and waits in the queue of its class. A free thread always takes the oldest
+ * task of the highest priority class, so that actions are not delayed by hundreds of search responses during a
+ * discovery storm.
+ * </p>
+ * <p>
+ * The {@link ExecutorPoolConfiguration} of a class bounds the number of its tasks running concurrently, so that
+ * low priority tasks blocked on the network cannot occupy all threads, and the number of its waiting tasks. A task
+ * exceeding the queue of its class is handled according to the {@link ExecutorPoolConfiguration.SaturationPolicy}
+ * of the class. Exceptions terminating a task are logged like by {@link UPnPExecutor}.
+ * </p>
+ *
+ * @author Jason Mahdjoub
+ * @since 1.5.0
+ */
+public class ProtocolPriorityExecutor extends AbstractExecutorService {
+	final private static DMLogger log = Log.getLogger(ProtocolPriorityExecutor.class);
+
+	public static final int DEFAULT_MAX_THREADS = 64;
+
+	private static final ProtocolPriority[] PRIORITIES = ProtocolPriority.values();
+
+	final private String name;
+	final private int maxThreads;
+	final private long keepAliveNanos;
+	final private ThreadFactory threadFactory;
+	final private ExecutorPoolConfiguration[] poolConfigurations = new ExecutorPoolConfiguration[PRIORITIES.length];
+	final private List<ArrayDeque<Runnable>> queues = new ArrayList<>(PRIORITIES.length);
+	final private int[] running = new int[PRIORITIES.length];
+	final private Set<Thread> workers = new HashSet<>();
+	final private ReentrantLock lock = new ReentrantLock();
+	final private Condition available = lock.newCondition();
+	final private Condition terminated = lock.newCondition();
+	private int idleWorkers;
+	private boolean shutdown;
+	private volatile Function<Runnable, ProtocolPriority> classifier = task -> task instanceof ProtocolPriority.Prioritized
+			? ((ProtocolPriority.Prioritized) task).getProtocolPriority()
+			: ProtocolPriority.DISCOVERY;
+
+	/**
+	 * Creates an executor of {@link #DEFAULT_MAX_THREADS} threads, sizing each class with
+	 * {@link ProtocolPriority#getDefaultPoolConfiguration()}.
+	 */
+	public ProtocolPriorityExecutor() {
+		this("upnp-protocol-", DEFAULT_MAX_THREADS, new EnumMap<>(ProtocolPriority.class));
+	}
+
+	/**
+	 * @param name The name of the executor, prefix of the names of its threads.
+	 * @param maxThreads The maximum number of threads, shared by all classes.
+	 * @param poolConfigurations The sizing of the classes, {@link ProtocolPriority#getDefaultPoolConfiguration()} for
+	 *                           the missing ones. Their queue capacity must be at least <code>1</code>.
+	 */
+	public ProtocolPriorityExecutor(String name, int maxThreads, Map<ProtocolPriority, ExecutorPoolConfiguration> poolConfigurations) {
+		if (maxThreads < 1)
+			throw new IllegalArgumentException("maxThreads=" + maxThreads);
+		this.name = name;
+		this.maxThreads = maxThreads;
+		this.keepAliveNanos = TimeUnit.SECONDS.toNanos(ExecutorPoolConfiguration.DEFAULT_KEEP_ALIVE_SECONDS);
+		this.threadFactory = new UPnPThreadFactory(name);
+		for (ProtocolPriority priority : PRIORITIES) {
+			ExecutorPoolConfiguration poolConfiguration = poolConfigurations.get(priority);
+			if (poolConfiguration == null)
+				poolConfiguration = priority.getDefaultPoolConfiguration();
+			if (poolConfiguration.getQueueCapacity() < 1)
+				throw new IllegalArgumentException("Queue capacity of " + priority + ": " + poolConfiguration.getQueueCapacity());
+			this.poolConfigurations[priority.ordinal()] = poolConfiguration;
+			this.queues.add(new ArrayDeque<>());
+		}
+	}
+
+	/**
+	 * @param classifier Gives the class of each executed task.
+	 */
+	public void setClassifier(Function<Runnable, ProtocolPriority> classifier) {
+		if (classifier == null)
+			throw new NullPointerException();
+		this.classifier = classifier;
+	}
+
+	@Override
+	public void execute(Runnable task) {
+		if (task == null)
+			throw new NullPointerException();
+		ProtocolPriority priority = classifier.apply(task);
+		int c = priority.ordinal();
+		boolean callerRuns = false;
+		Runnable discarded = null;
+		lock.lock();
+		try {
+			if (shutdown) {
+				if (log.isInfoEnabled())
+					log.info("Executor " + name + " shut down, discarding execution of " + task.getClass());
+				return;
+			}
+			ArrayDeque<Runnable> queue = queues.get(c);
+			if (queue.size() >= poolConfigurations[c].getQueueCapacity()) {
+				switch (poolConfigurations[c].getSaturationPolicy()) {
+					case CALLER_RUNS:
+						callerRuns = true;
+						break;
+					case DISCARD:
+						if (log.isInfoEnabled())
+							log.info("Executor " + name + " saturated with " + priority + " tasks, discarding " + task.getClass());
+						return;
+					case DISCARD_OLDEST:
+						discarded = queue.poll();
+						queue.add(task);
+						break;
+					default:
+						if (log.isWarnEnabled())
+							log.warn("Executor " + name + " saturated with " + priority + " tasks, rejecting " + task.getClass());
+						throw new RejectedExecutionException("Executor " + name + " saturated with " + priority + " tasks");
+				}
+			} else {
+				queue.add(task);
+			}
+			if (!callerRuns)
+				dispatch();
+		} finally {
+			lock.unlock();
+		}
+		if (callerRuns) {
+			if (log.isDebugEnabled())
+				log.debug("Executor " + name + " saturated with " + priority + " tasks, running " + task.getClass() + " on the calling thread");
+			runTask(task);
+		} else if (discarded != null && log.isInfoEnabled()) {
+			log.info("Executor " + name + " saturated with " + priority + " tasks, discarding " + discarded.getClass());
+		}
+	}
+
+	/**
+	 * Wakes up an idle worker, and starts a new one if the runnable tasks outnumber the idle workers.
+	 */
+	private void dispatch() {
+		if (idleWorkers > 0)
+			available.signal();
+		if (workers.size() < maxThreads && idleWorkers < getRunnableTasks()) {
+			Thread thread = threadFactory.newThread(this::work);
+			workers.add(thread);
+			try {
+				thread.start();
+			} catch (RuntimeException | Error e) {
+				workers.remove(thread);
+				throw e;
+			}
+		}
+	}
+
+	/**
+	 * @return The number of waiting tasks whose class is below its maximum of running tasks.
+	 */
+	private int getRunnableTasks() {
+		int count = 0;
+		for (int c = 0; c < PRIORITIES.length; c++)
+			count += Math.min(queues.get(c).size(), Math.max(0, poolConfigurations[c].getMaxThreads() - running[c]));
+		return count;
+	}
+
+	/**
+	 * @return The class of the next task to run, or <code>-1</code>.
+	 */
+	private int nextClass() {
+		for (int c = 0; c < PRIORITIES.length; c++) {
+			if (!queues.get(c).isEmpty() && running[c] < poolConfigurations[c].getMaxThreads())
+				return c;
+		}
+		return -1;
+	}
+
+	private boolean hasWaitingTasks() {
+		for (ArrayDeque<Runnable> queue : queues) {
+			if (!queue.isEmpty())
+				return true;
+		}
+		return false;
+	}
+
+	private void work() {
+		lock.lock();
+		try {
+			boolean timedOut = false;
+			while (true) {
+				int c = nextClass();
+				if (c >= 0) {
+					Runnable task = queues.get(c).poll();
+					running[c]++;
+					lock.unlock();
+					try {
+						// Clears an interruption of the previous task
+						//noinspection ResultOfMethodCallIgnored
+						Thread.interrupted();
+						runTask(task);
+					} finally {
+						lock.lock();
+						running[c]--;
+						if (shutdown && !hasWaitingTasks())
+							available.signalAll();
+					}
+					timedOut = false;
+					continue;
+				}
+				// Waiting tasks of a class at its maximum are taken by the threads running that class
+				if ((shutdown && !hasWaitingTasks()) || timedOut)
+					break;
+				idleWorkers++;
+				try {
+					timedOut = available.awaitNanos(keepAliveNanos) <= 0;
+				} catch (InterruptedException e) {
+					// Interrupted by shutdownNow()
+				} finally {
+					idleWorkers--;
+				}
+			}
+		} finally {
+			workers.remove(Thread.currentThread());
+			if (workers.isEmpty())
+				terminated.signalAll();
+			lock.unlock();
+		}
+	}
+
+	private void runTask(Runnable task) {
+		Throwable throwable = null;
+		try {
+			task.run();
+		} catch (Throwable t) {
+			throwable = t;
+		}
+		afterExecute(task, throwable);
+	}
+
+	/**
+	 * Called by the thread of the task once it is completed, see {@link java.util.concurrent.ThreadPoolExecutor}.
+	 *
+	 * @param runnable The completed task.
+	 * @param throwable The exception that terminated the task, or <code>null</code>.
+	 */
+	protected void afterExecute(Runnable runnable, Throwable throwable) {
+		UPnPExecutor.logAbruptTermination(runnable, throwable);
+	}
+
+	/**
+	 * @param priority The class of tasks.
+	 * @return The number of tasks of this class waiting for a thread.
+	 */
+	public int getQueueDepth(ProtocolPriority priority) {
+		lock.lock();
+		try {
+			return queues.get(priority.ordinal()).size();
+		} finally {
+			lock.unlock();
+		}
+	}
+
+	/**
+	 * @return The number of tasks waiting for a thread.
+	 */
+	public int getQueueDepth() {
+		lock.lock();
+		try {
+			int count = 0;
+			for (ArrayDeque<Runnable> queue : queues)
+				count += queue.size();
+			return count;
+		} finally {
+			lock.unlock();
+		}
+	}
+
+	/**
+	 * @param priority The class of tasks.
+	 * @return The number of tasks of this class being executed by the threads of this executor.
+	 */
+	public int getActiveCount(ProtocolPriority priority) {
+		lock.lock();
+		try {
+			return running[priority.ordinal()];
+		} finally {
+			lock.unlock();
+		}
+	}
+
+	/**
+	 * @return The current number of threads.
+	 */
+	public int getPoolSize() {
+		lock.lock();
+		try {
+			return workers.size();
+		} finally {
+			lock.unlock();
+		}
+	}
+
+	@Override
+	public void shutdown() {
+		lock.lock();
+		try {
+			shutdown = true;
+			available.signalAll();
+			if (workers.isEmpty())
+				terminated.signalAll();
+		} finally {
+			lock.unlock();
+		}
+	}
+
+	@Override
+	public List<Runnable> shutdownNow() {
+		List<Runnable> tasks = new ArrayList<>();
+		lock.lock();
+		try {
+			shutdown = true;
+			for (ArrayDeque<Runnable> queue : queues) {
+				tasks.addAll(queue);
+				queue.clear();
+			}
+			for (Thread worker : workers)
+				worker.interrupt();
+			available.signalAll();
+			if (workers.isEmpty())
+				terminated.signalAll();
+		} finally {
+			lock.unlock();
+		}
+		return tasks;
+	}
+
+	@Override
+	public boolean isShutdown() {
+		lock.lock();
+		try {
+			return shutdown;
+		} finally {
+			lock.unlock();
+		}
+	}
+
+	@Override
+	public boolean isTerminated() {
+		lock.lock();
+		try {
+			return shutdown && workers.isEmpty();
+		} finally {
+			lock.unlock();
+		}
+	}
+
+	@Override
+	public boolean awaitTermination(long timeout, TimeUnit unit) throws InterruptedException {
+		long nanos = unit.toNanos(timeout);
+		lock.lock();
+		try {
+			while (!shutdown || !workers.isEmpty()) {
+				if (nanos <= 0)
+					return false;
+				nanos = terminated.awaitNanos(nanos);
+			}
+			return true;
+		} finally {
+			lock.unlock();
+		}
+	}
+}
@@ -132,9 +132,82 @@ public class UPnPExecutor extends ThreadPoolExecutor {
 		);
 	}
 
+	/**
+	 * Creates a bounded pool, whose saturation behaviour is given by {@link ExecutorPoolConfiguration#getSaturationPolicy()}.
+	 *
+	 * @param name The name of the pool, prefix of the names of its threads.
+	 * @param configuration The sizing of the pool.
+	 * @since 1.5.0
+	 */
+	public UPnPExecutor(String name, ExecutorPoolConfiguration configuration) {
+		super(configuration.getMaxThreads(),
+				configuration.getMaxThreads(),
+				configuration.getKeepAliveSeconds(),
+				TimeUnit.SECONDS,
+				configuration.getQueueCapacity() == 0 ? new SynchronousQueue<>() : new LinkedBlockingQueue<>(configuration.getQueueCapacity()),
+				new UPnPThreadFactory(name),
+				createRejectedExecutionHandler(name, configuration.getSaturationPolicy())
+		);
+		// Threads are started up to the maximum before queuing, and all of them terminate when idle,
+		// unless there is no keep-alive time, which allowCoreThreadTimeOut() rejects
+		if (configuration.getKeepAliveSeconds() > 0)
+			allowCoreThreadTimeOut(true);
+	}
+
+	private static RejectedExecutionHandler createRejectedExecutionHandler(final String name, ExecutorPoolConfiguration.SaturationPolicy saturationPolicy) {
+		switch (saturationPolicy) {
+			case CALLER_RUNS:
+				return (runnable, executor) -> {
+					if (executor.isShutdown())
+						return;
+					if (log.isDebugEnabled())
+						log.debug("Thread pool " + name + " saturated, running " + runnable.getClass() + " on the calling thread");
+					runnable.run();
+				};
+			case DISCARD:
+				return (runnable, executor) -> {
+					if (!executor.isShutdown() && log.isInfoEnabled())
+						log.info("Thread pool " + name + " saturated, discarding " + runnable.getClass());
+				};
+			case DISCARD_OLDEST:
+				return (runnable, executor) -> {
+					if (executor.isShutdown())
+						return;
+					Runnable oldest = executor.getQueue().poll();
+					if (oldest == null) {
+						// Nothing is waiting, the pool does not queue
+						if (log.isInfoEnabled())
+							log.info("Thread pool " + name + " saturated, discarding " + runnable.getClass());
+						return;
+					}
+					if (log.isInfoEnabled())
+						log.info("Thread pool " + name + " saturated, discarding " + oldest.getClass());
+					executor.execute(runnable);
+				};
+			default:
+				return (runnable, executor) -> {
+					if (executor.isShutdown()) {
+						if (log.isInfoEnabled())
+							log.info("Thread pool " + name + " rejected execution of " + runnable.getClass());
+						return;
+					}
+					if (log.isWarnEnabled())
+						log.warn("Thread pool " + name + " saturated, rejecting " + runnable.getClass());
+					throw new RejectedExecutionException("Thread pool " + name + " saturated: " + executor);
+				};
+		}
+	}
+
 	@Override
 	protected void afterExecute(Runnable runnable, Throwable throwable) {
 		super.afterExecute(runnable, throwable);
+		logAbruptTermination(runnable, throwable);
+	}
+
+	/**
+	 * Logs the exception that terminated a task, if any.
+	 */
+	static void logAbruptTermination(Runnable runnable, Throwable throwable) {
 		if (throwable != null) {
 			Throwable cause = Exceptions.unwrap(throwable);
 			if (cause instanceof InterruptedException) {
@@ -75,7 +75,15 @@ public class UPnPThreadFactory implements ThreadFactory {
 	protected final ThreadFactory threadFactory;
 
 	public UPnPThreadFactory() {
-		this.threadFactory= ThreadType.VIRTUAL_THREAD_IF_AVAILABLE.newThreadFactoryInstance(Thread.currentThread().getThreadGroup(), "upnp_igd-", 0, Thread.NORM_PRIORITY, false);
+		this("upnp_igd-");
+	}
+
+	/**
+	 * @param threadNamePrefix The prefix of the names of the created threads, followed by a sequence number.
+	 * @since 1.5.0
+	 */
+	public UPnPThreadFactory(String threadNamePrefix) {
+		this.threadFactory= ThreadType.VIRTUAL_THREAD_IF_AVAILABLE.newThreadFactoryInstance(Thread.currentThread().getThreadGroup(), threadNamePrefix, 0, Thread.NORM_PRIORITY, false);
 	}
 
 	@Override
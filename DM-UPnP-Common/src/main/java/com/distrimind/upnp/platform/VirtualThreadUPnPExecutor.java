@@ -0,0 +1,167 @@
+/*
+ *     This library is free software; you can redistribute it and/or
+ *     modify it under the terms of the GNU Lesser General Public
+ *     License as published by the Free Software Foundation; either
+ *     version 2.1 of the License.
+ *
+ *     This library is distributed in the hope that it will be useful,
+ *     but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *     MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ *     Lesser General Public License for more details.
+ *
+ *     You should have received a copy of the GNU Lesser General Public
+ *     License along with this library; if not, write to the Free Software
+ *     Foundation, Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301  USA
+ */
+
+package com.distrimind.upnp.platform;
+
+import com.distrimind.flexilogxml.log.DMLogger;
+import com.distrimind.upnp.Log;
+
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.AbstractExecutorService;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Starts a new thread for each task, created by a {@link UPnPThreadFactory}, which creates virtual threads
+ * when the runtime supports them.
+ * <p>
+ * Nearly all the tasks of a UPnP stack block on network I/O or sleep, a virtual thread per task lets tens of
+ * thousands of protocols run concurrently without a pool of platform threads. Exceptions terminating a task
+ * are logged like by {@link UPnPExecutor}, tasks submitted after the shutdown are logged and discarded.
+ * </p>
+ *
+ * @author Jason Mahdjoub
+ * @since 1.5.0
+ */
+public class VirtualThreadUPnPExecutor extends AbstractExecutorService {
+	final private static DMLogger log = Log.getLogger(VirtualThreadUPnPExecutor.class);
+
+	final private ThreadFactory threadFactory;
+	final private Set<Thread> threads = new HashSet<>();
+	private boolean shutdown;
+
+	/**
+	 * @return <code>true</code> if the runtime supports virtual threads.
+	 */
+	public static boolean isSupported() {
+		return Runtime.version().feature() >= 21;
+	}
+
+	public VirtualThreadUPnPExecutor() {
+		this(new UPnPThreadFactory());
+	}
+
+	public VirtualThreadUPnPExecutor(ThreadFactory threadFactory) {
+		this.threadFactory = threadFactory;
+	}
+
+	@Override
+	public void execute(Runnable runnable) {
+		if (runnable == null)
+			throw new NullPointerException();
+		synchronized (threads) {
+			if (shutdown) {
+				if (log.isInfoEnabled())
+					log.info("Executor shut down, discarding execution of " + runnable.getClass());
+				return;
+			}
+			Thread thread = threadFactory.newThread(() -> run(runnable));
+			threads.add(thread);
+			try {
+				thread.start();
+			} catch (RuntimeException | Error e) {
+				threads.remove(thread);
+				throw e;
+			}
+		}
+	}
+
+	private void run(Runnable runnable) {
+		Throwable throwable = null;
+		try {
+			runnable.run();
+		} catch (Throwable t) {
+			throwable = t;
+		} finally {
+			synchronized (threads) {
+				threads.remove(Thread.currentThread());
+				if (threads.isEmpty())
+					threads.notifyAll();
+			}
+		}
+		afterExecute(runnable, throwable);
+	}
+
+	/**
+	 * Called by the thread of the task once it is completed, see {@link java.util.concurrent.ThreadPoolExecutor}.
+	 *
+	 * @param runnable The completed task.
+	 * @param throwable The exception that terminated the task, or <code>null</code>.
+	 */
+	protected void afterExecute(Runnable runnable, Throwable throwable) {
+		UPnPExecutor.logAbruptTermination(runnable, throwable);
+	}
+
+	/**
+	 * @return The number of tasks being executed.
+	 */
+	public int getActiveCount() {
+		synchronized (threads) {
+			return threads.size();
+		}
+	}
+
+	@Override
+	public void shutdown() {
+		synchronized (threads) {
+			shutdown = true;
+			threads.notifyAll();
+		}
+	}
+
+	@Override
+	public List<Runnable> shutdownNow() {
+		synchronized (threads) {
+			shutdown = true;
+			for (Thread thread : threads)
+				thread.interrupt();
+			threads.notifyAll();
+		}
+		// Tasks are never queued
+		return Collections.emptyList();
+	}
+
+	@Override
+	public boolean isShutdown() {
+		synchronized (threads) {
+			return shutdown;
+		}
+	}
+
+	@Override
+	public boolean isTerminated() {
+		synchronized (threads) {
+			return shutdown && threads.isEmpty();
+		}
+	}
+
+	@Override
+	public boolean awaitTermination(long timeout, TimeUnit unit) throws InterruptedException {
+		long deadline = System.nanoTime() + unit.toNanos(timeout);
+		synchronized (threads) {
+			while (!shutdown || !threads.isEmpty()) {
+				long remaining = deadline - System.nanoTime();
+				if (remaining <= 0)
+					return false;
+				TimeUnit.NANOSECONDS.timedWait(threads, remaining);
+			}
+			return true;
+		}
+	}
+}
@@ -0,0 +1,164 @@
+/*
+ *     This library is free software; you can redistribute it and/or
+ *     modify it under the terms of the GNU Lesser General Public
+ *     License as published by the Free Software Foundation; either
+ *     version 2.1 of the License.
+ *
+ *     This library is distributed in the hope that it will be useful,
+ *     but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *     MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ *     Lesser General Public License for more details.
+ *
+ *     You should have received a copy of the GNU Lesser General Public
+ *     License along with this library; if not, write to the Free Software
+ *     Foundation, Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301  USA
+ */
+
+package com.distrimind.upnp.protocol;
+
+import com.distrimind.flexilogxml.log.DMLogger;
+import com.distrimind.upnp.Log;
+import com.distrimind.upnp.model.Location;
+import com.distrimind.upnp.model.message.EncodedDatagramMessage;
+import com.distrimind.upnp.model.message.OutgoingDatagramMessage;
+import com.distrimind.upnp.model.message.UpnpOperation;
+import com.distrimind.upnp.model.meta.LocalDevice;
+import com.distrimind.upnp.model.types.UDN;
+import com.distrimind.upnp.transport.spi.DatagramProcessor;
+
+import java.net.DatagramPacket;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Supplier;
+
+/**
+ * Keeps the serialized SSDP messages of the local devices, so that they are built and written only once.
+ * <p>
+ * Alive notifications and search responses are the same for each repetition and each search, except
+ * for the destination of search responses. The messages are cached per local device instance, descriptor
+ * {@link Location} (network address and path) and kind of message, e.g. the notification subtype or the
+ * search target. Registering another device with the same UDN or removing the device invalidates its
+ * entries, as does a change of its location, which is part of the key.
+ * </p>
+ * <p>
+ * This class is thread-safe.
+ * </p>
+ *
+ * @author Jason Mahdjoub
+ * @since 1.5.0
+ */
+public class DiscoveryDatagramCache {
+
+    final private static DMLogger log = Log.getLogger(DiscoveryDatagramCache.class);
+
+    public static final int DEFAULT_MAX_ENTRIES = 512;
+
+    private static final class Key {
+        final LocalDevice<?> device;
+        final UDN rootUdn;
+        final Location location;
+        final Object kind;
+        final int hashCode;
+
+        Key(LocalDevice<?> device, Location location, Object kind) {
+            this.device = device;
+            this.rootUdn = device.getRoot().getIdentity().getUdn();
+            this.location = location;
+            this.kind = kind;
+            this.hashCode = 31 * (31 * System.identityHashCode(device) + location.hashCode()) + kind.hashCode();
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (this == o) return true;
+            if (!(o instanceof Key)) return false;
+            Key key = (Key) o;
+            // A new device instance with the same UDN gets its own entries
+            return device == key.device && location.equals(key.location) && kind.equals(key.kind);
+        }
+
+        @Override
+        public int hashCode() {
+            return hashCode;
+        }
+    }
+
+    final private Map<Key, List<EncodedDatagramMessage<?>>> entries = new ConcurrentHashMap<>();
+    final private int maxEntries;
+
+    public DiscoveryDatagramCache() {
+        this(DEFAULT_MAX_ENTRIES);
+    }
+
+    /**
+     * @param maxEntries When reached, all entries are dropped, stale locations are not kept forever.
+     */
+    public DiscoveryDatagramCache(int maxEntries) {
+        if (maxEntries <= 0)
+            throw new IllegalArgumentException("maxEntries=" + maxEntries);
+        this.maxEntries = maxEntries;
+    }
+
+    /**
+     * @param device The local device, root or embedded, advertised by the messages.
+     * @param location The descriptor location announced by the messages.
+     * @param kind Identifies the messages of the device at this location, must implement <code>equals()</code>
+     *             and <code>hashCode()</code>.
+     * @param datagramProcessor Writes the messages on a cache miss.
+     * @param messages Creates the messages on a cache miss.
+     * @return The encoded messages, in the order they were created.
+     */
+    public List<EncodedDatagramMessage<?>> get(LocalDevice<?> device, Location location, Object kind,
+                                               DatagramProcessor datagramProcessor,
+                                               Supplier<? extends List<? extends OutgoingDatagramMessage<?>>> messages) {
+        Key key = new Key(device, location, kind);
+        List<EncodedDatagramMessage<?>> encoded = entries.get(key);
+        if (encoded != null)
+            return encoded;
+
+        List<? extends OutgoingDatagramMessage<?>> created = messages.get();
+        List<EncodedDatagramMessage<?>> l = new ArrayList<>(created.size());
+        for (OutgoingDatagramMessage<?> message : created) {
+            l.add(encode(message, datagramProcessor));
+        }
+        encoded = Collections.unmodifiableList(l);
+
+        if (entries.size() >= maxEntries) {
+            if (log.isDebugEnabled())
+                log.debug("Discovery datagram cache is full, dropping " + entries.size() + " entries");
+            entries.clear();
+        }
+        List<EncodedDatagramMessage<?>> previous = entries.putIfAbsent(key, encoded);
+        return previous != null ? previous : encoded;
+    }
+
+    /**
+     * Drops the messages of a root device and of its embedded devices.
+     *
+     * @param rootUdn The UDN of the root device.
+     */
+    public void invalidate(UDN rootUdn) {
+        entries.keySet().removeIf(key -> key.rootUdn.equals(rootUdn));
+    }
+
+    public void clear() {
+        entries.clear();
+    }
+
+    public int size() {
+        return entries.size();
+    }
+
+    protected static <O extends UpnpOperation> EncodedDatagramMessage<O> encode(OutgoingDatagramMessage<O> message,
+                                                                              DatagramProcessor datagramProcessor) {
+        DatagramPacket packet = datagramProcessor.write(message);
+        byte[] data = packet.getOffset() == 0 && packet.getLength() == packet.getData().length
+                ? packet.getData()
+                : Arrays.copyOfRange(packet.getData(), packet.getOffset(), packet.getOffset() + packet.getLength());
+        return new EncodedDatagramMessage<>(message, data);
+    }
+}
@@ -31,7 +31,9 @@ import com.distrimind.upnp.model.message.IncomingDatagramMessage;
 import com.distrimind.upnp.model.message.StreamRequestMessage;
 import com.distrimind.upnp.model.message.header.UpnpHeader;
 
+import com.distrimind.upnp.model.NetworkAddress;
 import java.net.URL;
+import java.util.List;
 
 /**
  * Factory for UPnP protocols, the core implementation of the UPnP specification.
@@ -81,6 +83,15 @@ public interface ProtocolFactory {
      */
 	<T> SendingNotificationAlive createSendingNotificationAlive(LocalDevice<T> localDevice);
 
+    /**
+     * Called by the {@link Registry}, creates a protocol for announcing local devices on new network addresses.
+     *
+     * @param networkAddresses The stream servers announced in the descriptor locations.
+     */
+	default <T> SendingNotificationAlive createSendingNotificationAlive(LocalDevice<T> localDevice, List<NetworkAddress> networkAddresses) {
+		return new SendingNotificationAlive(getUpnpService(), localDevice, networkAddresses);
+	}
+
     /**
      * Called by the {@link Registry}, creates a protocol for announcing local devices.
      */
@@ -115,4 +126,27 @@ public interface ProtocolFactory {
      * Called by the {@link GENASubscription}, creates a protocol for sending GENA events.
      */
 	SendingEvent createSendingEvent(LocalGENASubscription<?> subscription);
+
+    /**
+     * Shared by the protocols advertising local devices and answering searches.
+     *
+     * @return The cache of serialized discovery messages, or <code>null</code> if messages are built and
+     *         written for each sending.
+     */
+	default DiscoveryDatagramCache getDiscoveryDatagramCache() {
+		return null;
+	}
+
+    /**
+     * Classifies the tasks run by a {@link com.distrimind.upnp.platform.ProtocolPriorityExecutor}.
+     *
+     * @param task A protocol created by this factory, or another task of the UPnP stack.
+     * @return The priority of a {@link ProtocolPriority.Prioritized} task, otherwise {@link ProtocolPriority#DISCOVERY}.
+     * @since 1.5.0
+     */
+	default ProtocolPriority getProtocolPriority(Runnable task) {
+		if (task instanceof ProtocolPriority.Prioritized)
+			return ((ProtocolPriority.Prioritized) task).getProtocolPriority();
+		return ProtocolPriority.DISCOVERY;
+	}
 }
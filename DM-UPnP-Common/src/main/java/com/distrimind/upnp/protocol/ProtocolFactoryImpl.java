@@ -19,6 +19,8 @@ import com.distrimind.flexilogxml.log.DMLogger;
 import com.distrimind.upnp.Log;
 import com.distrimind.upnp.transport.RouterException;
 import com.distrimind.upnp.UpnpService;
+import com.distrimind.upnp.controlpoint.ActionCallback;
+import com.distrimind.upnp.controlpoint.SubscriptionCallback;
 import com.distrimind.upnp.model.Namespace;
 import com.distrimind.upnp.model.NetworkAddress;
 import com.distrimind.upnp.model.action.ActionInvocation;
@@ -50,6 +52,7 @@ import com.distrimind.upnp.protocol.sync.SendingEvent;
 import com.distrimind.upnp.protocol.sync.SendingRenewal;
 import com.distrimind.upnp.protocol.sync.SendingSubscribe;
 import com.distrimind.upnp.protocol.sync.SendingUnsubscribe;
+import com.distrimind.upnp.transport.spi.UpnpStream;
 
 import jakarta.enterprise.context.ApplicationScoped;
 import jakarta.inject.Inject;
@@ -68,6 +71,7 @@ public class ProtocolFactoryImpl implements ProtocolFactory {
     final private static DMLogger log = Log.getLogger(ProtocolFactoryImpl.class);
 
     protected final UpnpService upnpService;
+    protected final DiscoveryDatagramCache discoveryDatagramCache = createDiscoveryDatagramCache();
 
     protected ProtocolFactoryImpl() {
         upnpService = null;
@@ -86,6 +90,18 @@ public class ProtocolFactoryImpl implements ProtocolFactory {
         return upnpService;
     }
 
+    @Override
+    public DiscoveryDatagramCache getDiscoveryDatagramCache() {
+        return discoveryDatagramCache;
+    }
+
+    /**
+     * Override this to disable the caching of serialized discovery messages, by returning <code>null</code>.
+     */
+    protected DiscoveryDatagramCache createDiscoveryDatagramCache() {
+        return new DiscoveryDatagramCache();
+    }
+
     @Override
 	@SuppressWarnings("unchecked")
 	public ReceivingAsync<?> createReceivingAsync(IncomingDatagramMessage<?> message) throws ProtocolCreationException {
@@ -261,6 +277,44 @@ public class ProtocolFactoryImpl implements ProtocolFactory {
         return new SendingEvent(getUpnpService(), subscription);
     }
 
+    /**
+     * Actions are {@link ProtocolPriority#CONTROL}, GENA protocols are {@link ProtocolPriority#EVENTING}, received
+     * search responses are {@link ProtocolPriority#SEARCH_RESPONSE}, and any other task is {@link ProtocolPriority#DISCOVERY}.
+     * Received HTTP requests are classified by {@link UpnpStream#getRequestMethod()}: GENA requests are
+     * {@link ProtocolPriority#EVENTING}, the others are {@link ProtocolPriority#CONTROL} since a dropped
+     * request would never be answered.
+     */
+    @Override
+    public ProtocolPriority getProtocolPriority(Runnable task) {
+        if (task instanceof ProtocolPriority.Prioritized)
+            return ((ProtocolPriority.Prioritized) task).getProtocolPriority();
+        if (task instanceof UpnpStream)
+            return getStreamProtocolPriority(((UpnpStream) task).getRequestMethod());
+        if (task instanceof SendingAction || task instanceof ReceivingAction
+                || task instanceof ActionCallback)
+            return ProtocolPriority.CONTROL;
+        if (task instanceof SendingEvent || task instanceof ReceivingEvent
+                || task instanceof SendingSubscribe || task instanceof SendingRenewal || task instanceof SendingUnsubscribe
+                || task instanceof ReceivingSubscribe || task instanceof ReceivingUnsubscribe
+                || task instanceof SubscriptionCallback)
+            return ProtocolPriority.EVENTING;
+        if (task instanceof ReceivingSearchResponse)
+            return ProtocolPriority.SEARCH_RESPONSE;
+        return ProtocolPriority.DISCOVERY;
+    }
+
+    /**
+     * @param method The method of a received HTTP request, can be <code>null</code> if it is not known yet.
+     * @return {@link ProtocolPriority#EVENTING} for GENA requests, otherwise {@link ProtocolPriority#CONTROL}.
+     * @since 1.5.0
+     */
+    protected ProtocolPriority getStreamProtocolPriority(UpnpRequest.Method method) {
+        if (method == UpnpRequest.Method.SUBSCRIBE || method == UpnpRequest.Method.UNSUBSCRIBE
+                || method == UpnpRequest.Method.NOTIFY)
+            return ProtocolPriority.EVENTING;
+        return ProtocolPriority.CONTROL;
+    }
+
     protected ReceivingRetrieval createReceivingRetrieval(StreamRequestMessage message) {
         return new ReceivingRetrieval(getUpnpService(), message);
     }
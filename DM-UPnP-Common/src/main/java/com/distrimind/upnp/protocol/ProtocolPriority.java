@@ -0,0 +1,96 @@
+/*
+ *     This library is free software; you can redistribute it and/or
+ *     modify it under the terms of the GNU Lesser General Public
+ *     License as published by the Free Software Foundation; either
+ *     version 2.1 of the License.
+ *
+ *     This library is distributed in the hope that it will be useful,
+ *     but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *     MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ *     Lesser General Public License for more details.
+ *
+ *     You should have received a copy of the GNU Lesser General Public
+ *     License along with this library; if not, write to the Free Software
+ *     Foundation, Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301  USA
+ */
+
+package com.distrimind.upnp.protocol;
+
+import com.distrimind.upnp.platform.ExecutorPoolConfiguration;
+
+import static com.distrimind.upnp.platform.ExecutorPoolConfiguration.SaturationPolicy.*;
+
+/**
+ * The classes of protocols scheduled by a {@link com.distrimind.upnp.platform.ProtocolPriorityExecutor}, from the
+ * highest to the lowest priority, see {@link ProtocolFactory#getProtocolPriority(Runnable)}.
+ * <p>
+ * The default pool configuration of a class bounds the number of its tasks running concurrently and waiting,
+ * and gives what happens to its tasks when they exceed it.
+ * </p>
+ *
+ * @author Jason Mahdjoub
+ * @since 1.5.0
+ */
+public enum ProtocolPriority {
+
+    /**
+     * Action invocations, sent or received, and the received HTTP requests other than GENA. Never dropped, a
+     * saturated class runs its tasks on the calling thread.
+     */
+    CONTROL(new ExecutorPoolConfiguration(64, 1024, CALLER_RUNS)),
+    /**
+     * GENA subscriptions and events, sent or received, including the received GENA HTTP requests. Never dropped,
+     * a saturated class runs its tasks on the calling thread.
+     */
+    EVENTING(new ExecutorPoolConfiguration(32, 1024, CALLER_RUNS)),
+    /**
+     * Notifications, searches and descriptor retrievals. A saturated class drops its oldest waiting tasks,
+     * newer notifications supersede them.
+     */
+    DISCOVERY(new ExecutorPoolConfiguration(16, 512, DISCARD_OLDEST)),
+    /**
+     * Received search responses. A saturated class drops the new responses, like a congested network would.
+     */
+    SEARCH_RESPONSE(new ExecutorPoolConfiguration(8, 256, DISCARD));
+
+    /**
+     * A task carrying its priority, for tasks that are not protocols themselves.
+     */
+    public interface Prioritized extends Runnable {
+        ProtocolPriority getProtocolPriority();
+    }
+
+    final private ExecutorPoolConfiguration defaultPoolConfiguration;
+
+    ProtocolPriority(ExecutorPoolConfiguration defaultPoolConfiguration) {
+        this.defaultPoolConfiguration = defaultPoolConfiguration;
+    }
+
+    public ExecutorPoolConfiguration getDefaultPoolConfiguration() {
+        return defaultPoolConfiguration;
+    }
+
+    /**
+     * @param task The task to execute.
+     * @return The task, tagged with this priority.
+     */
+    public Prioritized wrap(final Runnable task) {
+        final ProtocolPriority priority = this;
+        return new Prioritized() {
+            @Override
+            public ProtocolPriority getProtocolPriority() {
+                return priority;
+            }
+
+            @Override
+            public void run() {
+                task.run();
+            }
+
+            @Override
+            public String toString() {
+                return task.toString();
+            }
+        };
+    }
+}
@@ -68,17 +68,24 @@ public abstract class ReceivingAsync<M extends UpnpMessage<?>> implements Runnab
         }
 
         if (proceed) {
-            try {
-                execute();
-            } catch (Exception ex) {
-                Throwable cause = Exceptions.unwrap(ex);
-                if (cause instanceof InterruptedException) {
-                    if (log.isInfoEnabled()) log.info("Interrupted protocol '" + getClass().getSimpleName() + "': " + ex, cause);
-                } else {
-                    throw new RuntimeException(
-                        "Fatal error while executing protocol '" + getClass().getSimpleName() + "': ", ex
-                    );
-                }
+            executeProtocol();
+        }
+    }
+
+    /**
+     * Calls {@link #execute()}, after {@link #run()} waited or when the protocol has been scheduled.
+     */
+    protected void executeProtocol() {
+        try {
+            execute();
+        } catch (Exception ex) {
+            Throwable cause = Exceptions.unwrap(ex);
+            if (cause instanceof InterruptedException) {
+                if (log.isInfoEnabled()) log.info("Interrupted protocol '" + getClass().getSimpleName() + "': " + ex, cause);
+            } else {
+                throw new RuntimeException(
+                    "Fatal error while executing protocol '" + getClass().getSimpleName() + "': ", ex
+                );
             }
         }
     }
@@ -15,7 +15,10 @@
 
 package com.distrimind.upnp.protocol;
 
+import java.io.IOException;
+import java.io.InputStream;
 import java.net.URL;
+import java.nio.charset.Charset;
 import java.util.*;
 import java.util.concurrent.CopyOnWriteArrayList;
 import com.distrimind.flexilogxml.log.DMLogger;
@@ -182,6 +185,19 @@ public class RetrieveRemoteDescriptors implements Runnable {
 			// We continue despite the invalid UPnP message because we can still hope to convert the content
         }
 
+        if (deviceDescMsg.isBodyStreamed()) {
+			if (log.isDebugEnabled()) {
+                log.debug("Received streamed root device descriptor: " + deviceDescMsg);
+			}
+            Charset charset = deviceDescMsg.getBodyCharset();
+            try (InputStream descriptor = deviceDescMsg.getBodyInputStream()) {
+                describe(deviceDescriptorBinder -> deviceDescriptorBinder.describe(rd, descriptor, charset));
+            } catch (IOException ex) {
+				if (log.isWarnEnabled()) log.warn("Could not read device descriptor: " + rd.getIdentity().getDescriptorURL(), ex);
+            }
+            return;
+        }
+
         String descriptorContent = deviceDescMsg.getBodyString();
         if (descriptorContent == null || descriptorContent.isEmpty()) {
 			if (log.isWarnEnabled()) log.warn("Received empty device descriptor:" + rd.getIdentity().getDescriptorURL());
@@ -195,6 +211,23 @@ public class RetrieveRemoteDescriptors implements Runnable {
     }
 
     protected void describe(String descriptorXML) throws RouterException {
+        describe(deviceDescriptorBinder -> deviceDescriptorBinder.describe(rd, descriptorXML));
+    }
+
+    /**
+     * Reads the device descriptor with the configured binder.
+     *
+     * @since 1.5.0
+     */
+    @FunctionalInterface
+    protected interface DeviceDescription {
+        RemoteDevice describe(DeviceDescriptorBinder deviceDescriptorBinder) throws DescriptorBindingException, ValidationException;
+    }
+
+    /**
+     * @since 1.5.0
+     */
+    protected void describe(DeviceDescription deviceDescription) throws RouterException {
 
         boolean notifiedStart = false;
         RemoteDevice describedDevice = null;
@@ -203,10 +236,7 @@ public class RetrieveRemoteDescriptors implements Runnable {
             DeviceDescriptorBinder deviceDescriptorBinder =
                     getUpnpService().getConfiguration().getDeviceDescriptorBinderUDA10();
 
-            describedDevice = deviceDescriptorBinder.describe(
-                    rd,
-                    descriptorXML
-            );
+            describedDevice = deviceDescription.describe(deviceDescriptorBinder);
 			if (describedDevice==null) {
 				log.debug("Remote device not describable");
 				return;
@@ -361,6 +391,19 @@ public class RetrieveRemoteDescriptors implements Runnable {
 			// We continue despite the invalid UPnP message because we can still hope to convert the content
         }
 
+        if (serviceDescMsg.isBodyStreamed()) {
+			if (log.isDebugEnabled()) {
+                log.debug("Received streamed service descriptor, hydrating service model: " + serviceDescMsg);
+			}
+            ServiceDescriptorBinder serviceDescriptorBinder =
+                    getUpnpService().getConfiguration().getServiceDescriptorBinderUDA10();
+            try (InputStream descriptor = serviceDescMsg.getBodyInputStream()) {
+                return serviceDescriptorBinder.describe(service, descriptor, serviceDescMsg.getBodyCharset());
+            } catch (IOException ex) {
+                throw DescriptorBindingException.getDescriptorBindingException("Could not read service descriptor: " + ex, ex);
+            }
+        }
+
         String descriptorContent = serviceDescMsg.getBodyString();
         if (descriptorContent == null || descriptorContent.isEmpty()) {
 			if (log.isWarnEnabled()) log.warn("Received empty service descriptor:" + descriptorURL);
@@ -19,6 +19,10 @@ import com.distrimind.upnp.transport.RouterException;
 import com.distrimind.upnp.UpnpService;
 import com.distrimind.upnp.util.Exceptions;
 
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
 import com.distrimind.flexilogxml.log.DMLogger;
 import com.distrimind.upnp.Log;
 
@@ -49,24 +53,102 @@ public abstract class SendingAsync implements Runnable {
         return upnpService;
     }
 
+    /**
+     * One sending of a bulk, see {@link #sendBulk(int, int, BulkSending)}.
+     */
+    @FunctionalInterface
+    protected interface BulkSending {
+        void send() throws RouterException;
+    }
+
     @Override
 	public void run() {
         try {
             execute();
         } catch (Exception ex) {
-            Throwable cause = Exceptions.unwrap(ex);
-            if (cause instanceof InterruptedException) {
-                if (log.isInfoEnabled()) log.info("Interrupted protocol '" + getClass().getSimpleName() + "': " + ex, cause);
-            } else {
-                throw new RuntimeException(
-                    "Fatal error while executing protocol '" + getClass().getSimpleName() + "': ", ex
-                );
-            }
+            handleExecutionException(ex);
+        }
+    }
+
+    protected void handleExecutionException(Exception ex) {
+        Throwable cause = Exceptions.unwrap(ex);
+        if (cause instanceof InterruptedException) {
+            if (log.isInfoEnabled()) log.info("Interrupted protocol '" + getClass().getSimpleName() + "': " + ex, cause);
+        } else {
+            throw new RuntimeException(
+                "Fatal error while executing protocol '" + getClass().getSimpleName() + "': ", ex
+            );
         }
     }
 
     protected abstract void execute() throws RouterException;
 
+    /**
+     * @return The scheduler of the repeated sendings, or <code>null</code> to wait on the executing thread.
+     */
+    protected ScheduledExecutorService getScheduledExecutorService() {
+        return getUpnpService().getConfiguration().getAsyncProtocolScheduledExecutorService();
+    }
+
+    /**
+     * Sends the same messages several times, waiting between each sending.
+     * <p>
+     * With a {@link #getScheduledExecutorService()}, only the first sending is done by the calling thread,
+     * the next ones are scheduled and executed by the async protocol executor, no thread waits in between.
+     * Otherwise, the calling thread sends and sleeps <code>bulkRepeat</code> times.
+     * </p>
+     *
+     * @throws InterruptedException If the calling thread was interrupted while waiting, the remaining
+     *                              messages are not sent.
+     */
+    protected void sendBulk(int bulkRepeat, int bulkIntervalMilliseconds, BulkSending sending) throws RouterException, InterruptedException {
+        ScheduledExecutorService scheduler = getScheduledExecutorService();
+        if (scheduler == null) {
+            for (int i = 0; i < bulkRepeat; i++) {
+                sending.send();
+
+                // UDA 1.0 is silent about this but UDA 1.1 recommends "a few hundred milliseconds"
+                if (log.isTraceEnabled()) {
+                    log.trace("Sleeping " + bulkIntervalMilliseconds + " milliseconds");
+                }
+                Thread.sleep(bulkIntervalMilliseconds);
+            }
+            return;
+        }
+
+        if (bulkRepeat <= 0)
+            return;
+        sending.send();
+        scheduleBulk(scheduler, bulkRepeat - 1, bulkIntervalMilliseconds, sending);
+    }
+
+    private void scheduleBulk(ScheduledExecutorService scheduler, int remainingRepeat, int bulkIntervalMilliseconds, BulkSending sending) {
+        if (remainingRepeat <= 0)
+            return;
+        if (log.isTraceEnabled()) {
+            log.trace("Scheduling next sending in " + bulkIntervalMilliseconds + " milliseconds");
+        }
+        try {
+            scheduler.schedule(
+                () -> getUpnpService().getConfiguration().getAsyncProtocolExecutor().execute(
+                        getUpnpService().getProtocolFactory().getProtocolPriority(this).wrap(() -> {
+                            try {
+                                sending.send();
+                            } catch (Exception ex) {
+                                handleExecutionException(ex);
+                                return;
+                            }
+                            scheduleBulk(scheduler, remainingRepeat - 1, bulkIntervalMilliseconds, sending);
+                        })
+                ),
+                bulkIntervalMilliseconds,
+                TimeUnit.MILLISECONDS
+            );
+        } catch (RejectedExecutionException ex) {
+            if (log.isInfoEnabled()) log.info("Remaining sendings of protocol '" + getClass().getSimpleName() + "' not scheduled (on shutdown?)");
+        }
+    }
+
     @Override
     public String toString() {
         return "(" + getClass().getSimpleName() + ")";
@@ -19,6 +19,12 @@ import com.distrimind.upnp.transport.RouterException;
 import com.distrimind.upnp.model.message.StreamRequestMessage;
 import com.distrimind.upnp.model.message.StreamResponseMessage;
 import com.distrimind.upnp.UpnpService;
+import com.distrimind.upnp.util.Futures;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.Executor;
+import java.util.concurrent.RejectedExecutionException;
 
 /**
  * Supertype for all synchronously executing protocols, sending UPnP messages.
@@ -26,6 +32,11 @@ import com.distrimind.upnp.UpnpService;
  * After instantiation by the {@link ProtocolFactory}, this protocol <code>run()</code>s and
  * calls its {@link #executeSync()} method.
  * </p>
+ * <p>
+ * In asynchronous mode, see {@link #executeAsync()}, the protocol is not run by a thread waiting for the
+ * response: the request is sent with {@link com.distrimind.upnp.transport.Router#sendAsync(StreamRequestMessage)}
+ * and the response is handled by the thread completing it.
+ * </p>
  *
  * @param <IN> The type of request UPnP message send by this protocol.
  * @param <OUT> The type of response UPnP message expected by this protocol.
@@ -57,4 +68,41 @@ public abstract class SendingSync<IN extends StreamRequestMessage, OUT extends S
 
     protected abstract OUT executeSync() throws RouterException;
 
+    /**
+     * @return The async protocol executor, with the tasks tagged with the priority of this protocol, see
+     *         {@link ProtocolFactory#getProtocolPriority(Runnable)}.
+     */
+    private Executor getExecutor() {
+        final Executor executor = getUpnpService().getConfiguration().getAsyncProtocolExecutor();
+        final ProtocolPriority priority = getUpnpService().getProtocolFactory().getProtocolPriority(this);
+        return task -> executor.execute(priority.wrap(task));
+    }
+
+    /**
+     * Executes this protocol in asynchronous mode.
+     * <p>
+     * The default implementation runs {@link #executeSync()} on the async protocol executor. Protocols able
+     * to send their request with {@link com.distrimind.upnp.transport.Router#sendAsync(StreamRequestMessage)}
+     * override it, no thread then waits for the response.
+     * </p>
+     *
+     * @return The output message, also available with {@link #getOutputMessage()} once completed, or a future
+     *         completed exceptionally with a {@link RouterException}.
+     * @since 1.5.0
+     */
+    public CompletableFuture<OUT> executeAsync() {
+        try {
+            return CompletableFuture.supplyAsync(() -> {
+                try {
+                    outputMessage = executeSync();
+                    return outputMessage;
+                } catch (RouterException ex) {
+                    throw new CompletionException(ex);
+                }
+            }, getExecutor());
+        } catch (RejectedExecutionException ex) {
+            return Futures.failed(new RouterException("Async protocol executor saturated", ex));
+        }
+    }
+
 }
\ No newline at end of file
@@ -17,11 +17,17 @@ package com.distrimind.upnp.protocol.async;
 
 import java.util.ArrayList;
 import java.util.Collection;
+import java.util.Collections;
 import java.util.List;
 import java.util.Random;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Supplier;
 import com.distrimind.flexilogxml.log.DMLogger;
 import com.distrimind.upnp.Log;
 
+import com.distrimind.upnp.protocol.DiscoveryDatagramCache;
 import com.distrimind.upnp.protocol.ReceivingAsync;
 import com.distrimind.upnp.registry.Registry;
 import com.distrimind.upnp.transport.RouterException;
@@ -29,6 +35,7 @@ import com.distrimind.upnp.UpnpService;
 import com.distrimind.upnp.model.DiscoveryOptions;
 import com.distrimind.upnp.model.Location;
 import com.distrimind.upnp.model.NetworkAddress;
+import com.distrimind.upnp.model.message.EncodedDatagramMessage;
 import com.distrimind.upnp.model.message.IncomingDatagramMessage;
 import com.distrimind.upnp.model.message.UpnpRequest;
 import com.distrimind.upnp.model.message.discovery.IncomingSearchRequest;
@@ -54,7 +61,9 @@ import com.distrimind.upnp.model.types.UDN;
  * Handles reception of search requests, responds for local registered devices.
  * <p>
  * Waits a random time between 0 and the requested <em>MX</em> (maximum 120 seconds)
- * before executing. Only waits if there are actually any registered local devices.
+ * before executing. Only waits if there are actually any registered local devices. The
+ * execution is scheduled if the configuration provides a scheduler, the thread running
+ * this protocol is released immediately.
  * </p>
  * <p>
  * Extracts the <em>search target</em>, builds and sends the dozens of messages
@@ -112,8 +121,65 @@ public class ReceivingSearch extends ReceivingAsync<IncomingSearchRequest> {
         }
     }
 
+    /**
+     * Schedules the execution after the random delay on the
+     * {@link com.distrimind.upnp.UpnpServiceConfiguration#getAsyncProtocolScheduledExecutorService()}, so that no
+     * thread waits for it. Without scheduler, waits on the calling thread, see {@link #waitBeforeExecution()}.
+     */
+    @Override
+    public void run() {
+        ScheduledExecutorService scheduler =
+            getUpnpService().getConfiguration().getAsyncProtocolScheduledExecutorService();
+        if (scheduler == null) {
+            super.run();
+            return;
+        }
+
+        int delay = getResponseDelayMilliseconds();
+        if (delay < 0)
+            return;
+        if (delay == 0) {
+            executeProtocol();
+            return;
+        }
+
+        if (log.isDebugEnabled()) {
+            log.debug("Scheduling search responses in " + delay + " milliseconds to avoid flooding");
+        }
+        try {
+            scheduler.schedule(
+                () -> getUpnpService().getConfiguration().getAsyncProtocolExecutor().execute(
+                        getUpnpService().getProtocolFactory().getProtocolPriority(this).wrap(this::executeProtocol)
+                ),
+                delay,
+                TimeUnit.MILLISECONDS
+            );
+        } catch (RejectedExecutionException ex) {
+            if (log.isInfoEnabled()) log.info("Search responses not scheduled (on shutdown?): " + getInputMessage());
+        }
+    }
+
     @Override
     protected boolean waitBeforeExecution() throws InterruptedException {
+        int sleepTime = getResponseDelayMilliseconds();
+        if (sleepTime < 0)
+            return false;
+
+        if (sleepTime > 0) {
+			if (log.isDebugEnabled()) {
+				log.debug("Sleeping " + sleepTime + " milliseconds to avoid flooding with search responses");
+			}
+			Thread.sleep(sleepTime);
+        }
+
+        return true;
+    }
+
+    /**
+     * @return A random delay between 0 and the requested <em>MX</em>, <code>0</code> if there is no
+     *         local device, or <code>-1</code> if the request is invalid.
+     */
+    protected int getResponseDelayMilliseconds() {
 
         Integer mx = getInputMessage().getMX();
 
@@ -121,7 +187,7 @@ public class ReceivingSearch extends ReceivingAsync<IncomingSearchRequest> {
 			if (log.isDebugEnabled()) {
 				log.debug("Invalid search request, did not contain MX header: " + getInputMessage());
 			}
-			return false;
+			return -1;
         }
 
         // Spec says we should assume "less" if it's 120 or more
@@ -131,16 +197,12 @@ public class ReceivingSearch extends ReceivingAsync<IncomingSearchRequest> {
 
         // Only wait if there is something to wait for
         if (!getUpnpService().getRegistry().getLocalDevices().isEmpty()) {
-            int sleepTime = randomGenerator.nextInt(mx * 1000);
-			if (log.isDebugEnabled()) {
-				log.debug("Sleeping " + sleepTime + " milliseconds to avoid flooding with search responses");
-			}
-			Thread.sleep(sleepTime);
+            return randomGenerator.nextInt(mx * 1000);
         }
 
-        return true;
+        return 0;
     }
-    
+
     protected void sendResponses(UpnpHeader<?> searchTarget, NetworkAddress activeStreamServer) throws RouterException {
         if (searchTarget instanceof STAllHeader) {
 
@@ -176,45 +238,80 @@ public class ReceivingSearch extends ReceivingAsync<IncomingSearchRequest> {
             if (isAdvertisementDisabled(localDevice))
                 continue;
 
-            // We are re-using the regular notification messages here but override the NT with the ST header
-            if (LOG_ENABLED) {
-				if (log.isTraceEnabled()) {
-					log.trace("Sending root device messages: " + localDevice);
-				}
-			}
-            List<OutgoingSearchResponse> rootDeviceMsgs =
-                    createDeviceMessages(localDevice, activeStreamServer);
-            for (OutgoingSearchResponse upnpMessage : rootDeviceMsgs) {
+            sendSearchResponses(
+                    localDevice,
+                    activeStreamServer,
+                    STAllHeader.class,
+                    () -> createAllMessages(localDevice, activeStreamServer)
+            );
+        }
+    }
+
+    /**
+     * Sends the responses, serialized only once per device, location and search target if the
+     * {@link DiscoveryDatagramCache} is enabled.
+     * <p>
+     * The cached responses are created for the first search, so {@link #prepareOutgoingSearchResponse(OutgoingSearchResponse)}
+     * must not add headers depending on the search request when the cache is enabled.
+     * </p>
+     *
+     * @param kind The search target, identifies the responses of the device at this location.
+     */
+    protected void sendSearchResponses(LocalDevice<?> device,
+                                       NetworkAddress activeStreamServer,
+                                       Object kind,
+                                       Supplier<List<OutgoingSearchResponse>> messages) throws RouterException {
+        DiscoveryDatagramCache cache = getUpnpService().getProtocolFactory().getDiscoveryDatagramCache();
+        if (cache == null) {
+            for (OutgoingSearchResponse upnpMessage : messages.get()) {
                 getUpnpService().getRouter().send(upnpMessage);
             }
+            return;
+        }
+        List<EncodedDatagramMessage<?>> encodedMessages = cache.get(
+                device,
+                getDescriptorLocation(activeStreamServer, device),
+                kind,
+                getUpnpService().getConfiguration().getDatagramProcessor(),
+                messages
+        );
+        for (EncodedDatagramMessage<?> upnpMessage : encodedMessages) {
+            getUpnpService().getRouter().send(
+                    upnpMessage.withDestination(getInputMessage().getSourceAddress(), getInputMessage().getSourcePort())
+            );
+        }
+    }
 
-            if (localDevice.hasEmbeddedDevices()) {
-                for (LocalDevice<?> embeddedDevice : localDevice.findEmbeddedDevices()) {
-                    if (LOG_ENABLED) {
-						if (log.isTraceEnabled()) {
-							log.trace("Sending embedded device messages: " + embeddedDevice);
-						}
-					}
-                    List<OutgoingSearchResponse> embeddedDeviceMsgs =
-                            createDeviceMessages(embeddedDevice, activeStreamServer);
-                    for (OutgoingSearchResponse upnpMessage : embeddedDeviceMsgs) {
-                        getUpnpService().getRouter().send(upnpMessage);
-                    }
-                }
+    protected List<OutgoingSearchResponse> createAllMessages(LocalDevice<?> localDevice,
+                                                             NetworkAddress activeStreamServer) {
+        // We are re-using the regular notification messages here but override the NT with the ST header
+        if (LOG_ENABLED) {
+            if (log.isTraceEnabled()) {
+                log.trace("Creating root device messages: " + localDevice);
             }
+        }
+        List<OutgoingSearchResponse> msgs = createDeviceMessages(localDevice, activeStreamServer);
 
-            List<OutgoingSearchResponse> serviceTypeMsgs =
-                    createServiceTypeMessages(localDevice, activeStreamServer);
-            if (!serviceTypeMsgs.isEmpty()) {
+        if (localDevice.hasEmbeddedDevices()) {
+            for (LocalDevice<?> embeddedDevice : localDevice.findEmbeddedDevices()) {
                 if (LOG_ENABLED) {
-                    log.trace("Sending service type messages");
-                }
-                for (OutgoingSearchResponse upnpMessage : serviceTypeMsgs) {
-                    getUpnpService().getRouter().send(upnpMessage);
+                    if (log.isTraceEnabled()) {
+                        log.trace("Creating embedded device messages: " + embeddedDevice);
+                    }
                 }
+                msgs.addAll(createDeviceMessages(embeddedDevice, activeStreamServer));
             }
+        }
 
+        List<OutgoingSearchResponse> serviceTypeMsgs =
+                createServiceTypeMessages(localDevice, activeStreamServer);
+        if (!serviceTypeMsgs.isEmpty()) {
+            if (LOG_ENABLED) {
+                log.trace("Creating service type messages");
+            }
+            msgs.addAll(serviceTypeMsgs);
         }
+        return msgs;
     }
 
     protected List<OutgoingSearchResponse> createDeviceMessages(LocalDevice<?> device,
@@ -280,14 +377,16 @@ public class ReceivingSearch extends ReceivingAsync<IncomingSearchRequest> {
             if (isAdvertisementDisabled(device))
                 continue;
 
-            OutgoingSearchResponse message =
-                new OutgoingSearchResponseRootDevice(
-                        getInputMessage(),
-                        getDescriptorLocation(activeStreamServer, device),
-                        device
-                );
-            prepareOutgoingSearchResponse(message);
-            getUpnpService().getRouter().send(message);
+            sendSearchResponses(device, activeStreamServer, RootDeviceHeader.class, () -> {
+                OutgoingSearchResponse message =
+                    new OutgoingSearchResponseRootDevice(
+                            getInputMessage(),
+                            getDescriptorLocation(activeStreamServer, device),
+                            device
+                    );
+                prepareOutgoingSearchResponse(message);
+                return Collections.singletonList(message);
+            });
         }
     }
 
@@ -301,14 +400,17 @@ public class ReceivingSearch extends ReceivingAsync<IncomingSearchRequest> {
 			if (log.isDebugEnabled()) {
 				log.debug("Responding to UDN device search: " + udn);
 			}
-			OutgoingSearchResponse message =
-                new OutgoingSearchResponseUDN(
-                        getInputMessage(),
-                        getDescriptorLocation(activeStreamServer, (LocalDevice<?>) device),
-                        (LocalDevice<?>) device
-                );
-            prepareOutgoingSearchResponse(message);
-            getUpnpService().getRouter().send(message);
+			LocalDevice<?> localDevice = (LocalDevice<?>) device;
+			sendSearchResponses(localDevice, activeStreamServer, UDNHeader.class, () -> {
+                OutgoingSearchResponse message =
+                    new OutgoingSearchResponseUDN(
+                            getInputMessage(),
+                            getDescriptorLocation(activeStreamServer, localDevice),
+                            localDevice
+                    );
+                prepareOutgoingSearchResponse(message);
+                return Collections.singletonList(message);
+            });
         }
     }
 
@@ -326,14 +428,17 @@ public class ReceivingSearch extends ReceivingAsync<IncomingSearchRequest> {
 				if (log.isTraceEnabled()) {
 					log.trace("Sending matching device type search result for: " + device);
 				}
-				OutgoingSearchResponse message =
-                    new OutgoingSearchResponseDeviceType(
-                            getInputMessage(),
-                            getDescriptorLocation(activeStreamServer, (LocalDevice<?>) device),
-                            (LocalDevice<?>) device
-                    );
-                prepareOutgoingSearchResponse(message);
-                getUpnpService().getRouter().send(message);
+				LocalDevice<?> localDevice = (LocalDevice<?>) device;
+				sendSearchResponses(localDevice, activeStreamServer, DeviceTypeHeader.class, () -> {
+                    OutgoingSearchResponse message =
+                        new OutgoingSearchResponseDeviceType(
+                                getInputMessage(),
+                                getDescriptorLocation(activeStreamServer, localDevice),
+                                localDevice
+                        );
+                    prepareOutgoingSearchResponse(message);
+                    return Collections.singletonList(message);
+                });
             }
         }
     }
@@ -352,15 +457,18 @@ public class ReceivingSearch extends ReceivingAsync<IncomingSearchRequest> {
 				if (log.isTraceEnabled()) {
 					log.trace("Sending matching service type search result: " + device);
 				}
-				OutgoingSearchResponse message =
-                    new OutgoingSearchResponseServiceType(
-                            getInputMessage(),
-                            getDescriptorLocation(activeStreamServer, (LocalDevice<?>) device),
-                            (LocalDevice<?>) device,
-                            serviceType
-                    );
-                prepareOutgoingSearchResponse(message);
-                getUpnpService().getRouter().send(message);
+				LocalDevice<?> localDevice = (LocalDevice<?>) device;
+				sendSearchResponses(localDevice, activeStreamServer, serviceType, () -> {
+                    OutgoingSearchResponse message =
+                        new OutgoingSearchResponseServiceType(
+                                getInputMessage(),
+                                getDescriptorLocation(activeStreamServer, localDevice),
+                                localDevice,
+                                serviceType
+                        );
+                    prepareOutgoingSearchResponse(message);
+                    return Collections.singletonList(message);
+                });
             }
         }
     }
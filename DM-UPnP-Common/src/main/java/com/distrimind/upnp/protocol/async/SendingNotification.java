@@ -19,6 +19,7 @@ import com.distrimind.upnp.transport.RouterException;
 import com.distrimind.upnp.UpnpService;
 import com.distrimind.upnp.model.Location;
 import com.distrimind.upnp.model.NetworkAddress;
+import com.distrimind.upnp.model.message.EncodedDatagramMessage;
 import com.distrimind.upnp.model.message.discovery.OutgoingNotificationRequest;
 import com.distrimind.upnp.model.message.discovery.OutgoingNotificationRequestDeviceType;
 import com.distrimind.upnp.model.message.discovery.OutgoingNotificationRequestRootDevice;
@@ -27,6 +28,7 @@ import com.distrimind.upnp.model.message.discovery.OutgoingNotificationRequestUD
 import com.distrimind.upnp.model.meta.LocalDevice;
 import com.distrimind.upnp.model.types.NotificationSubtype;
 import com.distrimind.upnp.model.types.ServiceType;
+import com.distrimind.upnp.protocol.DiscoveryDatagramCache;
 import com.distrimind.upnp.protocol.SendingAsync;
 
 import java.util.ArrayList;
@@ -38,7 +40,8 @@ import com.distrimind.upnp.Log;
  * Sending notification messages for a registered local device.
  * <p>
  * Sends all required (dozens) of messages three times, waits between 0 and 150
- * milliseconds between each bulk sending procedure.
+ * milliseconds between each bulk sending procedure. The next bulks are scheduled
+ * if the configuration provides a scheduler.
  * </p>
  *
  * @author Christian Bauer
@@ -48,10 +51,20 @@ public abstract class SendingNotification extends SendingAsync {
     final private static DMLogger log = Log.getLogger(SendingNotification.class);
 
     private final LocalDevice<?> device;
+    private final List<NetworkAddress> networkAddresses;
 
     public SendingNotification(UpnpService upnpService, LocalDevice<?> device) {
+        this(upnpService, device, null);
+    }
+
+    /**
+     * @param networkAddresses The stream servers announced in the descriptor locations, or <code>null</code>
+     *                         for all active stream servers of the router.
+     */
+    public SendingNotification(UpnpService upnpService, LocalDevice<?> device, List<NetworkAddress> networkAddresses) {
         super(upnpService);
         this.device = device;
+        this.networkAddresses = networkAddresses;
     }
 
     public LocalDevice<?> getDevice() {
@@ -61,8 +74,9 @@ public abstract class SendingNotification extends SendingAsync {
     @Override
 	protected void execute() throws RouterException {
 
-        List<NetworkAddress> activeStreamServers =
-            getUpnpService().getRouter().getActiveStreamServers(null);
+        List<NetworkAddress> activeStreamServers = networkAddresses != null
+            ? networkAddresses
+            : getUpnpService().getRouter().getActiveStreamServers(null);
         if (activeStreamServers.isEmpty()) {
             log.debug("Aborting notifications, no active stream servers found (network disabled?)");
             return;
@@ -79,22 +93,14 @@ public abstract class SendingNotification extends SendingAsync {
             );
         }
 
-        for (int i = 0; i < getBulkRepeat(); i++) {
-            try {
-
+        try {
+            sendBulk(getBulkRepeat(), getBulkIntervalMilliseconds(), () -> {
                 for (Location descriptorLocation : descriptorLocations) {
                     sendMessages(descriptorLocation);
                 }
-
-                // UDA 1.0 is silent about this but UDA 1.1 recomments "a few hundred milliseconds"
-				if (log.isTraceEnabled()) {
-					log.trace("Sleeping " + getBulkIntervalMilliseconds() + " milliseconds");
-				}
-				Thread.sleep(getBulkIntervalMilliseconds());
-
-            } catch (InterruptedException ex) {
-                if (log.isWarnEnabled()) log.warn("Advertisement thread was interrupted: ", ex);
-            }
+            });
+        } catch (InterruptedException ex) {
+            if (log.isWarnEnabled()) log.warn("Advertisement thread was interrupted: ", ex);
         }
     }
 
@@ -107,36 +113,56 @@ public abstract class SendingNotification extends SendingAsync {
     }
 
     public void sendMessages(Location descriptorLocation) throws RouterException {
+        DiscoveryDatagramCache cache = getDiscoveryDatagramCache();
+        if (cache == null) {
+            for (OutgoingNotificationRequest upnpMessage : createMessages(descriptorLocation)) {
+                getUpnpService().getRouter().send(upnpMessage);
+            }
+            return;
+        }
+        // Written once, sent for each repetition and each following advertisement of this device
+        List<EncodedDatagramMessage<?>> messages = cache.get(
+                getDevice(),
+                descriptorLocation,
+                getNotificationSubtype(),
+                getUpnpService().getConfiguration().getDatagramProcessor(),
+                () -> createMessages(descriptorLocation)
+        );
+        for (EncodedDatagramMessage<?> upnpMessage : messages) {
+            getUpnpService().getRouter().send(upnpMessage);
+        }
+    }
+
+    /**
+     * @return The cache of the serialized messages, or <code>null</code> to build and write them each time.
+     */
+    protected DiscoveryDatagramCache getDiscoveryDatagramCache() {
+        return getUpnpService().getProtocolFactory().getDiscoveryDatagramCache();
+    }
+
+    protected List<OutgoingNotificationRequest> createMessages(Location descriptorLocation) {
 		if (log.isTraceEnabled()) {
-			log.trace("Sending root device messages: " + getDevice());
+			log.trace("Creating root device messages: " + getDevice());
 		}
-		List<OutgoingNotificationRequest> rootDeviceMsgs =
+		List<OutgoingNotificationRequest> msgs =
                 createDeviceMessages(getDevice(), descriptorLocation);
-        for (OutgoingNotificationRequest upnpMessage : rootDeviceMsgs) {
-            getUpnpService().getRouter().send(upnpMessage);
-        }
 
         if (getDevice().hasEmbeddedDevices()) {
             for (LocalDevice<?> embeddedDevice : getDevice().findEmbeddedDevices()) {
 				if (log.isTraceEnabled()) {
-					log.trace("Sending embedded device messages: " + embeddedDevice);
+					log.trace("Creating embedded device messages: " + embeddedDevice);
 				}
-				List<OutgoingNotificationRequest> embeddedDeviceMsgs =
-                        createDeviceMessages(embeddedDevice, descriptorLocation);
-                for (OutgoingNotificationRequest upnpMessage : embeddedDeviceMsgs) {
-                    getUpnpService().getRouter().send(upnpMessage);
-                }
+				msgs.addAll(createDeviceMessages(embeddedDevice, descriptorLocation));
             }
         }
 
         List<OutgoingNotificationRequest> serviceTypeMsgs =
                 createServiceTypeMessages(getDevice(), descriptorLocation);
         if (!serviceTypeMsgs.isEmpty()) {
-            log.trace("Sending service type messages");
-            for (OutgoingNotificationRequest upnpMessage : serviceTypeMsgs) {
-                getUpnpService().getRouter().send(upnpMessage);
-            }
+            log.trace("Creating service type messages");
+            msgs.addAll(serviceTypeMsgs);
         }
+        return msgs;
     }
 
     protected List<OutgoingNotificationRequest> createDeviceMessages(LocalDevice<?> device,
@@ -17,9 +17,12 @@ package com.distrimind.upnp.protocol.async;
 
 import com.distrimind.upnp.transport.RouterException;
 import com.distrimind.upnp.UpnpService;
+import com.distrimind.upnp.model.NetworkAddress;
 import com.distrimind.upnp.model.meta.LocalDevice;
 import com.distrimind.upnp.model.types.NotificationSubtype;
 
+import java.util.List;
+
 import com.distrimind.flexilogxml.log.DMLogger;
 import com.distrimind.upnp.Log;
 
@@ -36,6 +39,10 @@ public class SendingNotificationAlive extends SendingNotification {
         super(upnpService, device);
     }
 
+    public SendingNotificationAlive(UpnpService upnpService, LocalDevice<?> device, List<NetworkAddress> networkAddresses) {
+        super(upnpService, device, networkAddresses);
+    }
+
     @Override
     protected void execute() throws RouterException {
 		if (log.isDebugEnabled()) {
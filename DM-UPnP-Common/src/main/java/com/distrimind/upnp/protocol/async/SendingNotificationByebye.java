@@ -19,6 +19,9 @@ import com.distrimind.upnp.transport.RouterException;
 import com.distrimind.upnp.UpnpService;
 import com.distrimind.upnp.model.meta.LocalDevice;
 import com.distrimind.upnp.model.types.NotificationSubtype;
+import com.distrimind.upnp.protocol.DiscoveryDatagramCache;
+
+import java.util.concurrent.ScheduledExecutorService;
 
 import com.distrimind.flexilogxml.log.DMLogger;
 import com.distrimind.upnp.Log;
@@ -53,6 +56,22 @@ public class SendingNotificationByebye extends SendingNotification {
 		super.execute();
     }
 
+    /**
+     * Byebye messages are also sent synchronously on shutdown, all of them are sent before returning.
+     */
+    @Override
+    protected ScheduledExecutorService getScheduledExecutorService() {
+        return null;
+    }
+
+    /**
+     * The device is leaving, its messages are not kept.
+     */
+    @Override
+    protected DiscoveryDatagramCache getDiscoveryDatagramCache() {
+        return null;
+    }
+
     @Override
 	protected NotificationSubtype getNotificationSubtype() {
         return NotificationSubtype.BYEBYE;
@@ -30,7 +30,8 @@ import com.distrimind.upnp.Log;
  * Sending search request messages using the supplied search type.
  * <p>
  * Sends all search messages 5 times, waits 0 to 500
- * milliseconds between each sending procedure.
+ * milliseconds between each sending procedure. The next sendings are scheduled
+ * if the configuration provides a scheduler.
  * </p>
  *
  * @author Christian Bauer
@@ -89,21 +90,11 @@ public class SendingSearch extends SendingAsync {
 		OutgoingSearchRequest msg = new OutgoingSearchRequest(searchTarget, getMxSeconds());
         prepareOutgoingSearchRequest(msg);
 
-        for (int i = 0; i < getBulkRepeat(); i++) {
-            try {
-
-                getUpnpService().getRouter().send(msg);
-
-                // UDA 1.0 is silent about this but UDA 1.1 recommends "a few hundred milliseconds"
-				if (log.isTraceEnabled()) {
-					log.trace("Sleeping " + getBulkIntervalMilliseconds() + " milliseconds");
-				}
-				Thread.sleep(getBulkIntervalMilliseconds());
-
-            } catch (InterruptedException ex) {
-                // Interruption means we stop sending search messages, e.g. on shutdown of thread pool
-                break;
-            }
+        try {
+            sendBulk(getBulkRepeat(), getBulkIntervalMilliseconds(), () -> getUpnpService().getRouter().send(msg));
+        } catch (InterruptedException ex) {
+            // Interruption means we stop sending search messages, e.g. on shutdown of thread pool
+            log.debug("Search interrupted");
         }
     }
 
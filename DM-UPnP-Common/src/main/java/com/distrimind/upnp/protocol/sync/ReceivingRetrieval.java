@@ -104,7 +104,7 @@ public class ReceivingRetrieval extends ReceivingSync<StreamRequestMessage, Stre
 
                 DeviceDescriptorBinder deviceDescriptorBinder =
                         getUpnpService().getConfiguration().getDeviceDescriptorBinderUDA10();
-                String deviceDescriptor = deviceDescriptorBinder.generate(
+                byte[] deviceDescriptor = deviceDescriptorBinder.generateUTF8(
                         device,
                         getRemoteClientInfo(),
                         getUpnpService().getConfiguration().getNamespace()
@@ -123,7 +123,7 @@ public class ReceivingRetrieval extends ReceivingSync<StreamRequestMessage, Stre
 
                 ServiceDescriptorBinder serviceDescriptorBinder =
                         getUpnpService().getConfiguration().getServiceDescriptorBinderUDA10();
-                String serviceDescriptor = serviceDescriptorBinder.generate(service);
+                byte[] serviceDescriptor = serviceDescriptorBinder.generateUTF8(service);
                 response = new StreamResponseMessage(
                         serviceDescriptor,
                         new ContentTypeHeader(ContentTypeHeader.DEFAULT_CONTENT_TYPE)
@@ -32,6 +32,8 @@ import com.distrimind.upnp.model.UnsupportedDataException;
 import com.distrimind.upnp.util.Exceptions;
 
 import java.net.URL;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
 import com.distrimind.flexilogxml.log.DMLogger;
 import com.distrimind.upnp.Log;
 
@@ -65,17 +67,71 @@ public class SendingAction extends SendingSync<OutgoingActionRequestMessage, Inc
         return invokeRemote(getInputMessage());
     }
 
+    /**
+     * Sends the request with {@link com.distrimind.upnp.transport.Router#sendAsync},
+     * the response is read by the thread completing the request. A failure of the router is set on the
+     * action invocation before the returned future fails with it.
+     */
+    @Override
+    public CompletableFuture<IncomingActionResponseMessage> executeAsync() {
+        OutgoingActionRequestMessage requestMessage = getInputMessage();
+        logSending();
+        try {
+            writeRequestBody(requestMessage);
+        } catch (ActionException ex) {
+            outputMessage = handleActionException(ex, null);
+            return CompletableFuture.completedFuture(outputMessage);
+        }
+
+        log.debug("Sending SOAP body of message as asynchronous stream to remote device");
+        return getUpnpService().getRouter().sendAsync(requestMessage).handle((streamResponse, ex) -> {
+            if (ex != null) {
+                Throwable cause = ex instanceof CompletionException && ex.getCause() != null ? ex.getCause() : ex;
+                handleRouterFailure(cause);
+                throw ex instanceof CompletionException ? (CompletionException) ex : new CompletionException(ex);
+            }
+            outputMessage = handleRemoteResponse(streamResponse);
+            return outputMessage;
+        });
+    }
+
+    private void handleRouterFailure(Throwable ex) {
+        Throwable cause = Exceptions.unwrap(ex);
+        if (cause instanceof InterruptedException) {
+            if (log.isDebugEnabled()) {
+                log.debug("Sending action request message was interrupted: ", cause);
+            }
+            actionInvocation.setFailure(new ActionCancelledException((InterruptedException) cause));
+        } else {
+            if (log.isDebugEnabled()) {
+                log.debug("Sending action request message failed: ", ex);
+            }
+            actionInvocation.setFailure(new ActionException(ErrorCode.ACTION_FAILED, "Sending action request failed: " + ex.getMessage(), ex));
+        }
+    }
+
     protected IncomingActionResponseMessage invokeRemote(OutgoingActionRequestMessage requestMessage) throws RouterException {
-        Device<?, ?, ?> device = actionInvocation.getAction().getService().getDevice();
+        logSending();
+        StreamResponseMessage streamResponse;
+        try {
+            streamResponse = sendRemoteRequest(requestMessage);
+        } catch (ActionException ex) {
+            return handleActionException(ex, null);
+        }
+        return handleRemoteResponse(streamResponse);
+    }
 
+    private void logSending() {
 		if (log.isDebugEnabled()) {
+            Device<?, ?, ?> device = actionInvocation.getAction().getService().getDevice();
             log.debug("Sending outgoing action call '" + actionInvocation.getAction().getName() + "' to remote service of: " + device);
 		}
+    }
+
+    protected IncomingActionResponseMessage handleRemoteResponse(StreamResponseMessage streamResponse) {
 		IncomingActionResponseMessage responseMessage = null;
         try {
 
-            StreamResponseMessage streamResponse = sendRemoteRequest(requestMessage);
-
             if (streamResponse == null) {
                 log.debug("No connection or no no response received, returning null");
                 actionInvocation.setFailure(new ActionException(ErrorCode.ACTION_FAILED, "Connection error or no response received"));
@@ -101,15 +157,19 @@ public class SendingAction extends SendingSync<OutgoingActionRequestMessage, Inc
 
 
         } catch (ActionException ex) {
-			if (log.isDebugEnabled()) {
-				log.debug("Remote action invocation failed, returning Internal Server Error message: ", ex);
-			}
-			actionInvocation.setFailure(ex);
-            if (responseMessage == null || !responseMessage.getOperation().isFailed()) {
-                return new IncomingActionResponseMessage(new UpnpResponse(UpnpResponse.Status.INTERNAL_SERVER_ERROR));
-            } else {
-                return responseMessage;
-            }
+            return handleActionException(ex, responseMessage);
+        }
+    }
+
+    protected IncomingActionResponseMessage handleActionException(ActionException ex, IncomingActionResponseMessage responseMessage) {
+		if (log.isDebugEnabled()) {
+			log.debug("Remote action invocation failed, returning Internal Server Error message: ", ex);
+		}
+		actionInvocation.setFailure(ex);
+        if (responseMessage == null || !responseMessage.getOperation().isFailed()) {
+            return new IncomingActionResponseMessage(new UpnpResponse(UpnpResponse.Status.INTERNAL_SERVER_ERROR));
+        } else {
+            return responseMessage;
         }
     }
 
@@ -117,10 +177,7 @@ public class SendingAction extends SendingSync<OutgoingActionRequestMessage, Inc
         throws ActionException, RouterException {
 
         try {
-			if (log.isDebugEnabled()) {
-				log.debug("Writing SOAP request body of: " + requestMessage);
-			}
-			getUpnpService().getConfiguration().getSoapActionProcessor().writeBody(requestMessage, actionInvocation);
+			writeRequestBody(requestMessage);
 
             log.debug("Sending SOAP body of message as stream to remote device");
             return getUpnpService().getRouter().send(requestMessage);
@@ -133,6 +190,15 @@ public class SendingAction extends SendingSync<OutgoingActionRequestMessage, Inc
                 throw new ActionCancelledException((InterruptedException)cause);
             }
             throw ex;
+        }
+    }
+
+    protected void writeRequestBody(OutgoingActionRequestMessage requestMessage) throws ActionException {
+        try {
+			if (log.isDebugEnabled()) {
+				log.debug("Writing SOAP request body of: " + requestMessage);
+			}
+			getUpnpService().getConfiguration().getSoapActionProcessor().writeBody(requestMessage, actionInvocation);
         } catch (UnsupportedDataException ex) {
             if (log.isDebugEnabled()) {
                 log.debug("Error writing SOAP body: ", ex);
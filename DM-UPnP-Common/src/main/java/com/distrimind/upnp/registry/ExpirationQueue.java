@@ -0,0 +1,180 @@
+/*
+ *     This library is free software; you can redistribute it and/or
+ *     modify it under the terms of the GNU Lesser General Public
+ *     License as published by the Free Software Foundation; either
+ *     version 2.1 of the License.
+ *
+ *     This library is distributed in the hope that it will be useful,
+ *     but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *     MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ *     Lesser General Public License for more details.
+ *
+ *     You should have received a copy of the GNU Lesser General Public
+ *     License along with this library; if not, write to the Free Software
+ *     Foundation, Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301  USA
+ */
+
+package com.distrimind.upnp.registry;
+
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Min-heap of registry items, ordered by the time of their next maintenance.
+ * <p>
+ * An item is held at most once, scheduling it again moves it in the heap. Adding, moving and removing an item
+ * costs <code>O(log n)</code>, so that the registry maintenance only visits the items which are due instead of
+ * scanning all of them.
+ * </p>
+ * <p>
+ * Internal class, required by {@link RegistryItems}. This class is not thread-safe, it is guarded by the
+ * registry lock.
+ * </p>
+ *
+ * @param <T> The type of the items, identified by their <code>equals()</code> method.
+ * @author Jason Mahdjoub
+ * @since 1.5.0
+ */
+class ExpirationQueue<T> {
+
+    private Object[] items = new Object[16];
+    private long[] deadlines = new long[16];
+    private int size;
+    private final Map<T, Integer> positions = new HashMap<>();
+
+    /**
+     * Adds the item, or moves it if an equal item is already scheduled. The given instance replaces the
+     * scheduled one.
+     *
+     * @param item The item to schedule.
+     * @param deadlineMillis The time in milliseconds at which the item is due, {@link Long#MAX_VALUE} to remove it.
+     */
+    void schedule(T item, long deadlineMillis) {
+        if (deadlineMillis == Long.MAX_VALUE) {
+            remove(item);
+            return;
+        }
+        Integer position = positions.get(item);
+        if (position == null) {
+            if (size == items.length) {
+                int length = size * 2;
+                Object[] i = new Object[length];
+                System.arraycopy(items, 0, i, 0, size);
+                items = i;
+                long[] d = new long[length];
+                System.arraycopy(deadlines, 0, d, 0, size);
+                deadlines = d;
+            }
+            int i = size++;
+            items[i] = item;
+            deadlines[i] = deadlineMillis;
+            positions.put(item, i);
+            siftUp(i);
+        } else {
+            int i = position;
+            long previousDeadline = deadlines[i];
+            items[i] = item;
+            deadlines[i] = deadlineMillis;
+            if (deadlineMillis < previousDeadline)
+                siftUp(i);
+            else
+                siftDown(i);
+        }
+    }
+
+    /**
+     * @return <code>true</code> if an equal item was scheduled.
+     */
+    boolean remove(T item) {
+        Integer position = positions.remove(item);
+        if (position == null)
+            return false;
+        int i = position;
+        int last = --size;
+        if (i != last) {
+            items[i] = items[last];
+            deadlines[i] = deadlines[last];
+            setPosition(i);
+            siftDown(i);
+            siftUp(i);
+        }
+        items[last] = null;
+        return true;
+    }
+
+    /**
+     * @return The time in milliseconds at which the first item is due, {@link Long#MAX_VALUE} if there is none.
+     */
+    long getNextDeadlineMillis() {
+        return size == 0 ? Long.MAX_VALUE : deadlines[0];
+    }
+
+    /**
+     * Removes and returns the first item if it is due.
+     *
+     * @param nowMillis The current time in milliseconds.
+     * @return The removed item, <code>null</code> if no item is due.
+     */
+    T pollExpired(long nowMillis) {
+        if (size == 0 || deadlines[0] > nowMillis)
+            return null;
+        @SuppressWarnings("unchecked") T item = (T) items[0];
+        remove(item);
+        return item;
+    }
+
+    boolean isEmpty() {
+        return size == 0;
+    }
+
+    int size() {
+        return size;
+    }
+
+    void clear() {
+        for (int i = 0; i < size; i++)
+            items[i] = null;
+        size = 0;
+        positions.clear();
+    }
+
+    private void siftUp(int i) {
+        while (i > 0) {
+            int parent = (i - 1) >>> 1;
+            if (deadlines[parent] <= deadlines[i])
+                break;
+            swap(i, parent);
+            i = parent;
+        }
+    }
+
+    private void siftDown(int i) {
+        while (true) {
+            int child = 2 * i + 1;
+            if (child >= size)
+                break;
+            if (child + 1 < size && deadlines[child + 1] < deadlines[child])
+                child++;
+            if (deadlines[i] <= deadlines[child])
+                break;
+            swap(i, child);
+            i = child;
+        }
+    }
+
+    private void swap(int i, int j) {
+        Object item = items[i];
+        items[i] = items[j];
+        items[j] = item;
+        long deadline = deadlines[i];
+        deadlines[i] = deadlines[j];
+        deadlines[j] = deadline;
+        setPosition(i);
+        setPosition(j);
+    }
+
+    @SuppressWarnings("unchecked")
+    private void setPosition(int i) {
+        positions.put((T) items[i], i);
+    }
+}
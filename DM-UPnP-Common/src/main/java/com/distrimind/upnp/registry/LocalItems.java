@@ -16,21 +16,29 @@
 package com.distrimind.upnp.registry;
 
 import com.distrimind.upnp.model.DiscoveryOptions;
+import com.distrimind.upnp.model.NetworkAddress;
 import com.distrimind.upnp.model.resource.Resource;
 import com.distrimind.upnp.model.gena.CancelReason;
 import com.distrimind.upnp.model.gena.LocalGENASubscription;
 import com.distrimind.upnp.model.meta.LocalDevice;
 import com.distrimind.upnp.model.types.UDN;
+import com.distrimind.upnp.protocol.DiscoveryDatagramCache;
+import com.distrimind.upnp.protocol.ProtocolPriority;
 import com.distrimind.upnp.protocol.SendingAsync;
 
+import java.util.ArrayList;
 import java.util.Collection;
 import java.util.Collections;
 import java.util.HashMap;
 import java.util.HashSet;
 import java.util.Iterator;
+import java.util.List;
 import java.util.Map;
 import java.util.Random;
 import java.util.Set;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
 import com.distrimind.flexilogxml.log.DMLogger;
 import com.distrimind.upnp.Log;
 
@@ -115,10 +123,12 @@ class LocalItems extends RegistryItems<LocalDevice<?>, LocalGENASubscription<?>>
                 localDevice.getIdentity().getMaxAgeSeconds()
         );
 
-        getDeviceItems().add(localItem);
+        putDeviceItem(localItem);
+        registry.requestMaintenance(getAdvertisementMillis(localItem));
 		if (log.isDebugEnabled()) {
             log.debug("Registered local device: " + localItem);
 		}
+        invalidateDiscoveryDatagrams(localDevice);
 
 		if (isByeByeBeforeFirstAlive(localItem.getKey()))
             advertiseByebye(localDevice, true);
@@ -157,7 +167,8 @@ class LocalItems extends RegistryItems<LocalDevice<?>, LocalGENASubscription<?>>
 			}
 
 			setDiscoveryOptions(localDevice.getIdentity().getUdn(), null);
-            getDeviceItems().remove(new RegistryItem<UDN, LocalDevice<?>>(localDevice.getIdentity().getUdn()));
+            removeDeviceItem(localDevice.getIdentity().getUdn());
+            invalidateDiscoveryDatagrams(localDevice);
 
             for (Resource<?> deviceResource : getResources(localDevice)) {
                 if (registry.removeResource(deviceResource)) {
@@ -180,6 +191,7 @@ class LocalItems extends RegistryItems<LocalDevice<?>, LocalGENASubscription<?>>
 						log.debug("Removing incoming subscription: " + incomingSubscription.getKey());
 					}
 					it.remove();
+                    subscriptionExpirations.remove(incomingSubscription);
                     if (!shuttingDown) {
                         registry.getConfiguration().getRegistryListenerExecutor().execute(
 								() -> incomingSubscription.getItem().end(CancelReason.DEVICE_WAS_REMOVED)
@@ -219,25 +231,33 @@ class LocalItems extends RegistryItems<LocalDevice<?>, LocalGENASubscription<?>>
     /* ############################################################################################################ */
 
     public void advertiseLocalDevices() {
-        for (RegistryItem<UDN, LocalDevice<?>> localItem : deviceItems) {
+        advertiseLocalDevices(null);
+    }
+
+    /**
+     * @param networkAddresses The stream servers announced in the descriptor locations, or <code>null</code>
+     *                         for all active stream servers.
+     */
+    public void advertiseLocalDevices(List<NetworkAddress> networkAddresses) {
+        for (RegistryItem<UDN, LocalDevice<?>> localItem : getDeviceItems()) {
             if (isAdvertised(localItem.getKey()))
-                advertiseAlive(localItem.getItem());
+                advertiseAlive(localItem.getItem(), networkAddresses);
         }
     }
 
     /* ############################################################################################################ */
     
     @Override
-	void maintain() {
+	long maintain() {
 
-    	if(getDeviceItems().isEmpty()) return ;
+    	if(getDeviceItems().isEmpty()) return Long.MAX_VALUE;
 
+        long now = System.currentTimeMillis();
         Set<RegistryItem<UDN, LocalDevice<?>>> expiredLocalItems = new HashSet<>();
 
         // "Flooding" is enabled, check if we need to send advertisements for all devices
         int aliveIntervalMillis = registry.getConfiguration().getAliveIntervalMillis();
         if(aliveIntervalMillis > 0) {
-        	long now = System.currentTimeMillis();
         	if(now - lastAliveIntervalTimestamp > aliveIntervalMillis) {
         		lastAliveIntervalTimestamp = now;
                 for (RegistryItem<UDN, LocalDevice<?>> localItem : getDeviceItems()) {
@@ -253,15 +273,26 @@ class LocalItems extends RegistryItems<LocalDevice<?>, LocalGENASubscription<?>>
             // Reset, the configuration might dynamically switch the alive interval
             lastAliveIntervalTimestamp = 0;
 
-            // Alive interval is not enabled, regular expiration check of all devices
-            for (RegistryItem<UDN, LocalDevice<?>> localItem : getDeviceItems()) {
-                if (isAdvertised(localItem.getKey()) && localItem.getExpirationDetails().hasExpired(true)) {
+            // Alive interval is not enabled, regular expiration check of the due devices
+            List<RegistryItem<UDN, LocalDevice<?>>> notAdvertisedLocalItems = new ArrayList<>();
+            RegistryItem<UDN, LocalDevice<?>> localItem;
+            while ((localItem = deviceExpirations.pollExpired(now)) != null) {
+                if (isAdvertised(localItem.getKey())) {
 					if (log.isTraceEnabled()) {
 						log.trace("Local item has expired: " + localItem);
 					}
 					expiredLocalItems.add(localItem);
+                } else {
+                    notAdvertisedLocalItems.add(localItem);
                 }
             }
+            // The discovery options might change, check again after half the maximum age
+            for (RegistryItem<UDN, LocalDevice<?>> notAdvertisedLocalItem : notAdvertisedLocalItems) {
+                deviceExpirations.schedule(
+                        notAdvertisedLocalItem,
+                        now + notAdvertisedLocalItem.getExpirationDetails().getMaxAgeSeconds() * 500L
+                );
+            }
         }
 
         // Now execute the advertisements
@@ -271,14 +302,14 @@ class LocalItems extends RegistryItems<LocalDevice<?>, LocalGENASubscription<?>>
 			}
 			advertiseAlive(expiredLocalItem.getItem());
             expiredLocalItem.getExpirationDetails().stampLastRefresh();
+            deviceExpirations.schedule(expiredLocalItem, getDeviceMaintenanceMillis(expiredLocalItem));
         }
 
         // Expire incoming subscriptions
-        Set<RegistryItem<String, LocalGENASubscription<?>>> expiredIncomingSubscriptions = new HashSet<>();
-        for (RegistryItem<String, LocalGENASubscription<?>> item : getSubscriptionItems()) {
-            if (item.getExpirationDetails().hasExpired(false)) {
-                expiredIncomingSubscriptions.add(item);
-            }
+        List<RegistryItem<String, LocalGENASubscription<?>>> expiredIncomingSubscriptions = new ArrayList<>();
+        RegistryItem<String, LocalGENASubscription<?>> item;
+        while ((item = subscriptionExpirations.pollExpired(now)) != null) {
+            expiredIncomingSubscriptions.add(item);
         }
         for (RegistryItem<String, LocalGENASubscription<?>> subscription : expiredIncomingSubscriptions) {
 			if (log.isDebugEnabled()) {
@@ -288,12 +319,39 @@ class LocalItems extends RegistryItems<LocalDevice<?>, LocalGENASubscription<?>>
             subscription.getItem().end(CancelReason.EXPIRED);
         }
 
+        long nextMaintenanceMillis = aliveIntervalMillis > 0
+                ? lastAliveIntervalTimestamp + aliveIntervalMillis + 1
+                : deviceExpirations.getNextDeadlineMillis();
+        return Math.min(nextMaintenanceMillis, subscriptionExpirations.getNextDeadlineMillis());
+    }
+
+    /**
+     * @return The time in milliseconds of the next alive flooding, or of the next advertisement of the given device.
+     */
+    protected long getAdvertisementMillis(RegistryItem<UDN, LocalDevice<?>> localItem) {
+        int aliveIntervalMillis = registry.getConfiguration().getAliveIntervalMillis();
+        if (aliveIntervalMillis > 0)
+            return lastAliveIntervalTimestamp + aliveIntervalMillis + 1;
+        return isAdvertised(localItem.getKey())
+                ? getDeviceMaintenanceMillis(localItem)
+                : Long.MAX_VALUE;
+    }
+
+    @Override
+    long getDeviceMaintenanceMillis(RegistryItem<UDN, LocalDevice<?>> deviceItem) {
+        return deviceItem.getExpirationDetails().getExpirationMillis(true);
+    }
+
+    @Override
+    long getSubscriptionMaintenanceMillis(RegistryItem<String, LocalGENASubscription<?>> subscriptionItem) {
+        return subscriptionItem.getExpirationDetails().getExpirationMillis(false);
     }
 
     @Override
 	void shutdown() {
         log.debug("Clearing all registered subscriptions to local devices during shutdown");
         getSubscriptionItems().clear();
+        subscriptionExpirations.clear();
 
         log.debug("Removing all local devices from registry during shutdown");
         removeAll(true);
@@ -303,16 +361,54 @@ class LocalItems extends RegistryItems<LocalDevice<?>, LocalGENASubscription<?>>
 
     protected Random randomGenerator = new Random();
 
+    protected void invalidateDiscoveryDatagrams(LocalDevice<?> localDevice) {
+        DiscoveryDatagramCache cache = registry.getProtocolFactory().getDiscoveryDatagramCache();
+        if (cache != null)
+            cache.invalidate(localDevice.getIdentity().getUdn());
+    }
+
     protected void advertiseAlive(final LocalDevice<?> localDevice) {
-        registry.executeAsyncProtocol(() -> {
+        advertiseAlive(localDevice, null);
+    }
+
+    protected void advertiseAlive(final LocalDevice<?> localDevice, final List<NetworkAddress> networkAddresses) {
+        ScheduledExecutorService scheduler = registry.getConfiguration().getAsyncProtocolScheduledExecutorService();
+        if (scheduler != null) {
+            try {
+                // Avoid flooding the network with ALIVE msgs, without holding a thread until the delay has elapsed
+                scheduler.schedule(
+                        () -> {
+                            try {
+                                registry.getConfiguration().getAsyncProtocolExecutor().execute(
+                                        ProtocolPriority.DISCOVERY.wrap(createSendingNotificationAlive(localDevice, networkAddresses))
+                                );
+                            } catch (RejectedExecutionException ex) {
+                                if (log.isInfoEnabled()) log.info("ALIVE messages not sent (on shutdown?): " + localDevice);
+                            }
+                        },
+                        randomGenerator.nextInt(100),
+                        TimeUnit.MILLISECONDS
+                );
+            } catch (RejectedExecutionException ex) {
+                if (log.isInfoEnabled()) log.info("ALIVE messages not scheduled (on shutdown?): " + localDevice);
+            }
+            return;
+        }
+        registry.executeAsyncProtocol(ProtocolPriority.DISCOVERY.wrap(() -> {
 			try {
 				log.trace("Sleeping some milliseconds to avoid flooding the network with ALIVE msgs");
 				Thread.sleep(randomGenerator.nextInt(100));
 			} catch (InterruptedException ex) {
 				if (log.isErrorEnabled()) log.error("Background execution interrupted: ",  ex);
 			}
-			registry.getProtocolFactory().createSendingNotificationAlive(localDevice).run();
-		});
+			createSendingNotificationAlive(localDevice, networkAddresses).run();
+		}));
+    }
+
+    protected SendingAsync createSendingNotificationAlive(LocalDevice<?> localDevice, List<NetworkAddress> networkAddresses) {
+        return networkAddresses == null
+                ? registry.getProtocolFactory().createSendingNotificationAlive(localDevice)
+                : registry.getProtocolFactory().createSendingNotificationAlive(localDevice, networkAddresses);
     }
 
     protected void advertiseByebye(final LocalDevice<?> localDevice, boolean asynchronous) {
@@ -19,6 +19,7 @@ import com.distrimind.upnp.model.gena.CancelReason;
 import com.distrimind.upnp.UpnpService;
 import com.distrimind.upnp.UpnpServiceConfiguration;
 import com.distrimind.upnp.model.DiscoveryOptions;
+import com.distrimind.upnp.model.NetworkAddress;
 import com.distrimind.upnp.model.resource.Resource;
 import com.distrimind.upnp.model.ServiceReference;
 import com.distrimind.upnp.model.meta.Device;
@@ -35,6 +36,7 @@ import com.distrimind.upnp.protocol.ProtocolFactory;
 
 import java.net.URI;
 import java.util.Collection;
+import java.util.List;
 
 /**
  * The core of the UPnP stack, keeping track of known devices and resources.
@@ -450,4 +452,14 @@ public interface Registry {
      */
 	void advertiseLocalDevices();
 
+    /**
+     * Triggers advertisement messages for all local devices, announcing only the given stream servers,
+     * e.g. after new network addresses became available.
+     *
+     * @param networkAddresses The stream servers announced in the descriptor locations.
+     */
+	default void advertiseLocalDevices(List<NetworkAddress> networkAddresses) {
+		advertiseLocalDevices();
+	}
+
 }
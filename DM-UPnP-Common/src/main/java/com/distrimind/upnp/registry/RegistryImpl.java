@@ -18,6 +18,7 @@ package com.distrimind.upnp.registry;
 import com.distrimind.upnp.UpnpService;
 import com.distrimind.upnp.UpnpServiceConfiguration;
 import com.distrimind.upnp.model.DiscoveryOptions;
+import com.distrimind.upnp.model.NetworkAddress;
 import com.distrimind.upnp.model.ExpirationDetails;
 import com.distrimind.upnp.model.ServiceReference;
 import com.distrimind.upnp.model.gena.LocalGENASubscription;
@@ -97,10 +98,17 @@ public class RegistryImpl implements Registry {
         return getUpnpService().getProtocolFactory();
     }
 
+    /**
+     * The maintenances are scheduled on the {@link UpnpServiceConfiguration#getAsyncProtocolScheduledExecutorService()}
+     * and run by the {@link UpnpServiceConfiguration#getRegistryMaintainerExecutor()}. Without scheduler, the
+     * maintainer loops on a thread of the registry maintainer executor.
+     */
     protected RegistryMaintainer createRegistryMaintainer() {
         return new RegistryMaintainer(
                 this,
-                getConfiguration().getRegistryMaintenanceIntervalMillis()
+                getConfiguration().getRegistryMaintenanceIntervalMillis(),
+                getConfiguration().getAsyncProtocolScheduledExecutorService(),
+                getConfiguration().getRegistryMaintainerExecutor()
         );
     }
 
@@ -358,6 +366,8 @@ public class RegistryImpl implements Registry {
         RegistryItem<URI, Resource<?>> resourceItem = new RegistryItem<>(resource.getPathQuery(), resource, maxAgeSeconds);
         resourceItems.remove(resourceItem);
         resourceItems.add(resourceItem);
+        if (maxAgeSeconds != ExpirationDetails.UNLIMITED_AGE)
+            requestMaintenance(System.currentTimeMillis());
     }
 
     @Override
@@ -414,6 +424,11 @@ public class RegistryImpl implements Registry {
    		localItems.advertiseLocalDevices();
    	}
 
+   	@Override
+	synchronized public void advertiseLocalDevices(List<NetworkAddress> networkAddresses) {
+   		localItems.advertiseLocalDevices(networkAddresses);
+   	}
+
     /* ############################################################################################################ */
 
     // When you call this, make sure you have the Router lock before this lock is obtained!
@@ -476,11 +491,17 @@ public class RegistryImpl implements Registry {
 
     /* ############################################################################################################ */
 
-    synchronized void maintain() {
+    /**
+     * @return The time in milliseconds at which the next maintenance is due, {@link Long#MAX_VALUE} if
+     *         nothing has to be maintained until a new item is added.
+     */
+    synchronized long maintain() {
 
         if (log.isTraceEnabled())
             log.trace("Maintaining registry...");
 
+        long nextMaintenanceMillis = Long.MAX_VALUE;
+
         // Remove expired resources
         Iterator<RegistryItem<URI, Resource<?>>> it = resourceItems.iterator();
         while (it.hasNext()) {
@@ -498,18 +519,35 @@ public class RegistryImpl implements Registry {
                     pendingExecutions,
                     resourceItem.getExpirationDetails()
             );
+            // Resources decide themselves when they need maintenance, keep the periodic maintenance
+            if (resourceItem.getExpirationDetails().getMaxAgeSeconds() != ExpirationDetails.UNLIMITED_AGE)
+                nextMaintenanceMillis = 0;
         }
 
         // These add all their operations to the pendingExecutions queue
-        remoteItems.maintain();
-        localItems.maintain();
+        nextMaintenanceMillis = Math.min(nextMaintenanceMillis, remoteItems.maintain());
+        nextMaintenanceMillis = Math.min(nextMaintenanceMillis, localItems.maintain());
 
         // We now run the queue asynchronously so the maintenance thread can continue its loop undisturbed
         runPendingExecutions(true);
+        return nextMaintenanceMillis;
     }
 
     synchronized void executeAsyncProtocol(Runnable runnable) {
         pendingExecutions.add(runnable);
+        requestMaintenance(System.currentTimeMillis());
+    }
+
+    /**
+     * Requests a maintenance at the given time, or earlier if one is already due.
+     *
+     * @param deadlineMillis The time in milliseconds at which a registry item must be maintained.
+     * @since 1.5.0
+     */
+    protected void requestMaintenance(long deadlineMillis) {
+        RegistryMaintainer maintainer = registryMaintainer;
+        if (maintainer != null && deadlineMillis != Long.MAX_VALUE)
+            maintainer.requestMaintenance(deadlineMillis);
     }
 
     synchronized void runPendingExecutions(boolean async) {
@@ -24,8 +24,9 @@ import com.distrimind.upnp.model.types.ServiceType;
 import com.distrimind.upnp.model.types.UDN;
 
 import java.util.Collection;
+import java.util.HashMap;
 import java.util.HashSet;
-import java.util.Set;
+import java.util.Map;
 
 /**
  * Internal class, required by {@link RegistryImpl}.
@@ -36,28 +37,82 @@ abstract class RegistryItems<D extends Device<?, ?, ?>, S extends GENASubscripti
 
     protected final RegistryImpl registry;
 
-    protected final Set<RegistryItem<UDN, D>> deviceItems = new HashSet<>();
-    protected final Set<RegistryItem<String, S>> subscriptionItems = new HashSet<>();
+    // Root device items by UDN, and embedded devices by UDN
+    protected final Map<UDN, RegistryItem<UDN, D>> deviceItems = new HashMap<>();
+    protected final Map<UDN, D> embeddedDevices = new HashMap<>();
+    protected final Map<String, RegistryItem<String, S>> subscriptionItems = new HashMap<>();
+
+    // Root device and subscription items, ordered by the time of their next maintenance
+    protected final ExpirationQueue<RegistryItem<UDN, D>> deviceExpirations = new ExpirationQueue<>();
+    protected final ExpirationQueue<RegistryItem<String, S>> subscriptionExpirations = new ExpirationQueue<>();
 
     RegistryItems(RegistryImpl registry) {
         this.registry = registry;
     }
 
-    Set<RegistryItem<UDN, D>> getDeviceItems() {
-        return deviceItems;
+    Collection<RegistryItem<UDN, D>> getDeviceItems() {
+        return deviceItems.values();
     }
 
-    Set<RegistryItem<String, S>> getSubscriptionItems() {
-        return subscriptionItems;
+    Collection<RegistryItem<String, S>> getSubscriptionItems() {
+        return subscriptionItems.values();
     }
 
     abstract void add(D device);
     abstract boolean remove(final D device);
     abstract void removeAll();
 
-    abstract void maintain();
+    /**
+     * @return The time in milliseconds at which the next maintenance of these items is due,
+     *         {@link Long#MAX_VALUE} if none.
+     */
+    abstract long maintain();
+
+    /**
+     * @return The time in milliseconds at which the given root device must be maintained.
+     */
+    abstract long getDeviceMaintenanceMillis(RegistryItem<UDN, D> deviceItem);
+
+    /**
+     * @return The time in milliseconds at which the given subscription must be maintained.
+     */
+    abstract long getSubscriptionMaintenanceMillis(RegistryItem<String, S> subscriptionItem);
+
     abstract void shutdown();
 
+    /**
+     * Adds the item of a root device, or replaces the item registered under the same UDN, indexes its
+     * embedded devices and schedules its maintenance.
+     */
+    void putDeviceItem(RegistryItem<UDN, D> deviceItem) {
+        RegistryItem<UDN, D> previousItem = deviceItems.put(deviceItem.getKey(), deviceItem);
+        if (previousItem == null || previousItem.getItem() != deviceItem.getItem()) {
+            if (previousItem != null)
+                removeEmbeddedDevices(previousItem.getItem());
+            for (Object embeddedDevice : deviceItem.getItem().findEmbeddedDevices()) {
+                @SuppressWarnings("unchecked") D d = (D) embeddedDevice;
+                embeddedDevices.put(d.getIdentity().getUdn(), d);
+            }
+        }
+        deviceExpirations.schedule(deviceItem, getDeviceMaintenanceMillis(deviceItem));
+    }
+
+    boolean removeDeviceItem(UDN udn) {
+        RegistryItem<UDN, D> deviceItem = deviceItems.remove(udn);
+        if (deviceItem == null)
+            return false;
+        removeEmbeddedDevices(deviceItem.getItem());
+        deviceExpirations.remove(deviceItem);
+        return true;
+    }
+
+    private void removeEmbeddedDevices(D rootDevice) {
+        for (Object embeddedDevice : rootDevice.findEmbeddedDevices()) {
+            // Only if not already replaced by the graph of another root device
+            embeddedDevices.remove(((Device<?, ?, ?>) embeddedDevice).getIdentity().getUdn(), embeddedDevice);
+        }
+    }
+
     /**
      * Returns root and embedded devices registered under the given UDN.
      *
@@ -67,17 +122,10 @@ abstract class RegistryItems<D extends Device<?, ?, ?>, S extends GENASubscripti
      *         no device with the given UDN has been registered.
      */
     D get(UDN udn, boolean rootOnly) {
-        for (RegistryItem<UDN, D> item : deviceItems) {
-            D device = item.getItem();
-            if (device.getIdentity().getUdn().equals(udn)) {
-                return device;
-            }
-            if (!rootOnly) {
-                @SuppressWarnings("unchecked") D foundDevice = (D)item.getItem().findDevice(udn);
-                if (foundDevice != null) return foundDevice;
-            }
-        }
-        return null;
+        RegistryItem<UDN, D> item = deviceItems.get(udn);
+        if (item != null)
+            return item.getItem();
+        return rootOnly ? null : embeddedDevices.get(udn);
     }
 
     /**
@@ -91,7 +139,7 @@ abstract class RegistryItems<D extends Device<?, ?, ?>, S extends GENASubscripti
      */
     Collection<D> get(DeviceType deviceType) {
         Collection<D> devices = new HashSet<>();
-        for (RegistryItem<UDN, D> item : deviceItems) {
+        for (RegistryItem<UDN, D> item : deviceItems.values()) {
             @SuppressWarnings("unchecked") Collection<D> d = (Collection<D>) item.getItem().findDevices(deviceType);
             if (d != null) {
                 devices.addAll(d);
@@ -108,7 +156,7 @@ abstract class RegistryItems<D extends Device<?, ?, ?>, S extends GENASubscripti
      */
     Collection<D> get(ServiceType serviceType) {
         Collection<D> devices = new HashSet<>();
-        for (RegistryItem<UDN, D> item : deviceItems) {
+        for (RegistryItem<UDN, D> item : deviceItems.values()) {
             @SuppressWarnings("unchecked") Collection<D> d = (Collection<D>) item.getItem().findDevices(serviceType);
             if (d != null) {
                 devices.addAll(d);
@@ -119,7 +167,7 @@ abstract class RegistryItems<D extends Device<?, ?, ?>, S extends GENASubscripti
 
     Collection<D> get() {
         Collection<D> devices = new HashSet<>();
-        for (RegistryItem<UDN, D> item : deviceItems) {
+        for (RegistryItem<UDN, D> item : deviceItems.values()) {
             devices.add(item.getItem());
         }
         return devices;
@@ -130,7 +178,7 @@ abstract class RegistryItems<D extends Device<?, ?, ?>, S extends GENASubscripti
     }
 
     boolean contains(UDN udn) {
-        return deviceItems.contains(new RegistryItem<UDN, D>(udn));
+        return deviceItems.containsKey(udn);
     }
 
     void addSubscription(S subscription) {
@@ -142,7 +190,11 @@ abstract class RegistryItems<D extends Device<?, ?, ?>, S extends GENASubscripti
                         subscription.getActualDurationSeconds()
                 );
 
-        subscriptionItems.add(subscriptionItem);
+        if (subscriptionItems.putIfAbsent(subscriptionItem.getKey(), subscriptionItem) == null) {
+            long maintenanceMillis = getSubscriptionMaintenanceMillis(subscriptionItem);
+            subscriptionExpirations.schedule(subscriptionItem, maintenanceMillis);
+            registry.requestMaintenance(maintenanceMillis);
+        }
     }
 
     boolean updateSubscription(S subscription) {
@@ -154,16 +206,16 @@ abstract class RegistryItems<D extends Device<?, ?, ?>, S extends GENASubscripti
     }
 
     boolean removeSubscription(S subscription) {
-        return subscriptionItems.remove(new RegistryItem<String, S>(subscription.getSubscriptionId()));
+        RegistryItem<String, S> subscriptionItem = subscriptionItems.remove(subscription.getSubscriptionId());
+        if (subscriptionItem == null)
+            return false;
+        subscriptionExpirations.remove(subscriptionItem);
+        return true;
     }
 
     S getSubscription(String subscriptionId) {
-        for (RegistryItem<String, S> registryItem : subscriptionItems) {
-            if (registryItem.getKey().equals(subscriptionId)) {
-                return registryItem.getItem();
-            }
-        }
-        return null;
+        RegistryItem<String, S> registryItem = subscriptionItems.get(subscriptionId);
+        return registryItem != null ? registryItem.getItem() : null;
     }
 
     Collection<Resource<?>> getResources(Device<?, ?, ?> device) throws RegistrationException {
@@ -18,8 +18,25 @@ package com.distrimind.upnp.registry;
 import com.distrimind.flexilogxml.log.DMLogger;
 import com.distrimind.upnp.Log;
 
+import java.util.concurrent.Executor;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+
 /**
- * Runs periodically and calls {@link RegistryImpl#maintain()}.
+ * Calls {@link RegistryImpl#maintain()} when the next registry item is due.
+ * <p>
+ * Each maintenance returns the time of the next deadline: the earliest expiration of a device or
+ * subscription, subscription renewal or alive flooding. The registry requests an earlier maintenance with
+ * {@link #requestMaintenance(long)} when a new item or pending operation is added. Two maintenances are
+ * separated by at least the configured interval, so bursts of registry changes are handled in batches.
+ * </p>
+ * <p>
+ * With a scheduler, each maintenance is a task handed over to the executor when due, no thread is used in
+ * between. Without a scheduler, the maintainer is a loop occupying its executor thread, which waits until
+ * the next deadline.
+ * </p>
  *
  * @author Christian Bauer
  */
@@ -29,36 +46,137 @@ public class RegistryMaintainer implements Runnable {
 
     final private RegistryImpl registry;
     final private int sleepIntervalMillis;
+    final private ScheduledExecutorService scheduler;
+    final private Executor executor;
 
     private volatile boolean stopped = false;
 
+    // Guarded by this
+    private long nextMaintenanceMillis = Long.MAX_VALUE;
+    private long lastMaintenanceMillis;
+    private ScheduledFuture<?> scheduledMaintenance;
+
+    /**
+     * Creates a maintainer looping on the thread calling {@link #run()}.
+     */
     public RegistryMaintainer(RegistryImpl registry, int sleepIntervalMillis) {
+        this(registry, sleepIntervalMillis, null, null);
+    }
+
+    /**
+     * @param registry The maintained registry.
+     * @param sleepIntervalMillis The minimum interval between two maintenances.
+     * @param scheduler The scheduler of the maintenances, or <code>null</code> to loop on the thread calling {@link #run()}.
+     * @param executor The executor of the scheduled maintenances.
+     * @since 1.5.0
+     */
+    public RegistryMaintainer(RegistryImpl registry, int sleepIntervalMillis, ScheduledExecutorService scheduler, Executor executor) {
         this.registry = registry;
         this.sleepIntervalMillis = sleepIntervalMillis;
+        this.scheduler = scheduler;
+        this.executor = executor;
     }
 
     public void stop() {
         if (log.isDebugEnabled())
             log.debug("Setting stopped status on thread");
         stopped = true;
+        synchronized (this) {
+            if (scheduledMaintenance != null) {
+                scheduledMaintenance.cancel(false);
+                scheduledMaintenance = null;
+            }
+            notifyAll();
+        }
+    }
+
+    /**
+     * Requests a maintenance at the given time, or earlier if one is due before.
+     *
+     * @param deadlineMillis The time in milliseconds at which the maintenance is required.
+     * @since 1.5.0
+     */
+    synchronized public void requestMaintenance(long deadlineMillis) {
+        if (stopped)
+            return;
+        deadlineMillis = Math.max(deadlineMillis, lastMaintenanceMillis + sleepIntervalMillis);
+        if (deadlineMillis >= nextMaintenanceMillis)
+            return;
+        nextMaintenanceMillis = deadlineMillis;
+        if (scheduler == null) {
+            notifyAll();
+            return;
+        }
+        if (scheduledMaintenance != null)
+            scheduledMaintenance.cancel(false);
+        try {
+            scheduledMaintenance = scheduler.schedule(
+                    this::execute,
+                    Math.max(0, deadlineMillis - System.currentTimeMillis()),
+                    TimeUnit.MILLISECONDS
+            );
+        } catch (RejectedExecutionException ex) {
+            if (log.isDebugEnabled()) log.debug("Registry maintenance not scheduled (on shutdown?)");
+        }
+    }
+
+    private void execute() {
+        try {
+            executor.execute(this);
+        } catch (RejectedExecutionException ex) {
+            if (stopped)
+                return;
+            if (log.isDebugEnabled()) log.debug("Registry maintenance rejected, trying again later: " + ex);
+            synchronized (this) {
+                scheduledMaintenance = null;
+                nextMaintenanceMillis = Long.MAX_VALUE;
+            }
+            requestMaintenance(System.currentTimeMillis() + sleepIntervalMillis);
+        }
+    }
+
+    /**
+     * @return The time of the next deadline returned by the registry.
+     */
+    private long maintain() {
+        synchronized (this) {
+            scheduledMaintenance = null;
+            nextMaintenanceMillis = Long.MAX_VALUE;
+            lastMaintenanceMillis = System.currentTimeMillis();
+        }
+        return registry.maintain();
     }
 
     @Override
 	public void run() {
+        if (scheduler != null) {
+            if (!stopped)
+                requestMaintenance(maintain());
+            return;
+        }
         stopped = false;
         if (log.isDebugEnabled())
-            log.debug("Running registry maintenance loop every milliseconds: " + sleepIntervalMillis);
-        while (!stopped) {
-
-            try {
-                registry.maintain();
-                Thread.sleep(sleepIntervalMillis);
-            } catch (InterruptedException ex) {
-                stopped = true;
+            log.debug("Running registry maintenance loop, at most every milliseconds: " + sleepIntervalMillis);
+        try {
+            while (!stopped) {
+                long deadline = maintain();
+                synchronized (this) {
+                    requestMaintenance(deadline);
+                    while (!stopped) {
+                        long delay = nextMaintenanceMillis - System.currentTimeMillis();
+                        if (delay <= 0)
+                            break;
+                        if (nextMaintenanceMillis == Long.MAX_VALUE)
+                            wait();
+                        else
+                            wait(delay);
+                    }
+                }
             }
-
+        } catch (InterruptedException ex) {
+            stopped = true;
         }
         log.debug("Stopped status on thread received, ending maintenance loop");
     }
 
-}
\ No newline at end of file
+}
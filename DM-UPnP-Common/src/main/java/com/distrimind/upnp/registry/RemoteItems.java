@@ -18,7 +18,6 @@ package com.distrimind.upnp.registry;
 import com.distrimind.upnp.model.resource.Resource;
 import com.distrimind.upnp.model.gena.CancelReason;
 import com.distrimind.upnp.model.gena.RemoteGENASubscription;
-import com.distrimind.upnp.model.meta.LocalDevice;
 import com.distrimind.upnp.model.meta.RemoteDevice;
 import com.distrimind.upnp.model.meta.RemoteDeviceIdentity;
 import com.distrimind.upnp.model.types.UDN;
@@ -90,7 +89,8 @@ class RemoteItems extends RegistryItems<RemoteDevice, RemoteGENASubscription> {
             log.debug("Adding hydrated remote device to registry with "
 							 + item.getExpirationDetails().getMaxAgeSeconds() + " seconds expiration: " + device);
 		}
-		getDeviceItems().add(item);
+		putDeviceItem(item);
+        registry.requestMaintenance(getDeviceMaintenanceMillis(item));
 
         if (log.isTraceEnabled()) {
             StringBuilder sb = new StringBuilder();
@@ -117,11 +117,9 @@ class RemoteItems extends RegistryItems<RemoteDevice, RemoteGENASubscription> {
 
     boolean update(RemoteDeviceIdentity rdIdentity) {
 
-        for (LocalDevice<?> localDevice : registry.getLocalDevices()) {
-            if (localDevice.findDevice(rdIdentity.getUdn()) != null) {
-                log.debug("Ignoring update, a local device graph contains UDN");
-                return true;
-            }
+        if (registry.localItems.get(rdIdentity.getUdn(), false) != null) {
+            log.debug("Ignoring update, a local device graph contains UDN");
+            return true;
         }
 
         RemoteDevice registeredRemoteDevice = get(rdIdentity.getUdn(), false);
@@ -146,8 +144,8 @@ class RemoteItems extends RegistryItems<RemoteDevice, RemoteGENASubscription> {
 			if (log.isDebugEnabled()) {
 				log.debug("Updating expiration of: " + registeredRemoteDevice);
 			}
-			getDeviceItems().remove(item);
-            getDeviceItems().add(item);
+			putDeviceItem(item);
+            registry.requestMaintenance(getDeviceMaintenanceMillis(item));
 
 			if (log.isDebugEnabled()) {
 				log.debug("Remote device updated, calling listeners: " + registeredRemoteDevice);
@@ -205,6 +203,7 @@ class RemoteItems extends RegistryItems<RemoteDevice, RemoteGENASubscription> {
 						log.debug("Removing outgoing subscription: " + outgoingSubscription.getKey());
 					}
 					it.remove();
+                    subscriptionExpirations.remove(outgoingSubscription);
                     if (!shuttingDown) {
                         registry.getConfiguration().getRegistryListenerExecutor().execute(
 								() -> outgoingSubscription.getItem().end(CancelReason.DEVICE_WAS_REMOVED, null)
@@ -223,7 +222,7 @@ class RemoteItems extends RegistryItems<RemoteDevice, RemoteGENASubscription> {
             }
 
             // Finally, remove the device from the registry
-            getDeviceItems().remove(new RegistryItem<UDN, RemoteDevice>(registeredDevice.getIdentity().getUdn()));
+            removeDeviceItem(registeredDevice.getIdentity().getUdn());
 
             return true;
         }
@@ -249,38 +248,46 @@ class RemoteItems extends RegistryItems<RemoteDevice, RemoteGENASubscription> {
     }
 
     @Override
-	void maintain() {
+	long maintain() {
 
-        if (getDeviceItems().isEmpty()) return;
+        long now = System.currentTimeMillis();
 
-        // Remove expired remote devices
-        Map<UDN, RemoteDevice> expiredRemoteDevices = new HashMap<>();
-        for (RegistryItem<UDN, RemoteDevice> remoteItem : getDeviceItems()) {
-            if (log.isTraceEnabled())
-                log.trace("Device '" + remoteItem.getItem() + "' expires in seconds: "
-                                   + remoteItem.getExpirationDetails().getSecondsUntilExpiration());
-            if (remoteItem.getExpirationDetails().hasExpired(false)) {
-                expiredRemoteDevices.put(remoteItem.getKey(), remoteItem.getItem());
-            }
+        // Remove expired remote devices, only the due items are visited
+        List<RemoteDevice> expiredRemoteDevices = new ArrayList<>();
+        RegistryItem<UDN, RemoteDevice> remoteItem;
+        while ((remoteItem = deviceExpirations.pollExpired(now)) != null) {
+            expiredRemoteDevices.add(remoteItem.getItem());
         }
-        for (RemoteDevice remoteDevice : expiredRemoteDevices.values()) {
+        for (RemoteDevice remoteDevice : expiredRemoteDevices) {
             if (log.isDebugEnabled())
                 log.debug("Removing expired: " + remoteDevice);
             remove(remoteDevice);
         }
 
         // Renew outgoing subscriptions
-        Set<RemoteGENASubscription> expiredOutgoingSubscriptions = new HashSet<>();
-        for (RegistryItem<String, RemoteGENASubscription> item : getSubscriptionItems()) {
-            if (item.getExpirationDetails().hasExpired(true)) {
-                expiredOutgoingSubscriptions.add(item.getItem());
-            }
+        List<RegistryItem<String, RemoteGENASubscription>> expiredOutgoingSubscriptions = new ArrayList<>();
+        RegistryItem<String, RemoteGENASubscription> subscriptionItem;
+        while ((subscriptionItem = subscriptionExpirations.pollExpired(now)) != null) {
+            expiredOutgoingSubscriptions.add(subscriptionItem);
         }
-        for (RemoteGENASubscription subscription : expiredOutgoingSubscriptions) {
+        for (RegistryItem<String, RemoteGENASubscription> expiredItem : expiredOutgoingSubscriptions) {
             if (log.isDebugEnabled())
-                log.debug("Renewing outgoing subscription: " + subscription);
-            renewOutgoingSubscription(subscription);
+                log.debug("Renewing outgoing subscription: " + expiredItem.getItem());
+            renewOutgoingSubscription(expiredItem.getItem());
+            // Until the renewal updates the subscription, it is renewed again at the next maintenance
+            subscriptionExpirations.schedule(expiredItem, now);
         }
+        return Math.min(deviceExpirations.getNextDeadlineMillis(), subscriptionExpirations.getNextDeadlineMillis());
+    }
+
+    @Override
+    long getDeviceMaintenanceMillis(RegistryItem<UDN, RemoteDevice> deviceItem) {
+        return deviceItem.getExpirationDetails().getExpirationMillis(false);
+    }
+
+    @Override
+    long getSubscriptionMaintenanceMillis(RegistryItem<String, RemoteGENASubscription> subscriptionItem) {
+        return subscriptionItem.getExpirationDetails().getExpirationMillis(true);
     }
 
     public void resume() {
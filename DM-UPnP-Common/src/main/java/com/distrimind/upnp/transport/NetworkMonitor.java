@@ -0,0 +1,96 @@
+/*
+ *     This library is free software; you can redistribute it and/or
+ *     modify it under the terms of the GNU Lesser General Public
+ *     License as published by the Free Software Foundation; either
+ *     version 2.1 of the License.
+ *
+ *     This library is distributed in the hope that it will be useful,
+ *     but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *     MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ *     Lesser General Public License for more details.
+ *
+ *     You should have received a copy of the GNU Lesser General Public
+ *     License along with this library; if not, write to the Free Software
+ *     Foundation, Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301  USA
+ */
+
+package com.distrimind.upnp.transport;
+
+import com.distrimind.flexilogxml.log.DMLogger;
+import com.distrimind.upnp.Log;
+import com.distrimind.upnp.UpnpService;
+import com.distrimind.upnp.model.NetworkAddress;
+
+import java.util.List;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * Periodically looks for changed network interfaces and addresses, see {@link Router#updateNetwork()}.
+ * <p>
+ * The scheduler only hands over the check to the asynchronous protocol executor. When stream servers
+ * were started on new addresses, the local devices are advertised with these addresses only.
+ * </p>
+ *
+ * @author Jason Mahdjoub
+ * @since 1.5.0
+ */
+public class NetworkMonitor implements Runnable {
+
+    final private static DMLogger log = Log.getLogger(NetworkMonitor.class);
+
+    final protected UpnpService upnpService;
+    final private AtomicBoolean running = new AtomicBoolean();
+    private ScheduledFuture<?> future;
+
+    public NetworkMonitor(UpnpService upnpService) {
+        this.upnpService = upnpService;
+    }
+
+    /**
+     * @param scheduler The scheduler of the checks.
+     * @param intervalMilliseconds The delay between two checks.
+     */
+    synchronized public void start(ScheduledExecutorService scheduler, int intervalMilliseconds) {
+        if (future != null)
+            return;
+        if (log.isDebugEnabled())
+            log.debug("Checking network interfaces every " + intervalMilliseconds + " milliseconds");
+        future = scheduler.scheduleWithFixedDelay(() -> {
+            try {
+                upnpService.getConfiguration().getAsyncProtocolExecutor().execute(this);
+            } catch (RejectedExecutionException ex) {
+                log.debug("Network check not executed (on shutdown?)");
+            }
+        }, intervalMilliseconds, intervalMilliseconds, TimeUnit.MILLISECONDS);
+    }
+
+    synchronized public void stop() {
+        if (future != null) {
+            future.cancel(false);
+            future = null;
+        }
+    }
+
+    @Override
+    public void run() {
+        // A slow check is not run twice at the same time
+        if (!running.compareAndSet(false, true))
+            return;
+        try {
+            List<NetworkAddress> networkAddresses = upnpService.getRouter().updateNetwork();
+            if (!networkAddresses.isEmpty()) {
+                if (log.isInfoEnabled())
+                    log.info("Advertising local devices on new network addresses: " + networkAddresses);
+                upnpService.getRegistry().advertiseLocalDevices(networkAddresses);
+            }
+        } catch (RouterException ex) {
+            if (log.isWarnEnabled()) log.warn("Network check failed: ", ex);
+        } finally {
+            running.set(false);
+        }
+    }
+}
@@ -24,9 +24,12 @@ import com.distrimind.upnp.model.message.StreamResponseMessage;
 import com.distrimind.upnp.protocol.ProtocolFactory;
 import com.distrimind.upnp.transport.spi.InitializationException;
 import com.distrimind.upnp.transport.spi.UpnpStream;
+import com.distrimind.upnp.util.Futures;
 
 import java.net.InetAddress;
+import java.util.Collections;
 import java.util.List;
+import java.util.concurrent.CompletableFuture;
 
 /**
  * Interface of the network transport layer.
@@ -78,6 +81,18 @@ public interface Router {
      */
     boolean disable() throws RouterException;
 
+    /**
+     * Discovers the network interfaces and addresses again, then stops the transports of the interfaces
+     * and addresses which are gone and starts transports for the new ones. Transports of unchanged
+     * interfaces and addresses keep running.
+     *
+     * @return The addresses of the started stream servers, where local devices should be advertised. The
+     *         default implementation doesn't discover anything and returns an empty list.
+     */
+    default List<NetworkAddress> updateNetwork() throws RouterException {
+        return Collections.emptyList();
+    }
+
     /**
      * Disables the router and releases all other resources.
      */
@@ -149,6 +164,27 @@ public interface Router {
      */
 	StreamResponseMessage send(StreamRequestMessage msg) throws RouterException;
 
+    /**
+     * <p>
+     * Call this method to send a TCP (HTTP) stream message without blocking the calling thread.
+     * </p>
+     * <p>
+     * The default implementation sends the message synchronously with {@link #send(StreamRequestMessage)}.
+     * </p>
+     *
+     * @param msg The TCP (HTTP) stream message to send.
+     * @return The response received from the server, completed with <code>null</code> if no response has been
+     *         received, or exceptionally with a {@link RouterException}.
+     * @since 1.5.0
+     */
+	default CompletableFuture<StreamResponseMessage> sendAsync(StreamRequestMessage msg) {
+		try {
+			return CompletableFuture.completedFuture(send(msg));
+		} catch (RouterException ex) {
+			return Futures.failed(ex);
+		}
+	}
+
     /**
      * <p>
      * Call this method to broadcast a UDP message to all hosts on the network.
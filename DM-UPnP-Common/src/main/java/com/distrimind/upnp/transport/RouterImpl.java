@@ -24,6 +24,8 @@ import com.distrimind.upnp.model.message.StreamResponseMessage;
 import com.distrimind.upnp.protocol.ProtocolCreationException;
 import com.distrimind.upnp.protocol.ProtocolFactory;
 import com.distrimind.upnp.protocol.ReceivingAsync;
+import com.distrimind.upnp.transport.impl.DatagramAdmissionControl;
+import com.distrimind.upnp.transport.impl.DatagramDuplicateFilter;
 import com.distrimind.upnp.transport.spi.DatagramIO;
 import com.distrimind.upnp.transport.spi.InitializationException;
 import com.distrimind.upnp.transport.spi.MulticastReceiver;
@@ -33,6 +35,7 @@ import com.distrimind.upnp.transport.spi.StreamClient;
 import com.distrimind.upnp.transport.spi.StreamServer;
 import com.distrimind.upnp.transport.spi.UpnpStream;
 import com.distrimind.upnp.util.Exceptions;
+import com.distrimind.upnp.util.Futures;
 
 import jakarta.enterprise.context.ApplicationScoped;
 import jakarta.enterprise.event.Observes;
@@ -45,9 +48,13 @@ import java.net.NetworkInterface;
 import java.util.ArrayList;
 import java.util.Collections;
 import java.util.HashMap;
+import java.util.HashSet;
 import java.util.Iterator;
 import java.util.List;
 import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.RejectedExecutionException;
 import java.util.concurrent.TimeUnit;
 import java.util.concurrent.locks.Lock;
 import java.util.concurrent.locks.ReentrantReadWriteLock;
@@ -71,6 +78,8 @@ public class RouterImpl implements Router {
     protected ProtocolFactory protocolFactory;
 
     protected volatile boolean enabled;
+    protected DatagramAdmissionControl datagramAdmissionControl;
+    protected DatagramDuplicateFilter datagramDuplicateFilter;
     protected ReentrantReadWriteLock routerLock = new ReentrantReadWriteLock(true);
     protected Lock readLock = routerLock.readLock();
     protected Lock writeLock = routerLock.writeLock();
@@ -81,6 +90,8 @@ public class RouterImpl implements Router {
     protected final Map<NetworkInterface, MulticastReceiver<?>> multicastReceivers = new HashMap<>();
     protected final Map<InetAddress, DatagramIO<?>> datagramIOs = new HashMap<>();
     protected final Map<InetAddress, StreamServer<?>> streamServers = new HashMap<>();
+    // Addresses which couldn't be bound, not retried while they are discovered again
+    protected final Set<InetAddress> unusableAddresses = new HashSet<>();
 
     protected RouterImpl() {
     }
@@ -94,6 +105,8 @@ public class RouterImpl implements Router {
         if (log.isInfoEnabled()) log.info("Creating Router: " + getClass().getName());
         this.configuration = configuration;
         this.protocolFactory = protocolFactory;
+        this.datagramAdmissionControl = configuration.createDatagramAdmissionControl();
+        this.datagramDuplicateFilter = configuration.createDatagramDuplicateFilter();
     }
 
     public boolean enable(@Observes @Default EnableRouter event) throws RouterException {
@@ -114,6 +127,20 @@ public class RouterImpl implements Router {
         return protocolFactory;
     }
 
+    /**
+     * @return The rate limiter of SSDP messages, or <code>null</code> if every datagram is admitted.
+     */
+    public DatagramAdmissionControl getDatagramAdmissionControl() {
+        return datagramAdmissionControl;
+    }
+
+    /**
+     * @return The filter of duplicate SSDP messages, or <code>null</code> if every datagram is processed.
+     */
+    public DatagramDuplicateFilter getDatagramDuplicateFilter() {
+        return datagramDuplicateFilter;
+    }
+
     /**
      * Initializes listening services: First an instance of {@link MulticastReceiver}
      * is bound to each network interface. Then an instance of {@link DatagramIO} and
@@ -192,7 +219,12 @@ public class RouterImpl implements Router {
                 }
                 datagramIOs.clear();
 
+                unusableAddresses.clear();
                 networkAddressFactory = null;
+                if (datagramAdmissionControl != null)
+                    datagramAdmissionControl.clear();
+                if (datagramDuplicateFilter != null)
+                    datagramDuplicateFilter.clear();
                 enabled = false;
                 return true;
             }
@@ -202,6 +234,122 @@ public class RouterImpl implements Router {
         }
     }
 
+    /**
+     * Refreshes the interfaces and addresses of the {@link NetworkAddressFactory}, and only starts or stops
+     * the transports of the changed ones. The write lock is only held while the transports are changed.
+     */
+    @Override
+    public List<NetworkAddress> updateNetwork() throws RouterException {
+        NetworkAddressFactory factory = networkAddressFactory;
+        if (!enabled || factory == null)
+            return Collections.emptyList();
+        boolean noNetwork = false;
+        try {
+            if (!factory.refresh())
+                return Collections.emptyList();
+        } catch (NoNetworkException ex) {
+            if (log.isInfoEnabled()) log.info("No network found, stopping all transports: " + ex.getMessage());
+            noNetwork = true;
+        } catch (InitializationException ex) {
+            if (log.isWarnEnabled()) log.warn("Could not discover network interfaces, keeping the current ones: ", ex);
+            return Collections.emptyList();
+        }
+
+        lock(writeLock);
+        try {
+            if (!enabled || factory != networkAddressFactory)
+                return Collections.emptyList();
+
+            // Without network, all the transports are stopped
+            List<NetworkInterface> interfaces = new ArrayList<>();
+            List<InetAddress> addresses = new ArrayList<>();
+            if (!noNetwork) {
+                for (Iterator<NetworkInterface> it = factory.getNetworkInterfaces(); it.hasNext(); ) {
+                    interfaces.add(it.next());
+                }
+                for (Iterator<InetAddress> it = factory.getBindAddresses(); it.hasNext(); ) {
+                    InetAddress address = it.next();
+                    if (unusableAddresses.contains(address))
+                        it.remove();
+                    else
+                        addresses.add(address);
+                }
+            }
+            unusableAddresses.retainAll(addresses);
+
+            for (Iterator<Map.Entry<NetworkInterface, MulticastReceiver<?>>> it = multicastReceivers.entrySet().iterator(); it.hasNext(); ) {
+                Map.Entry<NetworkInterface, MulticastReceiver<?>> entry = it.next();
+                if (!interfaces.contains(entry.getKey())) {
+                    if (log.isInfoEnabled())
+                        log.info("Stopping multicast receiver on removed interface: " + entry.getKey().getDisplayName());
+                    entry.getValue().stop();
+                    it.remove();
+                }
+            }
+            for (Iterator<Map.Entry<InetAddress, StreamServer<?>>> it = streamServers.entrySet().iterator(); it.hasNext(); ) {
+                Map.Entry<InetAddress, StreamServer<?>> entry = it.next();
+                if (!addresses.contains(entry.getKey())) {
+                    if (log.isInfoEnabled())
+                        log.info("Stopping stream server on removed address: " + entry.getKey());
+                    entry.getValue().stop();
+                    it.remove();
+                }
+            }
+            for (Iterator<Map.Entry<InetAddress, DatagramIO<?>>> it = datagramIOs.entrySet().iterator(); it.hasNext(); ) {
+                Map.Entry<InetAddress, DatagramIO<?>> entry = it.next();
+                if (!addresses.contains(entry.getKey())) {
+                    if (log.isInfoEnabled())
+                        log.info("Stopping datagram I/O on removed address: " + entry.getKey());
+                    entry.getValue().stop();
+                    it.remove();
+                }
+            }
+
+            interfaces.removeAll(multicastReceivers.keySet());
+            addresses.removeAll(streamServers.keySet());
+            addresses.removeAll(datagramIOs.keySet());
+            try {
+                startInterfaceBasedTransports(interfaces.iterator());
+            } catch (InitializationException ex) {
+                if (log.isWarnEnabled()) log.warn("Could not start multicast receivers on new interfaces: ", ex);
+                // None of them has been started
+                for (NetworkInterface networkInterface : interfaces) {
+                    MulticastReceiver<?> multicastReceiver = multicastReceivers.remove(networkInterface);
+                    if (multicastReceiver != null)
+                        multicastReceiver.stop();
+                }
+            }
+            List<InetAddress> startedAddresses = new ArrayList<>(addresses);
+            try {
+                startAddressBasedTransports(startedAddresses.iterator());
+            } catch (InitializationException ex) {
+                if (log.isWarnEnabled()) log.warn("Could not start transports on new addresses: ", ex);
+                // None of them has been started
+                for (InetAddress address : startedAddresses) {
+                    StreamServer<?> streamServer = streamServers.remove(address);
+                    if (streamServer != null)
+                        streamServer.stop();
+                    DatagramIO<?> datagramIO = datagramIOs.remove(address);
+                    if (datagramIO != null)
+                        datagramIO.stop();
+                }
+                startedAddresses.clear();
+            }
+
+            List<NetworkAddress> started = new ArrayList<>();
+            for (InetAddress address : startedAddresses) {
+                StreamServer<?> streamServer = streamServers.get(address);
+                if (streamServer != null)
+                    started.add(new NetworkAddress(address, streamServer.getPort(), factory.getHardwareAddress(address)));
+            }
+            if (log.isInfoEnabled() && !started.isEmpty())
+                log.info("Started transports on new addresses: " + startedAddresses);
+            return started;
+        } finally {
+            unlock(writeLock);
+        }
+    }
+
     @Override
     public void shutdown() throws RouterException {
         disable();
@@ -268,6 +416,8 @@ public class RouterImpl implements Router {
      * creating another thread or consuming further resources. This means we can filter the
      * datagrams in the protocol factory and e.g. completely disable discovery or only
      * allow notification message from some known services we'd like to work with.
+     * Datagrams of a flooding source can be dropped before, see {@link DatagramAdmissionControl}, as well as
+     * repeated notifications and search responses, see {@link DatagramDuplicateFilter}.
    
      *
      * @param msg The received datagram message.
@@ -280,6 +430,16 @@ public class RouterImpl implements Router {
 			}
 			return;
         }
+        if (datagramAdmissionControl != null && !datagramAdmissionControl.admit(msg)) {
+            if (log.isTraceEnabled())
+                log.trace("Not admitted, ignoring received message: " + msg);
+            return;
+        }
+        if (datagramDuplicateFilter != null && datagramDuplicateFilter.isDuplicate(msg)) {
+            if (log.isTraceEnabled())
+                log.trace("Duplicate, ignoring received message: " + msg);
+            return;
+        }
         try {
             ReceivingAsync<?> protocol = getProtocolFactory().createReceivingAsync(msg);
             if (protocol == null) {
@@ -292,6 +452,10 @@ public class RouterImpl implements Router {
             getConfiguration().getAsyncProtocolExecutor().execute(protocol);
         } catch (ProtocolCreationException ex) {
             if (log.isWarnEnabled()) log.warn("Handling received datagram failed - ", Exceptions.unwrap(ex));
+        } catch (RejectedExecutionException ex) {
+            // The executor is saturated, the datagram is lost like on a congested network
+            if (log.isDebugEnabled())
+                log.debug("Async protocol executor saturated, ignoring received message: " + msg);
         }
     }
 
@@ -375,6 +539,54 @@ public class RouterImpl implements Router {
         }
     }
 
+    /**
+     * Sends the given stream request message with {@link StreamClient#sendRequestAsync(StreamRequestMessage)}.
+     * <p>
+     * The router lock is only held while the client is picked, not during the HTTP exchange. A request
+     * still in flight when the router is disabled completes when the client is stopped, or expires.
+     * </p>
+     */
+    @Override
+    public CompletableFuture<StreamResponseMessage> sendAsync(StreamRequestMessage msg) {
+        StreamClient<?> client;
+        try {
+            client = getStreamClient(msg);
+        } catch (RouterException ex) {
+            return Futures.failed(ex);
+        }
+        if (client == null)
+            return CompletableFuture.completedFuture(null);
+        return client.sendRequestAsync(msg);
+    }
+
+    /**
+     * @return The stream client sending the message, or <code>null</code> if the router is disabled or has no client.
+     */
+    protected StreamClient<?> getStreamClient(StreamRequestMessage msg) throws RouterException {
+        lock(readLock);
+        try {
+            if (enabled) {
+                if (streamClient == null) {
+					if (log.isDebugEnabled()) {
+						log.debug("No StreamClient available, not sending: " + msg);
+					}
+					return null;
+                }
+				if (log.isDebugEnabled()) {
+					log.debug("Sending via TCP unicast stream: " + msg);
+				}
+				return streamClient;
+            } else {
+				if (log.isDebugEnabled()) {
+					log.debug("Router disabled, not sending stream request: " + msg);
+				}
+				return null;
+            }
+        } finally {
+            unlock(readLock);
+        }
+    }
+
     /**
      * Sends the given bytes as a broadcast on all bound {@link DatagramIO}s,
      * using source port 9.
@@ -410,6 +622,7 @@ public class RouterImpl implements Router {
     }
 
     protected void startInterfaceBasedTransports(Iterator<NetworkInterface> interfaces) throws InitializationException {
+        Map<NetworkInterface, MulticastReceiver<?>> initializedReceivers = new HashMap<>();
         while (interfaces.hasNext()) {
             NetworkInterface networkInterface = interfaces.next();
 
@@ -429,6 +642,7 @@ public class RouterImpl implements Router {
                     );
 
                     multicastReceivers.put(networkInterface, multicastReceiver);
+                    initializedReceivers.put(networkInterface, multicastReceiver);
                 } catch (InitializationException ex) {
                     /* TODO: What are some recoverable exceptions for this?
                     log.warn(
@@ -446,7 +660,7 @@ public class RouterImpl implements Router {
             }
         }
 
-        for (Map.Entry<NetworkInterface, MulticastReceiver<?>> entry : multicastReceivers.entrySet()) {
+        for (Map.Entry<NetworkInterface, MulticastReceiver<?>> entry : initializedReceivers.entrySet()) {
             if (log.isDebugEnabled())
                 log.debug("Starting multicast receiver on interface: " + entry.getKey().getDisplayName());
             getConfiguration().getMulticastReceiverExecutor().execute(entry.getValue());
@@ -454,6 +668,8 @@ public class RouterImpl implements Router {
     }
 
     protected void startAddressBasedTransports(Iterator<InetAddress> addresses) throws InitializationException {
+        Map<InetAddress, StreamServer<?>> initializedStreamServers = new HashMap<>();
+        Map<InetAddress, DatagramIO<?>> initializedDatagramIOs = new HashMap<>();
         while (addresses.hasNext()) {
             InetAddress address = addresses.next();
 
@@ -467,6 +683,7 @@ public class RouterImpl implements Router {
                         log.debug("Init stream server on address: " + address);
                     streamServer.init(address, this, networkAddressFactory);
                     streamServers.put(address, streamServer);
+                    initializedStreamServers.put(address, streamServer);
                 } catch (InitializationException ex) {
                     // Try to recover
                     Throwable cause = Exceptions.unwrap(ex);
@@ -475,6 +692,7 @@ public class RouterImpl implements Router {
                         if (log.isDebugEnabled())
                             log.debug("Initialization exception root cause", cause);
                         if (log.isWarnEnabled()) log.warn("Removing unusable address: " + address);
+                        unusableAddresses.add(address);
                         addresses.remove();
                         continue; // Don't try anything else with this address
                     }
@@ -492,6 +710,7 @@ public class RouterImpl implements Router {
                         log.debug("Init datagram I/O on address: " + address);
                     datagramIO.init(networkAddressFactory, address, this, getConfiguration().getDatagramProcessor());
                     datagramIOs.put(address, datagramIO);
+                    initializedDatagramIOs.put(address, datagramIO);
                 } catch (InitializationException ex) {
                     /* TODO: What are some recoverable exceptions for this?
                     Throwable cause = Exceptions.unwrap(ex);
@@ -509,13 +728,13 @@ public class RouterImpl implements Router {
             }
         }
 
-        for (Map.Entry<InetAddress, StreamServer<?>> entry : streamServers.entrySet()) {
+        for (Map.Entry<InetAddress, StreamServer<?>> entry : initializedStreamServers.entrySet()) {
             if (log.isDebugEnabled())
                 log.debug("Starting stream server on address: " + entry.getKey());
             getConfiguration().getStreamServerExecutorService().execute(entry.getValue());
         }
 
-        for (Map.Entry<InetAddress, DatagramIO<?>> entry : datagramIOs.entrySet()) {
+        for (Map.Entry<InetAddress, DatagramIO<?>> entry : initializedDatagramIOs.entrySet()) {
             if (log.isDebugEnabled())
                 log.debug("Starting datagram I/O on address: " + entry.getKey());
             getConfiguration().getDatagramIOExecutor().execute(entry.getValue());
@@ -0,0 +1,171 @@
+/*
+ *     This library is free software; you can redistribute it and/or
+ *     modify it under the terms of the GNU Lesser General Public
+ *     License as published by the Free Software Foundation; either
+ *     version 2.1 of the License.
+ *
+ *     This library is distributed in the hope that it will be useful,
+ *     but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *     MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ *     Lesser General Public License for more details.
+ *
+ *     You should have received a copy of the GNU Lesser General Public
+ *     License along with this library; if not, write to the Free Software
+ *     Foundation, Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301  USA
+ */
+
+package com.distrimind.upnp.transport.impl;
+
+import com.distrimind.flexilogxml.log.DMLogger;
+import com.distrimind.upnp.Log;
+import com.distrimind.upnp.model.Constants;
+import com.distrimind.upnp.model.UnsupportedDataException;
+import com.distrimind.upnp.model.message.ByteArrayUpnpHeaders;
+import com.distrimind.upnp.model.message.IncomingDatagramMessage;
+import com.distrimind.upnp.model.message.UpnpRequest;
+import com.distrimind.upnp.model.message.UpnpResponse;
+
+import java.net.DatagramPacket;
+import java.net.InetAddress;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+
+/**
+ * Reads datagrams directly from their bytes, without intermediate stream and line strings.
+ * <p>
+ * The start line is tokenized in place, the headers are wrapped into {@link ByteArrayUpnpHeaders}, which
+ * only decodes the UPnP headers actually queried by the protocol. Most SSDP datagrams received by a
+ * control point or a device are discarded after reading a couple of headers (<code>NT</code>,
+ * <code>ST</code>, <code>USN</code>), this avoids building all the strings and header maps of these messages.
+ * </p>
+ * <p>
+ * Enable it by overriding {@link com.distrimind.upnp.DefaultUpnpServiceConfiguration#createDatagramProcessor()}.
+ * Messages are written like {@link DatagramProcessorImpl} does.
+ * </p>
+ *
+ * @author Jason Mahdjoub
+ * @since 1.5.0
+ */
+public class ByteDatagramProcessorImpl extends DatagramProcessorImpl {
+
+    final private static DMLogger log = Log.getLogger(ByteDatagramProcessorImpl.class);
+
+    private static final byte[] HTTP_1 = "HTTP/1.".getBytes(StandardCharsets.US_ASCII);
+    private static final UpnpRequest.Method[] METHODS = UpnpRequest.Method.values();
+    private static final byte[][] METHOD_NAMES = new byte[METHODS.length][];
+    static {
+        for (int i = 0; i < METHODS.length; i++) {
+            METHOD_NAMES[i] = METHODS[i].getHttpName().getBytes(StandardCharsets.US_ASCII);
+        }
+    }
+
+    @Override
+    public IncomingDatagramMessage<?> read(InetAddress receivedOnAddress, DatagramPacket datagram) throws UnsupportedDataException {
+        if (datagram.getLength() > Constants.MAX_HEADER_LENGTH_IN_BYTES) {
+            throw new UnsupportedDataException("Datagram length is higher than " + Constants.MAX_HEADER_LENGTH_IN_BYTES + " bytes");
+        }
+        byte[] data = datagram.getData();
+        int offset = datagram.getOffset();
+        int end = offset + datagram.getLength();
+        try {
+
+            if (log.isTraceEnabled()) {
+                log.trace("===================================== DATAGRAM BEGIN ============================================");
+                log.trace(new String(data, offset, datagram.getLength(), StandardCharsets.UTF_8));
+                log.trace("-===================================== DATAGRAM END =============================================");
+            }
+
+            // Start line, three tokens separated by single spaces
+            int lineEnd = ByteArrayUpnpHeaders.findLineEnd(data, offset, end);
+            int firstSpace = indexOf(data, offset, lineEnd, (byte) ' ');
+            int secondSpace = indexOf(data, firstSpace + 1, lineEnd, (byte) ' ');
+            if (firstSpace == lineEnd || secondSpace == lineEnd)
+                throw new IllegalArgumentException("Invalid start line");
+            int headersOffset = ByteArrayUpnpHeaders.skipLineTerminator(data, lineEnd, end);
+
+            if (startsWith(data, offset, firstSpace, HTTP_1)) {
+                UpnpResponse upnpResponse = new UpnpResponse(
+                        parseStatusCode(data, firstSpace + 1, secondSpace),
+                        new String(data, secondSpace + 1, lineEnd - secondSpace - 1, StandardCharsets.ISO_8859_1)
+                );
+                upnpResponse.setHttpMinorVersion(isHttp11(data, offset, firstSpace) ? 1 : 0);
+                IncomingDatagramMessage<UpnpResponse> responseMessage =
+                        new IncomingDatagramMessage<>(upnpResponse, datagram.getAddress(), datagram.getPort(), receivedOnAddress);
+                responseMessage.setHeaders(new ByteArrayUpnpHeaders(data, headersOffset, end));
+                return responseMessage;
+            } else {
+                int protocolEnd = indexOf(data, secondSpace + 1, lineEnd, (byte) ' ');
+                UpnpRequest upnpRequest = new UpnpRequest(getMethod(data, offset, firstSpace));
+                upnpRequest.setHttpMinorVersion(isHttp11(data, secondSpace + 1, protocolEnd) ? 1 : 0);
+                IncomingDatagramMessage<UpnpRequest> requestMessage =
+                        new IncomingDatagramMessage<>(upnpRequest, datagram.getAddress(), datagram.getPort(), receivedOnAddress);
+                requestMessage.setHeaders(new ByteArrayUpnpHeaders(data, headersOffset, end));
+                return requestMessage;
+            }
+
+        } catch (Exception ex) {
+            throw new UnsupportedDataException(
+                    "Could not parse headers: " + ex,
+                    ex,
+                    Arrays.copyOfRange(data, offset, end)
+            );
+        }
+    }
+
+    protected static int indexOf(byte[] data, int offset, int end, byte b) {
+        for (int i = offset; i < end; i++) {
+            if (data[i] == b)
+                return i;
+        }
+        return end;
+    }
+
+    protected static boolean startsWith(byte[] data, int offset, int end, byte[] prefix) {
+        if (end - offset < prefix.length)
+            return false;
+        for (int i = 0; i < prefix.length; i++) {
+            if (data[offset + i] != prefix[i])
+                return false;
+        }
+        return true;
+    }
+
+    protected static boolean isHttp11(byte[] data, int offset, int end) {
+        return end - offset == HTTP_1.length + 1
+                && equalsIgnoreCase(data, offset, HTTP_1)
+                && data[offset + HTTP_1.length] == '1';
+    }
+
+    protected static int parseStatusCode(byte[] data, int offset, int end) {
+        if (offset == end || end - offset > 3)
+            throw new NumberFormatException(new String(data, offset, end - offset, StandardCharsets.ISO_8859_1));
+        int statusCode = 0;
+        for (int i = offset; i < end; i++) {
+            int digit = data[i] - '0';
+            if (digit < 0 || digit > 9)
+                throw new NumberFormatException(new String(data, offset, end - offset, StandardCharsets.ISO_8859_1));
+            statusCode = statusCode * 10 + digit;
+        }
+        return statusCode;
+    }
+
+    protected static UpnpRequest.Method getMethod(byte[] data, int offset, int end) {
+        for (int m = 0; m < METHODS.length; m++) {
+            byte[] name = METHOD_NAMES[m];
+            if (name.length == end - offset && equalsIgnoreCase(data, offset, name))
+                return METHODS[m];
+        }
+        return UpnpRequest.Method.UNKNOWN;
+    }
+
+    private static boolean equalsIgnoreCase(byte[] data, int offset, byte[] upperCaseName) {
+        for (int i = 0; i < upperCaseName.length; i++) {
+            byte b = data[offset + i];
+            if (b >= 'a' && b <= 'z')
+                b -= 'a' - 'A';
+            if (b != upperCaseName[i])
+                return false;
+        }
+        return true;
+    }
+}
@@ -0,0 +1,351 @@
+/*
+ *     This library is free software; you can redistribute it and/or
+ *     modify it under the terms of the GNU Lesser General Public
+ *     License as published by the Free Software Foundation; either
+ *     version 2.1 of the License.
+ *
+ *     This library is distributed in the hope that it will be useful,
+ *     but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *     MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ *     Lesser General Public License for more details.
+ *
+ *     You should have received a copy of the GNU Lesser General Public
+ *     License along with this library; if not, write to the Free Software
+ *     Foundation, Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301  USA
+ */
+
+package com.distrimind.upnp.transport.impl;
+
+import com.distrimind.flexilogxml.log.DMLogger;
+import com.distrimind.upnp.Log;
+import com.distrimind.upnp.model.message.IncomingDatagramMessage;
+import com.distrimind.upnp.model.message.UpnpRequest;
+import com.distrimind.upnp.model.message.UpnpResponse;
+
+import java.net.InetAddress;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * Token bucket admission of the received SSDP datagrams, per source address and message type.
+ * <p>
+ * Each source address has one bucket per {@link MessageType}, holding at most <code>burst</code> tokens and
+ * refilled with <code>ratePerSecond</code> tokens per second. A datagram is admitted if a token is available
+ * in its bucket, otherwise it is dropped before any protocol is created or executed, so a single flooding
+ * peer can not fill the executors and delay the discovery of all other devices.
+ * </p>
+ * <p>
+ * Notifications and search responses are bursty: a device announces each embedded device and service,
+ * and repeats each announcement. The default limits let such bursts through and only cut sustained
+ * floods. At most {@link #getMaxSources()} sources are tracked, refilled buckets are forgotten when the limit is
+ * reached, then the least recently used one if it is still reached, so that sources being limited stay limited.
+ * </p>
+ * <p>
+ * This class is thread-safe.
+ * </p>
+ *
+ * @author Jason Mahdjoub
+ * @since 1.5.0
+ */
+public class DatagramAdmissionControl {
+
+    final private static DMLogger log = Log.getLogger(DatagramAdmissionControl.class);
+
+    public static final int DEFAULT_MAX_SOURCES = 1024;
+
+    /**
+     * The kinds of datagrams, each one has its own limit.
+     */
+    public enum MessageType {
+        NOTIFY(20, 200),
+        SEARCH(5, 20),
+        SEARCH_RESPONSE(20, 200);
+
+        final private double defaultRatePerSecond;
+        final private int defaultBurst;
+
+        MessageType(double defaultRatePerSecond, int defaultBurst) {
+            this.defaultRatePerSecond = defaultRatePerSecond;
+            this.defaultBurst = defaultBurst;
+        }
+
+        public double getDefaultRatePerSecond() {
+            return defaultRatePerSecond;
+        }
+
+        public int getDefaultBurst() {
+            return defaultBurst;
+        }
+
+        /**
+         * @return The type of the message, or <code>null</code> if it is not an SSDP message.
+         */
+        public static MessageType of(IncomingDatagramMessage<?> message) {
+            if (message.getOperation() instanceof UpnpResponse)
+                return SEARCH_RESPONSE;
+            if (message.getOperation() instanceof UpnpRequest) {
+                UpnpRequest.Method method = ((UpnpRequest) message.getOperation()).getMethod();
+                if (method == UpnpRequest.Method.NOTIFY)
+                    return NOTIFY;
+                if (method == UpnpRequest.Method.MSEARCH)
+                    return SEARCH;
+            }
+            return null;
+        }
+    }
+
+    /**
+     * Observes the dropped datagrams, e.g. to report or block noisy peers.
+     * <p>
+     * Called on the thread receiving the datagram, implementations must return quickly.
+     * </p>
+     */
+    @FunctionalInterface
+    public interface RejectionListener {
+
+        /**
+         * @param message The dropped message.
+         * @param type The type of the message, whose limit was reached.
+         */
+        void rejected(IncomingDatagramMessage<?> message, MessageType type);
+    }
+
+    private static final class Key {
+        final InetAddress source;
+        final MessageType type;
+
+        Key(InetAddress source, MessageType type) {
+            this.source = source;
+            this.type = type;
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (this == o) return true;
+            if (!(o instanceof Key)) return false;
+            Key key = (Key) o;
+            return type == key.type && source.equals(key.source);
+        }
+
+        @Override
+        public int hashCode() {
+            return 31 * source.hashCode() + type.hashCode();
+        }
+    }
+
+    private static final class Bucket {
+        private double tokens;
+        private long lastRefillNanos;
+        private long lastUseNanos;
+
+        Bucket(int burst, long now) {
+            this.tokens = burst;
+            this.lastRefillNanos = now;
+            this.lastUseNanos = now;
+        }
+
+        synchronized boolean tryAcquire(double ratePerNano, int burst, long now) {
+            lastUseNanos = now;
+            refill(ratePerNano, burst, now);
+            if (tokens < 1)
+                return false;
+            tokens -= 1;
+            return true;
+        }
+
+        synchronized boolean isFull(double ratePerNano, int burst, long now) {
+            refill(ratePerNano, burst, now);
+            return tokens >= burst;
+        }
+
+        synchronized long getLastUseNanos() {
+            return lastUseNanos;
+        }
+
+        private void refill(double ratePerNano, int burst, long now) {
+            long elapsed = now - lastRefillNanos;
+            if (elapsed > 0) {
+                tokens = Math.min(burst, tokens + elapsed * ratePerNano);
+                lastRefillNanos = now;
+            }
+        }
+    }
+
+    final private Map<Key, Bucket> buckets = new ConcurrentHashMap<>();
+    final private double[] ratePerNano = new double[MessageType.values().length];
+    final private int[] burst = new int[MessageType.values().length];
+    final private AtomicLongArray rejected = new AtomicLongArray(MessageType.values().length);
+    final private int maxSources;
+    private volatile RejectionListener rejectionListener;
+
+    public DatagramAdmissionControl() {
+        this(DEFAULT_MAX_SOURCES);
+    }
+
+    /**
+     * @param maxSources The maximum number of tracked source addresses and message types.
+     */
+    public DatagramAdmissionControl(int maxSources) {
+        if (maxSources <= 0)
+            throw new IllegalArgumentException("maxSources=" + maxSources);
+        this.maxSources = maxSources;
+        for (MessageType type : MessageType.values()) {
+            setLimit(type, type.getDefaultRatePerSecond(), type.getDefaultBurst());
+        }
+    }
+
+    /**
+     * Changes the limit of a message type, buckets already tracked are adjusted on their next use.
+     *
+     * @param type The type of messages.
+     * @param ratePerSecond The sustained number of messages admitted per second and source.
+     * @param burst The number of messages admitted at once from a quiet source.
+     * @return This instance.
+     */
+    public DatagramAdmissionControl setLimit(MessageType type, double ratePerSecond, int burst) {
+        if (ratePerSecond <= 0)
+            throw new IllegalArgumentException("ratePerSecond=" + ratePerSecond);
+        if (burst < 1)
+            throw new IllegalArgumentException("burst=" + burst);
+        synchronized (this.burst) {
+            this.ratePerNano[type.ordinal()] = ratePerSecond / TimeUnit.SECONDS.toNanos(1);
+            this.burst[type.ordinal()] = burst;
+        }
+        return this;
+    }
+
+    public double getRatePerSecond(MessageType type) {
+        synchronized (burst) {
+            return ratePerNano[type.ordinal()] * TimeUnit.SECONDS.toNanos(1);
+        }
+    }
+
+    public int getBurst(MessageType type) {
+        synchronized (burst) {
+            return burst[type.ordinal()];
+        }
+    }
+
+    public int getMaxSources() {
+        return maxSources;
+    }
+
+    public RejectionListener getRejectionListener() {
+        return rejectionListener;
+    }
+
+    /**
+     * @param rejectionListener Called for each dropped datagram, <code>null</code> to remove it.
+     * @return This instance.
+     */
+    public DatagramAdmissionControl setRejectionListener(RejectionListener rejectionListener) {
+        this.rejectionListener = rejectionListener;
+        return this;
+    }
+
+    /**
+     * @param message The received message.
+     * @return <code>true</code> if the message can be processed, <code>false</code> if it must be dropped.
+     */
+    public boolean admit(IncomingDatagramMessage<?> message) {
+        MessageType type = MessageType.of(message);
+        if (type == null || message.getSourceAddress() == null)
+            return true;
+
+        double rate;
+        int max;
+        synchronized (burst) {
+            rate = ratePerNano[type.ordinal()];
+            max = burst[type.ordinal()];
+        }
+        long now = System.nanoTime();
+        Key key = new Key(message.getSourceAddress(), type);
+        Bucket bucket = buckets.get(key);
+        if (bucket == null) {
+            if (buckets.size() >= maxSources)
+                purge(now);
+            Bucket b = new Bucket(max, now);
+            bucket = buckets.putIfAbsent(key, b);
+            if (bucket == null)
+                bucket = b;
+        }
+        if (bucket.tryAcquire(rate, max, now))
+            return true;
+
+        rejected.incrementAndGet(type.ordinal());
+        if (log.isDebugEnabled())
+            log.debug("Admission limit of " + type + " reached, dropping datagram from: " + message.getSourceAddress());
+        RejectionListener listener = rejectionListener;
+        if (listener != null)
+            listener.rejected(message, type);
+        return false;
+    }
+
+    private void purge(long now) {
+        for (Iterator<Map.Entry<Key, Bucket>> it = buckets.entrySet().iterator(); it.hasNext(); ) {
+            Map.Entry<Key, Bucket> entry = it.next();
+            MessageType type = entry.getKey().type;
+            double rate;
+            int max;
+            synchronized (burst) {
+                rate = ratePerNano[type.ordinal()];
+                max = burst[type.ordinal()];
+            }
+            // A refilled bucket is the same as a new one
+            if (entry.getValue().isFull(rate, max, now))
+                it.remove();
+        }
+        if (buckets.size() >= maxSources) {
+            Map.Entry<Key, Bucket> leastRecentlyUsed = null;
+            long lastUse = 0;
+            for (Map.Entry<Key, Bucket> entry : buckets.entrySet()) {
+                long l = entry.getValue().getLastUseNanos();
+                if (leastRecentlyUsed == null || l - lastUse < 0) {
+                    leastRecentlyUsed = entry;
+                    lastUse = l;
+                }
+            }
+            if (leastRecentlyUsed != null) {
+                if (log.isDebugEnabled())
+                    log.debug("Datagram admission control is full, forgetting source: " + leastRecentlyUsed.getKey().source);
+                buckets.remove(leastRecentlyUsed.getKey(), leastRecentlyUsed.getValue());
+            }
+        }
+    }
+
+    /**
+     * Forgets all sources, the counters are kept.
+     */
+    public void clear() {
+        buckets.clear();
+    }
+
+    /**
+     * @return The number of tracked source addresses and message types.
+     */
+    public int size() {
+        return buckets.size();
+    }
+
+    /**
+     * @param type The type of messages.
+     * @return The number of dropped messages of this type.
+     */
+    public long getRejected(MessageType type) {
+        return rejected.get(type.ordinal());
+    }
+
+    /**
+     * @return The number of dropped messages of all types.
+     */
+    public long getRejected() {
+        long count = 0;
+        for (int i = 0; i < rejected.length(); i++) {
+            count += rejected.get(i);
+        }
+        return count;
+    }
+}
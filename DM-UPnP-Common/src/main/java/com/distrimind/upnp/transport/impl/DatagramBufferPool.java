@@ -0,0 +1,99 @@
+/*
+ *     This library is free software; you can redistribute it and/or
+ *     modify it under the terms of the GNU Lesser General Public
+ *     License as published by the Free Software Foundation; either
+ *     version 2.1 of the License.
+ *
+ *     This library is distributed in the hope that it will be useful,
+ *     but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *     MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ *     Lesser General Public License for more details.
+ *
+ *     You should have received a copy of the GNU Lesser General Public
+ *     License along with this library; if not, write to the Free Software
+ *     Foundation, Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301  USA
+ */
+
+package com.distrimind.upnp.transport.impl;
+
+/**
+ * Bounded pool of reusable receive buffers, shared by the datagram receivers of a UPnP stack.
+ * <p>
+ * A receiver acquires a buffer before reading a datagram and releases it once the
+ * {@link com.distrimind.upnp.transport.spi.DatagramProcessor} has parsed it. The parsed message does not keep
+ * any reference on the buffer. At most {@link #getPoolSize()} idle buffers are retained, further released
+ * buffers are left to the garbage collector.
+ * </p>
+ * <p>
+ * This class is thread-safe, acquiring and releasing a buffer does not allocate.
+ * </p>
+ *
+ * @author Jason Mahdjoub
+ * @since 1.5.0
+ */
+public class DatagramBufferPool {
+
+    final private byte[][] buffers;
+    private int size;
+    private long allocatedBuffers;
+
+    /**
+     * @param poolSize The maximum number of idle buffers kept for reuse, <code>0</code> disables pooling.
+     */
+    public DatagramBufferPool(int poolSize) {
+        if (poolSize < 0)
+            throw new IllegalArgumentException("poolSize=" + poolSize);
+        this.buffers = new byte[poolSize][];
+    }
+
+    /**
+     * @param minLength The minimum length of the returned buffer.
+     * @return A pooled buffer, or a new one if the pool is empty.
+     */
+    public byte[] acquire(int minLength) {
+        synchronized (buffers) {
+            while (size > 0) {
+                byte[] buffer = buffers[--size];
+                buffers[size] = null;
+                if (buffer.length >= minLength)
+                    return buffer;
+            }
+            ++allocatedBuffers;
+        }
+        return new byte[minLength];
+    }
+
+    /**
+     * @param buffer The buffer to give back, must not be used by the caller anymore.
+     */
+    public void release(byte[] buffer) {
+        if (buffer == null)
+            return;
+        synchronized (buffers) {
+            if (size < buffers.length)
+                buffers[size++] = buffer;
+        }
+    }
+
+    public int getPoolSize() {
+        return buffers.length;
+    }
+
+    /**
+     * @return The number of idle buffers currently retained.
+     */
+    public int getIdleBuffers() {
+        synchronized (buffers) {
+            return size;
+        }
+    }
+
+    /**
+     * @return The number of buffers allocated because the pool was empty.
+     */
+    public long getAllocatedBuffers() {
+        synchronized (buffers) {
+            return allocatedBuffers;
+        }
+    }
+}
@@ -0,0 +1,233 @@
+/*
+ *     This library is free software; you can redistribute it and/or
+ *     modify it under the terms of the GNU Lesser General Public
+ *     License as published by the Free Software Foundation; either
+ *     version 2.1 of the License.
+ *
+ *     This library is distributed in the hope that it will be useful,
+ *     but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *     MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ *     Lesser General Public License for more details.
+ *
+ *     You should have received a copy of the GNU Lesser General Public
+ *     License along with this library; if not, write to the Free Software
+ *     Foundation, Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301  USA
+ */
+
+package com.distrimind.upnp.transport.impl;
+
+import com.distrimind.flexilogxml.log.DMLogger;
+import com.distrimind.upnp.Log;
+import com.distrimind.upnp.model.message.IncomingDatagramMessage;
+import com.distrimind.upnp.model.message.UpnpRequest;
+import com.distrimind.upnp.model.message.UpnpResponse;
+import com.distrimind.upnp.model.message.header.UpnpHeader;
+import com.distrimind.upnp.model.types.NotificationSubtype;
+
+import java.net.InetAddress;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Drops the SSDP notifications and search responses received again within a short window.
+ * <p>
+ * Devices repeat each bulk of alive messages two or three times, and answer each repetition of a search.
+ * A message is a duplicate when a message with the same source address, notification subtype, USN,
+ * NT (or ST) and LOCATION headers was accepted less than {@link #getWindowMilliseconds()} ago. Accepting an
+ * alive notification forgets the last byebye of the same service and vice versa, so that a device
+ * restarting within the window is not missed. Search requests are never filtered.
+ * </p>
+ * <p>
+ * Only the raw header values are read, the typed UPnP headers are not parsed. At most
+ * {@link #getMaxEntries()} accepted messages are remembered, expired entries are purged when the limit is
+ * reached, and all of them are forgotten if it is still reached.
+ * </p>
+ * <p>
+ * This class is thread-safe.
+ * </p>
+ *
+ * @author Jason Mahdjoub
+ * @since 1.5.0
+ */
+public class DatagramDuplicateFilter {
+
+    final private static DMLogger log = Log.getLogger(DatagramDuplicateFilter.class);
+
+    public static final int DEFAULT_WINDOW_MILLISECONDS = 1000;
+    public static final int DEFAULT_MAX_ENTRIES = 1024;
+
+    // Subtype of search responses in the keys
+    private static final String SEARCH_RESPONSE = "response";
+
+    private static final class Key {
+        final InetAddress source;
+        final String subtype;
+        final String usn;
+        final String nt;
+        final String location;
+        final int hashCode;
+
+        Key(InetAddress source, String subtype, String usn, String nt, String location) {
+            this.source = source;
+            this.subtype = subtype;
+            this.usn = usn;
+            this.nt = nt;
+            this.location = location;
+            this.hashCode = Objects.hash(source, subtype, usn, nt, location);
+        }
+
+        Key withSubtype(String subtype) {
+            return new Key(source, subtype, usn, nt, location);
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (this == o) return true;
+            if (!(o instanceof Key)) return false;
+            Key key = (Key) o;
+            return hashCode == key.hashCode
+                    && Objects.equals(source, key.source)
+                    && subtype.equals(key.subtype)
+                    && usn.equals(key.usn)
+                    && Objects.equals(nt, key.nt)
+                    && Objects.equals(location, key.location);
+        }
+
+        @Override
+        public int hashCode() {
+            return hashCode;
+        }
+    }
+
+    // Accepted messages and the System.nanoTime() of their acceptance
+    final private Map<Key, Long> accepted = new ConcurrentHashMap<>();
+    final private long windowNanos;
+    final private int windowMilliseconds;
+    final private int maxEntries;
+
+    final private AtomicLong suppressedNotifications = new AtomicLong();
+    final private AtomicLong suppressedSearchResponses = new AtomicLong();
+
+    public DatagramDuplicateFilter() {
+        this(DEFAULT_WINDOW_MILLISECONDS, DEFAULT_MAX_ENTRIES);
+    }
+
+    /**
+     * @param windowMilliseconds The time during which a message received again is dropped.
+     * @param maxEntries The maximum number of remembered messages.
+     */
+    public DatagramDuplicateFilter(int windowMilliseconds, int maxEntries) {
+        if (windowMilliseconds <= 0)
+            throw new IllegalArgumentException("windowMilliseconds=" + windowMilliseconds);
+        if (maxEntries <= 0)
+            throw new IllegalArgumentException("maxEntries=" + maxEntries);
+        this.windowMilliseconds = windowMilliseconds;
+        this.windowNanos = TimeUnit.MILLISECONDS.toNanos(windowMilliseconds);
+        this.maxEntries = maxEntries;
+    }
+
+    public int getWindowMilliseconds() {
+        return windowMilliseconds;
+    }
+
+    public int getMaxEntries() {
+        return maxEntries;
+    }
+
+    /**
+     * @param message The received message.
+     * @return <code>true</code> if the message is a duplicate and must be dropped.
+     */
+    public boolean isDuplicate(IncomingDatagramMessage<?> message) {
+        String subtype;
+        String nt;
+        if (message.getOperation() instanceof UpnpRequest) {
+            if (((UpnpRequest) message.getOperation()).getMethod() != UpnpRequest.Method.NOTIFY)
+                return false;
+            subtype = message.getHeaders().getFirstRawHeader(UpnpHeader.Type.NTS);
+            nt = message.getHeaders().getFirstRawHeader(UpnpHeader.Type.NT);
+        } else if (message.getOperation() instanceof UpnpResponse) {
+            subtype = SEARCH_RESPONSE;
+            nt = message.getHeaders().getFirstRawHeader(UpnpHeader.Type.ST);
+        } else {
+            return false;
+        }
+        String usn = message.getHeaders().getFirstRawHeader(UpnpHeader.Type.USN);
+        if (subtype == null || usn == null)
+            return false; // Invalid, left to the protocol
+
+        Key key = new Key(
+                message.getSourceAddress(),
+                subtype,
+                usn,
+                nt,
+                message.getHeaders().getFirstRawHeader(UpnpHeader.Type.LOCATION)
+        );
+        long now = System.nanoTime();
+        Long previous = accepted.get(key);
+        if (previous != null && now - previous < windowNanos) {
+            if (SEARCH_RESPONSE.equals(subtype))
+                suppressedSearchResponses.incrementAndGet();
+            else
+                suppressedNotifications.incrementAndGet();
+            if (log.isTraceEnabled())
+                log.trace("Dropping duplicate datagram: " + message);
+            return true;
+        }
+
+        if (accepted.size() >= maxEntries)
+            purge(now);
+        accepted.put(key, now);
+
+        // A byebye ends the previous alive window and vice versa
+        if (NotificationSubtype.ALIVE.getHeaderString().equals(subtype))
+            accepted.remove(key.withSubtype(NotificationSubtype.BYEBYE.getHeaderString()));
+        else if (NotificationSubtype.BYEBYE.getHeaderString().equals(subtype))
+            accepted.remove(key.withSubtype(NotificationSubtype.ALIVE.getHeaderString()));
+        return false;
+    }
+
+    private void purge(long now) {
+        for (Iterator<Long> it = accepted.values().iterator(); it.hasNext(); ) {
+            if (now - it.next() >= windowNanos)
+                it.remove();
+        }
+        if (accepted.size() >= maxEntries) {
+            if (log.isDebugEnabled())
+                log.debug("Datagram duplicate filter is full, forgetting " + accepted.size() + " entries");
+            accepted.clear();
+        }
+    }
+
+    /**
+     * Forgets all accepted messages, the counters are kept.
+     */
+    public void clear() {
+        accepted.clear();
+    }
+
+    /**
+     * @return The number of remembered messages.
+     */
+    public int size() {
+        return accepted.size();
+    }
+
+    /**
+     * @return The number of dropped alive, byebye and update notifications.
+     */
+    public long getSuppressedNotifications() {
+        return suppressedNotifications.get();
+    }
+
+    /**
+     * @return The number of dropped search responses.
+     */
+    public long getSuppressedSearchResponses() {
+        return suppressedSearchResponses.get();
+    }
+}
@@ -55,6 +55,7 @@ public class DatagramIOImpl implements DatagramIO<DatagramIOConfigurationImpl> {
      */
 
     final protected DatagramIOConfigurationImpl configuration;
+    final protected DatagramBufferPool bufferPool;
 
     protected Router router;
     protected DatagramProcessor datagramProcessor;
@@ -63,7 +64,16 @@ public class DatagramIOImpl implements DatagramIO<DatagramIOConfigurationImpl> {
     protected MulticastSocket socket; // For sending unicast & multicast, and reveiving unicast
 
     public DatagramIOImpl(DatagramIOConfigurationImpl configuration) {
+        this(configuration, new DatagramBufferPool(1));
+    }
+
+    /**
+     * @param configuration The configuration of this service.
+     * @param bufferPool The pool of receive buffers, possibly shared with other receivers.
+     */
+    public DatagramIOImpl(DatagramIOConfigurationImpl configuration, DatagramBufferPool bufferPool) {
         this.configuration = configuration;
+        this.bufferPool = bufferPool;
     }
 
     @Override
@@ -106,11 +116,13 @@ public class DatagramIOImpl implements DatagramIO<DatagramIOConfigurationImpl> {
             log.debug("Entering blocking receiving loop, listening for UDP datagrams on: " + socket.getLocalAddress());
 		}
 
+		// The packet and its buffers are reused, the parsed message doesn't reference them
+		DatagramPacket datagram = new DatagramPacket(new byte[0], 0);
 		while (true) {
 
+            byte[] buf = bufferPool.acquire(getConfiguration().getMaxDatagramBytes());
             try {
-                byte[] buf = new byte[getConfiguration().getMaxDatagramBytes()];
-                DatagramPacket datagram = new DatagramPacket(buf, buf.length);
+                datagram.setData(buf, 0, getConfiguration().getMaxDatagramBytes());
 
                 socket.receive(datagram);
                 InetAddress receivedOnLocalAddress =
@@ -143,6 +155,8 @@ public class DatagramIOImpl implements DatagramIO<DatagramIOConfigurationImpl> {
 				if (log.isInfoEnabled()) log.info("Could not read datagram: ", ex);
             } catch (Exception ex) {
                 throw new RuntimeException(ex);
+            } finally {
+                bufferPool.release(buf);
             }
         }
         try {
@@ -28,6 +28,7 @@ import com.distrimind.upnp.http.Headers;
 import java.io.ByteArrayInputStream;
 import java.net.DatagramPacket;
 import java.net.InetAddress;
+import java.util.Arrays;
 import java.util.Locale;
 
 /**
@@ -49,11 +50,12 @@ public class DatagramProcessorImpl implements DatagramProcessor {
 
             if (log.isTraceEnabled()) {
 				log.trace("===================================== DATAGRAM BEGIN ============================================");
-                log.trace(new String(datagram.getData(), StandardCharsets.UTF_8));
+                log.trace(new String(datagram.getData(), datagram.getOffset(), datagram.getLength(), StandardCharsets.UTF_8));
                 log.trace("-===================================== DATAGRAM END =============================================");
             }
 
-            ByteArrayInputStream is = new ByteArrayInputStream(datagram.getData());
+            // Only the received bytes, the buffer of the datagram might be a reused and bigger one
+            ByteArrayInputStream is = new ByteArrayInputStream(datagram.getData(), datagram.getOffset(), datagram.getLength());
 
             String[] startLine = Headers.readLine(is).split(" ");
             if (startLine[0].startsWith("HTTP/1.")) {
@@ -63,13 +65,23 @@ public class DatagramProcessorImpl implements DatagramProcessor {
             }
 
         } catch (Exception ex) {
-            throw new UnsupportedDataException("Could not parse headers: " + ex, ex, datagram.getData());
+            throw new UnsupportedDataException(
+                    "Could not parse headers: " + ex,
+                    ex,
+                    Arrays.copyOfRange(datagram.getData(), datagram.getOffset(), datagram.getOffset() + datagram.getLength())
+            );
         }
     }
 
     @Override
 	public DatagramPacket write(OutgoingDatagramMessage<?> message) throws UnsupportedDataException {
 
+        if (message instanceof EncodedDatagramMessage) {
+            // Already serialized, see DiscoveryDatagramCache
+            byte[] data = ((EncodedDatagramMessage<?>) message).getData();
+            return new DatagramPacket(data, data.length, message.getDestinationAddress(), message.getDestinationPort());
+        }
+
         StringBuilder statusLine = new StringBuilder();
 
         UpnpOperation operation = message.getOperation();
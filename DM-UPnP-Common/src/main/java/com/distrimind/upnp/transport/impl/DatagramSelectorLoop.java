@@ -0,0 +1,248 @@
+/*
+ *     This library is free software; you can redistribute it and/or
+ *     modify it under the terms of the GNU Lesser General Public
+ *     License as published by the Free Software Foundation; either
+ *     version 2.1 of the License.
+ *
+ *     This library is distributed in the hope that it will be useful,
+ *     but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *     MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ *     Lesser General Public License for more details.
+ *
+ *     You should have received a copy of the GNU Lesser General Public
+ *     License along with this library; if not, write to the Free Software
+ *     Foundation, Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301  USA
+ */
+
+package com.distrimind.upnp.transport.impl;
+
+import com.distrimind.flexilogxml.log.DMLogger;
+import com.distrimind.upnp.Log;
+import com.distrimind.upnp.model.UnsupportedDataException;
+
+import java.io.IOException;
+import java.net.DatagramPacket;
+import java.net.InetSocketAddress;
+import java.nio.ByteBuffer;
+import java.nio.channels.ClosedChannelException;
+import java.nio.channels.DatagramChannel;
+import java.nio.channels.SelectionKey;
+import java.nio.channels.Selector;
+import java.util.ArrayDeque;
+import java.util.Iterator;
+import java.util.Queue;
+
+/**
+ * Multiplexes the UDP sockets of several datagram services onto a single thread.
+ * <p>
+ * Services register their non-blocking {@link DatagramChannel} with {@link #register(DatagramChannel, Handler)}
+ * and then call {@link #run()} from their own <code>run()</code> method. The first caller becomes the
+ * event loop thread, any other caller returns immediately because its channel is now served by the
+ * running loop. The loop terminates, and releases its thread, when the last channel has been closed.
+ * </p>
+ * <p>
+ * This class is thread-safe.
+ * </p>
+ *
+ * @author Jason Mahdjoub
+ * @since 1.5.0
+ */
+public class DatagramSelectorLoop implements Runnable {
+
+    final private static DMLogger log = Log.getLogger(DatagramSelectorLoop.class);
+
+    /**
+     * Maximum number of datagrams read from one channel before the other channels get their turn.
+     */
+    protected static final int MAX_DATAGRAMS_PER_CHANNEL_AND_SELECTION = 32;
+
+    /**
+     * Receives the datagrams read by the loop, always called from the loop thread.
+     */
+    public interface Handler {
+
+        /**
+         * @return The maximum size of a datagram read on the channel, larger datagrams are truncated.
+         */
+        int getMaxDatagramBytes();
+
+        /**
+         * @param datagram The received datagram, with the source address and port of the sender. The packet
+         *                 and its buffer are reused by the loop once this method returns.
+         * @throws UnsupportedDataException If the datagram could not be read.
+         */
+        void received(DatagramPacket datagram) throws UnsupportedDataException;
+    }
+
+    private static final class Registration {
+        final DatagramChannel channel;
+        final Handler handler;
+
+        Registration(DatagramChannel channel, Handler handler) {
+            this.channel = channel;
+            this.handler = handler;
+        }
+    }
+
+    final private Queue<Registration> pendingRegistrations = new ArrayDeque<>();
+    private Selector selector;
+    private boolean running;
+
+    /**
+     * Switches the channel to non-blocking mode and hands it over to the loop.
+     * <p>
+     * The channel is unregistered when it is closed, see {@link #close(DatagramChannel)}.
+     * </p>
+     *
+     * @param channel The bound datagram channel.
+     * @param handler The handler of the datagrams received on this channel.
+     * @throws IOException If the channel could not be configured.
+     */
+    public void register(DatagramChannel channel, Handler handler) throws IOException {
+        channel.configureBlocking(false);
+        synchronized (this) {
+            pendingRegistrations.add(new Registration(channel, handler));
+            if (selector != null)
+                selector.wakeup();
+        }
+    }
+
+    /**
+     * Closes the channel and wakes up the loop, so that the socket is released without delay.
+     *
+     * @param channel The channel to close.
+     */
+    public void close(DatagramChannel channel) {
+        try {
+            channel.close();
+        } catch (IOException ex) {
+            if (log.isDebugEnabled())
+                log.debug("Could not close datagram channel: ", ex);
+        }
+        synchronized (this) {
+            if (selector != null)
+                selector.wakeup();
+        }
+    }
+
+    /**
+     * @return <code>true</code> if a thread is currently running the event loop.
+     */
+    synchronized public boolean isRunning() {
+        return running;
+    }
+
+    @Override
+    public void run() {
+        Selector selector;
+        synchronized (this) {
+            if (running) {
+                log.debug("Datagram selector loop already running, channels will be served by the running thread");
+                return;
+            }
+            if (this.selector == null) {
+                try {
+                    this.selector = Selector.open();
+                } catch (IOException ex) {
+                    throw new RuntimeException(ex);
+                }
+            }
+            selector = this.selector;
+            running = true;
+        }
+
+        log.debug("Entering datagram selector loop");
+        // A single thread reads and parses all datagrams, one receive buffer is enough
+        ByteBuffer buffer = null;
+        DatagramPacket datagram = new DatagramPacket(new byte[0], 0);
+        try {
+            while (true) {
+                if (!registerPendingChannels(selector))
+                    break;
+
+                selector.select();
+
+                Iterator<SelectionKey> it = selector.selectedKeys().iterator();
+                while (it.hasNext()) {
+                    SelectionKey key = it.next();
+                    it.remove();
+                    if (!key.isValid() || !key.isReadable())
+                        continue;
+                    Handler handler = (Handler) key.attachment();
+                    if (buffer == null || buffer.capacity() < handler.getMaxDatagramBytes())
+                        buffer = ByteBuffer.allocate(handler.getMaxDatagramBytes());
+                    receive(key, handler, buffer, datagram);
+                }
+            }
+        } catch (IOException ex) {
+            if (log.isWarnEnabled()) log.warn("Datagram selector loop failed: ", ex);
+            synchronized (this) {
+                closeSelector();
+            }
+        }
+        log.debug("Leaving datagram selector loop");
+    }
+
+    protected void receive(SelectionKey key, Handler handler, ByteBuffer buffer, DatagramPacket datagram) {
+        DatagramChannel channel = (DatagramChannel) key.channel();
+        for (int i = 0; i < MAX_DATAGRAMS_PER_CHANNEL_AND_SELECTION; i++) {
+            InetSocketAddress source;
+            try {
+                buffer.clear();
+                buffer.limit(handler.getMaxDatagramBytes());
+                source = (InetSocketAddress) channel.receive(buffer);
+            } catch (IOException ex) {
+                if (log.isDebugEnabled())
+                    log.debug("Datagram channel closed: " + ex);
+                key.cancel();
+                return;
+            }
+            if (source == null)
+                return;
+            datagram.setData(buffer.array(), 0, buffer.position());
+            datagram.setSocketAddress(source);
+            try {
+                handler.received(datagram);
+            } catch (UnsupportedDataException ex) {
+                if (log.isInfoEnabled()) log.info("Could not read datagram: ", ex);
+            } catch (RuntimeException ex) {
+                // One failing service must not stop the loop shared with all the others
+                if (log.isWarnEnabled()) log.warn("Handling received datagram failed: ", ex);
+            }
+        }
+    }
+
+    /**
+     * @return <code>false</code> if there is no channel left and the loop must terminate.
+     */
+    private boolean registerPendingChannels(Selector selector) throws IOException {
+        synchronized (this) {
+            Registration registration;
+            while ((registration = pendingRegistrations.poll()) != null) {
+                try {
+                    registration.channel.register(selector, SelectionKey.OP_READ, registration.handler);
+                } catch (ClosedChannelException ex) {
+                    log.debug("Ignoring registration of already closed datagram channel");
+                }
+            }
+            if (selector.keys().isEmpty()) {
+                closeSelector();
+                return false;
+            }
+            return true;
+        }
+    }
+
+    private void closeSelector() {
+        running = false;
+        if (selector != null) {
+            try {
+                selector.close();
+            } catch (IOException ex) {
+                if (log.isDebugEnabled())
+                    log.debug("Could not close selector: ", ex);
+            }
+            selector = null;
+        }
+    }
+}
@@ -32,6 +32,7 @@ import com.distrimind.flexilogxml.log.DMLogger;
 import com.distrimind.flexilogxml.xml.IXmlReader;
 import com.distrimind.flexilogxml.xml.IXmlWriter;
 
+import java.io.InputStream;
 import java.util.Collection;
 
 /**
@@ -80,12 +81,26 @@ public class GENAEventProcessorImpl implements GENAEventProcessor, XMLUtil.Error
 		if (log.isDebugEnabled()) {
             log.debug("Reading body of: " + requestMessage);
 		}
-		if (log.isTraceEnabled()) {
+		// A streamed body is read once, by the parser
+		if (log.isTraceEnabled() && !requestMessage.isBodyStreamed()) {
             log.trace("===================================== GENA BODY BEGIN ============================================");
             log.trace(requestMessage.getBody() != null ? requestMessage.getBody().toString() : "null");
             log.trace("-===================================== GENA BODY END ============================================");
         }
 
+        if (requestMessage.isBodyStreamed()) {
+            // Read directly, without buffering the body into a string
+            try (InputStream in = requestMessage.getBodyInputStream()) {
+                XMLUtil.readXML(xmlReader -> {
+                    XMLUtil.readRootElement(xmlReader, xmlReader2 -> readProperties(xmlReader2, requestMessage), this, Constants.NS_UPNP_EVENT_10, "propertyset", log);
+                    return null;
+                }, this, in, requestMessage.getBodyCharset());
+            } catch (Exception ex) {
+                throw new UnsupportedDataException("Can't transform message payload: " + ex.getMessage(), ex);
+            }
+            return;
+        }
+
         String body = getMessageBody(requestMessage);
         try {
 
@@ -0,0 +1,420 @@
+/*
+ *     This library is free software; you can redistribute it and/or
+ *     modify it under the terms of the GNU Lesser General Public
+ *     License as published by the Free Software Foundation; either
+ *     version 2.1 of the License.
+ *
+ *     This library is distributed in the hope that it will be useful,
+ *     but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *     MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ *     Lesser General Public License for more details.
+ *
+ *     You should have received a copy of the GNU Lesser General Public
+ *     License along with this library; if not, write to the Free Software
+ *     Foundation, Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301  USA
+ */
+
+package com.distrimind.upnp.transport.impl;
+
+import com.distrimind.upnp.model.Constants;
+import com.distrimind.upnp.model.message.ByteArrayUpnpHeaders;
+import com.distrimind.upnp.model.message.UpnpHeaders;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.Locale;
+
+/**
+ * Incremental parser of HTTP/1.1 requests, fed with the bytes read from a non-blocking channel.
+ * <p>
+ * {@link #parse(ByteBuffer)} consumes the available bytes and returns the request once it is complete. The
+ * bytes following a complete request are left in the buffer, they belong to the next pipelined request.
+ * The header block is limited to {@link Constants#MAX_HEADER_LENGTH_IN_BYTES}, see {@link ByteArrayUpnpHeaders},
+ * and the body to {@link Constants#MAX_BODY_LENGTH}. Bodies with a <code>Content-Length</code> and chunked
+ * bodies are supported.
+ * </p>
+ * <p>
+ * This class is not thread-safe.
+ * </p>
+ *
+ * @author Jason Mahdjoub
+ * @since 1.5.0
+ */
+public class HttpRequestParser {
+
+    /**
+     * Maximum length of the request line, and of a chunk size line.
+     */
+    public static final int MAX_REQUEST_LINE_LENGTH_IN_BYTES = 2048;
+
+    /**
+     * A malformed or unsupported request, the connection must be closed after the error response.
+     */
+    public static class ParseException extends Exception {
+        private static final long serialVersionUID = 1L;
+
+        private final int statusCode;
+        private final String reasonPhrase;
+
+        public ParseException(int statusCode, String reasonPhrase, String message) {
+            super(message);
+            this.statusCode = statusCode;
+            this.reasonPhrase = reasonPhrase;
+        }
+
+        public int getStatusCode() {
+            return statusCode;
+        }
+
+        public String getReasonPhrase() {
+            return reasonPhrase;
+        }
+    }
+
+    /**
+     * A complete request.
+     */
+    public static class Request {
+        private final String method;
+        private final String target;
+        private final int httpMinorVersion;
+        private final UpnpHeaders headers;
+        private final byte[] body;
+        private final boolean keepAlive;
+
+        Request(String method, String target, int httpMinorVersion, UpnpHeaders headers, byte[] body, boolean keepAlive) {
+            this.method = method;
+            this.target = target;
+            this.httpMinorVersion = httpMinorVersion;
+            this.headers = headers;
+            this.body = body;
+            this.keepAlive = keepAlive;
+        }
+
+        public String getMethod() {
+            return method;
+        }
+
+        /**
+         * @return The request target, usually a path with an optional query.
+         */
+        public String getTarget() {
+            return target;
+        }
+
+        public int getHttpMinorVersion() {
+            return httpMinorVersion;
+        }
+
+        public UpnpHeaders getHeaders() {
+            return headers;
+        }
+
+        /**
+         * @return The body, empty if the request has none.
+         */
+        public byte[] getBody() {
+            return body;
+        }
+
+        /**
+         * @return <code>true</code> if the connection stays open after the response.
+         */
+        public boolean isKeepAlive() {
+            return keepAlive;
+        }
+    }
+
+    private enum State {
+        HEAD, BODY, CHUNK_SIZE, CHUNK_DATA, CHUNK_DATA_END, TRAILER
+    }
+
+    private static final byte[] EMPTY = new byte[0];
+
+    private final int maxHeaderBytes;
+    private final int maxBodyBytes;
+
+    private State state = State.HEAD;
+    private final byte[] head;
+    private int headLength;
+    // Start of the header lines in the head, -1 while the request line is incomplete
+    private int headersStart = -1;
+    private final byte[] line = new byte[MAX_REQUEST_LINE_LENGTH_IN_BYTES];
+    private int lineLength;
+
+    private String method;
+    private String target;
+    private int httpMinorVersion;
+    private UpnpHeaders headers;
+    private boolean keepAlive;
+    private boolean continueExpected;
+    private byte[] body;
+    private int bodyLength;
+    private int chunkRemaining;
+
+    public HttpRequestParser() {
+        this(Constants.MAX_HEADER_LENGTH_IN_BYTES, Constants.MAX_BODY_LENGTH);
+    }
+
+    /**
+     * @param maxHeaderBytes The maximum length of the header block, at most {@link Constants#MAX_HEADER_LENGTH_IN_BYTES}.
+     * @param maxBodyBytes The maximum length of the body.
+     */
+    public HttpRequestParser(int maxHeaderBytes, int maxBodyBytes) {
+        if (maxHeaderBytes <= 0 || maxHeaderBytes > Constants.MAX_HEADER_LENGTH_IN_BYTES)
+            throw new IllegalArgumentException("maxHeaderBytes=" + maxHeaderBytes);
+        if (maxBodyBytes < 0)
+            throw new IllegalArgumentException("maxBodyBytes=" + maxBodyBytes);
+        this.maxHeaderBytes = maxHeaderBytes;
+        this.maxBodyBytes = maxBodyBytes;
+        this.head = new byte[MAX_REQUEST_LINE_LENGTH_IN_BYTES + 2 + maxHeaderBytes];
+    }
+
+    /**
+     * Consumes the available bytes of the buffer.
+     *
+     * @param buffer The received bytes, between its position and its limit.
+     * @return The complete request, or <code>null</code> if more bytes are needed.
+     * @throws ParseException If the request is malformed or too large, the parser must not be used anymore.
+     */
+    public Request parse(ByteBuffer buffer) throws ParseException {
+        while (true) {
+            if (state == State.BODY && bodyLength == body.length)
+                return complete();
+            if (!buffer.hasRemaining())
+                return null;
+            switch (state) {
+                case HEAD:
+                    if (readHead(buffer))
+                        parseHead();
+                    break;
+                case BODY: {
+                    int n = Math.min(buffer.remaining(), body.length - bodyLength);
+                    buffer.get(body, bodyLength, n);
+                    bodyLength += n;
+                    break;
+                }
+                case CHUNK_SIZE:
+                    if (readLine(buffer))
+                        parseChunkSize();
+                    break;
+                case CHUNK_DATA: {
+                    int n = Math.min(buffer.remaining(), chunkRemaining);
+                    buffer.get(body, bodyLength, n);
+                    bodyLength += n;
+                    chunkRemaining -= n;
+                    if (chunkRemaining == 0)
+                        state = State.CHUNK_DATA_END;
+                    break;
+                }
+                case CHUNK_DATA_END:
+                    if (readLine(buffer)) {
+                        if (lineLength != 0)
+                            throw new ParseException(400, "Bad Request", "Missing end of chunk");
+                        state = State.CHUNK_SIZE;
+                    }
+                    break;
+                case TRAILER:
+                    // Trailer fields are ignored
+                    if (readLine(buffer)) {
+                        if (lineLength == 0)
+                            return complete();
+                        lineLength = 0;
+                    }
+                    break;
+            }
+        }
+    }
+
+    /**
+     * @return <code>true</code> if the head of the request has been parsed, and the client waits for a
+     *         <code>100 Continue</code> response before sending the body.
+     */
+    public boolean isContinueExpected() {
+        return continueExpected;
+    }
+
+    /**
+     * To be called once the <code>100 Continue</code> response has been sent.
+     */
+    public void continueSent() {
+        continueExpected = false;
+    }
+
+    /**
+     * @return <code>true</code> if no byte of the next request has been received.
+     */
+    public boolean isIdle() {
+        return state == State.HEAD && headLength == 0;
+    }
+
+    private boolean readHead(ByteBuffer buffer) throws ParseException {
+        while (buffer.hasRemaining()) {
+            byte b = buffer.get();
+            // Empty lines preceding the request line are ignored
+            if (headLength == 0 && (b == '\r' || b == '\n'))
+                continue;
+            if (headLength == head.length)
+                throw new ParseException(431, "Request Header Fields Too Large", "Request head longer than " + head.length + " bytes");
+            head[headLength++] = b;
+            if (headersStart >= 0) {
+                if (headLength - headersStart > maxHeaderBytes)
+                    throw new ParseException(431, "Request Header Fields Too Large", "Headers longer than " + maxHeaderBytes + " bytes");
+            } else if (headLength > MAX_REQUEST_LINE_LENGTH_IN_BYTES + 2) {
+                throw new ParseException(414, "URI Too Long", "Request line longer than " + MAX_REQUEST_LINE_LENGTH_IN_BYTES + " bytes");
+            }
+            if (b == '\n') {
+                if (headersStart < 0)
+                    headersStart = headLength;
+                if (endsWith("\n\n") || endsWith("\r\n\r\n"))
+                    return true;
+            }
+        }
+        return false;
+    }
+
+    private boolean endsWith(String s) {
+        int l = s.length();
+        if (headLength < l)
+            return false;
+        for (int i = 0; i < l; i++) {
+            if (head[headLength - l + i] != s.charAt(i))
+                return false;
+        }
+        return true;
+    }
+
+    private boolean readLine(ByteBuffer buffer) throws ParseException {
+        while (buffer.hasRemaining()) {
+            byte b = buffer.get();
+            if (b == '\n') {
+                if (lineLength > 0 && line[lineLength - 1] == '\r')
+                    --lineLength;
+                return true;
+            }
+            if (lineLength == line.length)
+                throw new ParseException(400, "Bad Request", "Line longer than " + line.length + " bytes");
+            line[lineLength++] = b;
+        }
+        return false;
+    }
+
+    private void parseHead() throws ParseException {
+        int requestLineEnd = ByteArrayUpnpHeaders.findLineEnd(head, 0, headLength);
+        if (requestLineEnd > MAX_REQUEST_LINE_LENGTH_IN_BYTES)
+            throw new ParseException(414, "URI Too Long", "Request line longer than " + MAX_REQUEST_LINE_LENGTH_IN_BYTES + " bytes");
+        String[] requestLine = new String(head, 0, requestLineEnd, StandardCharsets.ISO_8859_1).split(" ");
+        if (requestLine.length != 3 || requestLine[0].isEmpty() || requestLine[1].isEmpty())
+            throw new ParseException(400, "Bad Request", "Invalid request line");
+        String version = requestLine[2].toUpperCase(Locale.ROOT);
+        if ("HTTP/1.1".equals(version))
+            httpMinorVersion = 1;
+        else if ("HTTP/1.0".equals(version))
+            httpMinorVersion = 0;
+        else
+            throw new ParseException(505, "HTTP Version Not Supported", "Unsupported version: " + requestLine[2]);
+        method = requestLine[0];
+        target = requestLine[1];
+
+        int headersStart = ByteArrayUpnpHeaders.skipLineTerminator(head, requestLineEnd, headLength);
+        if (headLength - headersStart > maxHeaderBytes)
+            throw new ParseException(431, "Request Header Fields Too Large", "Headers longer than " + maxHeaderBytes + " bytes");
+        headers = new ByteArrayUpnpHeaders(head, headersStart, headLength);
+
+        String connection = headers.getFirstHeader("Connection");
+        keepAlive = httpMinorVersion == 1
+                ? !hasToken(connection, "close")
+                : hasToken(connection, "keep-alive");
+
+        String transferEncoding = headers.getFirstHeader("Transfer-Encoding");
+        String contentLength = headers.getFirstHeader("Content-Length");
+        if (transferEncoding != null) {
+            if (contentLength != null)
+                throw new ParseException(400, "Bad Request", "Both Content-Length and Transfer-Encoding");
+            if (!"chunked".equalsIgnoreCase(transferEncoding.trim()))
+                throw new ParseException(501, "Not Implemented", "Unsupported transfer encoding: " + transferEncoding);
+            body = new byte[Math.min(maxBodyBytes, 4096)];
+            state = State.CHUNK_SIZE;
+        } else if (contentLength != null) {
+            long length;
+            try {
+                length = Long.parseLong(contentLength.trim());
+            } catch (NumberFormatException ex) {
+                throw new ParseException(400, "Bad Request", "Invalid Content-Length: " + contentLength);
+            }
+            if (length < 0)
+                throw new ParseException(400, "Bad Request", "Invalid Content-Length: " + contentLength);
+            if (length > maxBodyBytes)
+                throw new ParseException(413, "Payload Too Large", "Body longer than " + maxBodyBytes + " bytes");
+            body = length == 0 ? EMPTY : new byte[(int) length];
+            state = State.BODY;
+        } else {
+            body = EMPTY;
+            state = State.BODY;
+        }
+        continueExpected = httpMinorVersion == 1
+                && (state != State.BODY || body.length > 0)
+                && hasToken(headers.getFirstHeader("Expect"), "100-continue");
+    }
+
+    private void parseChunkSize() throws ParseException {
+        int end = 0;
+        while (end < lineLength && line[end] != ';')
+            end++;
+        String size = new String(line, 0, end, StandardCharsets.ISO_8859_1).trim();
+        int chunkSize;
+        try {
+            chunkSize = Integer.parseInt(size, 16);
+        } catch (NumberFormatException ex) {
+            throw new ParseException(400, "Bad Request", "Invalid chunk size: " + size);
+        }
+        if (chunkSize < 0)
+            throw new ParseException(400, "Bad Request", "Invalid chunk size: " + size);
+        if (chunkSize == 0) {
+            state = State.TRAILER;
+        } else {
+            if (chunkSize > maxBodyBytes - bodyLength)
+                throw new ParseException(413, "Payload Too Large", "Body longer than " + maxBodyBytes + " bytes");
+            if (body.length - bodyLength < chunkSize) {
+                byte[] b = new byte[Math.min(maxBodyBytes, Math.max(body.length * 2, bodyLength + chunkSize))];
+                System.arraycopy(body, 0, b, 0, bodyLength);
+                body = b;
+            }
+            chunkRemaining = chunkSize;
+            state = State.CHUNK_DATA;
+        }
+        lineLength = 0;
+    }
+
+    private static boolean hasToken(String value, String token) {
+        if (value == null)
+            return false;
+        for (String t : value.split(",")) {
+            if (t.trim().equalsIgnoreCase(token))
+                return true;
+        }
+        return false;
+    }
+
+    private Request complete() {
+        byte[] b = body;
+        if (b.length != bodyLength) {
+            b = new byte[bodyLength];
+            System.arraycopy(body, 0, b, 0, bodyLength);
+        }
+        Request request = new Request(method, target, httpMinorVersion, headers, b, keepAlive);
+        // Ready for the next pipelined request
+        state = State.HEAD;
+        headLength = 0;
+        headersStart = -1;
+        lineLength = 0;
+        method = null;
+        target = null;
+        headers = null;
+        body = null;
+        bodyLength = 0;
+        chunkRemaining = 0;
+        continueExpected = false;
+        return request;
+    }
+}
@@ -47,6 +47,7 @@ public class MulticastReceiverImpl implements MulticastReceiver<MulticastReceive
     final private static DMLogger log = Log.getLogger(MulticastReceiverImpl.class);
 
     final protected MulticastReceiverConfigurationImpl configuration;
+    final protected DatagramBufferPool bufferPool;
 
     protected Router router;
     protected NetworkAddressFactory networkAddressFactory;
@@ -57,7 +58,16 @@ public class MulticastReceiverImpl implements MulticastReceiver<MulticastReceive
     protected MulticastSocket socket;
 
     public MulticastReceiverImpl(MulticastReceiverConfigurationImpl configuration) {
+        this(configuration, new DatagramBufferPool(1));
+    }
+
+    /**
+     * @param configuration The configuration of this receiver.
+     * @param bufferPool The pool of receive buffers, possibly shared with other receivers.
+     */
+    public MulticastReceiverImpl(MulticastReceiverConfigurationImpl configuration, DatagramBufferPool bufferPool) {
         this.configuration = configuration;
+        this.bufferPool = bufferPool;
     }
 
     @Override
@@ -116,11 +126,13 @@ public class MulticastReceiverImpl implements MulticastReceiver<MulticastReceive
 		if (log.isDebugEnabled()) {
             log.debug("Entering blocking receiving loop, listening for UDP datagrams on: " + socket.getLocalAddress());
 		}
+		// The packet and its buffers are reused, the parsed message doesn't reference them
+		DatagramPacket datagram = new DatagramPacket(new byte[0], 0);
 		while (true) {
 
+            byte[] buf = bufferPool.acquire(getConfiguration().getMaxDatagramBytes());
             try {
-                byte[] buf = new byte[getConfiguration().getMaxDatagramBytes()];
-                DatagramPacket datagram = new DatagramPacket(buf, buf.length);
+                datagram.setData(buf, 0, getConfiguration().getMaxDatagramBytes());
 
                 socket.receive(datagram);
 
@@ -153,6 +165,8 @@ public class MulticastReceiverImpl implements MulticastReceiver<MulticastReceive
 				if (log.isInfoEnabled()) log.info("Could not read datagram: ", ex);
             } catch (Exception ex) {
                 throw new RuntimeException(ex);
+            } finally {
+                bufferPool.release(buf);
             }
         }
         try {
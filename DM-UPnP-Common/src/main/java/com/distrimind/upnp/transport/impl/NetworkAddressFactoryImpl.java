@@ -23,6 +23,7 @@ import com.distrimind.upnp.util.Iterators;
 
 import java.net.*;
 import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
 import com.distrimind.flexilogxml.log.DMLogger;
 import com.distrimind.upnp.Log;
 
@@ -32,6 +33,11 @@ import com.distrimind.upnp.Log;
  * This implementation has been tested on Windows XP, Windows Vista, Mac OS X 10.8,
  * and whatever kernel ships in Ubuntu 9.04. This implementation does not support IPv6.
  * </p>
+ * <p>
+ * The addresses of the usable interfaces are read once into an {@link AddressTable}, which is rebuilt
+ * when the interfaces or bind addresses change. The local address of each remote address is cached, a
+ * received datagram doesn't walk the interfaces.
+ * </p>
  *
  * @author Christian Bauer
  */
@@ -51,6 +57,8 @@ public class NetworkAddressFactoryImpl implements NetworkAddressFactory {
     protected int streamListenPort;
     private final int multicastPort;
 
+    private volatile AddressTable addressTable;
+
     /**
      * Defaults to an ephemeral port.
      */
@@ -142,6 +150,7 @@ public class NetworkAddressFactoryImpl implements NetworkAddressFactory {
 			protected void synchronizedRemove(int index) {
 				synchronized (networkInterfaces) {
 					networkInterfaces.remove(index);
+					invalidateAddressTable();
 				}
 			}
 		};
@@ -154,6 +163,7 @@ public class NetworkAddressFactoryImpl implements NetworkAddressFactory {
 			protected void synchronizedRemove(int index) {
 				synchronized (bindAddresses) {
 					bindAddresses.remove(index);
+					invalidateAddressTable();
 				}
 			}
 		};
@@ -164,6 +174,40 @@ public class NetworkAddressFactoryImpl implements NetworkAddressFactory {
         return !networkInterfaces.isEmpty() && !bindAddresses.isEmpty();
     }
 
+    @Override
+	public boolean refresh() throws InitializationException {
+        synchronized (networkInterfaces) {
+            synchronized (bindAddresses) {
+                List<NetworkInterface> previousInterfaces = new ArrayList<>(networkInterfaces);
+                List<InetAddress> previousAddresses = new ArrayList<>(bindAddresses);
+                networkInterfaces.clear();
+                bindAddresses.clear();
+                try {
+                    discoverNetworkInterfaces();
+                    discoverBindAddresses();
+                } catch (NoNetworkException ex) {
+                    // Having no network is not a failure, there is nothing to keep
+                    if (log.isInfoEnabled())
+                        log.info("No network found: " + ex.getMessage());
+                    networkInterfaces.clear();
+                    bindAddresses.clear();
+                } catch (InitializationException ex) {
+                    networkInterfaces.clear();
+                    networkInterfaces.addAll(previousInterfaces);
+                    bindAddresses.clear();
+                    bindAddresses.addAll(previousAddresses);
+                    throw ex;
+                } finally {
+                    invalidateAddressTable();
+                }
+                boolean changed = !previousInterfaces.equals(networkInterfaces) || !previousAddresses.equals(bindAddresses);
+                if (changed && log.isInfoEnabled())
+                    log.info("Network changed, interfaces: " + networkInterfaces.size() + ", bind addresses: " + bindAddresses);
+                return changed;
+            }
+        }
+    }
+
     @Override
 	@SuppressWarnings("PMD.ReturnEmptyCollectionRatherThanNull")
 	public byte[] getHardwareAddress(InetAddress inetAddress) {
@@ -184,30 +228,16 @@ public class NetworkAddressFactoryImpl implements NetworkAddressFactory {
 
     @Override
 	public InetAddress getBroadcastAddress(InetAddress inetAddress) {
-        synchronized (networkInterfaces) {
-            for (NetworkInterface iface : networkInterfaces) {
-                for (InterfaceAddress interfaceAddress : getInterfaceAddresses(iface)) {
-                    if (interfaceAddress != null && interfaceAddress.getAddress().equals(inetAddress)) {
-                        return interfaceAddress.getBroadcast();
-                    }
-                }
-            }
-        }
-        return null;
+        InterfaceAddress interfaceAddress = getAddressTable().getInterfaceAddress(inetAddress);
+        return interfaceAddress != null ? interfaceAddress.getBroadcast() : null;
     }
 
     @Override
 	public Short getAddressNetworkPrefixLength(InetAddress inetAddress) {
-        synchronized (networkInterfaces) {
-            for (NetworkInterface iface : networkInterfaces) {
-                for (InterfaceAddress interfaceAddress : getInterfaceAddresses(iface)) {
-                    if (interfaceAddress != null && interfaceAddress.getAddress().equals(inetAddress)) {
-                        short prefix = interfaceAddress.getNetworkPrefixLength();
-                        if(prefix > 0 && prefix < 32) return prefix; // some network cards return -1
-                        return null;
-                    }
-                }
-            }
+        InterfaceAddress interfaceAddress = getAddressTable().getInterfaceAddress(inetAddress);
+        if (interfaceAddress != null) {
+            short prefix = interfaceAddress.getNetworkPrefixLength();
+            if(prefix > 0 && prefix < 32) return prefix; // some network cards return -1
         }
         return null;
     }
@@ -215,7 +245,11 @@ public class NetworkAddressFactoryImpl implements NetworkAddressFactory {
     @Override
 	public InetAddress getLocalAddress(NetworkInterface networkInterface, boolean isIPv6, InetAddress remoteAddress) {
 
-        return getBindAddressInSubnetOf(remoteAddress);
+        AddressTable table = getAddressTable();
+        LocalAddress localAddress = table.getCachedLocalAddress(remoteAddress);
+        if (localAddress == null)
+            localAddress = table.cacheLocalAddress(remoteAddress, getBindAddressInSubnetOf(remoteAddress));
+        return localAddress.address;
         // First try to find a local IP that is in the same subnet as the remote IP
         /*InetAddress localIPInSubnet = getBindAddressInSubnetOf(remoteAddress);
         if (localIPInSubnet != null) return localIPInSubnet;
@@ -248,28 +282,44 @@ public class NetworkAddressFactoryImpl implements NetworkAddressFactory {
     }
 
     protected InetAddress getBindAddressInSubnetOf(InetAddress inetAddress) {
-        synchronized (networkInterfaces) {
-            for (NetworkInterface iface : networkInterfaces) {
-                for (InterfaceAddress ifaceAddress : getInterfaceAddresses(iface)) {
-
-                    synchronized (bindAddresses) {
-                        if (ifaceAddress == null || !bindAddresses.contains(ifaceAddress.getAddress())) {
-                            continue;
-                        }
-                    }
+        byte[] ip = inetAddress.getAddress();
+        for (InterfaceAddress ifaceAddress : getAddressTable().bindInterfaceAddresses) {
+            if (isInSubnet(
+                    ip,
+                    ifaceAddress.getAddress().getAddress(),
+                    ifaceAddress.getNetworkPrefixLength())
+                    ) {
+                return ifaceAddress.getAddress();
+            }
+        }
+        return null;
+    }
 
-                    if (isInSubnet(
-                            inetAddress.getAddress(),
-                            ifaceAddress.getAddress().getAddress(),
-                            ifaceAddress.getNetworkPrefixLength())
-                            ) {
-                        return ifaceAddress.getAddress();
+    /**
+     * @return The current addresses of the usable interfaces, built on first use after a change.
+     */
+    protected AddressTable getAddressTable() {
+        AddressTable table = addressTable;
+        if (table == null) {
+            synchronized (networkInterfaces) {
+                synchronized (bindAddresses) {
+                    table = addressTable;
+                    if (table == null) {
+                        table = new AddressTable(this);
+                        addressTable = table;
                     }
                 }
-
             }
         }
-        return null;
+        return table;
+    }
+
+    /**
+     * Must be called after a change of {@link #networkInterfaces} or {@link #bindAddresses}, while holding the
+     * lock of the changed list.
+     */
+    protected void invalidateAddressTable() {
+        addressTable = null;
     }
 
     protected boolean isInSubnet(byte[] ip, byte[] network, short _prefix) {
@@ -300,6 +350,9 @@ public class NetworkAddressFactoryImpl implements NetworkAddressFactory {
         try {
 
             Enumeration<NetworkInterface> interfaceEnumeration = NetworkInterface.getNetworkInterfaces();
+            // No interface at all, e.g. on Android without network
+            if (interfaceEnumeration == null)
+                return;
             for (NetworkInterface iface : Collections.list(interfaceEnumeration)) {
                 //displayInterfaceInformation(iface);
 
@@ -312,6 +365,7 @@ public class NetworkAddressFactoryImpl implements NetworkAddressFactory {
 					}
 					synchronized (networkInterfaces) {
                         networkInterfaces.add(iface);
+                        invalidateAddressTable();
                     }
                 } else {
 					if (log.isTraceEnabled()) {
@@ -444,6 +498,7 @@ public class NetworkAddressFactoryImpl implements NetworkAddressFactory {
 							usableAddresses++;
                             synchronized (bindAddresses) {
                                 bindAddresses.add(inetAddress);
+                                invalidateAddressTable();
                             }
                         } else {
 							if (log.isTraceEnabled()) {
@@ -457,6 +512,7 @@ public class NetworkAddressFactoryImpl implements NetworkAddressFactory {
 							log.trace("Network interface has no usable addresses, removing: " + networkInterface.getDisplayName());
 						}
 						it.remove();
+                        invalidateAddressTable();
                     }
                 }
             }
@@ -559,4 +615,87 @@ public class NetworkAddressFactoryImpl implements NetworkAddressFactory {
 			log.info(String.format("MTU: %s", networkInterface.getMTU()));
 		}
     }
+
+    /**
+     * Immutable snapshot of the addresses of the usable network interfaces, with a bounded cache of the
+     * local address of each remote address.
+     */
+    protected static class AddressTable {
+
+        protected static final int MAX_CACHED_LOCAL_ADDRESSES = 256;
+
+        final Map<NetworkInterface, List<InetAddress>> inetAddresses = new LinkedHashMap<>();
+        final List<InterfaceAddress> bindInterfaceAddresses = new ArrayList<>();
+        final Map<InetAddress, InterfaceAddress> interfaceAddresses = new HashMap<>();
+        final Map<InetAddress, LocalAddress> localAddresses = new ConcurrentHashMap<>();
+
+        protected AddressTable(NetworkAddressFactoryImpl factory) {
+            for (NetworkInterface iface : factory.networkInterfaces) {
+                inetAddresses.put(iface, Collections.unmodifiableList(factory.getInetAddresses(iface)));
+                for (InterfaceAddress interfaceAddress : factory.getInterfaceAddresses(iface)) {
+                    if (interfaceAddress == null)
+                        continue;
+                    interfaceAddresses.putIfAbsent(interfaceAddress.getAddress(), interfaceAddress);
+                    if (factory.bindAddresses.contains(interfaceAddress.getAddress()))
+                        bindInterfaceAddresses.add(interfaceAddress);
+                }
+            }
+        }
+
+        /**
+         * @return The usable interfaces, in discovery order.
+         */
+        public Collection<NetworkInterface> getNetworkInterfaces() {
+            return Collections.unmodifiableSet(inetAddresses.keySet());
+        }
+
+        /**
+         * @return The addresses of the interface, in the order of {@link NetworkInterface#getInetAddresses()},
+         *         or an empty list if the interface is not used.
+         */
+        public List<InetAddress> getInetAddresses(NetworkInterface networkInterface) {
+            List<InetAddress> l = inetAddresses.get(networkInterface);
+            return l != null ? l : Collections.emptyList();
+        }
+
+        /**
+         * @return The first interface address of a usable interface with the given address.
+         */
+        public InterfaceAddress getInterfaceAddress(InetAddress inetAddress) {
+            return interfaceAddresses.get(inetAddress);
+        }
+
+        /**
+         * @return <code>null</code> if not cached, otherwise the cached result, possibly {@link LocalAddress#NONE}.
+         */
+        LocalAddress getCachedLocalAddress(InetAddress remoteAddress) {
+            return localAddresses.get(remoteAddress);
+        }
+
+        /**
+         * @param localAddress The local address in the subnet of the remote address, or <code>null</code> if none.
+         * @return The cached result.
+         */
+        LocalAddress cacheLocalAddress(InetAddress remoteAddress, InetAddress localAddress) {
+            if (localAddresses.size() >= MAX_CACHED_LOCAL_ADDRESSES)
+                localAddresses.clear();
+            LocalAddress result = localAddress != null ? new LocalAddress(localAddress) : LocalAddress.NONE;
+            localAddresses.put(remoteAddress, result);
+            return result;
+        }
+    }
+
+    /**
+     * Cached result of a local address lookup, {@link #NONE} if no local address is in the subnet of the remote address.
+     */
+    protected static final class LocalAddress {
+
+        static final LocalAddress NONE = new LocalAddress(null);
+
+        final InetAddress address;
+
+        LocalAddress(InetAddress address) {
+            this.address = address;
+        }
+    }
 }
@@ -0,0 +1,607 @@
+/*
+ *     This library is free software; you can redistribute it and/or
+ *     modify it under the terms of the GNU Lesser General Public
+ *     License as published by the Free Software Foundation; either
+ *     version 2.1 of the License.
+ *
+ *     This library is distributed in the hope that it will be useful,
+ *     but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *     MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ *     Lesser General Public License for more details.
+ *
+ *     You should have received a copy of the GNU Lesser General Public
+ *     License along with this library; if not, write to the Free Software
+ *     Foundation, Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301  USA
+ */
+
+package com.distrimind.upnp.transport.impl;
+
+import com.distrimind.flexilogxml.log.DMLogger;
+import com.distrimind.upnp.Log;
+import com.distrimind.upnp.http.ContentEncoding;
+import com.distrimind.upnp.model.message.Connection;
+import com.distrimind.upnp.model.message.StreamRequestMessage;
+import com.distrimind.upnp.model.message.StreamResponseMessage;
+import com.distrimind.upnp.model.message.UpnpMessage;
+import com.distrimind.upnp.model.message.UpnpRequest;
+import com.distrimind.upnp.model.message.UpnpResponse;
+import com.distrimind.upnp.protocol.ProtocolFactory;
+import com.distrimind.upnp.transport.Router;
+import com.distrimind.upnp.transport.spi.InitializationException;
+import com.distrimind.upnp.transport.spi.NetworkAddressFactory;
+import com.distrimind.upnp.transport.spi.StreamServer;
+import com.distrimind.upnp.transport.spi.UpnpStream;
+import com.distrimind.upnp.util.Exceptions;
+
+import java.io.IOException;
+import java.net.Inet6Address;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.net.URI;
+import java.nio.ByteBuffer;
+import java.nio.channels.SelectionKey;
+import java.nio.channels.Selector;
+import java.nio.channels.ServerSocketChannel;
+import java.nio.channels.SocketChannel;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+
+/**
+ * Implementation based on non-blocking JDK channels, without any other dependency.
+ * <p>
+ * A single thread, running {@link #run()}, accepts the connections, parses the requests incrementally with a
+ * {@link HttpRequestParser} and writes the responses. Each complete request is handed to the router as an
+ * {@link UpnpStream}, which processes it on the stream server executor and gives the response back to the
+ * selector thread.
+ * </p>
+ * <p>
+ * Connections are kept alive between requests. Pipelined requests are processed one after the other, in order,
+ * a connection doesn't read the next request before the response of the previous one has been written.
+ * Idle connections are closed after {@link #getIdleConnectionTimeoutMillis()}.
+ * </p>
+ *
+ * @author Jason Mahdjoub
+ * @since 1.5.0
+ */
+public class NioStreamServerImpl implements StreamServer<StreamServerConfigurationImpl> {
+
+    final private static DMLogger log = Log.getLogger(NioStreamServerImpl.class);
+
+    protected static final int READ_BUFFER_BYTES = 8192;
+    private static final byte[] CONTINUE_RESPONSE = "HTTP/1.1 100 Continue\r\n\r\n".getBytes(StandardCharsets.US_ASCII);
+
+    final protected StreamServerConfigurationImpl configuration;
+    protected Router router;
+    protected NetworkAddressFactory networkAddressFactory;
+    protected ServerSocketChannel serverChannel;
+    protected Selector selector;
+
+    final private Queue<HttpConnection> pendingResponses = new ConcurrentLinkedQueue<>();
+    final private List<HttpConnection> connections = new ArrayList<>();
+    private volatile boolean stopped;
+    private boolean running;
+
+    public NioStreamServerImpl(StreamServerConfigurationImpl configuration) {
+        this.configuration = configuration;
+    }
+
+    @Override
+    synchronized public void init(InetAddress bindAddress, Router router, NetworkAddressFactory networkAddressFactory) throws InitializationException {
+        this.router = router;
+        this.networkAddressFactory = networkAddressFactory;
+        try {
+            serverChannel = ServerSocketChannel.open();
+            serverChannel.bind(new InetSocketAddress(bindAddress, configuration.getListenPort()), configuration.getTcpConnectionBacklog());
+            serverChannel.configureBlocking(false);
+            selector = Selector.open();
+            serverChannel.register(selector, SelectionKey.OP_ACCEPT);
+
+            if (log.isInfoEnabled()) log.info("Created server (for receiving TCP streams) on: " + serverChannel.getLocalAddress());
+
+        } catch (Exception ex) {
+            close();
+            throw new InitializationException("Could not initialize " + getClass().getSimpleName() + ": " + ex, ex);
+        }
+    }
+
+    @Override
+    synchronized public int getPort() {
+        return serverChannel.socket().getLocalPort();
+    }
+
+    @Override
+    public StreamServerConfigurationImpl getConfiguration() {
+        return configuration;
+    }
+
+    /**
+     * @return The time after which a connection without pending request is closed, 30 seconds by default.
+     */
+    protected long getIdleConnectionTimeoutMillis() {
+        return 30000;
+    }
+
+    @Override
+    public void run() {
+        synchronized (this) {
+            if (running || stopped || selector == null)
+                return;
+            running = true;
+        }
+        log.debug("Entering NIO stream server loop");
+        long idleTimeout = getIdleConnectionTimeoutMillis();
+        try {
+            while (!stopped) {
+                selector.select(Math.max(1000, idleTimeout / 4));
+                if (stopped)
+                    break;
+
+                HttpConnection c;
+                while ((c = pendingResponses.poll()) != null)
+                    c.queueResponse();
+
+                for (SelectionKey key : selector.selectedKeys()) {
+                    if (!key.isValid())
+                        continue;
+                    if (key.isAcceptable()) {
+                        accept();
+                    } else {
+                        HttpConnection connection = (HttpConnection) key.attachment();
+                        if (key.isReadable())
+                            connection.read();
+                        if (key.isValid() && key.isWritable())
+                            connection.write();
+                    }
+                }
+                selector.selectedKeys().clear();
+
+                closeIdleConnections(idleTimeout);
+            }
+        } catch (IOException ex) {
+            if (!stopped && log.isWarnEnabled()) log.warn("NIO stream server loop failed: ", ex);
+        } finally {
+            log.debug("Leaving NIO stream server loop");
+            synchronized (this) {
+                running = false;
+                close();
+            }
+        }
+    }
+
+    @Override
+    synchronized public void stop() {
+        log.debug("Stopping StreamServer...");
+        stopped = true;
+        if (running) {
+            // The loop closes everything when it terminates
+            selector.wakeup();
+        } else {
+            close();
+        }
+    }
+
+    private void close() {
+        for (HttpConnection connection : connections)
+            connection.closeChannel();
+        connections.clear();
+        try {
+            if (serverChannel != null)
+                serverChannel.close();
+        } catch (IOException ex) {
+            if (log.isDebugEnabled()) log.debug("Could not close server channel: ", ex);
+        }
+        try {
+            if (selector != null)
+                selector.close();
+        } catch (IOException ex) {
+            if (log.isDebugEnabled()) log.debug("Could not close selector: ", ex);
+        }
+    }
+
+    private void accept() {
+        SocketChannel channel;
+        try {
+            channel = serverChannel.accept();
+        } catch (IOException ex) {
+            if (log.isDebugEnabled()) log.debug("Could not accept connection: " + ex);
+            return;
+        }
+        if (channel == null)
+            return;
+        try {
+            InetSocketAddress remote = (InetSocketAddress) channel.getRemoteAddress();
+            InetAddress receivedOnLocalAddress =
+                    networkAddressFactory.getLocalAddress(
+                            null,
+                            remote.getAddress() instanceof Inet6Address,
+                            remote.getAddress()
+                    );
+            if (receivedOnLocalAddress == null) {
+                channel.close();
+                return;
+            }
+            channel.configureBlocking(false);
+            HttpConnection connection = new HttpConnection(channel);
+            connection.key = channel.register(selector, SelectionKey.OP_READ, connection);
+            connections.add(connection);
+            if (log.isDebugEnabled()) log.debug("Accepted connection from: " + remote);
+        } catch (IOException ex) {
+            if (log.isDebugEnabled()) log.debug("Could not register connection: " + ex);
+            try {
+                channel.close();
+            } catch (IOException ignored) {
+                // Already failing
+            }
+        }
+    }
+
+    private void closeIdleConnections(long idleTimeout) {
+        long now = System.currentTimeMillis();
+        connections.removeIf(connection -> {
+            if (!connection.channel.isOpen())
+                return true;
+            if (connection.stream == null && now - connection.lastActivityMillis > idleTimeout) {
+                if (log.isDebugEnabled()) log.debug("Closing idle connection: " + connection);
+                connection.closeChannel();
+                return true;
+            }
+            return false;
+        });
+    }
+
+    /**
+     * Formats the head of a response.
+     */
+    protected static byte[] createResponseHead(int statusCode, String reasonPhrase, Iterable<Map.Entry<String, List<String>>> headers, int contentLength, boolean keepAlive) {
+        return createResponseHead(statusCode, reasonPhrase, headers, null, contentLength, keepAlive);
+    }
+
+    /**
+     * @param contentEncoding The coding of the body, <code>null</code> if it is sent as is.
+     */
+    protected static byte[] createResponseHead(int statusCode, String reasonPhrase, Iterable<Map.Entry<String, List<String>>> headers, ContentEncoding contentEncoding, int contentLength, boolean keepAlive) {
+        StringBuilder sb = new StringBuilder(256);
+        sb.append("HTTP/1.1 ").append(statusCode).append(' ').append(reasonPhrase).append("\r\n");
+        if (headers != null) {
+            for (Map.Entry<String, List<String>> entry : headers) {
+                String name = entry.getKey().toLowerCase(Locale.ROOT);
+                // Framing headers are set by the server
+                if (name.equals("content-length") || name.equals("transfer-encoding") || name.equals("connection"))
+                    continue;
+                for (String value : entry.getValue())
+                    sb.append(entry.getKey()).append(": ").append(value).append("\r\n");
+            }
+        }
+        if (contentEncoding != null) {
+            sb.append(ContentEncoding.CONTENT_ENCODING).append(": ").append(contentEncoding.getHttpName()).append("\r\n");
+            sb.append(ContentEncoding.VARY).append(": ").append(ContentEncoding.ACCEPT_ENCODING).append("\r\n");
+        }
+        sb.append("Content-Length: ").append(contentLength).append("\r\n");
+        if (!keepAlive)
+            sb.append("Connection: close\r\n");
+        sb.append("\r\n");
+        return sb.toString().getBytes(StandardCharsets.ISO_8859_1);
+    }
+
+    /**
+     * State of a client connection, only accessed by the selector thread, except {@link #respond(byte[], boolean)}.
+     */
+    protected class HttpConnection implements Connection {
+
+        final SocketChannel channel;
+        SelectionKey key;
+        final ByteBuffer readBuffer = ByteBuffer.allocate(READ_BUFFER_BYTES);
+        final HttpRequestParser parser = new HttpRequestParser();
+        final Queue<ByteBuffer> output = new ArrayDeque<>();
+        long lastActivityMillis = System.currentTimeMillis();
+
+        // The stream processing the current request, null if none
+        NioUpnpStream stream;
+        boolean closeAfterWrite;
+        boolean responseQueued;
+
+        // Handed over by the stream thread to the selector thread
+        private volatile byte[] response;
+        private volatile boolean responseKeepAlive;
+
+        HttpConnection(SocketChannel channel) {
+            this.channel = channel;
+        }
+
+        void read() {
+            int n;
+            try {
+                n = channel.read(readBuffer);
+            } catch (IOException ex) {
+                if (log.isDebugEnabled()) log.debug("Could not read from connection, closing: " + ex);
+                closeChannel();
+                return;
+            }
+            if (n < 0) {
+                closeChannel();
+                return;
+            }
+            lastActivityMillis = System.currentTimeMillis();
+            parse();
+        }
+
+        private void parse() {
+            readBuffer.flip();
+            HttpRequestParser.Request request;
+            try {
+                request = parser.parse(readBuffer);
+            } catch (HttpRequestParser.ParseException ex) {
+                if (log.isDebugEnabled()) log.debug("Invalid HTTP request: " + ex.getMessage());
+                key.interestOps(0);
+                queue(createResponseHead(ex.getStatusCode(), ex.getReasonPhrase(), null, 0, false), true, true);
+                return;
+            } finally {
+                if (readBuffer.hasRemaining())
+                    readBuffer.compact();
+                else
+                    readBuffer.clear();
+            }
+            if (request == null) {
+                if (parser.isContinueExpected()) {
+                    parser.continueSent();
+                    queue(CONTINUE_RESPONSE, false, false);
+                }
+                return;
+            }
+            // The next pipelined request is read once the response has been written
+            key.interestOps(0);
+            stream = new NioUpnpStream(router.getProtocolFactory(), this, request);
+            router.received(stream);
+        }
+
+        /**
+         * Called by the stream thread.
+         */
+        void respond(byte[] response, boolean keepAlive) {
+            this.responseKeepAlive = keepAlive;
+            this.response = response;
+            pendingResponses.add(this);
+            selector.wakeup();
+        }
+
+        void queueResponse() {
+            byte[] r = response;
+            response = null;
+            if (r != null && channel.isOpen())
+                queue(r, !responseKeepAlive, true);
+        }
+
+        /**
+         * @param complete <code>false</code> for an interim response, the connection then goes on reading the request.
+         */
+        private void queue(byte[] bytes, boolean close, boolean complete) {
+            output.add(ByteBuffer.wrap(bytes));
+            if (complete) {
+                closeAfterWrite = close;
+                responseQueued = true;
+            }
+            write();
+        }
+
+        void write() {
+            try {
+                ByteBuffer b;
+                while ((b = output.peek()) != null) {
+                    channel.write(b);
+                    if (b.hasRemaining()) {
+                        key.interestOps(SelectionKey.OP_WRITE);
+                        return;
+                    }
+                    output.poll();
+                }
+            } catch (IOException ex) {
+                if (log.isDebugEnabled()) log.debug("Could not write to connection, closing: " + ex);
+                if (stream != null)
+                    stream.failed(ex);
+                closeChannel();
+                return;
+            }
+            lastActivityMillis = System.currentTimeMillis();
+            if (!responseQueued) {
+                // Only an interim response has been written
+                key.interestOps(SelectionKey.OP_READ);
+                return;
+            }
+            responseQueued = false;
+            NioUpnpStream s = stream;
+            stream = null;
+            if (s != null)
+                s.sent();
+            if (closeAfterWrite) {
+                closeChannel();
+                return;
+            }
+            key.interestOps(SelectionKey.OP_READ);
+            if (readBuffer.position() > 0) {
+                // Pipelined request already received
+                parse();
+            }
+        }
+
+        void closeChannel() {
+            try {
+                channel.close();
+            } catch (IOException ex) {
+                if (log.isDebugEnabled()) log.debug("Could not close connection: " + ex);
+            }
+            NioUpnpStream s = stream;
+            stream = null;
+            if (s != null)
+                s.failed(new IOException("Connection closed"));
+        }
+
+        @Override
+        public boolean isOpen() {
+            return channel.isOpen();
+        }
+
+        @Override
+        public InetAddress getRemoteAddress() {
+            return channel.socket().getInetAddress();
+        }
+
+        @Override
+        public InetAddress getLocalAddress() {
+            return channel.socket().getLocalAddress();
+        }
+
+        @Override
+        public String toString() {
+            return "(" + getClass().getSimpleName() + ") " + channel.socket().getRemoteSocketAddress();
+        }
+    }
+
+    /**
+     * Processes one request of a connection.
+     */
+    protected class NioUpnpStream extends UpnpStream {
+
+        private final HttpConnection connection;
+        private final HttpRequestParser.Request request;
+        private volatile StreamResponseMessage responseMessage;
+
+        protected NioUpnpStream(ProtocolFactory protocolFactory, HttpConnection connection, HttpRequestParser.Request request) {
+            super(protocolFactory);
+            this.connection = connection;
+            this.request = request;
+        }
+
+        @Override
+        public UpnpRequest.Method getRequestMethod() {
+            return isHeadRequest() ? UpnpRequest.Method.GET : UpnpRequest.Method.getByHttpName(request.getMethod());
+        }
+
+        /**
+         * A <code>HEAD</code> request is processed like a <code>GET</code>, and answered without the body.
+         */
+        protected boolean isHeadRequest() {
+            return "HEAD".equalsIgnoreCase(request.getMethod());
+        }
+
+        @Override
+        public void run() {
+            byte[] response;
+            boolean keepAlive = request.isKeepAlive();
+            try {
+                if (log.isDebugEnabled()) {
+                    log.debug("Processing HTTP request: " + request.getMethod() + " " + request.getTarget());
+                }
+
+                UpnpRequest.Method method = getRequestMethod();
+                if (method.equals(UpnpRequest.Method.UNKNOWN)) {
+                    if (log.isDebugEnabled()) {
+                        log.debug("Method not supported by UPnP stack: " + request.getMethod());
+                    }
+                    connection.respond(createResponseHead(UpnpResponse.Status.NOT_IMPLEMENTED.getStatusCode(), UpnpResponse.Status.NOT_IMPLEMENTED.getStatusMsg(), null, 0, keepAlive), keepAlive);
+                    return;
+                }
+
+                URI uri;
+                try {
+                    uri = URI.create(request.getTarget());
+                } catch (IllegalArgumentException ex) {
+                    if (log.isDebugEnabled()) log.debug("Invalid request URI: " + request.getTarget());
+                    connection.respond(createResponseHead(UpnpResponse.Status.BAD_REQUEST.getStatusCode(), UpnpResponse.Status.BAD_REQUEST.getStatusMsg(), null, 0, false), false);
+                    return;
+                }
+                StreamRequestMessage requestMessage = new StreamRequestMessage(method, uri);
+                requestMessage.getOperation().setHttpMinorVersion(request.getHttpMinorVersion());
+                requestMessage.setConnection(connection);
+                requestMessage.setHeaders(request.getHeaders());
+
+                byte[] bodyBytes = request.getBody();
+                if (bodyBytes.length > 0 && requestMessage.isContentTypeMissingOrText()) {
+                    log.debug("Request contains textual entity body, converting then setting string on message");
+                    requestMessage.setBodyCharacters(bodyBytes);
+                } else if (bodyBytes.length > 0) {
+                    log.debug("Request contains binary entity body, setting bytes on message");
+                    requestMessage.setBody(UpnpMessage.BodyType.BYTES, bodyBytes);
+                }
+
+                // Process it
+                StreamResponseMessage responseMessage = process(requestMessage);
+
+                if (responseMessage != null) {
+                    if (log.isDebugEnabled()) {
+                        log.debug("Preparing HTTP response message: " + responseMessage);
+                    }
+                    byte[] body = responseMessage.hasBody() ? responseMessage.getBodyBytes() : null;
+                    ContentEncoding contentEncoding = null;
+                    if (body != null) {
+                        contentEncoding = getResponseContentEncoding(requestMessage.getHeaders().getFirstHeader(ContentEncoding.ACCEPT_ENCODING), responseMessage, body.length);
+                        if (contentEncoding != null)
+                            body = contentEncoding.encode(body);
+                    }
+                    int contentLength = body != null ? body.length : 0;
+                    byte[] head = createResponseHead(
+                            responseMessage.getOperation().getStatusCode(),
+                            responseMessage.getOperation().getStatusMessage(),
+                            responseMessage.getHeaders().entrySet(),
+                            contentEncoding,
+                            contentLength,
+                            keepAlive
+                    );
+                    if (isHeadRequest()) {
+                        // The length of the body that would have been sent, without the body
+                        response = head;
+                    } else {
+                        response = new byte[head.length + contentLength];
+                        System.arraycopy(head, 0, response, 0, head.length);
+                        if (contentLength > 0)
+                            System.arraycopy(body, 0, response, head.length, contentLength);
+                    }
+                } else {
+                    // If it's null, it's 404
+                    if (log.isDebugEnabled()) log.debug("Sending HTTP response status: " + UpnpResponse.Status.NOT_FOUND.getStatusCode());
+                    response = createResponseHead(UpnpResponse.Status.NOT_FOUND.getStatusCode(), UpnpResponse.Status.NOT_FOUND.getStatusMsg(), null, 0, keepAlive);
+                }
+                this.responseMessage = responseMessage;
+
+            } catch (Throwable t) {
+                if (log.isDebugEnabled()) {
+                    log.debug("Exception occured during UPnP stream processing: " + t);
+                    log.debug("Cause: ", Exceptions.unwrap(t));
+                }
+                keepAlive = false;
+                response = createResponseHead(UpnpResponse.Status.INTERNAL_SERVER_ERROR.getStatusCode(), UpnpResponse.Status.INTERNAL_SERVER_ERROR.getStatusMsg(), null, 0, false);
+                responseException(t);
+                syncProtocol = null;
+            }
+            connection.respond(response, keepAlive);
+        }
+
+        @Override
+        protected int getMinCompressedBodyLength() {
+            return configuration.getMinCompressedBodyLength();
+        }
+
+        /**
+         * Called by the selector thread once the response has been written.
+         */
+        void sent() {
+            if (syncProtocol != null)
+                router.getConfiguration().getSyncProtocolExecutorService().execute(
+                        getProtocolFactory().getProtocolPriority(this).wrap(() -> responseSent(responseMessage)));
+        }
+
+        /**
+         * Called by the selector thread if the response could not be written.
+         */
+        void failed(Throwable t) {
+            if (syncProtocol != null)
+                router.getConfiguration().getSyncProtocolExecutorService().execute(
+                        getProtocolFactory().getProtocolPriority(this).wrap(() -> responseException(t)));
+        }
+    }
+}
@@ -55,13 +55,13 @@ public class PullGENAEventProcessorImpl extends GENAEventProcessorImpl {
 		if (log.isDebugEnabled()) {
             log.debug("Reading body of: " + requestMessage);
 		}
+
+        String body = getMessageBody(requestMessage);
 		if (log.isTraceEnabled()) {
             log.trace("===================================== GENA BODY BEGIN ============================================");
-            log.trace(requestMessage.getBody() != null ? requestMessage.getBody().toString() : null);
+            log.trace(body);
             log.trace("-===================================== GENA BODY END ============================================");
         }
-
-        String body = getMessageBody(requestMessage);
 		try {
 			Document d= Jsoup.parse(body, "", Parser.xmlParser());
 			readProperties(d, requestMessage);
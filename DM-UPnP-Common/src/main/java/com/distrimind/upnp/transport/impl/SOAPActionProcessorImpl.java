@@ -37,6 +37,7 @@ import com.distrimind.upnp.transport.spi.SOAPActionProcessor;
 import com.distrimind.upnp.model.UnsupportedDataException;
 
 
+import java.io.InputStream;
 import java.util.ArrayList;
 import java.util.List;
 
@@ -62,7 +63,8 @@ public class SOAPActionProcessorImpl implements SOAPActionProcessor, XMLUtil.Err
 		}
 
         try {
-            String d= XMLUtil.generateXMLToString(xmlStreamWriter -> {
+            // Encoded once, sent as is by the stream client
+            byte[] d= XMLUtil.generateXMLToBytes(xmlStreamWriter -> {
                 writeStartBodyElement(xmlStreamWriter);
 
                 writeBodyRequest(xmlStreamWriter, requestMessage, actionInvocation);
@@ -71,7 +73,7 @@ public class SOAPActionProcessorImpl implements SOAPActionProcessor, XMLUtil.Err
 
                 writeEndBodyElement(xmlStreamWriter);
             });
-            requestMessage.setBody(d);
+            requestMessage.setBodyUTF8(d);
 
             if (log.isTraceEnabled()) {
 				log.trace(SOAP_BODY_BEGIN);
@@ -92,7 +94,8 @@ public class SOAPActionProcessorImpl implements SOAPActionProcessor, XMLUtil.Err
 		}
 
         try {
-            String d= XMLUtil.generateXMLToString(xmlStreamWriter -> {
+            // Encoded once, sent as is by the stream server
+            byte[] d= XMLUtil.generateXMLToBytes(xmlStreamWriter -> {
                 writeStartBodyElement(xmlStreamWriter);
 
                 if (actionInvocation.getFailure() != null) {
@@ -103,7 +106,7 @@ public class SOAPActionProcessorImpl implements SOAPActionProcessor, XMLUtil.Err
 
                 writeEndBodyElement(xmlStreamWriter);
             });
-            responseMessage.setBody(d);
+            responseMessage.setBodyUTF8(d);
 
 
 
@@ -124,12 +127,24 @@ public class SOAPActionProcessorImpl implements SOAPActionProcessor, XMLUtil.Err
 		if (log.isDebugEnabled()) {
             log.debug("Reading body of " + requestMessage + FOR + actionInvocation);
 		}
-		if (log.isTraceEnabled()) {
+		// A streamed body is read once, by the parser
+		if (log.isTraceEnabled() && !requestMessage.isBodyStreamed()) {
             log.trace(SOAP_BODY_BEGIN);
             log.trace(requestMessage.getBodyString());
             log.trace(SOAP_BODY_END);
         }
 
+        if (requestMessage.isBodyStreamed()) {
+            readStreamedBody(requestMessage, xmlReader -> {
+                readXML(xmlReader, xmlReader2 -> {
+                    readBodyRequest(xmlReader, requestMessage, actionInvocation);
+                    return null;
+                });
+                return null;
+            });
+            return;
+        }
+
         String body = getMessageBody(requestMessage);
         try {
             XMLUtil.readXML(xmlReader -> {
@@ -151,12 +166,31 @@ public class SOAPActionProcessorImpl implements SOAPActionProcessor, XMLUtil.Err
 		if (log.isDebugEnabled()) {
             log.debug("Reading body of " + responseMsg + FOR + actionInvocation);
 		}
-		if (log.isTraceEnabled()) {
+		// A streamed body is read once, by the parser
+		if (log.isTraceEnabled() && !responseMsg.isBodyStreamed()) {
             log.trace(SOAP_BODY_BEGIN);
             log.trace(responseMsg.getBodyString());
             log.trace(SOAP_BODY_END);
         }
 
+        if (responseMsg.isBodyStreamed()) {
+            // A stream can't be read twice, the fault and the response are read in a single pass
+            class F {
+                ActionException failure = null;
+            }
+            F f = new F();
+            readStreamedBody(responseMsg, xmlReader -> {
+                readXML(xmlReader, xmlReader2 -> {
+                    f.failure = readBodyFailureOrResponse(xmlReader2, actionInvocation);
+                    return null;
+                });
+                return null;
+            });
+            if (f.failure != null)
+                actionInvocation.setFailure(f.failure);
+            return;
+        }
+
         String body = getMessageBody(responseMsg);
         try {
             try {
@@ -445,49 +479,84 @@ public class SOAPActionProcessorImpl implements SOAPActionProcessor, XMLUtil.Err
         xmlWriter.writeEndElement();
     }
 
-    protected ActionException readFaultElement(IXmlReader xmlReader) throws XMLStreamException, DescriptorBindingException {
-        class C {
-            boolean receivedFaultElement = false;
-            String errorCode = null;
-            String errorDescription = null;
-        }
-        C c=new C();
+    /**
+     * Content of a <code>Fault</code> element.
+     *
+     * @since 1.5.0
+     */
+    protected static class FaultElement {
+        boolean receivedFaultElement = false;
+        String errorCode = null;
+        String errorDescription = null;
+    }
 
+    protected ActionException readFaultElement(IXmlReader xmlReader) throws XMLStreamException, DescriptorBindingException {
+        FaultElement c = new FaultElement();
 
         XMLUtil.readElements(xmlReader, reader -> {
             String bodyChild = getUnprefixedNodeName(reader);
 
+            if ("Fault".equals(bodyChild))
+                readFault(xmlReader, c);
+        }, this);
+
+        return getActionException(c);
+    }
+
+    /**
+     * Reads the fault or the action response element in a single pass, for bodies which can't be read twice.
+     *
+     * @return The failure, or <code>null</code> if the output arguments of the action response have been read.
+     * @since 1.5.0
+     */
+    protected <S extends Service<?, ?, ?>> ActionException readBodyFailureOrResponse(IXmlReader xmlReader,
+                                                                                     ActionInvocation<S> actionInvocation) throws XMLStreamException, DescriptorBindingException {
+        FaultElement c = new FaultElement();
+        String responseElement = actionInvocation.getAction().getName() + "Response";
+
+        XMLUtil.readElements(xmlReader, reader -> {
+            String bodyChild = getUnprefixedNodeName(reader);
 
             if ("Fault".equals(bodyChild)) {
+                readFault(xmlReader, c);
+            } else if (bodyChild.equals(responseElement)) {
+                log.debug(() -> "Reading action response element: " + bodyChild);
+                readActionOutputArguments(xmlReader, actionInvocation);
+            }
+        }, this);
+
+        return getActionException(c);
+    }
 
-                c.receivedFaultElement = true;
+    protected void readFault(IXmlReader xmlReader, FaultElement c) throws XMLStreamException, DescriptorBindingException {
+        c.receivedFaultElement = true;
 
-                XMLUtil.readElements(xmlReader, reader2 -> {
-                    String faultChild = getUnprefixedNodeName(reader2);
+        XMLUtil.readElements(xmlReader, reader2 -> {
+            String faultChild = getUnprefixedNodeName(reader2);
 
-                    if ("detail".equals(faultChild)) {
+            if ("detail".equals(faultChild)) {
 
-                        XMLUtil.readElements(xmlReader, reader3 -> {
-                            String detailChild = getUnprefixedNodeName(reader3);
+                XMLUtil.readElements(xmlReader, reader3 -> {
+                    String detailChild = getUnprefixedNodeName(reader3);
 
-                            if ("UPnPError".equals(detailChild)) {
+                    if ("UPnPError".equals(detailChild)) {
 
-                                XMLUtil.readElements(xmlReader, reader4 -> {
-                                    String errorChild = getUnprefixedNodeName(reader4);
+                        XMLUtil.readElements(xmlReader, reader4 -> {
+                            String errorChild = getUnprefixedNodeName(reader4);
 
-                                    if ("errorCode".equals(errorChild))
-                                        c.errorCode = XMLUtil.getTextContent(xmlReader, SOAPActionProcessorImpl.this);
+                            if ("errorCode".equals(errorChild))
+                                c.errorCode = XMLUtil.getTextContent(xmlReader, SOAPActionProcessorImpl.this);
 
-                                    if ("errorDescription".equals(errorChild))
-                                        c.errorDescription = XMLUtil.getTextContent(xmlReader, SOAPActionProcessorImpl.this);
-                                }, this);
-                            }
+                            if ("errorDescription".equals(errorChild))
+                                c.errorDescription = XMLUtil.getTextContent(xmlReader, SOAPActionProcessorImpl.this);
                         }, this);
                     }
                 }, this);
             }
         }, this);
+    }
 
+    protected ActionException getActionException(FaultElement c) {
         if (c.errorCode != null) {
             try {
                 int numericCode = Integer.parseInt(c.errorCode);
@@ -512,6 +581,19 @@ public class SOAPActionProcessorImpl implements SOAPActionProcessor, XMLUtil.Err
 
     /* ##################################################################################################### */
 
+    /**
+     * Reads a streamed body directly, without buffering it into a string.
+     *
+     * @since 1.5.0
+     */
+    protected void readStreamedBody(ActionMessage message, XMLUtil.XMLReadFunction<Void> function) throws UnsupportedDataException {
+        try (InputStream in = message.getBodyInputStream()) {
+            XMLUtil.readXML(function, this, in, message.getBodyCharset());
+        } catch (Exception ex) {
+            throw new UnsupportedDataException(CAN_T_TRANSFORM_MESSAGE_PAYLOAD + ex, ex);
+        }
+    }
+
     protected String getMessageBody(ActionMessage message) throws UnsupportedDataException {
         if (!message.isBodyNonEmptyString())
             throw new UnsupportedDataException(
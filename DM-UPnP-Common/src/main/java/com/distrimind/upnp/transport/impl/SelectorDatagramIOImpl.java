@@ -0,0 +1,190 @@
+/*
+ *     This library is free software; you can redistribute it and/or
+ *     modify it under the terms of the GNU Lesser General Public
+ *     License as published by the Free Software Foundation; either
+ *     version 2.1 of the License.
+ *
+ *     This library is distributed in the hope that it will be useful,
+ *     but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *     MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ *     Lesser General Public License for more details.
+ *
+ *     You should have received a copy of the GNU Lesser General Public
+ *     License along with this library; if not, write to the Free Software
+ *     Foundation, Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301  USA
+ */
+
+package com.distrimind.upnp.transport.impl;
+
+import com.distrimind.flexilogxml.log.DMLogger;
+import com.distrimind.upnp.Log;
+import com.distrimind.upnp.model.UnsupportedDataException;
+import com.distrimind.upnp.model.message.IncomingDatagramMessage;
+import com.distrimind.upnp.model.message.OutgoingDatagramMessage;
+import com.distrimind.upnp.transport.Common;
+import com.distrimind.upnp.transport.Router;
+import com.distrimind.upnp.transport.spi.DatagramIO;
+import com.distrimind.upnp.transport.spi.DatagramProcessor;
+import com.distrimind.upnp.transport.spi.InitializationException;
+import com.distrimind.upnp.transport.spi.NetworkAddressFactory;
+
+import java.io.IOException;
+import java.net.DatagramPacket;
+import java.net.Inet6Address;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.net.StandardProtocolFamily;
+import java.net.StandardSocketOptions;
+import java.nio.ByteBuffer;
+import java.nio.channels.ClosedChannelException;
+import java.nio.channels.DatagramChannel;
+
+/**
+ * Implementation based on a non-blocking <code>DatagramChannel</code>, served by a shared {@link DatagramSelectorLoop}.
+ * <p>
+ * Unicast datagrams are received on the loop thread, see {@link SelectorMulticastReceiverImpl}. Datagrams
+ * are sent on the calling thread, if the socket send buffer is full the datagram is dropped, as it
+ * would be anywhere else on the way.
+ * </p>
+ *
+ * @author Jason Mahdjoub
+ * @since 1.5.0
+ */
+public class SelectorDatagramIOImpl implements DatagramIO<DatagramIOConfigurationImpl>, DatagramSelectorLoop.Handler {
+
+    final private static DMLogger log = Log.getLogger(SelectorDatagramIOImpl.class);
+
+    final protected DatagramIOConfigurationImpl configuration;
+    final protected DatagramSelectorLoop selectorLoop;
+
+    protected Router router;
+    protected DatagramProcessor datagramProcessor;
+    protected NetworkAddressFactory networkAddressFactory;
+    protected InetSocketAddress localAddress;
+    protected DatagramChannel channel; // For sending unicast & multicast, and receiving unicast
+
+    public SelectorDatagramIOImpl(DatagramIOConfigurationImpl configuration, DatagramSelectorLoop selectorLoop) {
+        this.configuration = configuration;
+        this.selectorLoop = selectorLoop;
+    }
+
+    @Override
+    public DatagramIOConfigurationImpl getConfiguration() {
+        return configuration;
+    }
+
+    @Override
+    synchronized public void init(NetworkAddressFactory networkAddressFactory, InetAddress bindAddress, Router router, DatagramProcessor datagramProcessor) throws InitializationException {
+
+        this.router = router;
+        this.networkAddressFactory = networkAddressFactory;
+        this.datagramProcessor = datagramProcessor;
+
+        try {
+            // Ephemeral port, see DatagramIOImpl
+            if (log.isInfoEnabled()) log.info("Creating bound channel (for datagram input/output) on: " + bindAddress);
+            localAddress = new InetSocketAddress(bindAddress, 0);
+            channel = DatagramChannel.open(
+                    bindAddress instanceof Inet6Address ? StandardProtocolFamily.INET6 : StandardProtocolFamily.INET
+            );
+            channel.setOption(StandardSocketOptions.IP_MULTICAST_TTL, configuration.getTimeToLive());
+            channel.setOption(StandardSocketOptions.SO_RCVBUF, 262144); // Keep a backlog of incoming datagrams if we are not fast enough
+            channel.bind(localAddress);
+        } catch (Exception ex) {
+            if (channel != null)
+                selectorLoop.close(channel);
+            throw new InitializationException("Could not initialize " + getClass().getSimpleName() + ": " + ex);
+        }
+    }
+
+    @Override
+    synchronized public void stop() {
+        if (channel != null && channel.isOpen()) {
+            selectorLoop.close(channel);
+        }
+    }
+
+    @Override
+    public void run() {
+        try {
+            if (log.isDebugEnabled()) {
+                log.debug("Registering unicast channel on the datagram selector loop: " + channel.getLocalAddress());
+            }
+            selectorLoop.register(channel, this);
+        } catch (IOException ex) {
+            if (log.isDebugEnabled())
+                log.debug("Could not register unicast channel, closed: " + ex);
+            return;
+        }
+        selectorLoop.run();
+    }
+
+    @Override
+    public int getMaxDatagramBytes() {
+        return getConfiguration().getMaxDatagramBytes();
+    }
+
+    @Override
+    public void received(DatagramPacket datagram) throws UnsupportedDataException {
+        InetAddress receivedOnLocalAddress =
+                networkAddressFactory.getLocalAddress(
+                        null,
+                        datagram.getAddress() instanceof Inet6Address,
+                        datagram.getAddress()
+                );
+        if (receivedOnLocalAddress == null)
+            return;
+        if (log.isDebugEnabled()) {
+            log.debug(
+                    "UDP datagram received from: "
+                            + datagram.getAddress().getHostAddress()
+                            + ":" + datagram.getPort()
+                            + " on: " + localAddress
+            );
+        }
+
+        IncomingDatagramMessage<?> idm = Common.getValidIncomingDatagramMessage(datagramProcessor.read(localAddress.getAddress(), datagram), networkAddressFactory);
+        if (idm == null)
+            return;
+        router.received(idm);
+    }
+
+    @Override
+    synchronized public void send(OutgoingDatagramMessage<?> message) {
+        if (log.isDebugEnabled()) {
+            log.debug("Sending message from address: " + localAddress);
+        }
+        DatagramPacket packet = datagramProcessor.write(message);
+
+        if (log.isDebugEnabled()) {
+            log.debug("Sending UDP datagram packet to: " + message.getDestinationAddress() + ":" + message.getDestinationPort());
+        }
+
+        send(packet);
+    }
+
+    @Override
+    synchronized public void send(DatagramPacket datagram) {
+        if (log.isDebugEnabled()) {
+            log.debug("Sending message from address: " + localAddress);
+        }
+
+        try {
+            int sent = channel.send(
+                    ByteBuffer.wrap(datagram.getData(), datagram.getOffset(), datagram.getLength()),
+                    datagram.getSocketAddress()
+            );
+            if (sent == 0 && log.isDebugEnabled()) {
+                log.debug("Socket send buffer full, dropping datagram to: " + datagram.getAddress());
+            }
+        } catch (ClosedChannelException ex) {
+            if (log.isDebugEnabled()) {
+                log.debug("Channel closed, aborting datagram send to: " + datagram.getAddress());
+            }
+        } catch (RuntimeException ex) {
+            throw ex;
+        } catch (Exception ex) {
+            if (log.isErrorEnabled()) log.error("Exception sending datagram to: " + datagram.getAddress() + ": ", ex);
+        }
+    }
+}
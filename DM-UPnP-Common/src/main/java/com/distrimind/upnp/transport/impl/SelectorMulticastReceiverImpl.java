@@ -0,0 +1,166 @@
+/*
+ *     This library is free software; you can redistribute it and/or
+ *     modify it under the terms of the GNU Lesser General Public
+ *     License as published by the Free Software Foundation; either
+ *     version 2.1 of the License.
+ *
+ *     This library is distributed in the hope that it will be useful,
+ *     but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *     MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ *     Lesser General Public License for more details.
+ *
+ *     You should have received a copy of the GNU Lesser General Public
+ *     License along with this library; if not, write to the Free Software
+ *     Foundation, Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301  USA
+ */
+
+package com.distrimind.upnp.transport.impl;
+
+import com.distrimind.flexilogxml.log.DMLogger;
+import com.distrimind.upnp.Log;
+import com.distrimind.upnp.model.UnsupportedDataException;
+import com.distrimind.upnp.model.message.IncomingDatagramMessage;
+import com.distrimind.upnp.transport.Common;
+import com.distrimind.upnp.transport.Router;
+import com.distrimind.upnp.transport.spi.DatagramProcessor;
+import com.distrimind.upnp.transport.spi.InitializationException;
+import com.distrimind.upnp.transport.spi.MulticastReceiver;
+import com.distrimind.upnp.transport.spi.NetworkAddressFactory;
+
+import java.io.IOException;
+import java.net.DatagramPacket;
+import java.net.Inet6Address;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.net.NetworkInterface;
+import java.net.StandardProtocolFamily;
+import java.net.StandardSocketOptions;
+import java.nio.channels.DatagramChannel;
+import java.nio.channels.MembershipKey;
+
+/**
+ * Implementation based on a non-blocking <code>DatagramChannel</code>, served by a shared {@link DatagramSelectorLoop}.
+ * <p>
+ * Contrary to {@link MulticastReceiverImpl}, the <code>run()</code> method does not block a thread per
+ * network interface: all receivers (and {@link SelectorDatagramIOImpl}s) sharing the same loop are
+ * served by a single thread.
+ * </p>
+ *
+ * @author Jason Mahdjoub
+ * @since 1.5.0
+ */
+public class SelectorMulticastReceiverImpl implements MulticastReceiver<MulticastReceiverConfigurationImpl>, DatagramSelectorLoop.Handler {
+
+    final private static DMLogger log = Log.getLogger(SelectorMulticastReceiverImpl.class);
+
+    final protected MulticastReceiverConfigurationImpl configuration;
+    final protected DatagramSelectorLoop selectorLoop;
+
+    protected Router router;
+    protected NetworkAddressFactory networkAddressFactory;
+    protected DatagramProcessor datagramProcessor;
+
+    protected NetworkInterface multicastInterface;
+    protected InetSocketAddress multicastAddress;
+    protected DatagramChannel channel;
+    protected MembershipKey membershipKey;
+
+    public SelectorMulticastReceiverImpl(MulticastReceiverConfigurationImpl configuration, DatagramSelectorLoop selectorLoop) {
+        this.configuration = configuration;
+        this.selectorLoop = selectorLoop;
+    }
+
+    @Override
+    public MulticastReceiverConfigurationImpl getConfiguration() {
+        return configuration;
+    }
+
+    @Override
+    synchronized public void init(NetworkInterface networkInterface,
+                                  Router router,
+                                  NetworkAddressFactory networkAddressFactory,
+                                  DatagramProcessor datagramProcessor) throws InitializationException {
+
+        this.router = router;
+        this.networkAddressFactory = networkAddressFactory;
+        this.datagramProcessor = datagramProcessor;
+        this.multicastInterface = networkInterface;
+
+        try {
+
+            if (log.isInfoEnabled()) log.info("Creating wildcard channel (for receiving multicast datagrams) on port: " + configuration.getPort());
+            multicastAddress = new InetSocketAddress(configuration.getGroup(), configuration.getPort());
+
+            channel = DatagramChannel.open(
+                    configuration.getGroup() instanceof Inet6Address ? StandardProtocolFamily.INET6 : StandardProtocolFamily.INET
+            );
+            channel.setOption(StandardSocketOptions.SO_REUSEADDR, true);
+            channel.setOption(StandardSocketOptions.SO_RCVBUF, 32768); // Keep a backlog of incoming datagrams if we are not fast enough
+            channel.bind(new InetSocketAddress(configuration.getPort()));
+
+            if (log.isInfoEnabled()) log.info("Joining multicast group: " + multicastAddress + " on network interface: " + multicastInterface.getDisplayName());
+            membershipKey = channel.join(configuration.getGroup(), multicastInterface);
+
+        } catch (Exception ex) {
+            if (channel != null)
+                selectorLoop.close(channel);
+            throw new InitializationException("Could not initialize " + getClass().getSimpleName() + ": " + ex);
+        }
+    }
+
+    @Override
+    synchronized public void stop() {
+        if (channel != null && channel.isOpen()) {
+            if (membershipKey != null) {
+                log.debug("Leaving multicast group");
+                membershipKey.drop();
+            }
+            selectorLoop.close(channel);
+        }
+    }
+
+    @Override
+    public void run() {
+        try {
+            if (log.isDebugEnabled()) {
+                log.debug("Registering multicast channel on the datagram selector loop: " + channel.getLocalAddress());
+            }
+            selectorLoop.register(channel, this);
+        } catch (IOException ex) {
+            if (log.isDebugEnabled())
+                log.debug("Could not register multicast channel, closed: " + ex);
+            return;
+        }
+        selectorLoop.run();
+    }
+
+    @Override
+    public int getMaxDatagramBytes() {
+        return getConfiguration().getMaxDatagramBytes();
+    }
+
+    @Override
+    public void received(DatagramPacket datagram) throws UnsupportedDataException {
+        InetAddress receivedOnLocalAddress =
+                networkAddressFactory.getLocalAddress(
+                        multicastInterface,
+                        multicastAddress.getAddress() instanceof Inet6Address,
+                        datagram.getAddress()
+                );
+        if (receivedOnLocalAddress == null)
+            return;
+        if (log.isDebugEnabled()) {
+            log.debug(
+                    "UDP datagram received from: " + datagram.getAddress().getHostAddress()
+                            + ":" + datagram.getPort()
+                            + " on local interface: " + multicastInterface.getDisplayName()
+                            + " and address: " + receivedOnLocalAddress.getHostAddress()
+            );
+        }
+
+        IncomingDatagramMessage<?> idm = Common.getValidIncomingDatagramMessage(datagramProcessor.read(receivedOnLocalAddress, datagram), networkAddressFactory);
+        if (idm == null)
+            return;
+        router.received(idm);
+    }
+}
@@ -15,7 +15,9 @@
 
 package com.distrimind.upnp.transport.impl;
 
+import com.distrimind.upnp.http.ContentEncoding;
 import com.distrimind.upnp.http.IHeaders;
+import com.distrimind.upnp.model.Constants;
 import com.distrimind.upnp.model.profile.RemoteClientInfo;
 import com.distrimind.upnp.model.ModelUtil;
 import com.distrimind.upnp.model.message.StreamRequestMessage;
@@ -30,7 +32,9 @@ import com.distrimind.upnp.transport.spi.StreamClient;
 import com.distrimind.upnp.util.Exceptions;
 import com.distrimind.upnp.util.URIUtil;
 import com.distrimind.upnp.util.io.IO;
+import com.distrimind.upnp.util.io.LimitedInputStream;
 
+import java.io.FilterInputStream;
 import java.io.IOException;
 import java.io.InputStream;
 import java.net.HttpURLConnection;
@@ -69,6 +73,13 @@ public class StreamClientImpl implements StreamClient<StreamClientConfigurationI
 
     final static String HACK_STREAM_HANDLER_SYSTEM_PROPERTY = "hackStreamHandlerProperty";
 
+    /**
+     * Textual response bodies of at least this length are streamed to the protocols instead of being buffered.
+     *
+     * @since 1.5.0
+     */
+    protected static final int STREAMED_RESPONSE_BODY_MIN_LENGTH = 8192;
+
     final private static DMLogger log = Log.getLogger(StreamClientImpl.class);
 
     final protected StreamClientConfigurationImpl configuration;
@@ -139,6 +150,8 @@ public class StreamClientImpl implements StreamClient<StreamClientConfigurationI
 
         HttpURLConnection urlConnection = null;
         InputStream inputStream;
+        // A streamed response body disconnects when it is closed by the protocol reading it
+        boolean bodyStreamed = false;
         try {
 
             urlConnection = (HttpURLConnection) url.openConnection();
@@ -156,7 +169,9 @@ public class StreamClientImpl implements StreamClient<StreamClientConfigurationI
 				log.debug("Sending HTTP request: " + requestMessage);
 			}
 			inputStream = urlConnection.getInputStream();
-            return createResponse(urlConnection, inputStream);
+            StreamResponseMessage responseMessage = createResponse(urlConnection, inputStream);
+            bodyStreamed = responseMessage != null && responseMessage.isBodyStreamed();
+            return responseMessage;
 
         } catch (ProtocolException ex) {
 			if (log.isWarnEnabled()) log.warn("HTTP request failed: " + requestMessage, Exceptions.unwrap(ex));
@@ -181,7 +196,9 @@ public class StreamClientImpl implements StreamClient<StreamClientConfigurationI
                 log.debug("Exception occurred, trying to read the error stream: ", Exceptions.unwrap(ex));
             try {
                 inputStream = urlConnection.getErrorStream();
-                return createResponse(urlConnection, inputStream);
+                StreamResponseMessage responseMessage = createResponse(urlConnection, inputStream);
+                bodyStreamed = responseMessage != null && responseMessage.isBodyStreamed();
+                return responseMessage;
             } catch (Exception errorEx) {
                 if (log.isDebugEnabled())
                     log.debug("Could not read error stream: " + errorEx);
@@ -193,7 +210,7 @@ public class StreamClientImpl implements StreamClient<StreamClientConfigurationI
 
         } finally {
 
-            if (urlConnection != null) {
+            if (urlConnection != null && !bodyStreamed) {
                 // Release any idle persistent connection, or "indicate that we don't want to use this server for a while"
                 urlConnection.disconnect();
             }
@@ -221,6 +238,12 @@ public class StreamClientImpl implements StreamClient<StreamClientConfigurationI
             );
         }
 
+        // Let the server compress large responses
+        if (getConfiguration().isAcceptCompressedResponses()
+                && requestMessage.getHeaders().getFirstHeader(ContentEncoding.ACCEPT_ENCODING) == null) {
+            urlConnection.setRequestProperty(ContentEncoding.ACCEPT_ENCODING, ContentEncoding.ACCEPTED_ENCODINGS);
+        }
+
         // Other headers
         applyHeaders(urlConnection, requestMessage.getHeaders());
     }
@@ -251,7 +274,7 @@ public class StreamClientImpl implements StreamClient<StreamClientConfigurationI
 
         if (requestMessage.getBodyType().equals(UpnpMessage.BodyType.STRING)) {
             IO.writeUTF8(urlConnection.getOutputStream(), requestMessage.getBodyString());
-        } else if (requestMessage.getBodyType().equals(UpnpMessage.BodyType.BYTES)) {
+        } else {
             IO.writeBytes(urlConnection.getOutputStream(), requestMessage.getBodyBytes());
         }
         urlConnection.getOutputStream().flush();
@@ -283,10 +306,36 @@ public class StreamClientImpl implements StreamClient<StreamClientConfigurationI
         responseMessage.setHeaders(new UpnpHeaders(urlConnection.getHeaderFields()));
 
         // Body
+        String contentEncoding = responseMessage.getHeaders().getFirstHeader(ContentEncoding.CONTENT_ENCODING);
+        responseMessage.getHeaders().remove(ContentEncoding.CONTENT_ENCODING);
+        long contentLength = contentEncoding == null ? urlConnection.getContentLengthLong() : -1;
+
+        if (inputStream != null && isResponseBodyStreamed(responseMessage, contentLength)) {
+
+            log.debug("Response contains large textual entity body, setting stream on message");
+            InputStream body = new FilterInputStream(ContentEncoding.decode(contentEncoding, inputStream)) {
+                @Override
+                public void close() throws IOException {
+                    try {
+                        super.close();
+                    } finally {
+                        urlConnection.disconnect();
+                    }
+                }
+            };
+            responseMessage.setBodyStream(new LimitedInputStream(body, Constants.MAX_BODY_LENGTH));
+
+			if (log.isDebugEnabled()) {
+				log.debug("Response message complete: " + responseMessage);
+			}
+			return responseMessage;
+        }
+
         byte[] bodyBytes = null;
 		try (InputStream is = inputStream) {
 			if (inputStream != null) bodyBytes = IO.readBytes(is);
 		}
+        bodyBytes = ContentEncoding.decode(contentEncoding, bodyBytes);
 
         if (bodyBytes != null && bodyBytes.length > 0 && responseMessage.isContentTypeMissingOrText()) {
 
@@ -308,6 +357,22 @@ public class StreamClientImpl implements StreamClient<StreamClientConfigurationI
 		return responseMessage;
     }
 
+    /**
+     * Bodies of failed responses, bodies which are not textual, and bodies whose <code>Content-Length</code> is lower
+     * than {@link #STREAMED_RESPONSE_BODY_MIN_LENGTH} are buffered, so that a response which is not read by the
+     * protocols does not keep its connection.
+     *
+     * @param responseMessage The response, with its headers.
+     * @param contentLength The length of the received body, or <code>-1</code> if it is unknown.
+     * @return <code>true</code> if the body is read by the protocols from the connection.
+     * @since 1.5.0
+     */
+    protected boolean isResponseBodyStreamed(StreamResponseMessage responseMessage, long contentLength) {
+        return !responseMessage.getOperation().isFailed()
+                && responseMessage.isContentTypeMissingOrText()
+                && (contentLength < 0 || contentLength >= STREAMED_RESPONSE_BODY_MIN_LENGTH);
+    }
+
 }
 
 
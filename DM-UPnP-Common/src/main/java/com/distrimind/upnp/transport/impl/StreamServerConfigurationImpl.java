@@ -15,6 +15,7 @@
 
 package com.distrimind.upnp.transport.impl;
 
+import com.distrimind.upnp.http.ContentEncoding;
 import com.distrimind.upnp.transport.spi.StreamServerConfiguration;
 
 /**
@@ -26,6 +27,9 @@ public class StreamServerConfigurationImpl implements StreamServerConfiguration
 
     private int listenPort;
     private int tcpConnectionBacklog;
+    private boolean virtualThreadPerRequest;
+    private int maxConcurrentRequests = 1000;
+    private int minCompressedBodyLength = -1;
 
     /**
      * Defaults to port '0', ephemeral.
@@ -58,4 +62,54 @@ public class StreamServerConfigurationImpl implements StreamServerConfiguration
         this.tcpConnectionBacklog = tcpConnectionBacklog;
     }
 
-}
\ No newline at end of file
+    /**
+     * @return <code>true</code> if each request is handled on its own virtual thread, when the JDK supports
+     *         them, instead of the stream server executor of the UPnP service. Default is <code>false</code>.
+     *         Only honored by the stream servers dispatching the requests themselves.
+     * @since 1.5.0
+     */
+    public boolean isVirtualThreadPerRequest() {
+        return virtualThreadPerRequest;
+    }
+
+    /**
+     * @since 1.5.0
+     */
+    public void setVirtualThreadPerRequest(boolean virtualThreadPerRequest) {
+        this.virtualThreadPerRequest = virtualThreadPerRequest;
+    }
+
+    /**
+     * @return Maximum number of requests handled concurrently on virtual threads, further requests are
+     *         rejected with <code>503 Service Unavailable</code>. Default is 1000, <code>0</code> means no limit.
+     * @since 1.5.0
+     */
+    public int getMaxConcurrentRequests() {
+        return maxConcurrentRequests;
+    }
+
+    /**
+     * @since 1.5.0
+     */
+    public void setMaxConcurrentRequests(int maxConcurrentRequests) {
+        this.maxConcurrentRequests = maxConcurrentRequests;
+    }
+
+    /**
+     * @return Minimum length of a textual response body compressed with <code>gzip</code> or <code>deflate</code>,
+     *         when the request accepts it. Default is <code>-1</code>, a negative value disables compression,
+     *         see {@link ContentEncoding#DEFAULT_MIN_COMPRESSED_BODY_LENGTH} to enable it.
+     * @since 1.5.0
+     */
+    public int getMinCompressedBodyLength() {
+        return minCompressedBodyLength;
+    }
+
+    /**
+     * @since 1.5.0
+     */
+    public void setMinCompressedBodyLength(int minCompressedBodyLength) {
+        this.minCompressedBodyLength = minCompressedBodyLength;
+    }
+
+}
@@ -19,11 +19,18 @@ import com.distrimind.upnp.model.message.StreamRequestMessage;
 import com.distrimind.upnp.model.message.StreamResponseMessage;
 import com.distrimind.upnp.util.Exceptions;
 
+import com.distrimind.upnp.platform.UPnPThreadFactory;
+
 import java.util.concurrent.Callable;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
 import java.util.concurrent.ExecutionException;
 import java.util.concurrent.Future;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.ScheduledThreadPoolExecutor;
 import java.util.concurrent.TimeUnit;
-import java.util.concurrent.TimeoutException;
 import com.distrimind.flexilogxml.log.DMLogger;
 import com.distrimind.upnp.Log;
 
@@ -31,6 +38,11 @@ import com.distrimind.flexilogxml.log.Level;
 
 /**
  * Implements the timeout/callback processing and unifies exception handling.
+ * <p>
+ * Requests are executed by {@link #execute(StreamRequestMessage, Object)}, which may complete asynchronously.
+ * Timeouts are enforced by a scheduler shared by all clients, which aborts the request when it expires: no
+ * thread waits for a request to complete, except the caller of {@link #sendRequest(StreamRequestMessage)}.
+ * </p>
 
  * @author Christian Bauer
  */
@@ -38,72 +50,154 @@ public abstract class AbstractStreamClient<C extends StreamClientConfiguration,
 
     final private static DMLogger log = Log.getLogger(AbstractStreamClient.class);
 
+    private static final class TimeoutScheduler {
+        static final ScheduledExecutorService INSTANCE = create();
+
+        private static ScheduledExecutorService create() {
+            ScheduledThreadPoolExecutor scheduler = new ScheduledThreadPoolExecutor(1, new UPnPThreadFactory());
+            // Most requests complete before their timeout
+            scheduler.setRemoveOnCancelPolicy(true);
+            // Never shut down, the thread terminates when no request is pending
+            scheduler.setKeepAliveTime(10, TimeUnit.SECONDS);
+            scheduler.allowCoreThreadTimeOut(true);
+            return scheduler;
+        }
+    }
+
     @Override
     public StreamResponseMessage sendRequest(StreamRequestMessage requestMessage) throws InterruptedException {
+        CompletableFuture<StreamResponseMessage> future = sendRequestAsync(requestMessage);
+
+        // Wait on the current thread for completion, the timeout is enforced by the scheduler
+        try {
+            return future.get();
+        } catch (InterruptedException ex) {
+
+            if (log.isDebugEnabled())
+                log.debug("Interruption, aborting request: " + requestMessage);
+            future.cancel(true);
+            throw new InterruptedException("HTTP request interrupted and aborted");
+
+        } catch (ExecutionException ex) {
+            // Failures are completed with null
+            return null;
+        }
+    }
+
+    @Override
+    public CompletableFuture<StreamResponseMessage> sendRequestAsync(StreamRequestMessage requestMessage) {
 
         if (log.isDebugEnabled())
             log.debug("Preparing HTTP request: " + requestMessage);
 
         REQUEST request = createRequest(requestMessage);
         if (request == null)
-            return null;
-
-        Callable<StreamResponseMessage> callable = createCallable(requestMessage, request);
+            return CompletableFuture.completedFuture(null);
 
         // We want to track how long it takes
         long start = System.currentTimeMillis();
 
-        // Execute the request on a new thread
-        Future<StreamResponseMessage> future =
-            getConfiguration().getRequestExecutorService().submit(callable);
-
-        // Wait on the current thread for completion
+        CompletableFuture<StreamResponseMessage> execution;
         try {
-            if (log.isDebugEnabled())
-                log.debug(
-                    "Waiting " + getConfiguration().getTimeoutSeconds()
-                    + " seconds for HTTP request to complete: " + requestMessage
-                );
-            StreamResponseMessage response =
-                future.get(getConfiguration().getTimeoutSeconds(), TimeUnit.SECONDS);
-
-            // Log a warning if it took too long
-            long elapsed = System.currentTimeMillis() - start;
-            if (log.isTraceEnabled())
-                log.trace("Got HTTP response in " + elapsed + "ms: " + requestMessage);
-            if (getConfiguration().getLogWarningSeconds() > 0
-                && elapsed > getConfiguration().getLogWarningSeconds()* 1000L) {
-                if (log.isWarnEnabled()) log.warn("HTTP request took a long time (" + elapsed + "ms): " + requestMessage);
-            }
-
-            return response;
-
-        } catch (InterruptedException ex) {
-
-            if (log.isDebugEnabled())
-                log.debug("Interruption, aborting request: " + requestMessage);
-            abort(request);
-            throw new InterruptedException("HTTP request interrupted and aborted");
-
-        } catch (TimeoutException ex) {
+            execution = execute(requestMessage, request);
+        } catch (RuntimeException ex) {
+            if (log.isWarnEnabled()) log.warn("HTTP request failed: " + requestMessage, Exceptions.unwrap(ex));
+            onFinally(request);
+            return CompletableFuture.completedFuture(null);
+        }
 
-            if (log.isInfoEnabled()) log.info(
-                "Timeout of " + getConfiguration().getTimeoutSeconds()
-                + " seconds while waiting for HTTP request to complete, aborting: " + requestMessage
-                );
-            abort(request);
-            return null;
+        CompletableFuture<StreamResponseMessage> result = new CompletableFuture<>();
 
-        } catch (ExecutionException ex) {
-            FlexiLogXML.log(Level.ERROR, ex);
-            Throwable cause = ex.getCause();
-            if (!logExecutionException(cause)) {
-                if (log.isWarnEnabled()) log.warn("HTTP request failed: " + requestMessage, Exceptions.unwrap(cause));
+        if (log.isDebugEnabled())
+            log.debug(
+                "Waiting " + getConfiguration().getTimeoutSeconds()
+                + " seconds for HTTP request to complete: " + requestMessage
+            );
+        ScheduledFuture<?> timeout = getTimeoutScheduler().schedule(() -> {
+            if (!result.isDone()) {
+                if (log.isInfoEnabled()) log.info(
+                    "Timeout of " + getConfiguration().getTimeoutSeconds()
+                    + " seconds while waiting for HTTP request to complete, aborting: " + requestMessage
+                    );
+                // Aborted before the caller is notified, as if it was waiting for the response
+                abort(request);
+                execution.cancel(true);
+                result.complete(null);
+            }
+        }, getConfiguration().getTimeoutSeconds(), TimeUnit.SECONDS);
+
+        execution.whenComplete((response, ex) -> {
+            timeout.cancel(false);
+            if (ex == null) {
+                // Log a warning if it took too long
+                long elapsed = System.currentTimeMillis() - start;
+                if (log.isTraceEnabled())
+                    log.trace("Got HTTP response in " + elapsed + "ms: " + requestMessage);
+                if (getConfiguration().getLogWarningSeconds() > 0
+                    && elapsed > getConfiguration().getLogWarningSeconds()* 1000L) {
+                    if (log.isWarnEnabled()) log.warn("HTTP request took a long time (" + elapsed + "ms): " + requestMessage);
+                }
+                result.complete(response);
+                return;
+            }
+            Throwable cause = ex instanceof CompletionException && ex.getCause() != null ? ex.getCause() : ex;
+            // Cancelled by a timeout or by the caller, already handled
+            if (!(cause instanceof CancellationException) && !result.isDone()) {
+                FlexiLogXML.log(Level.ERROR, cause);
+                if (!logExecutionException(cause)) {
+                    if (log.isWarnEnabled()) log.warn("HTTP request failed: " + requestMessage, Exceptions.unwrap(cause));
+                }
+            }
+            result.complete(null);
+        });
+
+        result.whenComplete((response, ex) -> {
+            if (result.isCancelled()) {
+                timeout.cancel(false);
+                abort(request);
+                execution.cancel(true);
             }
-            return null;
-        } finally {
             onFinally(request);
-        }
+        });
+        return result;
+    }
+
+    /**
+     * Starts the execution of the request.
+     * <p>
+     * The default implementation runs the {@link #createCallable(StreamRequestMessage, Object) callable} on the
+     * request executor of the configuration. Implementations able to send the request without blocking a thread
+     * should override this method instead.
+     * </p>
+     *
+     * @return The future response, completed exceptionally if the request failed. It is cancelled if the request
+     *         expires or is aborted.
+     * @since 1.5.0
+     */
+    protected CompletableFuture<StreamResponseMessage> execute(StreamRequestMessage requestMessage, REQUEST request) {
+        Callable<StreamResponseMessage> callable = createCallable(requestMessage, request);
+        CompletableFuture<StreamResponseMessage> execution = new CompletableFuture<>();
+        // Execute the request on a new thread
+        Future<?> future = getConfiguration().getRequestExecutorService().submit(() -> {
+            try {
+                execution.complete(callable.call());
+            } catch (Throwable t) {
+                execution.completeExceptionally(t);
+            }
+        });
+        execution.whenComplete((response, ex) -> {
+            if (execution.isCancelled())
+                future.cancel(true);
+        });
+        return execution;
+    }
+
+    /**
+     * @return The scheduler enforcing the request timeouts, shared by all clients by default.
+     * @since 1.5.0
+     */
+    protected ScheduledExecutorService getTimeoutScheduler() {
+        return TimeoutScheduler.INSTANCE;
     }
 
     /**
@@ -128,6 +222,9 @@ public abstract class AbstractStreamClient<C extends StreamClientConfiguration,
      */
     abstract protected boolean logExecutionException(Throwable t);
 
+    /**
+     * Called once the request has completed, expired or been aborted.
+     */
     protected void onFinally(REQUEST request) {
         // Do nothing
     }
@@ -26,6 +26,7 @@ public abstract class AbstractStreamClientConfiguration implements StreamClientC
     protected ExecutorService requestExecutorService;
     protected int timeoutSeconds = 60;
     protected int logWarningSeconds = 5;
+    protected boolean acceptCompressedResponses = false;
 
     protected AbstractStreamClientConfiguration(ExecutorService requestExecutorService) {
         this(requestExecutorService, 60, 5);
@@ -81,4 +82,20 @@ public abstract class AbstractStreamClientConfiguration implements StreamClientC
 	public String getUserAgentValue(int majorVersion, int minorVersion) {
         return new ServerClientTokens(majorVersion, minorVersion).toString();
     }
+
+    /**
+     * @return Configured value or default of <code>false</code>.
+     * @since 1.5.0
+     */
+    @Override
+	public boolean isAcceptCompressedResponses() {
+        return acceptCompressedResponses;
+    }
+
+    /**
+     * @since 1.5.0
+     */
+    public void setAcceptCompressedResponses(boolean acceptCompressedResponses) {
+        this.acceptCompressedResponses = acceptCompressedResponses;
+    }
 }
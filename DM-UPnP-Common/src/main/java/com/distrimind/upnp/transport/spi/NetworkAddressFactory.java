@@ -69,6 +69,18 @@ public interface NetworkAddressFactory {
      */
 	boolean hasUsableNetwork();
 
+    /**
+     * Discovers the network interfaces and bind addresses again, e.g. after a cable was plugged in.
+     *
+     * @return <code>true</code> if the interfaces or addresses changed, the default implementation
+     *         doesn't discover anything and returns <code>false</code>.
+     * @throws InitializationException If the interfaces could not be discovered, the previous ones are kept. Having no
+     *                                 network is not a failure, there is then no interface and no address.
+     */
+	default boolean refresh() throws InitializationException {
+		return false;
+	}
+
     /**
      * @return The network prefix length of this address or <code>null</code>.
      */
@@ -18,6 +18,8 @@ package com.distrimind.upnp.transport.spi;
 import com.distrimind.upnp.model.message.StreamRequestMessage;
 import com.distrimind.upnp.model.message.StreamResponseMessage;
 
+import java.util.concurrent.CompletableFuture;
+
 /**
  * Service for sending TCP (HTTP) stream request messages.
  * 
@@ -69,6 +71,35 @@ public interface StreamClient<C extends StreamClientConfiguration> {
      */
 	StreamResponseMessage sendRequest(StreamRequestMessage message) throws InterruptedException;
 
+    /**
+     * Sends the given request via TCP (HTTP) without blocking the calling thread.
+     *
+     * <p>
+     * The returned future follows the rules of {@link #sendRequest(StreamRequestMessage)}: it is completed
+     * with <code>null</code> if the request expires or an error occurs. Cancelling the future aborts the request.
+     * </p>
+     * <p>
+     * The default implementation calls {@link #sendRequest(StreamRequestMessage)} on the request executor of
+     * the configuration, which holds a thread of the executor until the request completes. Implementations able
+     * to complete a request asynchronously override it, see {@link AbstractStreamClient}.
+     * </p>
+     *
+     * @param message The message to send.
+     * @return The future response.
+     * @since 1.5.0
+     */
+    default CompletableFuture<StreamResponseMessage> sendRequestAsync(StreamRequestMessage message) {
+        return CompletableFuture.supplyAsync(() -> {
+            try {
+                return sendRequest(message);
+            } catch (InterruptedException ex) {
+                // The executor is shutting down
+                Thread.currentThread().interrupt();
+                return null;
+            }
+        }, getConfiguration().getRequestExecutorService());
+    }
+
     /**
      * Stops the service, closes any connection pools etc.
      */
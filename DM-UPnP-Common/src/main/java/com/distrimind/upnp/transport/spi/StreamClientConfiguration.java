@@ -29,7 +29,8 @@ public interface StreamClientConfiguration {
     /**
      * Used to execute the actual HTTP request, the StreamClient waits on the "current" thread for
      * completion or timeout. You probably want to use the same executor service for both, so usually
-     * this is {@link UpnpServiceConfiguration#getSyncProtocolExecutorService()}.
+     * this is {@link UpnpServiceConfiguration#getSyncProtocolExecutorService()}. A client sending its
+     * requests asynchronously may use it only to run its callbacks.
      *
      * @return The <code>ExecutorService</code> to use for actual sending of HTTP requests.
      */
@@ -54,4 +55,14 @@ public interface StreamClientConfiguration {
      */
 	String getUserAgentValue(int majorVersion, int minorVersion);
 
+    /**
+     * @return <code>true</code> if requests carry an <code>Accept-Encoding</code> header, so that large
+     *         responses may be compressed by the server. Compressed responses are always decoded.
+     *         Default is <code>false</code>.
+     * @since 1.5.0
+     */
+	default boolean isAcceptCompressedResponses() {
+		return false;
+	}
+
 }
@@ -15,9 +15,11 @@
 
 package com.distrimind.upnp.transport.spi;
 
+import com.distrimind.upnp.http.ContentEncoding;
 import com.distrimind.upnp.transport.Router;
 import com.distrimind.upnp.model.message.StreamRequestMessage;
 import com.distrimind.upnp.model.message.StreamResponseMessage;
+import com.distrimind.upnp.model.message.UpnpRequest;
 import com.distrimind.upnp.model.message.UpnpResponse;
 import com.distrimind.upnp.protocol.ProtocolCreationException;
 import com.distrimind.upnp.protocol.ProtocolFactory;
@@ -57,6 +59,15 @@ public abstract class UpnpStream implements Runnable {
         return protocolFactory;
     }
 
+    /**
+     * @return The method of the received request if it is known before this stream runs, otherwise
+     *         <code>null</code>. Used to classify this stream, see {@link ProtocolFactory#getProtocolPriority(Runnable)}.
+     * @since 1.5.0
+     */
+    public UpnpRequest.Method getRequestMethod() {
+        return null;
+    }
+
     /**
      * Selects a UPnP protocol, runs it within the calling thread, returns the response.
      * <p>
@@ -101,6 +112,36 @@ public abstract class UpnpStream implements Runnable {
 		return responseMsg;
     }
 
+    /**
+     * @return The minimum length of a textual response body compressed for the clients accepting it, or a
+     *         negative value to never compress responses. Default is <code>-1</code>, stream servers return
+     *         the value of their configuration.
+     * @since 1.5.0
+     */
+    protected int getMinCompressedBodyLength() {
+        return -1;
+    }
+
+    /**
+     * Negotiates the coding of the response body, only textual bodies, such as descriptors and SOAP or
+     * DIDL responses, are compressed.
+     *
+     * @param acceptEncoding The <code>Accept-Encoding</code> header of the request, can be <code>null</code>.
+     * @param responseMsg The response message.
+     * @param bodyLength The length of the response body, or a negative value if it is streamed.
+     * @return The coding to apply on the response body, or <code>null</code> to send it as is.
+     * @since 1.5.0
+     */
+    protected ContentEncoding getResponseContentEncoding(String acceptEncoding, StreamResponseMessage responseMsg, int bodyLength) {
+        int minLength = getMinCompressedBodyLength();
+        if (minLength < 0 || acceptEncoding == null || bodyLength == 0 || (bodyLength > 0 && bodyLength < minLength))
+            return null;
+        if (!responseMsg.hasBody() || !responseMsg.isContentTypeMissingOrText()
+                || responseMsg.getHeaders().getFirstHeader(ContentEncoding.CONTENT_ENCODING) != null)
+            return null;
+        return ContentEncoding.negotiate(acceptEncoding);
+    }
+
     /**
      * Must be called by a subclass after the response has been successfully sent to the client.
      *
@@ -0,0 +1,39 @@
+/*
+ *     This library is free software; you can redistribute it and/or
+ *     modify it under the terms of the GNU Lesser General Public
+ *     License as published by the Free Software Foundation; either
+ *     version 2.1 of the License.
+ *
+ *     This library is distributed in the hope that it will be useful,
+ *     but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *     MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ *     Lesser General Public License for more details.
+ *
+ *     You should have received a copy of the GNU Lesser General Public
+ *     License along with this library; if not, write to the Free Software
+ *     Foundation, Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301  USA
+ */
+
+package com.distrimind.upnp.util;
+
+import java.util.concurrent.CompletableFuture;
+
+/**
+ * @author Jason Mahdjoub
+ * @since 1.5.0
+ */
+public class Futures {
+
+    /**
+     * Replaces <code>CompletableFuture.failedFuture()</code>, which is not available on Android before API 31.
+     *
+     * @param ex The failure.
+     * @param <T> The type of the result.
+     * @return A future completed exceptionally with the given failure.
+     */
+    public static <T> CompletableFuture<T> failed(Throwable ex) {
+        CompletableFuture<T> failed = new CompletableFuture<>();
+        failed.completeExceptionally(ex);
+        return failed;
+    }
+}
@@ -0,0 +1,80 @@
+/*
+ *     This library is free software; you can redistribute it and/or
+ *     modify it under the terms of the GNU Lesser General Public
+ *     License as published by the Free Software Foundation; either
+ *     version 2.1 of the License.
+ *
+ *     This library is distributed in the hope that it will be useful,
+ *     but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *     MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ *     Lesser General Public License for more details.
+ *
+ *     You should have received a copy of the GNU Lesser General Public
+ *     License along with this library; if not, write to the Free Software
+ *     Foundation, Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301  USA
+ */
+
+package com.distrimind.upnp.util.io;
+
+import java.io.FilterInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+
+/**
+ * Fails with an {@link IOException} as soon as more than a maximum number of bytes have been read, so that a
+ * streamed message body is bounded like a buffered one.
+ *
+ * @author Jason Mahdjoub
+ * @since 1.5.0
+ */
+public class LimitedInputStream extends FilterInputStream {
+
+    private final long maxLength;
+    private long count;
+
+    /**
+     * @param in The stream to bound.
+     * @param maxLength The maximum number of bytes which can be read.
+     */
+    public LimitedInputStream(InputStream in, long maxLength) {
+        super(in);
+        if (maxLength < 0)
+            throw new IllegalArgumentException("maxLength=" + maxLength);
+        this.maxLength = maxLength;
+    }
+
+    private void count(long n) throws IOException {
+        if (n > 0) {
+            count += n;
+            if (count > maxLength)
+                throw new IOException("Reach maximum input stream length : " + maxLength + " bytes");
+        }
+    }
+
+    @Override
+    public int read() throws IOException {
+        int b = super.read();
+        if (b >= 0)
+            count(1);
+        return b;
+    }
+
+    @Override
+    public int read(byte[] b, int off, int len) throws IOException {
+        int n = super.read(b, off, len);
+        count(n);
+        return n;
+    }
+
+    @Override
+    public long skip(long n) throws IOException {
+        long s = super.skip(n);
+        count(s);
+        return s;
+    }
+
+    @Override
+    public boolean markSupported() {
+        return false;
+    }
+}
@@ -128,28 +128,63 @@
 
 package com.distrimind.upnp.desktop.platform;
 
+import com.distrimind.upnp.desktop.transport.impl.HttpClientStreamClientConfigurationImpl;
+import com.distrimind.upnp.desktop.transport.impl.HttpClientStreamClientImpl;
 import com.distrimind.upnp.desktop.transport.impl.StreamServerImpl;
 import com.distrimind.upnp.platform.DefaultPlatformUpnpServiceConfiguration;
 import com.distrimind.upnp.transport.impl.*;
 import com.distrimind.upnp.transport.spi.*;
 
+import java.util.concurrent.ExecutorService;
+
 /**
  * @author Jason Mahdjoub
  * @since 1.2.0
  */
 public class DesktopPlatformUpnpServiceConfiguration extends DefaultPlatformUpnpServiceConfiguration {
 
+	/**
+	 * Set this system property to <code>true</code> to send the HTTP requests with the
+	 * {@link HttpClientStreamClientImpl}, which keeps the connections alive between requests.
+	 */
+	public static final String SYSTEM_PROPERTY_USE_HTTP_CLIENT = "com.distrimind.upnp.desktop.useHttpClient";
+
+	/**
+	 * Set this system property to <code>true</code> to handle each incoming HTTP request on its own virtual thread,
+	 * see {@link StreamServerConfigurationImpl#isVirtualThreadPerRequest()}.
+	 */
+	public static final String SYSTEM_PROPERTY_VIRTUAL_THREAD_PER_REQUEST = "com.distrimind.upnp.desktop.virtualThreadPerRequest";
+
 	public DesktopPlatformUpnpServiceConfiguration() {
 	}
 
 
 	@Override
 	public StreamServer<?> createStreamServer(int streamServerPort) {
-		return new StreamServerImpl(
-				new StreamServerConfigurationImpl(
-						streamServerPort
+		StreamServerConfigurationImpl configuration = new StreamServerConfigurationImpl(
+				streamServerPort
+		);
+		configuration.setVirtualThreadPerRequest(Boolean.getBoolean(SYSTEM_PROPERTY_VIRTUAL_THREAD_PER_REQUEST));
+		return new StreamServerImpl(configuration);
+	}
+
+	@Override
+	public StreamClient<?> createStreamClient(ExecutorService syncProtocolExecutorService, int timeoutSeconds) {
+		if (!isHttpClientStreamClientEnabled())
+			return super.createStreamClient(syncProtocolExecutorService, timeoutSeconds);
+		return new HttpClientStreamClientImpl(
+				new HttpClientStreamClientConfigurationImpl(
+						syncProtocolExecutorService,
+						timeoutSeconds
 				)
 		);
 	}
 
+	/**
+	 * @return <code>true</code> to use the {@link HttpClientStreamClientImpl}, see {@link #SYSTEM_PROPERTY_USE_HTTP_CLIENT}.
+	 */
+	protected boolean isHttpClientStreamClientEnabled() {
+		return Boolean.getBoolean(SYSTEM_PROPERTY_USE_HTTP_CLIENT);
+	}
+
 }
@@ -0,0 +1,60 @@
+/*
+ *     This library is free software; you can redistribute it and/or
+ *     modify it under the terms of the GNU Lesser General Public
+ *     License as published by the Free Software Foundation; either
+ *     version 2.1 of the License.
+ *
+ *     This library is distributed in the hope that it will be useful,
+ *     but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *     MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ *     Lesser General Public License for more details.
+ *
+ *     You should have received a copy of the GNU Lesser General Public
+ *     License along with this library; if not, write to the Free Software
+ *     Foundation, Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301  USA
+ */
+
+package com.distrimind.upnp.desktop.transport.impl;
+
+import com.distrimind.upnp.transport.spi.AbstractStreamClientConfiguration;
+
+import java.util.concurrent.ExecutorService;
+
+/**
+ * Settings for the {@link HttpClientStreamClientImpl}.
+ *
+ * @author Jason Mahdjoub
+ * @since 1.5.0
+ */
+public class HttpClientStreamClientConfigurationImpl extends AbstractStreamClientConfiguration {
+
+    private int connectTimeoutSeconds;
+
+    /**
+     * @param requestExecutorService Runs the dependent tasks of the asynchronous requests.
+     */
+    public HttpClientStreamClientConfigurationImpl(ExecutorService requestExecutorService) {
+        super(requestExecutorService);
+        this.connectTimeoutSeconds = getTimeoutSeconds();
+    }
+
+    /**
+     * @param requestExecutorService Runs the dependent tasks of the asynchronous requests.
+     * @param timeoutSeconds The timeout of each request, from sending until the whole response has been received.
+     */
+    public HttpClientStreamClientConfigurationImpl(ExecutorService requestExecutorService, int timeoutSeconds) {
+        super(requestExecutorService, timeoutSeconds);
+        this.connectTimeoutSeconds = getTimeoutSeconds();
+    }
+
+    /**
+     * @return Defaults to the request timeout.
+     */
+    public int getConnectTimeoutSeconds() {
+        return connectTimeoutSeconds;
+    }
+
+    public void setConnectTimeoutSeconds(int connectTimeoutSeconds) {
+        this.connectTimeoutSeconds = connectTimeoutSeconds;
+    }
+}
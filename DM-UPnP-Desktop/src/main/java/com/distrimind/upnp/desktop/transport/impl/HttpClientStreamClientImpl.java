@@ -0,0 +1,287 @@
+/*
+ *     This library is free software; you can redistribute it and/or
+ *     modify it under the terms of the GNU Lesser General Public
+ *     License as published by the Free Software Foundation; either
+ *     version 2.1 of the License.
+ *
+ *     This library is distributed in the hope that it will be useful,
+ *     but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *     MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ *     Lesser General Public License for more details.
+ *
+ *     You should have received a copy of the GNU Lesser General Public
+ *     License along with this library; if not, write to the Free Software
+ *     Foundation, Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301  USA
+ */
+
+package com.distrimind.upnp.desktop.transport.impl;
+
+import com.distrimind.flexilogxml.log.DMLogger;
+import com.distrimind.upnp.Log;
+import com.distrimind.upnp.http.ContentEncoding;
+import com.distrimind.upnp.http.IHeaders;
+import com.distrimind.upnp.model.message.StreamRequestMessage;
+import com.distrimind.upnp.model.message.StreamResponseMessage;
+import com.distrimind.upnp.model.message.UpnpHeaders;
+import com.distrimind.upnp.model.message.UpnpMessage;
+import com.distrimind.upnp.model.message.UpnpRequest;
+import com.distrimind.upnp.model.message.UpnpResponse;
+import com.distrimind.upnp.model.message.header.UpnpHeader;
+import com.distrimind.upnp.transport.spi.StreamClient;
+import com.distrimind.upnp.util.Exceptions;
+
+import java.net.ConnectException;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.net.http.HttpTimeoutException;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+
+/**
+ * Implementation based on the JDK's <code>java.net.http.HttpClient</code>.
+ * <p>
+ * A single client is shared by all requests. It keeps a pool of idle HTTP/1.1 connections per host,
+ * so the devices contacted again and again don't cost a new TCP connection per request. Requests are
+ * sent asynchronously by the client, the timeout of each request is enforced by the client, no thread
+ * waits for it.
+ * </p>
+ * <p>
+ * Some headers are set by the client and can't be overridden, e.g. <code>Host</code>,
+ * <code>Connection</code> or <code>Content-Length</code>. They are ignored if present on a request message.
+ * </p>
+ * <p>
+ * Cancelling the future of a request aborts its exchange. Stopping the client aborts the pending exchanges, and
+ * closes the client and its idle connections when the runtime supports it (Java 21 and later). Otherwise the idle
+ * connections are closed by the client after their keep-alive timeout.
+ * </p>
+ * <p>
+ * This implementation <em>DOES NOT WORK</em> on Android.
+ * </p>
+ *
+ * @author Jason Mahdjoub
+ * @since 1.5.0
+ */
+public class HttpClientStreamClientImpl implements StreamClient<HttpClientStreamClientConfigurationImpl> {
+
+    final private static DMLogger log = Log.getLogger(HttpClientStreamClientImpl.class);
+
+    final protected HttpClientStreamClientConfigurationImpl configuration;
+    final protected HttpClient httpClient;
+    final protected Set<CompletableFuture<?>> pendingExchanges = ConcurrentHashMap.newKeySet();
+
+    public HttpClientStreamClientImpl(HttpClientStreamClientConfigurationImpl configuration) {
+        this.configuration = configuration;
+        this.httpClient = createHttpClient();
+    }
+
+    protected HttpClient createHttpClient() {
+        HttpClient.Builder builder = HttpClient.newBuilder()
+                .version(HttpClient.Version.HTTP_1_1)
+                .followRedirects(HttpClient.Redirect.NEVER)
+                .connectTimeout(Duration.ofSeconds(configuration.getConnectTimeoutSeconds()));
+        if (configuration.getRequestExecutorService() != null)
+            builder.executor(configuration.getRequestExecutorService());
+        return builder.build();
+    }
+
+    @Override
+    public HttpClientStreamClientConfigurationImpl getConfiguration() {
+        return configuration;
+    }
+
+    @Override
+    public StreamResponseMessage sendRequest(StreamRequestMessage requestMessage) throws InterruptedException {
+        CompletableFuture<StreamResponseMessage> future = sendRequestAsync(requestMessage);
+        try {
+            return future.get();
+        } catch (InterruptedException ex) {
+            if (log.isDebugEnabled())
+                log.debug("Interruption, aborting request: " + requestMessage);
+            future.cancel(true);
+            throw new InterruptedException("HTTP request interrupted and aborted");
+        } catch (ExecutionException ex) {
+            // Failures are completed with null
+            if (log.isWarnEnabled()) log.warn("HTTP request failed: " + requestMessage, Exceptions.unwrap(ex));
+            return null;
+        }
+    }
+
+    @Override
+    public CompletableFuture<StreamResponseMessage> sendRequestAsync(StreamRequestMessage requestMessage) {
+        HttpRequest request = createRequest(requestMessage);
+        if (request == null)
+            return CompletableFuture.completedFuture(null);
+
+        if (log.isDebugEnabled())
+            log.debug("Sending HTTP request: " + requestMessage);
+        long start = System.currentTimeMillis();
+        CompletableFuture<HttpResponse<byte[]>> exchange = httpClient.sendAsync(request, HttpResponse.BodyHandlers.ofByteArray());
+        pendingExchanges.add(exchange);
+        CompletableFuture<StreamResponseMessage> result = exchange
+                .handle((response, ex) -> {
+                    pendingExchanges.remove(exchange);
+                    if (ex != null) {
+                        handleException(requestMessage, ex);
+                        return null;
+                    }
+                    long elapsed = System.currentTimeMillis() - start;
+                    if (log.isTraceEnabled())
+                        log.trace("Got HTTP response in " + elapsed + "ms: " + requestMessage);
+                    if (getConfiguration().getLogWarningSeconds() > 0
+                            && elapsed > getConfiguration().getLogWarningSeconds() * 1000L) {
+                        if (log.isWarnEnabled()) log.warn("HTTP request took a long time (" + elapsed + "ms): " + requestMessage);
+                    }
+                    try {
+                        return createResponse(response);
+                    } catch (Exception e) {
+                        if (log.isWarnEnabled()) log.warn("Could not read HTTP response: " + requestMessage, e);
+                        return null;
+                    }
+                });
+        // Cancelling the result doesn't reach the exchange it depends on
+        result.whenComplete((response, ex) -> {
+            if (ex instanceof CancellationException) {
+                pendingExchanges.remove(exchange);
+                exchange.cancel(true);
+            }
+        });
+        return result;
+    }
+
+    protected void handleException(StreamRequestMessage requestMessage, Throwable ex) {
+        Throwable cause = ex instanceof CompletionException && ex.getCause() != null ? ex.getCause() : ex;
+        if (cause instanceof HttpTimeoutException) {
+            if (log.isInfoEnabled()) log.info(
+                    "Timeout of " + getConfiguration().getTimeoutSeconds()
+                            + " seconds while waiting for HTTP request to complete, aborting: " + requestMessage
+            );
+        } else if (cause instanceof CancellationException) {
+            if (log.isDebugEnabled())
+                log.debug("HTTP request cancelled: " + requestMessage);
+        } else if (cause instanceof ConnectException) {
+            if (log.isInfoEnabled()) log.info("HTTP request failed, could not connect: " + requestMessage + ": " + cause);
+        } else {
+            if (log.isWarnEnabled()) log.warn("HTTP request failed: " + requestMessage, Exceptions.unwrap(cause));
+        }
+    }
+
+    @Override
+    public void stop() {
+        for (CompletableFuture<?> exchange : pendingExchanges)
+            exchange.cancel(true);
+        pendingExchanges.clear();
+        // Closeable since Java 21, the request executor belongs to the configuration
+        if (httpClient instanceof AutoCloseable) {
+            try {
+                ((AutoCloseable) httpClient).close();
+            } catch (Exception ex) {
+                if (log.isDebugEnabled()) log.debug("Could not close the HTTP client", ex);
+            }
+        }
+    }
+
+    /**
+     * @return The request, or <code>null</code> if it could not be created.
+     */
+    protected HttpRequest createRequest(StreamRequestMessage requestMessage) {
+        UpnpRequest requestOperation = requestMessage.getOperation();
+        if (log.isDebugEnabled())
+            log.debug("Preparing HTTP request message with method '" + requestOperation.getHttpMethodName() + "': " + requestMessage);
+
+        try {
+            HttpRequest.Builder builder = HttpRequest.newBuilder(requestOperation.getURI())
+                    .timeout(Duration.ofSeconds(getConfiguration().getTimeoutSeconds()))
+                    .method(requestOperation.getHttpMethodName(), createBodyPublisher(requestMessage));
+
+            // Add the default user agent if not already set on the message
+            if (!requestMessage.getHeaders().containsKey(UpnpHeader.Type.USER_AGENT)) {
+                builder.setHeader(
+                        UpnpHeader.Type.USER_AGENT.getHttpName(),
+                        getConfiguration().getUserAgentValue(requestMessage.getUdaMajorVersion(), requestMessage.getUdaMinorVersion())
+                );
+            }
+            // Let the server compress large responses
+            if (getConfiguration().isAcceptCompressedResponses()
+                    && requestMessage.getHeaders().getFirstHeader(ContentEncoding.ACCEPT_ENCODING) == null) {
+                builder.setHeader(ContentEncoding.ACCEPT_ENCODING, ContentEncoding.ACCEPTED_ENCODINGS);
+            }
+            applyHeaders(builder, requestMessage.getHeaders());
+            return builder.build();
+        } catch (IllegalArgumentException ex) {
+            if (log.isWarnEnabled()) log.warn("Could not create HTTP request: " + requestMessage, ex);
+            return null;
+        }
+    }
+
+    protected void applyHeaders(HttpRequest.Builder builder, IHeaders headers) {
+        if (log.isDebugEnabled())
+            log.debug("Writing headers on HttpRequest: " + headers.size());
+        for (Map.Entry<String, List<String>> entry : headers.entrySet()) {
+            for (String v : entry.getValue()) {
+                String headerName = entry.getKey();
+                if (log.isDebugEnabled())
+                    log.debug("Setting header '" + headerName + "': " + v);
+                try {
+                    builder.header(headerName, v);
+                } catch (IllegalArgumentException ex) {
+                    // Restricted header, the client sets it
+                    if (log.isTraceEnabled())
+                        log.trace("Ignoring header set by the HTTP client: " + headerName);
+                }
+            }
+        }
+    }
+
+    protected HttpRequest.BodyPublisher createBodyPublisher(StreamRequestMessage requestMessage) {
+        if (!requestMessage.hasBody())
+            return HttpRequest.BodyPublishers.noBody();
+        if (requestMessage.getBodyType().equals(UpnpMessage.BodyType.STRING))
+            return HttpRequest.BodyPublishers.ofString(requestMessage.getBodyString(), StandardCharsets.UTF_8);
+        return HttpRequest.BodyPublishers.ofByteArray(requestMessage.getBodyBytes());
+    }
+
+    protected StreamResponseMessage createResponse(HttpResponse<byte[]> response) throws Exception {
+        // The client doesn't provide the reason phrase
+        UpnpResponse.Status status = UpnpResponse.Status.getByStatusCode(response.statusCode());
+        UpnpResponse responseOperation = new UpnpResponse(
+                response.statusCode(),
+                status != null ? status.getStatusMsg() : ""
+        );
+
+        if (log.isDebugEnabled())
+            log.debug("Received response: " + responseOperation);
+
+        StreamResponseMessage responseMessage = new StreamResponseMessage(responseOperation);
+
+        responseMessage.setHeaders(new UpnpHeaders(response.headers().map()));
+
+        byte[] bodyBytes = ContentEncoding.decode(responseMessage.getHeaders().getFirstHeader(ContentEncoding.CONTENT_ENCODING), response.body());
+        responseMessage.getHeaders().remove(ContentEncoding.CONTENT_ENCODING);
+        if (bodyBytes != null && bodyBytes.length > 0 && responseMessage.isContentTypeMissingOrText()) {
+
+            log.debug("Response contains textual entity body, converting then setting string on message");
+            responseMessage.setBodyCharacters(bodyBytes);
+
+        } else if (bodyBytes != null && bodyBytes.length > 0) {
+
+            log.debug("Response contains binary entity body, setting bytes on message");
+            responseMessage.setBody(UpnpMessage.BodyType.BYTES, bodyBytes);
+
+        } else {
+            log.debug("Response did not contain entity body");
+        }
+
+        if (log.isDebugEnabled())
+            log.debug("Response message complete: " + responseMessage);
+        return responseMessage;
+    }
+}
@@ -33,6 +33,8 @@
 package com.distrimind.upnp.desktop.transport.impl;
 
 import com.sun.net.httpserver.HttpExchange;
+import com.distrimind.upnp.http.ContentEncoding;
+import com.distrimind.upnp.model.Constants;
 import com.distrimind.upnp.model.message.Connection;
 import com.distrimind.upnp.model.message.StreamRequestMessage;
 import com.distrimind.upnp.model.message.StreamResponseMessage;
@@ -43,6 +45,7 @@ import com.distrimind.upnp.protocol.ProtocolFactory;
 import com.distrimind.upnp.transport.spi.UpnpStream;
 import com.distrimind.upnp.util.Exceptions;
 import com.distrimind.upnp.util.io.IO;
+import com.distrimind.upnp.util.io.LimitedInputStream;
 
 import java.io.IOException;
 import java.io.InputStream;
@@ -64,6 +67,11 @@ public abstract class HttpExchangeUpnpStream extends UpnpStream {
 
     final private static DMLogger log = Log.getLogger(HttpExchangeUpnpStream.class);
 
+    /**
+     * @since 1.5.0
+     */
+    protected static final int STREAMED_REQUEST_BODY_MIN_LENGTH = 8192;
+
     private final HttpExchange httpExchange;
 
     public HttpExchangeUpnpStream(ProtocolFactory protocolFactory, HttpExchange httpExchange) {
@@ -75,6 +83,11 @@ public abstract class HttpExchangeUpnpStream extends UpnpStream {
         return httpExchange;
     }
 
+    @Override
+    public UpnpRequest.Method getRequestMethod() {
+        return UpnpRequest.Method.getByHttpName(getHttpExchange().getRequestMethod());
+    }
+
     @Override
 	public void run() {
 
@@ -114,15 +127,25 @@ public abstract class HttpExchangeUpnpStream extends UpnpStream {
 
             // Body
             byte[] bodyBytes;
-			try (InputStream is = getHttpExchange().getRequestBody()) {
-				bodyBytes = IO.readBytes(is);
-			}
+			if (isRequestBodyStreamed(requestMessage)) {
+				// Read by the protocol while it is processed, without being buffered
+				bodyBytes = null;
+			} else {
+				try (InputStream is = getHttpExchange().getRequestBody()) {
+					bodyBytes = IO.readBytes(is);
+				}
 
-			if (log.isDebugEnabled()) {
-				log.debug("Reading request body bytes: " + bodyBytes.length);
+				if (log.isDebugEnabled()) {
+					log.debug("Reading request body bytes: " + bodyBytes.length);
+				}
 			}
 
-			if (bodyBytes.length > 0 && requestMessage.isContentTypeMissingOrText()) {
+			if (bodyBytes == null) {
+
+				log.debug("Request contains large textual entity body, setting stream on message");
+				requestMessage.setBodyStream(new LimitedInputStream(getHttpExchange().getRequestBody(), Constants.MAX_BODY_LENGTH));
+
+			} else if (bodyBytes.length > 0 && requestMessage.isContentTypeMissingOrText()) {
 
                 log.debug("Request contains textual entity body, converting then setting string on message");
                 requestMessage.setBodyCharacters(bodyBytes);
@@ -150,8 +173,16 @@ public abstract class HttpExchangeUpnpStream extends UpnpStream {
                         responseMessage.getHeaders()
                 );
 
+				String acceptEncoding = requestMessage.getHeaders().getFirstHeader(ContentEncoding.ACCEPT_ENCODING);
                 // Body
                 byte[] responseBodyBytes = responseMessage.hasBody() ? responseMessage.getBodyBytes() : null;
+				if (responseBodyBytes != null) {
+					ContentEncoding contentEncoding = getResponseContentEncoding(acceptEncoding, responseMessage, responseBodyBytes.length);
+					if (contentEncoding != null) {
+						responseBodyBytes = contentEncoding.encode(responseBodyBytes);
+						setContentEncoding(contentEncoding);
+					}
+				}
                 int contentLength = responseBodyBytes != null ? responseBodyBytes.length : -1;
 
 				if (log.isDebugEnabled()) {
@@ -204,4 +235,34 @@ public abstract class HttpExchangeUpnpStream extends UpnpStream {
 
     abstract protected Connection createConnection();
 
+	/**
+	 * @param contentEncoding The coding of the response body, <code>null</code> if it is sent as is.
+	 * @since 1.5.0
+	 */
+	protected void setContentEncoding(ContentEncoding contentEncoding) {
+		if (contentEncoding == null)
+			return;
+		getHttpExchange().getResponseHeaders().set(ContentEncoding.CONTENT_ENCODING, contentEncoding.getHttpName());
+		getHttpExchange().getResponseHeaders().add(ContentEncoding.VARY, ContentEncoding.ACCEPT_ENCODING);
+	}
+
+	/**
+	 * @return <code>true</code> if the textual body of the request is handed to the protocol as a stream, see
+	 * {@link UpnpMessage#setBodyStream(InputStream)}. Bodies with a known length below
+	 * {@link #STREAMED_REQUEST_BODY_MIN_LENGTH} are buffered.
+	 * @since 1.5.0
+	 */
+	protected boolean isRequestBodyStreamed(StreamRequestMessage requestMessage) {
+		if (!requestMessage.isContentTypeMissingOrText())
+			return false;
+		String contentLength = getHttpExchange().getRequestHeaders().getFirst("Content-Length");
+		if (contentLength == null)
+			return getHttpExchange().getRequestHeaders().containsKey("Transfer-Encoding");
+		try {
+			return Long.parseLong(contentLength.trim()) >= STREAMED_REQUEST_BODY_MIN_LENGTH;
+		} catch (NumberFormatException ex) {
+			return false;
+		}
+	}
+
 }
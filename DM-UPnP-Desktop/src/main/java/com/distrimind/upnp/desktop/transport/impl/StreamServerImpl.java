@@ -38,7 +38,9 @@ import com.distrimind.upnp.transport.spi.NetworkAddressFactory;
 import com.sun.net.httpserver.HttpExchange;
 import com.sun.net.httpserver.HttpHandler;
 import com.sun.net.httpserver.HttpServer;
+import com.distrimind.flexilogxml.concurrent.ThreadType;
 import com.distrimind.upnp.model.message.Connection;
+import com.distrimind.upnp.model.message.UpnpResponse;
 import com.distrimind.upnp.transport.spi.InitializationException;
 import com.distrimind.upnp.transport.spi.StreamServer;
 
@@ -46,6 +48,9 @@ import java.io.IOException;
 import java.net.Inet6Address;
 import java.net.InetAddress;
 import java.net.InetSocketAddress;
+import java.util.concurrent.Executor;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.ThreadFactory;
 import com.distrimind.flexilogxml.log.DMLogger;
 import com.distrimind.upnp.Log;
 
@@ -72,6 +77,8 @@ public class StreamServerImpl implements StreamServer<StreamServerConfigurationI
 
     final protected StreamServerConfigurationImpl configuration;
     protected HttpServer server;
+    protected Executor requestExecutor;
+    protected Semaphore requestPermits;
 
     public StreamServerImpl(StreamServerConfigurationImpl configuration) {
         this.configuration = configuration;
@@ -85,6 +92,12 @@ public class StreamServerImpl implements StreamServer<StreamServerConfigurationI
             server = HttpServer.create(socketAddress, configuration.getTcpConnectionBacklog());
             server.createContext("/", new RequestHttpHandler(router, networkAddressFactory));
 
+            if (configuration.isVirtualThreadPerRequest()) {
+                requestExecutor = createVirtualThreadExecutor();
+                if (requestExecutor != null && configuration.getMaxConcurrentRequests() > 0)
+                    requestPermits = new Semaphore(configuration.getMaxConcurrentRequests());
+            }
+
             if (log.isInfoEnabled()) log.info("Created server (for receiving TCP streams) on: " + server.getAddress());
 
         } catch (Exception ex) {
@@ -115,6 +128,46 @@ public class StreamServerImpl implements StreamServer<StreamServerConfigurationI
         if (server != null) server.stop(1);
     }
 
+    /**
+     * @return An executor starting a virtual thread per task, or <code>null</code> if the JDK doesn't support
+     *         virtual threads, the requests are then executed by the router.
+     */
+    protected Executor createVirtualThreadExecutor() {
+        if (Runtime.version().feature() < 21) {
+            if (log.isInfoEnabled()) log.info("Virtual threads not supported, using the stream server executor of the router");
+            return null;
+        }
+        ThreadFactory threadFactory = ThreadType.VIRTUAL_THREAD_IF_AVAILABLE.newThreadFactoryInstance();
+        return runnable -> threadFactory.newThread(runnable).start();
+    }
+
+    /**
+     * Executes the stream on its own virtual thread, or rejects it if the limit of concurrent requests is reached.
+     */
+    protected void execute(HttpExchange httpExchange, HttpExchangeUpnpStream stream) throws IOException {
+        final Semaphore permits = requestPermits;
+        if (permits != null && !permits.tryAcquire()) {
+            if (log.isWarnEnabled()) log.warn("Too many concurrent requests, rejecting: " + httpExchange.getRequestURI());
+            httpExchange.sendResponseHeaders(UpnpResponse.Status.SERVICE_UNAVAILABLE.getStatusCode(), -1);
+            httpExchange.close();
+            return;
+        }
+        try {
+            requestExecutor.execute(() -> {
+                try {
+                    stream.run();
+                } finally {
+                    if (permits != null)
+                        permits.release();
+                }
+            });
+        } catch (RuntimeException ex) {
+            if (permits != null)
+                permits.release();
+            throw ex;
+        }
+    }
+
     protected class RequestHttpHandler implements HttpHandler {
 
         private final Router router;
@@ -144,14 +197,23 @@ public class StreamServerImpl implements StreamServer<StreamServerConfigurationI
 			if (log.isDebugEnabled()) {
 				log.debug("Received HTTP exchange: " + httpExchange.getRequestMethod() + " " + httpExchange.getRequestURI());
 			}
-			router.received(
-                new HttpExchangeUpnpStream(router.getProtocolFactory(), httpExchange) {
-                    @Override
-                    protected Connection createConnection() {
-                        return new HttpServerConnection(httpExchange);
-                    }
+			HttpExchangeUpnpStream stream = new HttpExchangeUpnpStream(router.getProtocolFactory(), httpExchange) {
+                @Override
+                protected Connection createConnection() {
+                    return new HttpServerConnection(httpExchange);
+                }
+
+                @Override
+                protected int getMinCompressedBodyLength() {
+                    return configuration.getMinCompressedBodyLength();
                 }
-            );
+            };
+            if (requestExecutor != null) {
+                // The server is stopped when the router is disabled
+                execute(httpExchange, stream);
+            } else {
+                router.received(stream);
+            }
         }
     }
 
@@ -0,0 +1,156 @@
+/*
+ *     This library is free software; you can redistribute it and/or
+ *     modify it under the terms of the GNU Lesser General Public
+ *     License as published by the Free Software Foundation; either
+ *     version 2.1 of the License.
+ *
+ *     This library is distributed in the hope that it will be useful,
+ *     but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *     MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ *     Lesser General Public License for more details.
+ *
+ *     You should have received a copy of the GNU Lesser General Public
+ *     License along with this library; if not, write to the Free Software
+ *     Foundation, Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301  USA
+ */
+
+package com.distrimind.upnp.registry;
+
+import org.testng.annotations.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+import static org.testng.Assert.*;
+
+/**
+ * In the package of {@link ExpirationQueue}, which is internal to the registry.
+ *
+ * @author Jason Mahdjoub
+ * @since 1.5.0
+ */
+public class ExpirationQueueTest {
+
+    protected static List<String> pollAll(ExpirationQueue<String> queue, long nowMillis) {
+        List<String> polled = new ArrayList<>();
+        String item;
+        while ((item = queue.pollExpired(nowMillis)) != null)
+            polled.add(item);
+        return polled;
+    }
+
+    @Test
+    public void schedule() {
+        ExpirationQueue<String> queue = new ExpirationQueue<>();
+        assertTrue(queue.isEmpty());
+        assertEquals(queue.getNextDeadlineMillis(), Long.MAX_VALUE);
+        assertNull(queue.pollExpired(Long.MAX_VALUE - 1));
+
+        queue.schedule("c", 300);
+        queue.schedule("a", 100);
+        queue.schedule("b", 200);
+        assertEquals(queue.size(), 3);
+        assertEquals(queue.getNextDeadlineMillis(), 100);
+
+        // Nothing is due yet
+        assertNull(queue.pollExpired(99));
+        assertEquals(queue.size(), 3);
+
+        assertEquals(pollAll(queue, 200), List.of("a", "b"));
+        assertEquals(queue.getNextDeadlineMillis(), 300);
+        assertEquals(pollAll(queue, 1000), List.of("c"));
+        assertTrue(queue.isEmpty());
+        assertEquals(queue.getNextDeadlineMillis(), Long.MAX_VALUE);
+    }
+
+    @Test
+    public void reschedule() {
+        ExpirationQueue<String> queue = new ExpirationQueue<>();
+        queue.schedule("a", 100);
+        queue.schedule("b", 200);
+        queue.schedule("c", 300);
+        queue.schedule("d", 400);
+
+        // Earlier, held once
+        queue.schedule("d", 50);
+        assertEquals(queue.size(), 4);
+        assertEquals(queue.getNextDeadlineMillis(), 50);
+
+        // Later
+        queue.schedule("d", 500);
+        queue.schedule("a", 350);
+        assertEquals(queue.size(), 4);
+        assertEquals(queue.getNextDeadlineMillis(), 200);
+
+        // Unlimited, removed
+        queue.schedule("c", Long.MAX_VALUE);
+        assertEquals(queue.size(), 3);
+
+        assertEquals(pollAll(queue, Long.MAX_VALUE - 1), List.of("b", "a", "d"));
+    }
+
+    @Test
+    public void remove() {
+        ExpirationQueue<String> queue = new ExpirationQueue<>();
+        for (int i = 0; i < 7; i++)
+            queue.schedule("i" + i, i * 10);
+
+        // From the middle, the first and the last positions of the heap
+        assertTrue(queue.remove("i3"));
+        assertTrue(queue.remove("i0"));
+        assertTrue(queue.remove("i6"));
+        assertFalse(queue.remove("i3"));
+        assertFalse(queue.remove("unknown"));
+        assertEquals(queue.size(), 4);
+        assertEquals(queue.getNextDeadlineMillis(), 10);
+
+        assertEquals(pollAll(queue, Long.MAX_VALUE - 1), List.of("i1", "i2", "i4", "i5"));
+
+        queue.schedule("a", 10);
+        queue.clear();
+        assertTrue(queue.isEmpty());
+        assertFalse(queue.remove("a"));
+        queue.schedule("a", 10);
+        assertEquals(queue.size(), 1);
+    }
+
+    @Test
+    public void growAndKeepOrder() {
+        ExpirationQueue<String> queue = new ExpirationQueue<>();
+        Random random = new Random(42);
+        int count = 200;
+        long[] deadlines = new long[count];
+        for (int i = 0; i < count; i++) {
+            deadlines[i] = random.nextInt(1000);
+            queue.schedule("i" + i, deadlines[i]);
+        }
+        assertEquals(queue.size(), count);
+
+        // Move and remove some of them, like refreshed and removed registry items
+        for (int i = 0; i < count; i += 3) {
+            deadlines[i] = random.nextInt(1000);
+            queue.schedule("i" + i, deadlines[i]);
+        }
+        int removed = 0;
+        for (int i = 1; i < count; i += 7) {
+            assertTrue(queue.remove("i" + i));
+            deadlines[i] = -1;
+            removed++;
+        }
+        assertEquals(queue.size(), count - removed);
+
+        long previous = Long.MIN_VALUE;
+        int polled = 0;
+        String item;
+        while ((item = queue.pollExpired(Long.MAX_VALUE - 1)) != null) {
+            long deadline = deadlines[Integer.parseInt(item.substring(1))];
+            assertTrue(deadline >= 0, item + " was removed");
+            assertTrue(deadline >= previous, item + " polled out of order");
+            previous = deadline;
+            polled++;
+        }
+        assertEquals(polled, count - removed);
+        assertTrue(queue.isEmpty());
+    }
+}
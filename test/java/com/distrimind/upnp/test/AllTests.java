@@ -35,6 +35,7 @@ package com.distrimind.upnp.test;
 
 import com.distrimind.flexilogxml.TestGroup;
 import com.distrimind.flexilogxml.Tests;
+import com.distrimind.upnp.registry.ExpirationQueueTest;
 import com.distrimind.upnp.test.control.ActionInvokeIncomingTest;
 import com.distrimind.upnp.test.control.ActionInvokeOutgoingTest;
 import com.distrimind.upnp.test.control.ActionXMLProcessingTest;
@@ -95,6 +96,11 @@ public class AllTests {
 						DatatypesTest.class,
 						DeviceGraphTest.class,
 						HeaderParsingTest.class,
+						ContentEncodingTest.class,
+						BoundedExecutorTest.class,
+						StreamClientTimeoutTest.class,
+						UpnpMessageBodyTest.class,
+						HttpRequestParserTest.class,
 						IconTest.class,
 						IncompatibilityTest.class,
 						LocalServiceBindingDatatypesTest.class,
@@ -112,11 +118,16 @@ public class AllTests {
 				)),
 				new TestGroup("testSSDP", List.of(
 						AdvertisementTest.class,
+						DatagramAdmissionControlTest.class,
+						DatagramDuplicateFilterTest.class,
+						LocalAddressCacheTest.class,
+						NetworkChangeTest.class,
 						NotifyAliveConcurrentTest.class,
 						NotifyTest.class,
 						RegistryExpirationTest.class,
 						SearchReceivedTest.class,
-						SearchResponseTest.class
+						SearchResponseTest.class,
+						SelectorDatagramTransportTest.class
 				)),
 				new TestGroup("binary_light", List.of(
 						BinaryLightTest.class
@@ -142,6 +153,7 @@ public class AllTests {
 						StringConvertibleTest.class
 				)),
 				new TestGroup("registry", List.of(
+						ExpirationQueueTest.class,
 						RegistryBrowseTest.class,
 						RegistryListenerTest.class
 				))
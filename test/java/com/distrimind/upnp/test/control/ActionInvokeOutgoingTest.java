@@ -21,6 +21,7 @@ import com.distrimind.upnp.mock.MockRouter;
 import com.distrimind.upnp.mock.MockUpnpService;
 import com.distrimind.upnp.model.action.ActionInvocation;
 import com.distrimind.upnp.model.message.*;
+import com.distrimind.upnp.model.message.control.IncomingActionResponseMessage;
 import com.distrimind.upnp.model.message.header.ContentTypeHeader;
 import com.distrimind.upnp.model.message.header.SoapActionHeader;
 import com.distrimind.upnp.model.message.header.UpnpHeader;
@@ -42,6 +43,7 @@ import com.distrimind.upnp.model.types.UDADeviceType;
 import com.distrimind.upnp.model.types.UDAServiceId;
 import com.distrimind.upnp.model.types.UDAServiceType;
 import com.distrimind.upnp.model.types.UnsignedIntegerFourBytes;
+import com.distrimind.upnp.protocol.sync.SendingAction;
 import com.distrimind.upnp.test.data.SampleData;
 import com.distrimind.upnp.test.data.SampleServiceOne;
 import com.distrimind.upnp.transport.RouterException;
@@ -49,6 +51,7 @@ import org.testng.annotations.Test;
 
 import java.net.URI;
 import java.util.List;
+import java.util.concurrent.ExecutionException;
 
 import static org.testng.Assert.*;
 
@@ -198,6 +201,83 @@ public class ActionInvokeOutgoingTest {
         );
     }
 
+    @Test
+    public void callRemoteGetAsync() throws Exception {
+
+        MockUpnpService upnpService = new MockUpnpService() {
+            @Override
+            protected MockRouter createRouter() {
+                return new MockRouter(getConfiguration(), getProtocolFactory()) {
+                    @Override
+                    public List<StreamResponseMessage> getStreamResponseMessages() {
+                        return List.of(
+                            new StreamResponseMessage(RESPONSE_SUCCESSFUL)
+                        );
+                    }
+                };
+            }
+        };
+
+        RemoteDevice device = SampleData.createRemoteDevice();
+        RemoteService service = SampleData.getFirstService(device);
+        upnpService.getRegistry().addDevice(device);
+
+        Action<?> action = service.getAction(GET_TARGET);
+        ActionInvocation<?> actionInvocation = new ActionInvocation<>(action);
+
+        SendingAction prot = upnpService.getProtocolFactory().createSendingAction(
+            actionInvocation,
+            device.normalizeURI(service.getControlURI())
+        );
+        IncomingActionResponseMessage response = prot.executeAsync().get();
+
+        assertNotNull(response);
+        assertSame(prot.getOutputMessage(), response);
+        assertFalse(response.getOperation().isFailed());
+        assert actionInvocation.getFailure() == null;
+        assertEquals(upnpService.getRouter().getSentStreamRequestMessages().size(), 1);
+        assertEquals(actionInvocation.getOutput().size(), 1);
+        assertEquals(actionInvocation.getOutput().iterator().next().toString(), "0");
+    }
+
+    @Test
+    public void callRemoteGetAsyncRouterFailure() throws Exception {
+
+        MockUpnpService upnpService = new MockUpnpService() {
+            @Override
+            protected MockRouter createRouter() {
+                return new MockRouter(getConfiguration(), getProtocolFactory()) {
+                    @Override
+                    public StreamResponseMessage send(StreamRequestMessage msg) throws RouterException {
+                        throw new RouterException("Router failure");
+                    }
+                };
+            }
+        };
+
+        RemoteDevice device = SampleData.createRemoteDevice();
+        RemoteService service = SampleData.getFirstService(device);
+        upnpService.getRegistry().addDevice(device);
+
+        Action<?> action = service.getAction(GET_TARGET);
+        ActionInvocation<?> actionInvocation = new ActionInvocation<>(action);
+
+        SendingAction prot = upnpService.getProtocolFactory().createSendingAction(
+            actionInvocation,
+            device.normalizeURI(service.getControlURI())
+        );
+        try {
+            prot.executeAsync().get();
+            fail("The router failed");
+        } catch (ExecutionException ex) {
+            assertTrue(ex.getCause() instanceof RouterException);
+        }
+        // Recorded like in the synchronous mode
+        assertNotNull(actionInvocation.getFailure());
+        assertEquals(actionInvocation.getFailure().getErrorCode(), ErrorCode.ACTION_FAILED.getCode());
+        assertNull(prot.getOutputMessage());
+    }
+
     @Test
     public void callRemoteGet() throws Exception {
 
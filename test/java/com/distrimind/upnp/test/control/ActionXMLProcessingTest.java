@@ -45,7 +45,9 @@ import com.distrimind.upnp.transport.spi.SOAPActionProcessor;
 import org.testng.annotations.DataProvider;
 import org.testng.annotations.Test;
 
+import java.io.ByteArrayInputStream;
 import java.net.URI;
+import java.nio.charset.StandardCharsets;
 
 import static org.testng.Assert.*;
 
@@ -178,6 +180,42 @@ public class ActionXMLProcessingTest {
         assertEquals(actionInvocation.getFailure().getMessage(), ErrorCode.ACTION_FAILED.getDescription() + ". A test string.");
     }
 
+    @Test(dataProvider = PROCESSORS)
+    public void readStreamedResponseAndFailure(final SOAPActionProcessor processor) throws Exception {
+
+        LocalDevice<?> ld = ActionSampleData.createTestDevice(ActionSampleData.LocalTestServiceExtended.class);
+        LocalService<?> svc = ld.getServices().iterator().next();
+
+        Action<?> action = svc.getAction("GetTarget");
+        ActionInvocation<?> actionInvocation = new ActionInvocation<>(action);
+        actionInvocation.setOutput("RetTargetValue", true);
+        OutgoingActionResponseMessage outgoingCall = new OutgoingActionResponseMessage(action);
+        processor.writeBody(outgoingCall, actionInvocation);
+
+        StreamResponseMessage incomingStream = new StreamResponseMessage(outgoingCall);
+        incomingStream.setBodyStream(new ByteArrayInputStream(outgoingCall.getBodyString().getBytes(StandardCharsets.UTF_8)));
+        IncomingActionResponseMessage incomingCall = new IncomingActionResponseMessage(incomingStream);
+        assertTrue(incomingCall.isBodyStreamed());
+
+        actionInvocation = new ActionInvocation<>(action);
+        processor.readBody(incomingCall, actionInvocation);
+        assertNull(actionInvocation.getFailure());
+        assertEquals(actionInvocation.getOutput().iterator().next().getArgument().getName(), "RetTargetValue");
+
+        actionInvocation = new ActionInvocation<>(action);
+        actionInvocation.setFailure(new ActionException(ErrorCode.ACTION_FAILED, "A test string"));
+        outgoingCall = new OutgoingActionResponseMessage(UpnpResponse.Status.INTERNAL_SERVER_ERROR);
+        processor.writeBody(outgoingCall, actionInvocation);
+
+        incomingStream = new StreamResponseMessage(outgoingCall);
+        incomingStream.setBodyStream(new ByteArrayInputStream(outgoingCall.getBodyString().getBytes(StandardCharsets.UTF_8)));
+        incomingCall = new IncomingActionResponseMessage(incomingStream);
+
+        actionInvocation = new ActionInvocation<>(action);
+        processor.readBody(incomingCall, actionInvocation);
+        assertEquals(actionInvocation.getFailure().getErrorCode(), ErrorCode.ACTION_FAILED.getCode());
+    }
+
     @Test(dataProvider = PROCESSORS)
     public void readEncodedRequest(final SOAPActionProcessor processor) throws Exception {
 
@@ -283,4 +321,27 @@ public class ActionXMLProcessingTest {
         // Note that quotes are not encoded because this text is not an XML attribute value!
         assertTrue(response.getBodyString().contains("<SomeValue>This is decoded: &amp;&lt;&gt;'\"</SomeValue>"));
     }
+
+    @Test(dataProvider = PROCESSORS)
+    public void writeResponseEncodedOnce(final SOAPActionProcessor processor) throws Exception {
+
+        LocalDevice<?> ld = ActionSampleData.createTestDevice(ActionSampleData.LocalTestServiceExtended.class);
+        LocalService<?> svc = ld.getServices().iterator().next();
+
+        Action<?> action = svc.getAction("GetSomeValue");
+        ActionInvocation<?> actionInvocation = new ActionInvocation<>(action);
+
+        OutgoingActionResponseMessage response = new OutgoingActionResponseMessage(action);
+        actionInvocation.setOutput("SomeValue", "Caf\u00e9 \u266b");
+
+        processor.writeBody(response, actionInvocation);
+
+        // Sent as is, with the length of the encoded body
+        assertEquals(response.getBodyType(), UpnpMessage.BodyType.BYTES);
+        byte[] body = response.getBodyBytes();
+        assertSame(response.getBodyBytes(), body);
+        assertEquals(body, response.getBodyString().getBytes(StandardCharsets.UTF_8));
+        assertTrue(response.getBodyString().contains("<SomeValue>"));
+        assertTrue(response.isBodyNonEmptyString());
+    }
 }
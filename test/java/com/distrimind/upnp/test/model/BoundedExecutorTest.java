@@ -0,0 +1,270 @@
+/*
+ *     This library is free software; you can redistribute it and/or
+ *     modify it under the terms of the GNU Lesser General Public
+ *     License as published by the Free Software Foundation; either
+ *     version 2.1 of the License.
+ *
+ *     This library is distributed in the hope that it will be useful,
+ *     but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *     MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ *     Lesser General Public License for more details.
+ *
+ *     You should have received a copy of the GNU Lesser General Public
+ *     License along with this library; if not, write to the Free Software
+ *     Foundation, Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301  USA
+ */
+
+package com.distrimind.upnp.test.model;
+
+import com.distrimind.upnp.platform.ExecutorPoolConfiguration;
+import com.distrimind.upnp.platform.ProtocolPriorityExecutor;
+import com.distrimind.upnp.platform.UPnPExecutor;
+import com.distrimind.upnp.platform.VirtualThreadUPnPExecutor;
+import com.distrimind.upnp.protocol.ProtocolPriority;
+import org.testng.annotations.Test;
+
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.Future;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicReference;
+
+import static org.testng.Assert.*;
+
+/**
+ * @author Jason Mahdjoub
+ * @since 1.5.0
+ */
+public class BoundedExecutorTest {
+
+    /**
+     * @return A pool of one thread and one queued task, whose thread is blocked until the latch is released.
+     */
+    protected static UPnPExecutor saturate(ExecutorPoolConfiguration.SaturationPolicy policy, CountDownLatch release, Runnable queued) throws InterruptedException {
+        UPnPExecutor executor = new UPnPExecutor("test-", new ExecutorPoolConfiguration(1, 1, policy));
+        CountDownLatch started = new CountDownLatch(1);
+        executor.execute(() -> {
+            started.countDown();
+            try {
+                release.await();
+            } catch (InterruptedException ignored) {
+                Thread.currentThread().interrupt();
+            }
+        });
+        assertTrue(started.await(5, TimeUnit.SECONDS));
+        executor.execute(queued);
+        assertEquals(executor.getQueue().size(), 1);
+        return executor;
+    }
+
+    @Test
+    public void abortWhenSaturated() throws InterruptedException {
+        CountDownLatch release = new CountDownLatch(1);
+        UPnPExecutor executor = saturate(ExecutorPoolConfiguration.SaturationPolicy.ABORT, release, () -> {});
+        try {
+            executor.execute(() -> {});
+            fail();
+        } catch (RejectedExecutionException ex) {
+            // Expected
+        } finally {
+            release.countDown();
+            executor.shutdownNow();
+        }
+        // Rejections of a pool being shut down are not reported
+        executor.execute(() -> {});
+    }
+
+    @Test
+    public void callerRunsWhenSaturated() throws InterruptedException {
+        CountDownLatch release = new CountDownLatch(1);
+        UPnPExecutor executor = saturate(ExecutorPoolConfiguration.SaturationPolicy.CALLER_RUNS, release, () -> {});
+        try {
+            AtomicReference<Thread> thread = new AtomicReference<>();
+            executor.execute(() -> thread.set(Thread.currentThread()));
+            assertSame(thread.get(), Thread.currentThread());
+        } finally {
+            release.countDown();
+            executor.shutdownNow();
+        }
+    }
+
+    @Test
+    public void discardWhenSaturated() throws InterruptedException {
+        CountDownLatch release = new CountDownLatch(1);
+        AtomicBoolean oldestRun = new AtomicBoolean();
+        AtomicBoolean newestRun = new AtomicBoolean();
+        UPnPExecutor executor = saturate(ExecutorPoolConfiguration.SaturationPolicy.DISCARD_OLDEST, release, () -> oldestRun.set(true));
+        executor.execute(() -> newestRun.set(true));
+        assertEquals(executor.getQueue().size(), 1);
+        release.countDown();
+        executor.shutdown();
+        assertTrue(executor.awaitTermination(5, TimeUnit.SECONDS));
+        assertFalse(oldestRun.get());
+        assertTrue(newestRun.get());
+
+        release = new CountDownLatch(1);
+        oldestRun.set(false);
+        newestRun.set(false);
+        executor = saturate(ExecutorPoolConfiguration.SaturationPolicy.DISCARD, release, () -> oldestRun.set(true));
+        executor.execute(() -> newestRun.set(true));
+        release.countDown();
+        executor.shutdown();
+        assertTrue(executor.awaitTermination(5, TimeUnit.SECONDS));
+        assertTrue(oldestRun.get());
+        assertFalse(newestRun.get());
+    }
+
+    @Test
+    public void threadPerTask() throws Exception {
+        VirtualThreadUPnPExecutor executor = new VirtualThreadUPnPExecutor();
+        CountDownLatch release = new CountDownLatch(1);
+        CountDownLatch started = new CountDownLatch(2);
+        CountDownLatch interrupted = new CountDownLatch(1);
+        for (int i = 0; i < 2; i++) {
+            executor.execute(() -> {
+                started.countDown();
+                try {
+                    release.await();
+                } catch (InterruptedException ex) {
+                    interrupted.countDown();
+                }
+            });
+        }
+        // Nothing is queued, both tasks run concurrently
+        assertTrue(started.await(5, TimeUnit.SECONDS));
+        assertEquals(executor.getActiveCount(), 2);
+
+        // A failing task is logged and does not affect the others
+        executor.execute(() -> {
+            throw new IllegalStateException();
+        });
+        Future<String> result = executor.submit(() -> "done");
+        assertEquals(result.get(5, TimeUnit.SECONDS), "done");
+
+        executor.shutdown();
+        assertFalse(executor.awaitTermination(10, TimeUnit.MILLISECONDS));
+        // Discarded once shut down
+        AtomicBoolean run = new AtomicBoolean();
+        executor.execute(() -> run.set(true));
+        executor.shutdownNow();
+        assertTrue(interrupted.await(5, TimeUnit.SECONDS));
+        assertTrue(executor.awaitTermination(5, TimeUnit.SECONDS));
+        assertTrue(executor.isTerminated());
+        assertFalse(run.get());
+    }
+
+    @Test
+    public void protocolPriorities() throws InterruptedException {
+        ProtocolPriorityExecutor executor = new ProtocolPriorityExecutor("test-", 1, Map.of(
+                ProtocolPriority.SEARCH_RESPONSE,
+                new ExecutorPoolConfiguration(1, 2, ExecutorPoolConfiguration.SaturationPolicy.DISCARD)
+        ));
+        CountDownLatch release = new CountDownLatch(1);
+        CountDownLatch started = new CountDownLatch(1);
+        executor.execute(ProtocolPriority.DISCOVERY.wrap(() -> {
+            started.countDown();
+            try {
+                release.await();
+            } catch (InterruptedException ignored) {
+                Thread.currentThread().interrupt();
+            }
+        }));
+        assertTrue(started.await(5, TimeUnit.SECONDS));
+
+        List<String> order = new CopyOnWriteArrayList<>();
+        for (int i = 0; i < 3; i++) {
+            String name = "response" + i;
+            executor.execute(ProtocolPriority.SEARCH_RESPONSE.wrap(() -> order.add(name)));
+        }
+        executor.execute(ProtocolPriority.DISCOVERY.wrap(() -> order.add("notification")));
+        executor.execute(ProtocolPriority.EVENTING.wrap(() -> order.add("event")));
+        executor.execute(ProtocolPriority.CONTROL.wrap(() -> order.add("action")));
+        // The third search response exceeded the queue of its class
+        assertEquals(executor.getQueueDepth(ProtocolPriority.SEARCH_RESPONSE), 2);
+        assertEquals(executor.getQueueDepth(), 5);
+        assertEquals(executor.getActiveCount(ProtocolPriority.DISCOVERY), 1);
+
+        release.countDown();
+        executor.shutdown();
+        assertTrue(executor.awaitTermination(5, TimeUnit.SECONDS));
+        assertEquals(order, List.of("action", "event", "notification", "response0", "response1"));
+        assertEquals(executor.getQueueDepth(), 0);
+    }
+
+    @Test
+    public void protocolPriorityMaxThreads() throws InterruptedException {
+        ProtocolPriorityExecutor executor = new ProtocolPriorityExecutor("test-", 4, Map.of(
+                ProtocolPriority.DISCOVERY,
+                new ExecutorPoolConfiguration(1, 10, ExecutorPoolConfiguration.SaturationPolicy.ABORT)
+        ));
+        CountDownLatch release = new CountDownLatch(1);
+        for (int i = 0; i < 3; i++) {
+            executor.execute(() -> {
+                try {
+                    release.await();
+                } catch (InterruptedException ignored) {
+                    Thread.currentThread().interrupt();
+                }
+            });
+        }
+        // A single discovery task runs, the others wait while threads are left for the other classes
+        CountDownLatch action = new CountDownLatch(1);
+        executor.execute(ProtocolPriority.CONTROL.wrap(action::countDown));
+        assertTrue(action.await(5, TimeUnit.SECONDS));
+        assertEquals(executor.getActiveCount(ProtocolPriority.DISCOVERY), 1);
+        assertEquals(executor.getQueueDepth(ProtocolPriority.DISCOVERY), 2);
+
+        release.countDown();
+        executor.shutdown();
+        assertTrue(executor.awaitTermination(5, TimeUnit.SECONDS));
+        assertEquals(executor.getQueueDepth(), 0);
+    }
+
+    @Test
+    public void invalidConfiguration() {
+        try {
+            new ExecutorPoolConfiguration(0, 0, ExecutorPoolConfiguration.SaturationPolicy.ABORT);
+            fail();
+        } catch (IllegalArgumentException ex) {
+            // Expected
+        }
+        try {
+            new ExecutorPoolConfiguration(1, -1, ExecutorPoolConfiguration.SaturationPolicy.ABORT);
+            fail();
+        } catch (IllegalArgumentException ex) {
+            // Expected
+        }
+        try {
+            new ExecutorPoolConfiguration(1, 0, -1, ExecutorPoolConfiguration.SaturationPolicy.ABORT);
+            fail();
+        } catch (IllegalArgumentException ex) {
+            // Expected
+        }
+    }
+
+    @Test
+    public void keepAlive() throws Exception {
+        // Without keep-alive time, the threads never terminate
+        UPnPExecutor executor = new UPnPExecutor("test-", new ExecutorPoolConfiguration(2, 0, 0, ExecutorPoolConfiguration.SaturationPolicy.ABORT));
+        try {
+            assertFalse(executor.allowsCoreThreadTimeOut());
+            assertEquals(executor.getKeepAliveTime(TimeUnit.SECONDS), 0);
+            executor.submit(() -> {}).get(5, TimeUnit.SECONDS);
+            assertEquals(executor.getPoolSize(), 1);
+        } finally {
+            executor.shutdownNow();
+        }
+
+        executor = new UPnPExecutor("test-", new ExecutorPoolConfiguration(2, 0, 1, ExecutorPoolConfiguration.SaturationPolicy.ABORT));
+        try {
+            assertTrue(executor.allowsCoreThreadTimeOut());
+            assertEquals(executor.getKeepAliveTime(TimeUnit.SECONDS), 1);
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+}
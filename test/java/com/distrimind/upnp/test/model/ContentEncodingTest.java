@@ -0,0 +1,145 @@
+/*
+ *     This library is free software; you can redistribute it and/or
+ *     modify it under the terms of the GNU Lesser General Public
+ *     License as published by the Free Software Foundation; either
+ *     version 2.1 of the License.
+ *
+ *     This library is distributed in the hope that it will be useful,
+ *     but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *     MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ *     Lesser General Public License for more details.
+ *
+ *     You should have received a copy of the GNU Lesser General Public
+ *     License along with this library; if not, write to the Free Software
+ *     Foundation, Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301  USA
+ */
+
+package com.distrimind.upnp.test.model;
+
+import com.distrimind.upnp.http.ContentEncoding;
+import com.distrimind.upnp.model.Constants;
+import com.distrimind.upnp.transport.impl.StreamClientConfigurationImpl;
+import com.distrimind.upnp.transport.impl.StreamServerConfigurationImpl;
+import com.distrimind.upnp.util.io.IO;
+import org.testng.annotations.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.zip.Deflater;
+import java.util.zip.DeflaterOutputStream;
+
+import static org.testng.Assert.*;
+
+/**
+ * @author Jason Mahdjoub
+ * @since 1.5.0
+ */
+public class ContentEncodingTest {
+
+    protected static byte[] didl() {
+        StringBuilder sb = new StringBuilder("<DIDL-Lite xmlns=\"urn:schemas-upnp-org:metadata-1-0/DIDL-Lite/\">");
+        for (int i = 0; i < 200; i++) {
+            sb.append("<item id=\"").append(i).append("\" parentID=\"0\" restricted=\"1\"><dc:title>Track ")
+                    .append(i).append("</dc:title><upnp:class>object.item.audioItem.musicTrack</upnp:class></item>");
+        }
+        return sb.append("</DIDL-Lite>").toString().getBytes(StandardCharsets.UTF_8);
+    }
+
+    @Test
+    public void negotiate() {
+        assertNull(ContentEncoding.negotiate(null));
+        assertNull(ContentEncoding.negotiate(""));
+        assertNull(ContentEncoding.negotiate("identity"));
+        assertNull(ContentEncoding.negotiate("br"));
+        assertEquals(ContentEncoding.negotiate("gzip"), ContentEncoding.GZIP);
+        assertEquals(ContentEncoding.negotiate("x-gzip"), ContentEncoding.GZIP);
+        assertEquals(ContentEncoding.negotiate("deflate"), ContentEncoding.DEFLATE);
+        assertEquals(ContentEncoding.negotiate(ContentEncoding.ACCEPTED_ENCODINGS), ContentEncoding.GZIP);
+        assertEquals(ContentEncoding.negotiate("deflate, gzip;q=0.5"), ContentEncoding.DEFLATE);
+        assertEquals(ContentEncoding.negotiate("GZIP;q=0, deflate"), ContentEncoding.DEFLATE);
+        assertEquals(ContentEncoding.negotiate("*"), ContentEncoding.GZIP);
+        assertEquals(ContentEncoding.negotiate("gzip;q=0, *"), ContentEncoding.DEFLATE);
+        assertNull(ContentEncoding.negotiate("gzip;q=0, deflate;q=0"));
+        assertNull(ContentEncoding.negotiate("*;q=0"));
+        assertNull(ContentEncoding.negotiate("gzip;q=abc"));
+    }
+
+    @Test
+    public void encodeDecode() throws Exception {
+        byte[] body = didl();
+        for (ContentEncoding encoding : ContentEncoding.values()) {
+            byte[] encoded = encoding.encode(body);
+            assertTrue(encoded.length * 10 < body.length, encoding + ": " + encoded.length + "/" + body.length);
+            assertEquals(ContentEncoding.decode(encoding.getHttpName(), encoded), body);
+        }
+        assertSame(ContentEncoding.decode(null, body), body);
+        assertSame(ContentEncoding.decode("identity", body), body);
+    }
+
+    @Test
+    public void decodeStream() throws Exception {
+        byte[] body = didl();
+        for (ContentEncoding encoding : ContentEncoding.values()) {
+            try (InputStream in = ContentEncoding.decode(encoding.getHttpName(), new ByteArrayInputStream(encoding.encode(body)))) {
+                assertEquals(IO.readBytes(in), body);
+            }
+        }
+        InputStream in = new ByteArrayInputStream(body);
+        assertSame(ContentEncoding.decode(null, in), in);
+        assertSame(ContentEncoding.decode("identity", in), in);
+        try {
+            ContentEncoding.decode("br", in);
+            fail();
+        } catch (IOException ex) {
+            // Expected
+        }
+    }
+
+    @Test
+    public void decodeRawDeflate() throws Exception {
+        byte[] body = didl();
+        ByteArrayOutputStream bos = new ByteArrayOutputStream();
+        Deflater deflater = new Deflater(Deflater.DEFAULT_COMPRESSION, true);
+        try (DeflaterOutputStream os = new DeflaterOutputStream(bos, deflater)) {
+            os.write(body);
+        } finally {
+            deflater.end();
+        }
+        assertEquals(ContentEncoding.decode("deflate", bos.toByteArray()), body);
+    }
+
+    @Test
+    public void decodeRejectsInvalidBodies() {
+        byte[] body = didl();
+        try {
+            ContentEncoding.decode("br", body);
+            fail();
+        } catch (IOException ex) {
+            // Expected
+        }
+        try {
+            ContentEncoding.decode("gzip", body);
+            fail();
+        } catch (IOException ex) {
+            // Expected
+        }
+
+        // Decompression bombs are bounded like any other body
+        byte[] bomb = ContentEncoding.GZIP.encode(new byte[Constants.MAX_BODY_LENGTH + 1]);
+        try {
+            ContentEncoding.decode("gzip", bomb);
+            fail();
+        } catch (IOException ex) {
+            // Expected
+        }
+    }
+
+    @Test
+    public void disabledByDefault() {
+        assertTrue(new StreamServerConfigurationImpl().getMinCompressedBodyLength() < 0);
+        assertFalse(new StreamClientConfigurationImpl(null).isAcceptCompressedResponses());
+    }
+}
@@ -29,11 +29,14 @@ import com.distrimind.upnp.model.message.header.EXTHeader;
 import com.distrimind.upnp.model.message.header.InterfaceMacHeader;
 import com.distrimind.upnp.model.message.UpnpMessage;
 import com.distrimind.upnp.model.message.UpnpRequest;
+import com.distrimind.upnp.model.message.UpnpResponse;
 import com.distrimind.upnp.model.message.OutgoingDatagramMessage;
 import com.distrimind.upnp.model.message.discovery.OutgoingNotificationRequestRootDevice;
 import com.distrimind.upnp.test.data.SampleData;
 import com.distrimind.upnp.test.data.SampleDeviceRoot;
 import com.distrimind.upnp.transport.spi.DatagramProcessor;
+import com.distrimind.upnp.transport.impl.ByteDatagramProcessorImpl;
+import com.distrimind.upnp.transport.impl.DatagramProcessorImpl;
 import com.distrimind.upnp.transport.impl.NetworkAddressFactoryImpl;
 import com.distrimind.upnp.DefaultUpnpServiceConfiguration;
 import com.distrimind.upnp.util.io.HexBin;
@@ -43,6 +46,7 @@ import org.testng.annotations.Test;
 import java.net.DatagramPacket;
 import java.net.InetAddress;
 import java.net.InetSocketAddress;
+import java.util.Arrays;
 
 import static org.testng.Assert.*;
 
@@ -80,6 +84,70 @@ public class DatagramParsingTest {
 
     }
 
+    @Test
+    public void readReusedBuffer() throws Exception {
+        DatagramPacket packet = getDatagramPacket();
+        DatagramProcessor processor = new DefaultUpnpServiceConfiguration().getDatagramProcessor();
+
+        // A pooled buffer, bigger than the datagram and still holding the bytes of a previous one
+        byte[] buffer = new byte[packet.getLength() + 100];
+        Arrays.fill(buffer, (byte)'X');
+        System.arraycopy(packet.getData(), 0, buffer, 10, packet.getLength());
+        packet.setData(buffer, 10, packet.getLength());
+
+        UpnpMessage<?> msg = processor.read(InetAddress.getByName("127.0.0.1"), packet);
+        assertEquals(
+            msg.getHeaders().getFirstHeader(UpnpHeader.Type.USN, USNRootDeviceHeader.class).getValue().getIdentifierString(),
+            SampleDeviceRoot.getRootUDN().getIdentifierString()
+        );
+        assertEquals(msg.getHeaders().getFirstHeader(UpnpHeader.Type.MAX_AGE, MaxAgeHeader.class).getValue().toString(), "2000");
+    }
+
+    @Test
+    public void readBytes() throws Exception {
+        DatagramPacket packet = getDatagramPacket();
+        UpnpMessage<?> expected = new DatagramProcessorImpl().read(InetAddress.getByName("127.0.0.1"), packet);
+
+        byte[] buffer = new byte[packet.getLength() + 100];
+        Arrays.fill(buffer, (byte)'X');
+        System.arraycopy(packet.getData(), 0, buffer, 10, packet.getLength());
+        packet.setData(buffer, 10, packet.getLength());
+
+        UpnpMessage<?> msg = new ByteDatagramProcessorImpl().read(InetAddress.getByName("127.0.0.1"), packet);
+        Arrays.fill(buffer, (byte)'X'); // The receiver reuses the buffer
+        assertEquals(((UpnpRequest)msg.getOperation()).getMethod(), UpnpRequest.Method.NOTIFY);
+        assertEquals(msg.getOperation().getHttpMinorVersion(), 1);
+
+        for (UpnpHeader.Type type : UpnpHeader.Type.values()) {
+            assertEquals(msg.getHeaders().containsKey(type), expected.getHeaders().containsKey(type), type.toString());
+            assertEquals(msg.getHeaders().getFirstHeaderString(type), expected.getHeaders().getFirstHeaderString(type), type.toString());
+        }
+        assertEquals(msg.getHeaders().getFirstHeader(UpnpHeader.Type.SERVER, ServerHeader.class).getValue().getProductName(), "bar");
+        assertNotNull(msg.getHeaders().getFirstHeader(UpnpHeader.Type.EXT));
+
+        // Plain HTTP header access
+        assertEquals(msg.getHeaders().getFirstHeader("Cache-Control"), "max-age=2000");
+        assertTrue(msg.getHeaders().equals(expected.getHeaders()));
+        assertEquals(msg.getHeaders().getFirstHeaderString(UpnpHeader.Type.USN), expected.getHeaders().getFirstHeaderString(UpnpHeader.Type.USN));
+    }
+
+    @Test
+    public void readBytesResponse() throws Exception {
+        String source = "HTTP/1.1 200 OK\r\n" +
+                        "Cache-Control: max-age=1800\r\n" +
+                        "Ext:\r\n" +
+                        "St: upnp:rootdevice\r\n" +
+                        "Usn: " + SampleDeviceRoot.getRootUDN() +"::upnp:rootdevice\r\n\r\n";
+        DatagramPacket packet = new DatagramPacket(source.getBytes(), source.getBytes().length, new InetSocketAddress("123.123.123.123", 1234));
+
+        UpnpMessage<?> msg = new ByteDatagramProcessorImpl().read(InetAddress.getByName("127.0.0.1"), packet);
+        assertEquals(((UpnpResponse)msg.getOperation()).getStatusCode(), 200);
+        assertEquals(((UpnpResponse)msg.getOperation()).getStatusMessage(), "OK");
+        assertEquals(msg.getHeaders().getFirstHeaderString(UpnpHeader.Type.ST), "upnp:rootdevice");
+        assertEquals(msg.getHeaders().getFirstHeader(UpnpHeader.Type.MAX_AGE, MaxAgeHeader.class).getValue().intValue(), 1800);
+        assertFalse(msg.getHeaders().containsKey(UpnpHeader.Type.NT));
+    }
+
     private static DatagramPacket getDatagramPacket() {
         String source = "NOTIFY * HTTP/1.1\r\n" +
                         "HOST: 239.255.255.250:1900\r\n" +
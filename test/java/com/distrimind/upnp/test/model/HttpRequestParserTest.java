@@ -0,0 +1,156 @@
+/*
+ *     This library is free software; you can redistribute it and/or
+ *     modify it under the terms of the GNU Lesser General Public
+ *     License as published by the Free Software Foundation; either
+ *     version 2.1 of the License.
+ *
+ *     This library is distributed in the hope that it will be useful,
+ *     but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *     MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ *     Lesser General Public License for more details.
+ *
+ *     You should have received a copy of the GNU Lesser General Public
+ *     License along with this library; if not, write to the Free Software
+ *     Foundation, Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301  USA
+ */
+
+package com.distrimind.upnp.test.model;
+
+import com.distrimind.upnp.model.message.header.UpnpHeader;
+import com.distrimind.upnp.transport.impl.HttpRequestParser;
+import org.testng.annotations.Test;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+
+import static org.testng.Assert.*;
+
+/**
+ * @author Jason Mahdjoub
+ * @since 1.5.0
+ */
+public class HttpRequestParserTest {
+
+    protected static ByteBuffer buffer(String s) {
+        return ByteBuffer.wrap(s.getBytes(StandardCharsets.ISO_8859_1));
+    }
+
+    @Test
+    public void parseSimpleGet() throws Exception {
+        HttpRequestParser parser = new HttpRequestParser();
+        HttpRequestParser.Request request = parser.parse(buffer(
+                "GET /dev/desc.xml HTTP/1.1\r\n" +
+                "HOST: 192.168.1.2:8080\r\n" +
+                "\r\n"
+        ));
+        assertNotNull(request);
+        assertEquals(request.getMethod(), "GET");
+        assertEquals(request.getTarget(), "/dev/desc.xml");
+        assertEquals(request.getHttpMinorVersion(), 1);
+        assertTrue(request.getHeaders().containsKey(UpnpHeader.Type.HOST));
+        assertEquals(request.getBody().length, 0);
+        assertTrue(request.isKeepAlive());
+        assertTrue(parser.isIdle());
+    }
+
+    @Test
+    public void parseBodySplitAcrossBuffers() throws Exception {
+        HttpRequestParser parser = new HttpRequestParser();
+        assertNull(parser.parse(buffer("POST /ctl HTTP/1.1\r\nContent-Le")));
+        assertNull(parser.parse(buffer("ngth: 10\r\n\r\n01234")));
+        assertFalse(parser.isIdle());
+        HttpRequestParser.Request request = parser.parse(buffer("56789"));
+        assertNotNull(request);
+        assertEquals(new String(request.getBody(), StandardCharsets.ISO_8859_1), "0123456789");
+    }
+
+    @Test
+    public void parsePipelinedRequests() throws Exception {
+        HttpRequestParser parser = new HttpRequestParser();
+        ByteBuffer b = buffer(
+                "GET /a HTTP/1.1\r\n\r\n" +
+                "POST /b HTTP/1.1\r\nContent-Length: 3\r\n\r\nabc" +
+                "GET /c HTTP/1.0\r\n\r\n"
+        );
+        assertEquals(parser.parse(b).getTarget(), "/a");
+        HttpRequestParser.Request request = parser.parse(b);
+        assertEquals(request.getTarget(), "/b");
+        assertEquals(new String(request.getBody(), StandardCharsets.ISO_8859_1), "abc");
+        request = parser.parse(b);
+        assertEquals(request.getTarget(), "/c");
+        assertFalse(request.isKeepAlive());
+        assertFalse(b.hasRemaining());
+        assertNull(parser.parse(b));
+    }
+
+    @Test
+    public void parseChunkedBody() throws Exception {
+        HttpRequestParser parser = new HttpRequestParser();
+        HttpRequestParser.Request request = parser.parse(buffer(
+                "NOTIFY /evt HTTP/1.1\r\n" +
+                "Transfer-Encoding: chunked\r\n" +
+                "\r\n" +
+                "4\r\nWiki\r\n" +
+                "5;ext=1\r\npedia\r\n" +
+                "0\r\n" +
+                "\r\n"
+        ));
+        assertNotNull(request);
+        assertEquals(new String(request.getBody(), StandardCharsets.ISO_8859_1), "Wikipedia");
+        assertTrue(parser.isIdle());
+    }
+
+    @Test
+    public void keepAlive() throws Exception {
+        HttpRequestParser parser = new HttpRequestParser();
+        assertFalse(parser.parse(buffer("GET / HTTP/1.1\r\nConnection: close\r\n\r\n")).isKeepAlive());
+        assertTrue(parser.parse(buffer("GET / HTTP/1.0\r\nConnection: Keep-Alive\r\n\r\n")).isKeepAlive());
+        assertFalse(parser.parse(buffer("GET / HTTP/1.0\r\n\r\n")).isKeepAlive());
+    }
+
+    @Test
+    public void rejectOversizedHeaders() {
+        HttpRequestParser parser = new HttpRequestParser();
+        StringBuilder sb = new StringBuilder("GET / HTTP/1.1\r\n");
+        for (int i = 0; i < 100; i++)
+            sb.append("X-Header-").append(i).append(": value\r\n");
+        try {
+            parser.parse(buffer(sb.toString()));
+            fail();
+        } catch (HttpRequestParser.ParseException ex) {
+            assertEquals(ex.getStatusCode(), 431);
+        }
+    }
+
+    @Test
+    public void rejectOversizedBody() {
+        HttpRequestParser parser = new HttpRequestParser(640, 8);
+        try {
+            parser.parse(buffer("POST / HTTP/1.1\r\nContent-Length: 9\r\n\r\n"));
+            fail();
+        } catch (HttpRequestParser.ParseException ex) {
+            assertEquals(ex.getStatusCode(), 413);
+        }
+    }
+
+    @Test
+    public void rejectUnsupportedVersion() {
+        HttpRequestParser parser = new HttpRequestParser();
+        try {
+            parser.parse(buffer("GET / HTTP/2.0\r\n\r\n"));
+            fail();
+        } catch (HttpRequestParser.ParseException ex) {
+            assertEquals(ex.getStatusCode(), 505);
+        }
+    }
+
+    @Test
+    public void expectContinue() throws Exception {
+        HttpRequestParser parser = new HttpRequestParser();
+        assertNull(parser.parse(buffer("POST / HTTP/1.1\r\nExpect: 100-continue\r\nContent-Length: 2\r\n\r\n")));
+        assertTrue(parser.isContinueExpected());
+        parser.continueSent();
+        assertFalse(parser.isContinueExpected());
+        assertNotNull(parser.parse(buffer("ok")));
+    }
+}
@@ -0,0 +1,198 @@
+/*
+ *     This library is free software; you can redistribute it and/or
+ *     modify it under the terms of the GNU Lesser General Public
+ *     License as published by the Free Software Foundation; either
+ *     version 2.1 of the License.
+ *
+ *     This library is distributed in the hope that it will be useful,
+ *     but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *     MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ *     Lesser General Public License for more details.
+ *
+ *     You should have received a copy of the GNU Lesser General Public
+ *     License along with this library; if not, write to the Free Software
+ *     Foundation, Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301  USA
+ */
+
+package com.distrimind.upnp.test.model;
+
+import com.distrimind.upnp.model.message.StreamRequestMessage;
+import com.distrimind.upnp.model.message.StreamResponseMessage;
+import com.distrimind.upnp.model.message.UpnpRequest;
+import com.distrimind.upnp.model.message.UpnpResponse;
+import com.distrimind.upnp.transport.spi.AbstractStreamClient;
+import com.distrimind.upnp.transport.spi.AbstractStreamClientConfiguration;
+import org.testng.annotations.Test;
+
+import java.io.IOException;
+import java.net.URI;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Queue;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.testng.Assert.*;
+
+/**
+ * @author Jason Mahdjoub
+ * @since 1.5.0
+ */
+public class StreamClientTimeoutTest {
+
+    @Test
+    public void concurrentRequestsDoNotHoldThreads() throws Exception {
+        // No request executor, the requests are completed by the test
+        TestStreamClient client = new TestStreamClient(null, 10, true);
+
+        int threads = Thread.activeCount();
+        List<CompletableFuture<StreamResponseMessage>> results = new ArrayList<>();
+        for (int i = 0; i < 100; i++)
+            results.add(client.sendRequestAsync(createRequestMessage("/test")));
+
+        // At most the thread of the timeout scheduler
+        assertTrue(Thread.activeCount() <= threads + 1, "Threads: " + threads + " -> " + Thread.activeCount());
+        assertEquals(client.executions.size(), 100);
+        for (CompletableFuture<StreamResponseMessage> result : results)
+            assertFalse(result.isDone());
+
+        StreamResponseMessage response = new StreamResponseMessage(UpnpResponse.Status.OK);
+        for (CompletableFuture<StreamResponseMessage> execution : client.executions)
+            execution.complete(response);
+        for (CompletableFuture<StreamResponseMessage> result : results)
+            assertSame(result.get(1, TimeUnit.SECONDS), response);
+        assertEquals(client.aborted.get(), 0);
+        assertEquals(client.finished.get(), 100);
+    }
+
+    @Test
+    public void expiredRequestsAreAborted() throws Exception {
+        TestStreamClient client = new TestStreamClient(null, 1, true);
+
+        List<CompletableFuture<StreamResponseMessage>> results = new ArrayList<>();
+        for (int i = 0; i < 20; i++)
+            results.add(client.sendRequestAsync(createRequestMessage("/test")));
+
+        for (CompletableFuture<StreamResponseMessage> result : results)
+            assertNull(result.get(5, TimeUnit.SECONDS));
+        assertEquals(client.aborted.get(), 20);
+        assertFinished(client, 20);
+        for (CompletableFuture<StreamResponseMessage> execution : client.executions)
+            assertTrue(execution.isCancelled());
+    }
+
+    @Test
+    public void cancelledRequestIsAborted() {
+        TestStreamClient client = new TestStreamClient(null, 10, true);
+
+        CompletableFuture<StreamResponseMessage> result = client.sendRequestAsync(createRequestMessage("/test"));
+        result.cancel(true);
+
+        assertEquals(client.aborted.get(), 1);
+        assertEquals(client.finished.get(), 1);
+        assertTrue(client.executions.peek().isCancelled());
+    }
+
+    @Test
+    public void callableRunsOnRequestExecutor() throws Exception {
+        ExecutorService executor = Executors.newSingleThreadExecutor();
+        try {
+            TestStreamClient client = new TestStreamClient(executor, 10, false);
+
+            StreamResponseMessage response = client.sendRequest(createRequestMessage("/test"));
+            assertNotNull(response);
+            assertEquals(response.getOperation().getStatusCode(), 200);
+
+            // Failures are completed with null
+            assertNull(client.sendRequest(createRequestMessage("/fail")));
+            assertEquals(client.aborted.get(), 0);
+            assertFinished(client, 2);
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    /**
+     * The requests are finished once their caller has been notified, maybe by another thread.
+     */
+    protected void assertFinished(TestStreamClient client, int count) throws InterruptedException {
+        long deadline = System.currentTimeMillis() + 1000;
+        while (client.finished.get() < count && System.currentTimeMillis() < deadline)
+            Thread.sleep(10);
+        assertEquals(client.finished.get(), count);
+    }
+
+    protected StreamRequestMessage createRequestMessage(String path) {
+        return new StreamRequestMessage(UpnpRequest.Method.GET, URI.create("http://127.0.0.1:1234" + path));
+    }
+
+    /**
+     * Completes the requests with the callable on the request executor, or leaves them pending if asynchronous.
+     */
+    protected static class TestStreamClient extends AbstractStreamClient<AbstractStreamClientConfiguration, StreamRequestMessage> {
+
+        final AbstractStreamClientConfiguration configuration;
+        final boolean asynchronous;
+        final Queue<CompletableFuture<StreamResponseMessage>> executions = new ConcurrentLinkedQueue<>();
+        final AtomicInteger aborted = new AtomicInteger();
+        final AtomicInteger finished = new AtomicInteger();
+
+        TestStreamClient(ExecutorService requestExecutorService, int timeoutSeconds, boolean asynchronous) {
+            this.configuration = new AbstractStreamClientConfiguration(requestExecutorService, timeoutSeconds) {
+            };
+            this.asynchronous = asynchronous;
+        }
+
+        @Override
+        public AbstractStreamClientConfiguration getConfiguration() {
+            return configuration;
+        }
+
+        @Override
+        public void stop() {
+        }
+
+        @Override
+        protected StreamRequestMessage createRequest(StreamRequestMessage requestMessage) {
+            return requestMessage;
+        }
+
+        @Override
+        protected CompletableFuture<StreamResponseMessage> execute(StreamRequestMessage requestMessage, StreamRequestMessage request) {
+            if (!asynchronous)
+                return super.execute(requestMessage, request);
+            CompletableFuture<StreamResponseMessage> execution = new CompletableFuture<>();
+            executions.add(execution);
+            return execution;
+        }
+
+        @Override
+        protected Callable<StreamResponseMessage> createCallable(StreamRequestMessage requestMessage, StreamRequestMessage request) {
+            return () -> {
+                if (requestMessage.getUri().getPath().equals("/fail"))
+                    throw new IOException("Failed");
+                return new StreamResponseMessage(UpnpResponse.Status.OK);
+            };
+        }
+
+        @Override
+        protected void abort(StreamRequestMessage request) {
+            aborted.incrementAndGet();
+        }
+
+        @Override
+        protected boolean logExecutionException(Throwable t) {
+            return true;
+        }
+
+        @Override
+        protected void onFinally(StreamRequestMessage request) {
+            finished.incrementAndGet();
+        }
+    }
+}
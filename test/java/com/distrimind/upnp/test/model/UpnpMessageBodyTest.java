@@ -0,0 +1,181 @@
+/*
+ *     This library is free software; you can redistribute it and/or
+ *     modify it under the terms of the GNU Lesser General Public
+ *     License as published by the Free Software Foundation; either
+ *     version 2.1 of the License.
+ *
+ *     This library is distributed in the hope that it will be useful,
+ *     but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *     MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ *     Lesser General Public License for more details.
+ *
+ *     You should have received a copy of the GNU Lesser General Public
+ *     License along with this library; if not, write to the Free Software
+ *     Foundation, Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301  USA
+ */
+
+package com.distrimind.upnp.test.model;
+
+import com.distrimind.upnp.model.Constants;
+import com.distrimind.upnp.model.message.StreamRequestMessage;
+import com.distrimind.upnp.model.message.UpnpMessage;
+import com.distrimind.upnp.model.message.UpnpRequest;
+import com.distrimind.upnp.model.message.header.ContentTypeHeader;
+import com.distrimind.upnp.model.message.header.UpnpHeader;
+import com.distrimind.upnp.util.io.IO;
+import org.testng.annotations.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.net.URI;
+import java.nio.charset.StandardCharsets;
+
+import static org.testng.Assert.*;
+
+/**
+ * @author Jason Mahdjoub
+ * @since 1.5.0
+ */
+public class UpnpMessageBodyTest {
+
+    /**
+     * Generates its content while it is read, and counts the bytes read.
+     */
+    protected static class GeneratedInputStream extends InputStream {
+        private final long length;
+        private long count;
+        private boolean closed;
+
+        public GeneratedInputStream(long length) {
+            this.length = length;
+        }
+
+        @Override
+        public int read() {
+            if (count >= length)
+                return -1;
+            count++;
+            return 'a';
+        }
+
+        @Override
+        public int read(byte[] b, int off, int len) {
+            if (count >= length)
+                return -1;
+            int n = (int) Math.min(len, length - count);
+            for (int i = 0; i < n; i++)
+                b[off + i] = 'a';
+            count += n;
+            return n;
+        }
+
+        @Override
+        public void close() {
+            closed = true;
+        }
+    }
+
+    protected static StreamRequestMessage createMessage(InputStream body) {
+        StreamRequestMessage message = new StreamRequestMessage(UpnpRequest.Method.POST, URI.create("http://localhost/control"));
+        message.setBodyStream(body);
+        return message;
+    }
+
+    @Test
+    public void bufferBody() throws IOException {
+        StreamRequestMessage message = createMessage(new ByteArrayInputStream("<a>test</a>".getBytes(StandardCharsets.UTF_8)));
+        assertTrue(message.isBodyStreamed());
+        assertEquals(message.getBodyType(), UpnpMessage.BodyType.STREAM);
+
+        message.bufferBody();
+        assertFalse(message.isBodyStreamed());
+        assertEquals(message.getBodyType(), UpnpMessage.BodyType.STRING);
+        assertEquals(message.getBodyString(), "<a>test</a>");
+        // Buffered bodies can be read again
+        assertEquals(IO.readBytes(message.getBodyInputStream()), "<a>test</a>".getBytes(StandardCharsets.UTF_8));
+        assertEquals(IO.readBytes(message.getBodyInputStream()), "<a>test</a>".getBytes(StandardCharsets.UTF_8));
+    }
+
+    @Test
+    public void tooLongBodyIsNotBuffered() {
+        GeneratedInputStream in = new GeneratedInputStream(Constants.MAX_BODY_LENGTH * 16L);
+        StreamRequestMessage message = createMessage(in);
+        try {
+            message.bufferBody();
+            fail("The body is longer than " + Constants.MAX_BODY_LENGTH + " bytes");
+        } catch (IOException ignored) {
+        }
+        // The reading stopped at the limit
+        assertTrue(in.count > Constants.MAX_BODY_LENGTH);
+        assertTrue(in.count <= Constants.MAX_BODY_LENGTH + 4096, "Read " + in.count + " bytes");
+        assertTrue(in.closed);
+
+        in = new GeneratedInputStream(Constants.MAX_BODY_LENGTH + 1);
+        message = createMessage(in);
+        try {
+            message.getBodyString();
+            fail("The body is longer than " + Constants.MAX_BODY_LENGTH + " bytes");
+        } catch (RuntimeException e) {
+            assertTrue(e.getCause() instanceof IOException);
+        }
+        assertTrue(in.closed);
+    }
+
+    @Test
+    public void writeStreamedBody() throws IOException {
+        GeneratedInputStream in = new GeneratedInputStream(Constants.MAX_BODY_LENGTH);
+        StreamRequestMessage message = createMessage(in);
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        message.writeBody(out);
+        assertEquals(out.size(), Constants.MAX_BODY_LENGTH);
+        assertTrue(in.closed);
+        // Streamed bodies are read once
+        assertFalse(message.hasBody());
+        assertNull(message.getBodyInputStream());
+    }
+
+    @Test
+    public void streamedBodyIsReadOnce() throws IOException {
+        GeneratedInputStream in = new GeneratedInputStream(10);
+        StreamRequestMessage message = createMessage(in);
+        try (InputStream body = message.getBodyInputStream()) {
+            assertSame(body, in);
+            assertEquals(IO.readBytes(body).length, 10);
+        }
+        assertFalse(message.isBodyStreamed());
+        assertNull(message.getBodyInputStream());
+        assertNull(message.getBodyString());
+    }
+
+    @Test
+    public void bodyBytesUseContentTypeCharset() throws IOException {
+        String text = "<a>\u00e9t\u00e9</a>";
+        StreamRequestMessage message = createMessage(new ByteArrayInputStream(text.getBytes(StandardCharsets.ISO_8859_1)));
+        message.getHeaders().add(UpnpHeader.Type.CONTENT_TYPE, new ContentTypeHeader("text/xml; charset=ISO-8859-1"));
+        assertEquals(message.getBodyString(), text);
+        // The decoded body is encoded again with the charset it was received with
+        assertEquals(message.getBodyBytes(), text.getBytes(StandardCharsets.ISO_8859_1));
+
+        // UTF-8 without content type
+        message = new StreamRequestMessage(UpnpRequest.Method.POST, URI.create("http://localhost/control"), text);
+        assertEquals(message.getBodyBytes(), text.getBytes(StandardCharsets.UTF_8));
+    }
+
+    @Test
+    public void textualBytesBodyIsNonEmptyString() {
+        StreamRequestMessage message = new StreamRequestMessage(UpnpRequest.Method.POST, URI.create("http://localhost/control"));
+        message.setBodyUTF8("<a>test</a>".getBytes(StandardCharsets.UTF_8));
+        // Generated XML is kept encoded, but still readable as a string
+        assertTrue(message.isBodyNonEmptyString());
+        assertEquals(message.getBodyString(), "<a>test</a>");
+
+        message.getHeaders().add(UpnpHeader.Type.CONTENT_TYPE, new ContentTypeHeader("application/octet-stream"));
+        assertFalse(message.isBodyNonEmptyString());
+
+        message = new StreamRequestMessage(UpnpRequest.Method.POST, URI.create("http://localhost/control"));
+        message.setBodyUTF8(new byte[0]);
+        assertFalse(message.isBodyNonEmptyString());
+    }
+}
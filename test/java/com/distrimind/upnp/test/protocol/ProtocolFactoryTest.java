@@ -17,12 +17,15 @@
 package com.distrimind.upnp.test.protocol;
 
 import com.distrimind.upnp.protocol.ProtocolCreationException;
+import com.distrimind.upnp.protocol.ProtocolFactory;
+import com.distrimind.upnp.protocol.ProtocolPriority;
 import com.distrimind.upnp.mock.MockUpnpService;
 import com.distrimind.upnp.model.Namespace;
 import com.distrimind.upnp.model.message.StreamRequestMessage;
 import com.distrimind.upnp.model.message.UpnpRequest;
 import com.distrimind.upnp.protocol.ReceivingSync;
 import com.distrimind.upnp.protocol.sync.ReceivingEvent;
+import com.distrimind.upnp.transport.spi.UpnpStream;
 import org.testng.annotations.Test;
 
 import java.net.URI;
@@ -70,4 +73,48 @@ public class ProtocolFactoryTest {
         assertTrue(protocol instanceof ReceivingEvent);
 
     }
+
+    @Test
+    public void protocolPriority() throws Exception {
+        MockUpnpService upnpService = new MockUpnpService();
+        ProtocolFactory factory = upnpService.getProtocolFactory();
+
+        ReceivingSync<?, ?> protocol = factory.createReceivingSync(
+            new StreamRequestMessage(
+                UpnpRequest.Method.NOTIFY,
+                URI.create("/dev/1234/upnp-org/SwitchPower" + Namespace.EVENTS + Namespace.CALLBACK_FILE),
+                ""
+            )
+        );
+        assertEquals(factory.getProtocolPriority(protocol), ProtocolPriority.EVENTING);
+        assertEquals(factory.getProtocolPriority(ProtocolPriority.CONTROL.wrap(() -> {})), ProtocolPriority.CONTROL);
+        assertEquals(factory.getProtocolPriority(() -> {}), ProtocolPriority.DISCOVERY);
+    }
+
+    protected static UpnpStream createStream(ProtocolFactory factory, UpnpRequest.Method method) {
+        return new UpnpStream(factory) {
+            @Override
+            public UpnpRequest.Method getRequestMethod() {
+                return method;
+            }
+
+            @Override
+            public void run() {
+            }
+        };
+    }
+
+    @Test
+    public void streamPriority() throws Exception {
+        MockUpnpService upnpService = new MockUpnpService();
+        ProtocolFactory factory = upnpService.getProtocolFactory();
+
+        assertEquals(factory.getProtocolPriority(createStream(factory, UpnpRequest.Method.POST)), ProtocolPriority.CONTROL);
+        assertEquals(factory.getProtocolPriority(createStream(factory, UpnpRequest.Method.GET)), ProtocolPriority.CONTROL);
+        assertEquals(factory.getProtocolPriority(createStream(factory, UpnpRequest.Method.NOTIFY)), ProtocolPriority.EVENTING);
+        assertEquals(factory.getProtocolPriority(createStream(factory, UpnpRequest.Method.SUBSCRIBE)), ProtocolPriority.EVENTING);
+        assertEquals(factory.getProtocolPriority(createStream(factory, UpnpRequest.Method.UNSUBSCRIBE)), ProtocolPriority.EVENTING);
+        // The request is not known yet, never dropped
+        assertEquals(factory.getProtocolPriority(createStream(factory, null)), ProtocolPriority.CONTROL);
+    }
 }
\ No newline at end of file
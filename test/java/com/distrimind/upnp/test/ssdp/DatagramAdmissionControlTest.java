@@ -0,0 +1,100 @@
+/*
+ *     This library is free software; you can redistribute it and/or
+ *     modify it under the terms of the GNU Lesser General Public
+ *     License as published by the Free Software Foundation; either
+ *     version 2.1 of the License.
+ *
+ *     This library is distributed in the hope that it will be useful,
+ *     but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *     MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ *     Lesser General Public License for more details.
+ *
+ *     You should have received a copy of the GNU Lesser General Public
+ *     License along with this library; if not, write to the Free Software
+ *     Foundation, Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301  USA
+ */
+
+package com.distrimind.upnp.test.ssdp;
+
+import com.distrimind.upnp.model.message.IncomingDatagramMessage;
+import com.distrimind.upnp.model.message.UpnpRequest;
+import com.distrimind.upnp.transport.impl.DatagramAdmissionControl;
+import org.testng.annotations.Test;
+
+import java.net.InetAddress;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.testng.Assert.*;
+
+public class DatagramAdmissionControlTest {
+
+    @Test
+    public void limitPerSourceAndType() throws Exception {
+        DatagramAdmissionControl admissionControl = new DatagramAdmissionControl()
+                .setLimit(DatagramAdmissionControl.MessageType.SEARCH, 0.001, 3);
+
+        List<DatagramAdmissionControl.MessageType> rejected = new ArrayList<>();
+        admissionControl.setRejectionListener((message, type) -> rejected.add(type));
+
+        for (int i = 0; i < 3; i++) {
+            assertTrue(admissionControl.admit(createMessage(UpnpRequest.Method.MSEARCH, "10.0.0.1")));
+        }
+        assertFalse(admissionControl.admit(createMessage(UpnpRequest.Method.MSEARCH, "10.0.0.1")));
+        assertFalse(admissionControl.admit(createMessage(UpnpRequest.Method.MSEARCH, "10.0.0.1")));
+
+        // Other sources and other types are not affected
+        assertTrue(admissionControl.admit(createMessage(UpnpRequest.Method.MSEARCH, "10.0.0.2")));
+        assertTrue(admissionControl.admit(createMessage(UpnpRequest.Method.NOTIFY, "10.0.0.1")));
+
+        assertEquals(admissionControl.getRejected(DatagramAdmissionControl.MessageType.SEARCH), 2);
+        assertEquals(admissionControl.getRejected(DatagramAdmissionControl.MessageType.NOTIFY), 0);
+        assertEquals(admissionControl.getRejected(), 2);
+        assertEquals(rejected.size(), 2);
+        assertEquals(rejected.get(0), DatagramAdmissionControl.MessageType.SEARCH);
+    }
+
+    @Test
+    public void refill() throws Exception {
+        DatagramAdmissionControl admissionControl = new DatagramAdmissionControl()
+                .setLimit(DatagramAdmissionControl.MessageType.NOTIFY, 50, 1);
+
+        assertTrue(admissionControl.admit(createMessage(UpnpRequest.Method.NOTIFY, "10.0.0.1")));
+        assertFalse(admissionControl.admit(createMessage(UpnpRequest.Method.NOTIFY, "10.0.0.1")));
+        Thread.sleep(100);
+        assertTrue(admissionControl.admit(createMessage(UpnpRequest.Method.NOTIFY, "10.0.0.1")));
+    }
+
+    @Test
+    public void bounded() throws Exception {
+        DatagramAdmissionControl admissionControl = new DatagramAdmissionControl(4);
+
+        for (int i = 0; i < 10; i++) {
+            assertTrue(admissionControl.admit(createMessage(UpnpRequest.Method.NOTIFY, "10.0.0." + i)));
+            assertTrue(admissionControl.size() <= 4);
+        }
+    }
+
+    @Test
+    public void evictLeastRecentlyUsed() throws Exception {
+        DatagramAdmissionControl admissionControl = new DatagramAdmissionControl(4)
+                .setLimit(DatagramAdmissionControl.MessageType.SEARCH, 0.001, 1);
+
+        assertTrue(admissionControl.admit(createMessage(UpnpRequest.Method.MSEARCH, "10.0.0.1")));
+        for (int i = 2; i < 10; i++) {
+            // New sources don't make a limited source forgotten
+            assertFalse(admissionControl.admit(createMessage(UpnpRequest.Method.MSEARCH, "10.0.0.1")));
+            assertTrue(admissionControl.admit(createMessage(UpnpRequest.Method.MSEARCH, "10.0.0." + i)));
+            assertTrue(admissionControl.size() <= 4);
+        }
+        assertFalse(admissionControl.admit(createMessage(UpnpRequest.Method.MSEARCH, "10.0.0.1")));
+        // The least recently used sources are forgotten
+        assertTrue(admissionControl.admit(createMessage(UpnpRequest.Method.MSEARCH, "10.0.0.2")));
+    }
+
+    protected IncomingDatagramMessage<UpnpRequest> createMessage(UpnpRequest.Method method, String source) throws Exception {
+        return new IncomingDatagramMessage<>(
+                new UpnpRequest(method), InetAddress.getByName(source), 1900, InetAddress.getByName("10.0.0.254")
+        );
+    }
+}
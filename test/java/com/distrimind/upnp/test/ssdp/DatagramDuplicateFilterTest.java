@@ -0,0 +1,142 @@
+/*
+ *     This library is free software; you can redistribute it and/or
+ *     modify it under the terms of the GNU Lesser General Public
+ *     License as published by the Free Software Foundation; either
+ *     version 2.1 of the License.
+ *
+ *     This library is distributed in the hope that it will be useful,
+ *     but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *     MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ *     Lesser General Public License for more details.
+ *
+ *     You should have received a copy of the GNU Lesser General Public
+ *     License along with this library; if not, write to the Free Software
+ *     Foundation, Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301  USA
+ */
+
+package com.distrimind.upnp.test.ssdp;
+
+import com.distrimind.upnp.model.message.ByteArrayUpnpHeaders;
+import com.distrimind.upnp.model.message.IncomingDatagramMessage;
+import com.distrimind.upnp.model.message.UpnpMessage;
+import com.distrimind.upnp.model.message.UpnpRequest;
+import com.distrimind.upnp.model.message.UpnpResponse;
+import com.distrimind.upnp.model.message.header.UpnpHeader;
+import com.distrimind.upnp.model.types.NotificationSubtype;
+import com.distrimind.upnp.transport.impl.DatagramDuplicateFilter;
+import org.testng.annotations.Test;
+
+import java.net.InetAddress;
+import java.nio.charset.StandardCharsets;
+
+import static org.testng.Assert.*;
+
+public class DatagramDuplicateFilterTest {
+
+    static final String USN = "uuid:MY-DEVICE-123::upnp:rootdevice";
+    static final String LOCATION = "http://127.0.0.1:8080/dev.xml";
+
+    @Test
+    public void dropRepeatedNotifications() throws Exception {
+        DatagramDuplicateFilter filter = new DatagramDuplicateFilter(60000, 16);
+
+        assertFalse(filter.isDuplicate(createNotification("10.0.0.1", NotificationSubtype.ALIVE, USN)));
+        assertTrue(filter.isDuplicate(createNotification("10.0.0.1", NotificationSubtype.ALIVE, USN)));
+        assertTrue(filter.isDuplicate(createNotification("10.0.0.1", NotificationSubtype.ALIVE, USN)));
+
+        // Another service, another sender
+        assertFalse(filter.isDuplicate(createNotification("10.0.0.1", NotificationSubtype.ALIVE, "uuid:MY-DEVICE-123")));
+        assertFalse(filter.isDuplicate(createNotification("10.0.0.2", NotificationSubtype.ALIVE, USN)));
+
+        // The device went away and came back
+        assertFalse(filter.isDuplicate(createNotification("10.0.0.1", NotificationSubtype.BYEBYE, USN)));
+        assertTrue(filter.isDuplicate(createNotification("10.0.0.1", NotificationSubtype.BYEBYE, USN)));
+        assertFalse(filter.isDuplicate(createNotification("10.0.0.1", NotificationSubtype.ALIVE, USN)));
+
+        assertEquals(filter.getSuppressedNotifications(), 3);
+        assertEquals(filter.getSuppressedSearchResponses(), 0);
+    }
+
+    @Test
+    public void dropRepeatedSearchResponses() throws Exception {
+        DatagramDuplicateFilter filter = new DatagramDuplicateFilter(60000, 16);
+
+        assertFalse(filter.isDuplicate(createSearchResponse()));
+        assertTrue(filter.isDuplicate(createSearchResponse()));
+        assertEquals(filter.getSuppressedSearchResponses(), 1);
+
+        // Searches are always answered
+        IncomingDatagramMessage<UpnpRequest> search = new IncomingDatagramMessage<>(
+                new UpnpRequest(UpnpRequest.Method.MSEARCH), InetAddress.getByName("10.0.0.1"), 1900, InetAddress.getByName("10.0.0.254")
+        );
+        search.getHeaders().add(UpnpHeader.Type.ST.getHttpName(), "ssdp:all");
+        assertFalse(filter.isDuplicate(search));
+        assertFalse(filter.isDuplicate(search));
+    }
+
+    @Test
+    public void acceptAfterWindow() throws Exception {
+        DatagramDuplicateFilter filter = new DatagramDuplicateFilter(50, 16);
+
+        assertFalse(filter.isDuplicate(createNotification("10.0.0.1", NotificationSubtype.ALIVE, USN)));
+        Thread.sleep(100);
+        assertFalse(filter.isDuplicate(createNotification("10.0.0.1", NotificationSubtype.ALIVE, USN)));
+        assertEquals(filter.getSuppressedNotifications(), 0);
+    }
+
+    @Test
+    public void bounded() throws Exception {
+        DatagramDuplicateFilter filter = new DatagramDuplicateFilter(60000, 4);
+
+        for (int i = 0; i < 10; i++) {
+            assertFalse(filter.isDuplicate(createNotification("10.0.0.1", NotificationSubtype.ALIVE, USN + i)));
+            assertTrue(filter.size() <= 4);
+        }
+    }
+
+    @Test
+    public void receivedHeaders() throws Exception {
+        DatagramDuplicateFilter filter = new DatagramDuplicateFilter(60000, 16);
+
+        assertFalse(filter.isDuplicate(createNotification("10.0.0.1", NotificationSubtype.ALIVE, USN)));
+
+        // The same notification, as read from a datagram with other header name cases
+        byte[] data = ("nts: ssdp:alive\r\nNt: upnp:rootdevice\r\nusn:  " + USN + "\r\nLOCATION: " + LOCATION + "\r\n\r\n")
+                .getBytes(StandardCharsets.US_ASCII);
+        IncomingDatagramMessage<UpnpRequest> msg = new IncomingDatagramMessage<>(
+                new UpnpRequest(UpnpRequest.Method.NOTIFY), InetAddress.getByName("10.0.0.1"), 1900, InetAddress.getByName("10.0.0.254")
+        );
+        ByteArrayUpnpHeaders headers = new ByteArrayUpnpHeaders(data, 0, data.length);
+        msg.setHeaders(headers);
+        assertEquals(headers.getFirstRawHeader(UpnpHeader.Type.USN), USN);
+        assertNull(headers.getFirstRawHeader(UpnpHeader.Type.ST));
+        assertTrue(filter.isDuplicate(msg));
+        // Still the same values once decoded
+        assertEquals(headers.getFirstHeader(UpnpHeader.Type.USN.getHttpName()), USN);
+        assertEquals(headers.getFirstRawHeader(UpnpHeader.Type.USN), USN);
+    }
+
+    protected IncomingDatagramMessage<UpnpRequest> createNotification(String source, NotificationSubtype nts, String usn) throws Exception {
+        IncomingDatagramMessage<UpnpRequest> msg = new IncomingDatagramMessage<>(
+                new UpnpRequest(UpnpRequest.Method.NOTIFY), InetAddress.getByName(source), 1900, InetAddress.getByName("10.0.0.254")
+        );
+        addHeaders(msg, nts.getHeaderString(), "NT", usn);
+        return msg;
+    }
+
+    protected IncomingDatagramMessage<UpnpResponse> createSearchResponse() throws Exception {
+        IncomingDatagramMessage<UpnpResponse> msg = new IncomingDatagramMessage<>(
+                new UpnpResponse(UpnpResponse.Status.OK), InetAddress.getByName("10.0.0.1"), 1900, InetAddress.getByName("10.0.0.254")
+        );
+        addHeaders(msg, null, "ST", USN);
+        return msg;
+    }
+
+    protected void addHeaders(UpnpMessage<?> msg, String nts, String nt, String usn) {
+        if (nts != null)
+            msg.getHeaders().add(UpnpHeader.Type.NTS.getHttpName(), nts);
+        msg.getHeaders().add(nt, "upnp:rootdevice");
+        msg.getHeaders().add(UpnpHeader.Type.USN.getHttpName(), usn);
+        msg.getHeaders().add(UpnpHeader.Type.LOCATION.getHttpName(), LOCATION);
+    }
+}
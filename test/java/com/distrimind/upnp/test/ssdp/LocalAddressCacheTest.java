@@ -0,0 +1,104 @@
+/*
+ *     This library is free software; you can redistribute it and/or
+ *     modify it under the terms of the GNU Lesser General Public
+ *     License as published by the Free Software Foundation; either
+ *     version 2.1 of the License.
+ *
+ *     This library is distributed in the hope that it will be useful,
+ *     but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *     MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ *     Lesser General Public License for more details.
+ *
+ *     You should have received a copy of the GNU Lesser General Public
+ *     License along with this library; if not, write to the Free Software
+ *     Foundation, Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301  USA
+ */
+
+package com.distrimind.upnp.test.ssdp;
+
+import com.distrimind.upnp.transport.impl.NetworkAddressFactoryImpl;
+import com.distrimind.upnp.transport.spi.InitializationException;
+import org.testng.annotations.Test;
+
+import java.net.InetAddress;
+
+import static org.testng.Assert.*;
+
+/**
+ * The local address of a remote address is looked up once, until the network changes.
+ *
+ * @author Jason Mahdjoub
+ * @since 1.5.0
+ */
+public class LocalAddressCacheTest {
+
+    @Test
+    public void cacheHitAndMiss() throws Exception {
+        CountingNetworkAddressFactory networkAddressFactory = new CountingNetworkAddressFactory();
+        InetAddress remote = InetAddress.getByName("192.168.1.20");
+        InetAddress local = InetAddress.getByName("192.168.1.10");
+
+        networkAddressFactory.localAddress = local;
+        assertEquals(networkAddressFactory.getLocalAddress(null, false, remote), local);
+        assertEquals(networkAddressFactory.lookups, 1);
+
+        // Hit, even if the lookup would now return another address
+        networkAddressFactory.localAddress = null;
+        assertEquals(networkAddressFactory.getLocalAddress(null, false, remote), local);
+        assertEquals(networkAddressFactory.lookups, 1);
+
+        // Miss for another remote address, the absence of a local address is cached too
+        InetAddress unreachable = InetAddress.getByName("10.0.0.20");
+        assertNull(networkAddressFactory.getLocalAddress(null, false, unreachable));
+        assertEquals(networkAddressFactory.lookups, 2);
+        networkAddressFactory.localAddress = local;
+        assertNull(networkAddressFactory.getLocalAddress(null, false, unreachable));
+        assertEquals(networkAddressFactory.lookups, 2);
+    }
+
+    @Test
+    public void cacheInvalidation() throws Exception {
+        CountingNetworkAddressFactory networkAddressFactory = new CountingNetworkAddressFactory();
+        InetAddress remote = InetAddress.getByName("192.168.1.20");
+
+        assertNull(networkAddressFactory.getLocalAddress(null, false, remote));
+        assertEquals(networkAddressFactory.lookups, 1);
+
+        // A refresh rebuilds the address table and its cache
+        InetAddress local = InetAddress.getByName("192.168.1.10");
+        networkAddressFactory.localAddress = local;
+        assertFalse(networkAddressFactory.refresh());
+        assertEquals(networkAddressFactory.getLocalAddress(null, false, remote), local);
+        assertEquals(networkAddressFactory.lookups, 2);
+        assertEquals(networkAddressFactory.getLocalAddress(null, false, remote), local);
+        assertEquals(networkAddressFactory.lookups, 2);
+    }
+
+    static class CountingNetworkAddressFactory extends NetworkAddressFactoryImpl {
+
+        volatile InetAddress localAddress;
+        int lookups;
+
+        CountingNetworkAddressFactory() throws InitializationException {
+        }
+
+        @Override
+        protected boolean requiresNetworkInterface() {
+            return false;
+        }
+
+        @Override
+        protected void discoverNetworkInterfaces() {
+        }
+
+        @Override
+        protected void discoverBindAddresses() {
+        }
+
+        @Override
+        protected InetAddress getBindAddressInSubnetOf(InetAddress inetAddress) {
+            lookups++;
+            return localAddress;
+        }
+    }
+}
@@ -0,0 +1,319 @@
+/*
+ *     This library is free software; you can redistribute it and/or
+ *     modify it under the terms of the GNU Lesser General Public
+ *     License as published by the Free Software Foundation; either
+ *     version 2.1 of the License.
+ *
+ *     This library is distributed in the hope that it will be useful,
+ *     but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *     MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ *     Lesser General Public License for more details.
+ *
+ *     You should have received a copy of the GNU Lesser General Public
+ *     License along with this library; if not, write to the Free Software
+ *     Foundation, Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301  USA
+ */
+
+package com.distrimind.upnp.test.ssdp;
+
+import com.distrimind.upnp.mock.MockUpnpServiceConfiguration;
+import com.distrimind.upnp.model.NetworkAddress;
+import com.distrimind.upnp.model.message.OutgoingDatagramMessage;
+import com.distrimind.upnp.platform.DefaultPlatformUpnpServiceConfiguration;
+import com.distrimind.upnp.transport.Router;
+import com.distrimind.upnp.transport.RouterImpl;
+import com.distrimind.upnp.transport.impl.NetworkAddressFactoryImpl;
+import com.distrimind.upnp.transport.spi.DatagramIO;
+import com.distrimind.upnp.transport.spi.DatagramIOConfiguration;
+import com.distrimind.upnp.transport.spi.DatagramProcessor;
+import com.distrimind.upnp.transport.spi.InitializationException;
+import com.distrimind.upnp.transport.spi.MulticastReceiver;
+import com.distrimind.upnp.transport.spi.MulticastReceiverConfiguration;
+import com.distrimind.upnp.transport.spi.NetworkAddressFactory;
+import com.distrimind.upnp.transport.spi.NoNetworkException;
+import com.distrimind.upnp.transport.spi.StreamClient;
+import com.distrimind.upnp.transport.spi.StreamServer;
+import com.distrimind.upnp.transport.spi.StreamServerConfiguration;
+import org.testng.annotations.Test;
+
+import java.net.DatagramPacket;
+import java.net.InetAddress;
+import java.net.NetworkInterface;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.testng.Assert.*;
+
+/**
+ * Detection of changed network interfaces and addresses, and rebinding of the router transports.
+ *
+ * @author Jason Mahdjoub
+ * @since 1.5.0
+ */
+public class NetworkChangeTest {
+
+    @Test
+    public void monitorDisabledByDefault() {
+        assertEquals(new DefaultPlatformUpnpServiceConfiguration().getNetworkMonitorIntervalMillis(), 0);
+    }
+
+    @Test
+    public void refreshDetectsChanges() throws Exception {
+        InetAddress first = InetAddress.getByName("192.168.1.10");
+        InetAddress second = InetAddress.getByName("10.0.0.10");
+        ChangingNetworkAddressFactory networkAddressFactory = new ChangingNetworkAddressFactory();
+        networkAddressFactory.addressesToDiscover.add(first);
+        assertTrue(networkAddressFactory.refresh());
+        assertFalse(networkAddressFactory.refresh());
+
+        networkAddressFactory.addressesToDiscover.add(second);
+        assertTrue(networkAddressFactory.refresh());
+        assertEquals(toList(networkAddressFactory), List.of(first, second));
+        assertFalse(networkAddressFactory.refresh());
+
+        networkAddressFactory.addressesToDiscover.remove(first);
+        assertTrue(networkAddressFactory.refresh());
+        assertEquals(toList(networkAddressFactory), List.of(second));
+
+        // The previous interfaces and addresses are kept if they could not be discovered
+        networkAddressFactory.failure = true;
+        networkAddressFactory.addressesToDiscover.clear();
+        try {
+            networkAddressFactory.refresh();
+            fail();
+        } catch (InitializationException ex) {
+            // Expected
+        }
+        assertEquals(toList(networkAddressFactory), List.of(second));
+
+        // Having no network is not a failure, nothing is kept
+        networkAddressFactory.failure = false;
+        networkAddressFactory.noNetwork = true;
+        assertTrue(networkAddressFactory.refresh());
+        assertEquals(toList(networkAddressFactory), List.of());
+        assertFalse(networkAddressFactory.getNetworkInterfaces().hasNext());
+    }
+
+    @Test
+    public void routerRebindsChangedAddresses() throws Exception {
+        NetworkInterface loopback = NetworkInterface.getByInetAddress(InetAddress.getLoopbackAddress());
+        InetAddress first = InetAddress.getByName("192.168.1.10");
+        InetAddress second = InetAddress.getByName("10.0.0.10");
+        ChangingNetworkAddressFactory networkAddressFactory = new ChangingNetworkAddressFactory();
+        networkAddressFactory.interfacesToDiscover.add(loopback);
+        networkAddressFactory.addressesToDiscover.add(first);
+        networkAddressFactory.refresh();
+
+        TransportsConfiguration configuration = new TransportsConfiguration(networkAddressFactory);
+        RouterImpl router = new RouterImpl(configuration, null);
+
+        // Nothing changed, nothing is rebound
+        assertEquals(router.updateNetwork().size(), 0);
+        assertTrue(router.enable());
+        assertEquals(router.updateNetwork().size(), 0);
+        assertEquals(configuration.streamServers.size(), 1);
+        assertEquals(configuration.datagramIOs.size(), 1);
+        assertEquals(configuration.multicastReceivers.size(), 1);
+        TestTransport firstStreamServer = configuration.streamServers.get(0);
+        TestTransport firstDatagramIO = configuration.datagramIOs.get(0);
+        TestTransport receiver = configuration.multicastReceivers.get(0);
+        assertEquals(firstStreamServer.address, first);
+
+        // The first address is replaced by the second one
+        networkAddressFactory.addressesToDiscover.remove(first);
+        networkAddressFactory.addressesToDiscover.add(second);
+        List<NetworkAddress> started = router.updateNetwork();
+        assertEquals(started.size(), 1);
+        assertEquals(started.get(0).getAddress(), second);
+        assertEquals(started.get(0).getPort(), TestTransport.PORT);
+        assertTrue(firstStreamServer.stopped);
+        assertTrue(firstDatagramIO.stopped);
+        assertEquals(configuration.streamServers.size(), 2);
+        assertEquals(configuration.datagramIOs.size(), 2);
+        assertEquals(configuration.streamServers.get(1).address, second);
+        assertFalse(configuration.streamServers.get(1).stopped);
+        assertEquals(router.getActiveStreamServers(null).size(), 1);
+
+        // The unchanged interface keeps its receiver, until it is gone
+        assertFalse(receiver.stopped);
+        assertEquals(configuration.multicastReceivers.size(), 1);
+        networkAddressFactory.interfacesToDiscover.clear();
+        assertEquals(router.updateNetwork().size(), 0);
+        assertTrue(receiver.stopped);
+
+        // All the remaining transports are stopped when the network is gone
+        networkAddressFactory.interfacesToDiscover.add(loopback);
+        assertEquals(router.updateNetwork().size(), 0);
+        assertEquals(configuration.multicastReceivers.size(), 2);
+        networkAddressFactory.noNetwork = true;
+        assertEquals(router.updateNetwork().size(), 0);
+        assertTrue(configuration.multicastReceivers.get(1).stopped);
+        assertTrue(configuration.streamServers.get(1).stopped);
+        assertTrue(configuration.datagramIOs.get(1).stopped);
+        assertEquals(router.getActiveStreamServers(null).size(), 0);
+
+        // And started again when it is back
+        networkAddressFactory.noNetwork = false;
+        started = router.updateNetwork();
+        assertEquals(started.size(), 1);
+        assertEquals(started.get(0).getAddress(), second);
+        assertEquals(configuration.multicastReceivers.size(), 3);
+        assertEquals(configuration.streamServers.size(), 3);
+
+        router.shutdown();
+        assertTrue(configuration.streamServers.get(2).stopped);
+        assertTrue(configuration.datagramIOs.get(2).stopped);
+        assertEquals(router.updateNetwork().size(), 0);
+    }
+
+    static List<InetAddress> toList(NetworkAddressFactory networkAddressFactory) {
+        List<InetAddress> l = new ArrayList<>();
+        networkAddressFactory.getBindAddresses().forEachRemaining(l::add);
+        return l;
+    }
+
+    static class ChangingNetworkAddressFactory extends NetworkAddressFactoryImpl {
+
+        final List<NetworkInterface> interfacesToDiscover = new ArrayList<>();
+        final List<InetAddress> addressesToDiscover = new ArrayList<>();
+        boolean failure;
+        boolean noNetwork;
+
+        ChangingNetworkAddressFactory() throws InitializationException {
+        }
+
+        @Override
+        protected boolean requiresNetworkInterface() {
+            return false;
+        }
+
+        @Override
+        protected void discoverNetworkInterfaces() throws InitializationException {
+            if (failure)
+                throw new InitializationException("Test failure");
+            if (noNetwork)
+                throw new NoNetworkException("Test without network");
+            if (interfacesToDiscover != null)
+                networkInterfaces.addAll(interfacesToDiscover);
+        }
+
+        @Override
+        protected void discoverBindAddresses() {
+            if (addressesToDiscover != null)
+                bindAddresses.addAll(addressesToDiscover);
+        }
+    }
+
+    static class TransportsConfiguration extends MockUpnpServiceConfiguration {
+
+        final NetworkAddressFactory networkAddressFactory;
+        final List<TestTransport> multicastReceivers = new ArrayList<>();
+        final List<TestTransport> datagramIOs = new ArrayList<>();
+        final List<TestTransport> streamServers = new ArrayList<>();
+
+        TransportsConfiguration(NetworkAddressFactory networkAddressFactory) throws Exception {
+            this.networkAddressFactory = networkAddressFactory;
+        }
+
+        @Override
+        public NetworkAddressFactory createNetworkAddressFactory() {
+            return networkAddressFactory;
+        }
+
+        @Override
+        public MulticastReceiver<?> createMulticastReceiver(NetworkAddressFactory networkAddressFactory) {
+            TestMulticastReceiver transport = new TestMulticastReceiver();
+            multicastReceivers.add(transport);
+            return transport;
+        }
+
+        @Override
+        public DatagramIO<?> createDatagramIO(NetworkAddressFactory networkAddressFactory) {
+            TestDatagramIO transport = new TestDatagramIO();
+            datagramIOs.add(transport);
+            return transport;
+        }
+
+        @Override
+        public StreamServer<?> createStreamServer(NetworkAddressFactory networkAddressFactory) {
+            TestStreamServer transport = new TestStreamServer();
+            streamServers.add(transport);
+            return transport;
+        }
+
+        @Override
+        public StreamClient<?> createStreamClient(int timeoutSeconds) {
+            return null;
+        }
+    }
+
+    /**
+     * Records its binding, doesn't open any socket.
+     */
+    static class TestTransport implements Runnable {
+
+        static final int PORT = 8080;
+
+        InetAddress address;
+        volatile boolean stopped;
+
+        public void stop() {
+            stopped = true;
+        }
+
+        @Override
+        public void run() {
+        }
+    }
+
+    static class TestMulticastReceiver extends TestTransport implements MulticastReceiver<MulticastReceiverConfiguration> {
+
+        @Override
+        public void init(NetworkInterface networkInterface, Router router, NetworkAddressFactory networkAddressFactory, DatagramProcessor datagramProcessor) {
+        }
+
+        @Override
+        public MulticastReceiverConfiguration getConfiguration() {
+            return null;
+        }
+    }
+
+    static class TestDatagramIO extends TestTransport implements DatagramIO<DatagramIOConfiguration> {
+
+        @Override
+        public void init(NetworkAddressFactory networkAddressFactory, InetAddress bindAddress, Router router, DatagramProcessor datagramProcessor) {
+            this.address = bindAddress;
+        }
+
+        @Override
+        public void send(OutgoingDatagramMessage<?> message) {
+        }
+
+        @Override
+        public void send(DatagramPacket datagram) {
+        }
+
+        @Override
+        public DatagramIOConfiguration getConfiguration() {
+            return null;
+        }
+    }
+
+    static class TestStreamServer extends TestTransport implements StreamServer<StreamServerConfiguration> {
+
+        @Override
+        public void init(InetAddress bindAddress, Router router, NetworkAddressFactory networkAddressFactory) {
+            this.address = bindAddress;
+        }
+
+        @Override
+        public int getPort() {
+            return PORT;
+        }
+
+        @Override
+        public StreamServerConfiguration getConfiguration() {
+            return null;
+        }
+    }
+}
@@ -32,8 +32,11 @@ import com.distrimind.upnp.model.message.header.USNRootDeviceHeader;
 import com.distrimind.upnp.model.message.header.UpnpHeader;
 import com.distrimind.upnp.model.meta.LocalDevice;
 import com.distrimind.upnp.model.meta.RemoteDevice;
+import com.distrimind.upnp.model.meta.RemoteDeviceIdentity;
 import com.distrimind.upnp.model.types.NotificationSubtype;
 import com.distrimind.upnp.test.data.SampleData;
+import com.distrimind.upnp.test.data.SampleDeviceEmbeddedOne;
+import com.distrimind.upnp.test.data.SampleDeviceEmbeddedTwo;
 import com.distrimind.upnp.test.data.SampleDeviceRoot;
 import org.testng.annotations.Test;
 
@@ -41,6 +44,8 @@ import java.net.InetAddress;
 import java.net.UnknownHostException;
 
 import static org.testng.Assert.assertEquals;
+import static org.testng.Assert.assertNull;
+import static org.testng.Assert.assertTrue;
 
 public class NotifyTest {
 
@@ -63,6 +68,46 @@ public class NotifyTest {
         assertEquals(upnpService.getRegistry().getRemoteDevices().size(), 0);
     }
 
+    @Test
+    public void receivedByeByeOfEmbeddedDevices() throws Exception {
+
+        UpnpService upnpService = new MockUpnpService();
+
+        RemoteDevice rd = SampleData.createRemoteDevice();
+        upnpService.getRegistry().addDevice(rd);
+
+        // Embedded devices are found by their own UDN, unless only root devices are searched
+        assertEquals(upnpService.getRegistry().getDevice(rd.getIdentity().getUdn(), true), rd);
+        assertNull(upnpService.getRegistry().getDevice(SampleDeviceEmbeddedOne.getEmbeddedOneUDN(), true));
+        assertEquals(
+            upnpService.getRegistry().getRemoteDevice(SampleDeviceEmbeddedOne.getEmbeddedOneUDN(), false),
+            rd.findDevice(SampleDeviceEmbeddedOne.getEmbeddedOneUDN())
+        );
+        assertEquals(
+            upnpService.getRegistry().getRemoteDevice(SampleDeviceEmbeddedTwo.getEmbeddedTwoUDN(), false),
+            rd.findDevice(SampleDeviceEmbeddedTwo.getEmbeddedTwoUDN())
+        );
+
+        // An update of an embedded device refreshes its root device
+        assertTrue(upnpService.getRegistry().update(
+            new RemoteDeviceIdentity(
+                SampleDeviceEmbeddedOne.getEmbeddedOneUDN(),
+                rd.getIdentity()
+            )
+        ));
+
+        IncomingNotificationRequest msg = createRequestMessage();
+        msg.getHeaders().add(UpnpHeader.Type.NT, new RootDeviceHeader());
+        msg.getHeaders().add(UpnpHeader.Type.NTS, new NTSHeader(NotificationSubtype.BYEBYE));
+        msg.getHeaders().add(UpnpHeader.Type.USN, new USNRootDeviceHeader(rd.getIdentity().getUdn()));
+
+        upnpService.getProtocolFactory().createReceivingAsync(msg).run();
+
+        assertEquals(upnpService.getRegistry().getRemoteDevices().size(), 0);
+        assertNull(upnpService.getRegistry().getDevice(SampleDeviceEmbeddedOne.getEmbeddedOneUDN(), false));
+        assertNull(upnpService.getRegistry().getDevice(SampleDeviceEmbeddedTwo.getEmbeddedTwoUDN(), false));
+    }
+
     @Test
     public void receivedNoUDN() throws Exception {
 
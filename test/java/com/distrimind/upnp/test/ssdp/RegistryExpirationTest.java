@@ -58,6 +58,37 @@ public class RegistryExpirationTest {
         upnpService.shutdown();
     }
 
+    @Test
+    public void scheduledMaintenanceAddAndExpire() throws Exception {
+
+        // Multi-threaded, the maintenances are scheduled when the next item is due
+        MockUpnpService upnpService = new MockUpnpService(false, true, true);
+
+        // Nothing to maintain, the maintainer must be woken up by the addition
+        Thread.sleep(1500);
+
+        RemoteDevice rd = SampleData.createRemoteDevice(
+                SampleData.createRemoteDeviceIdentity(1)
+        );
+        upnpService.getRegistry().addDevice(rd);
+
+        assertEquals(upnpService.getRegistry().getRemoteDevices().size(), 1);
+
+        Thread.sleep(3000);
+
+        assertEquals(upnpService.getRegistry().getRemoteDevices().size(), 0);
+
+        // Again, once the registry is empty
+        upnpService.getRegistry().addDevice(rd);
+        assertEquals(upnpService.getRegistry().getRemoteDevices().size(), 1);
+
+        Thread.sleep(3000);
+
+        assertEquals(upnpService.getRegistry().getRemoteDevices().size(), 0);
+
+        upnpService.shutdown();
+    }
+
     @Test
     public void overrideAgeThenAddAndExpire() throws Exception {
 
@@ -46,11 +46,13 @@ import com.distrimind.upnp.protocol.async.ReceivingSearch;
 import com.distrimind.upnp.mock.MockUpnpService;
 import com.distrimind.upnp.test.data.SampleData;
 import com.distrimind.upnp.test.data.SampleUSNHeaders;
+import com.distrimind.upnp.transport.spi.DatagramProcessor;
 import com.distrimind.upnp.util.URIUtil;
 import org.testng.annotations.Test;
 
 import java.net.InetAddress;
 import java.net.UnknownHostException;
+import java.util.List;
 
 import static org.testng.Assert.*;
 
@@ -84,6 +86,56 @@ public class SearchReceivedTest {
         SampleUSNHeaders.assertUSNHeaders(upnpService.getRouter().getOutgoingDatagramMessages(), localDevice, embeddedDevice, UpnpHeader.Type.ST);
     }
 
+    @Test
+    public void receivedSearchAllCached() throws Exception {
+
+        MockUpnpService upnpService = new MockUpnpService();
+
+        LocalDevice<?> localDevice = SampleData.createLocalDevice();
+        upnpService.getRegistry().addDevice(localDevice);
+
+        IncomingSearchRequest searchMsg = createRequestMessage();
+        searchMsg.getHeaders().add(UpnpHeader.Type.MAN, new MANHeader(NotificationSubtype.DISCOVER.getHeaderString()));
+        searchMsg.getHeaders().add(UpnpHeader.Type.MX, new MXHeader(1));
+        searchMsg.getHeaders().add(UpnpHeader.Type.ST, new STAllHeader());
+        createProtocol(upnpService, searchMsg).run();
+
+        IncomingSearchRequest otherSearchMsg = new IncomingSearchRequest(
+                new IncomingDatagramMessage<>(
+                        new UpnpRequest(UpnpRequest.Method.MSEARCH),
+                        InetAddress.getByName("127.0.0.2"),
+                        1234,
+                        InetAddress.getByName("127.0.0.1")
+                )
+        );
+        otherSearchMsg.getHeaders().add(UpnpHeader.Type.MAN, new MANHeader(NotificationSubtype.DISCOVER.getHeaderString()));
+        otherSearchMsg.getHeaders().add(UpnpHeader.Type.MX, new MXHeader(1));
+        otherSearchMsg.getHeaders().add(UpnpHeader.Type.ST, new STAllHeader());
+        createProtocol(upnpService, otherSearchMsg).run();
+
+        List<OutgoingDatagramMessage<?>> msgs = upnpService.getRouter().getOutgoingDatagramMessages();
+        assertEquals(msgs.size(), 20);
+        assertEquals(upnpService.getProtocolFactory().getDiscoveryDatagramCache().size(), 1);
+        DatagramProcessor datagramProcessor = upnpService.getConfiguration().getDatagramProcessor();
+        for (int i = 0; i < 10; i++) {
+            assertEquals(msgs.get(i).getDestinationAddress(), InetAddress.getByName("127.0.0.1"));
+            assertEquals(msgs.get(i + 10).getDestinationAddress(), InetAddress.getByName("127.0.0.2"));
+            assertEquals(msgs.get(i + 10).getDestinationPort(), 1234);
+            assertEquals(datagramProcessor.write(msgs.get(i + 10)).getData(), datagramProcessor.write(msgs.get(i)).getData());
+        }
+
+        // Removing the device drops its messages
+        upnpService.getRegistry().removeDevice(localDevice);
+        assertEquals(upnpService.getProtocolFactory().getDiscoveryDatagramCache().size(), 0);
+
+        // A new registration of the device caches its messages again
+        upnpService.getRegistry().addDevice(localDevice);
+        assertEquals(upnpService.getProtocolFactory().getDiscoveryDatagramCache().size(), 0);
+        createProtocol(upnpService, searchMsg).run();
+        assertEquals(upnpService.getRouter().getOutgoingDatagramMessages().size(), 30);
+        assertEquals(upnpService.getProtocolFactory().getDiscoveryDatagramCache().size(), 1);
+    }
+
     @Test
     public void receivedSearchRoot() throws Exception {
 
@@ -0,0 +1,253 @@
+/*
+ *     This library is free software; you can redistribute it and/or
+ *     modify it under the terms of the GNU Lesser General Public
+ *     License as published by the Free Software Foundation; either
+ *     version 2.1 of the License.
+ *
+ *     This library is distributed in the hope that it will be useful,
+ *     but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *     MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ *     Lesser General Public License for more details.
+ *
+ *     You should have received a copy of the GNU Lesser General Public
+ *     License along with this library; if not, write to the Free Software
+ *     Foundation, Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301  USA
+ */
+
+package com.distrimind.upnp.test.ssdp;
+
+import com.distrimind.upnp.mock.MockRouter;
+import com.distrimind.upnp.model.message.IncomingDatagramMessage;
+import com.distrimind.upnp.platform.DefaultPlatformUpnpServiceConfiguration;
+import com.distrimind.upnp.transport.impl.DatagramIOConfigurationImpl;
+import com.distrimind.upnp.transport.impl.DatagramProcessorImpl;
+import com.distrimind.upnp.transport.impl.DatagramSelectorLoop;
+import com.distrimind.upnp.transport.impl.MulticastReceiverConfigurationImpl;
+import com.distrimind.upnp.transport.impl.SelectorDatagramIOImpl;
+import com.distrimind.upnp.transport.impl.SelectorMulticastReceiverImpl;
+import com.distrimind.upnp.transport.spi.NetworkAddressFactory;
+import org.testng.annotations.Test;
+
+import java.io.IOException;
+import java.net.DatagramPacket;
+import java.net.DatagramSocket;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.net.NetworkInterface;
+import java.nio.charset.StandardCharsets;
+import java.util.Collections;
+import java.util.Iterator;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+
+import static org.testng.Assert.*;
+
+/**
+ * Receives and sends datagrams through the selector based transports, over the loopback interface.
+ *
+ * @author Jason Mahdjoub
+ * @since 1.5.0
+ */
+public class SelectorDatagramTransportTest {
+
+    static final String SEARCH_RESPONSE =
+            "HTTP/1.1 200 OK\r\n" +
+                    "ST: upnp:rootdevice\r\n" +
+                    "USN: uuid:2fac1234-31f8-11b4-a222-08002b34c003::upnp:rootdevice\r\n" +
+                    "EXT: \r\n" +
+                    "\r\n";
+
+    @Test
+    public void configurationSwitch() {
+        DefaultPlatformUpnpServiceConfiguration platformConfiguration = new DefaultPlatformUpnpServiceConfiguration();
+        assertFalse(platformConfiguration.isDatagramSelectorEnabled());
+        NetworkAddressFactory networkAddressFactory = new LoopbackNetworkAddressFactory(1900);
+        assertFalse(platformConfiguration.createDatagramIO(networkAddressFactory) instanceof SelectorDatagramIOImpl);
+        assertFalse(platformConfiguration.createMulticastReceiver(networkAddressFactory) instanceof SelectorMulticastReceiverImpl);
+
+        platformConfiguration = new DefaultPlatformUpnpServiceConfiguration() {
+            @Override
+            public boolean isDatagramSelectorEnabled() {
+                return true;
+            }
+        };
+        assertTrue(platformConfiguration.createDatagramIO(networkAddressFactory) instanceof SelectorDatagramIOImpl);
+        assertTrue(platformConfiguration.createMulticastReceiver(networkAddressFactory) instanceof SelectorMulticastReceiverImpl);
+    }
+
+    @Test
+    public void datagramIOReceiveAndSend() throws Exception {
+        LoopbackNetworkAddressFactory networkAddressFactory = new LoopbackNetworkAddressFactory(1900);
+        QueueRouter router = new QueueRouter();
+        DatagramSelectorLoop selectorLoop = new DatagramSelectorLoop();
+        TestDatagramIO datagramIO = new TestDatagramIO(selectorLoop);
+        datagramIO.init(networkAddressFactory, InetAddress.getLoopbackAddress(), router, new DatagramProcessorImpl());
+
+        Thread thread = new Thread(datagramIO);
+        thread.start();
+        try (DatagramSocket socket = new DatagramSocket(0, InetAddress.getLoopbackAddress())) {
+            socket.setSoTimeout(5000);
+
+            // Receiving through the selector loop
+            byte[] data = SEARCH_RESPONSE.getBytes(StandardCharsets.UTF_8);
+            socket.send(new DatagramPacket(data, data.length, InetAddress.getLoopbackAddress(), datagramIO.getLocalPort()));
+            IncomingDatagramMessage<?> msg = router.messages.poll(5, TimeUnit.SECONDS);
+            assertNotNull(msg);
+            assertEquals(msg.getSourcePort(), socket.getLocalPort());
+
+            // Sending through the channel
+            byte[] sent = "hello".getBytes(StandardCharsets.UTF_8);
+            datagramIO.send(new DatagramPacket(sent, sent.length, InetAddress.getLoopbackAddress(), socket.getLocalPort()));
+            DatagramPacket received = new DatagramPacket(new byte[64], 64);
+            socket.receive(received);
+            assertEquals(new String(received.getData(), 0, received.getLength(), StandardCharsets.UTF_8), "hello");
+            assertEquals(received.getPort(), datagramIO.getLocalPort());
+        } finally {
+            datagramIO.stop();
+            thread.join(5000);
+        }
+        assertFalse(thread.isAlive());
+        assertFalse(selectorLoop.isRunning());
+    }
+
+    @Test
+    public void multicastReceiverSharesTheLoop() throws Exception {
+        NetworkInterface loopback = NetworkInterface.getByInetAddress(InetAddress.getLoopbackAddress());
+        int port;
+        try (DatagramSocket socket = new DatagramSocket(0)) {
+            port = socket.getLocalPort();
+        }
+        LoopbackNetworkAddressFactory networkAddressFactory = new LoopbackNetworkAddressFactory(port);
+        QueueRouter router = new QueueRouter();
+        DatagramSelectorLoop selectorLoop = new DatagramSelectorLoop();
+
+        TestDatagramIO datagramIO = new TestDatagramIO(selectorLoop);
+        datagramIO.init(networkAddressFactory, InetAddress.getLoopbackAddress(), router, new DatagramProcessorImpl());
+        SelectorMulticastReceiverImpl multicastReceiver = new SelectorMulticastReceiverImpl(
+                new MulticastReceiverConfigurationImpl(networkAddressFactory.getMulticastGroup(), port),
+                selectorLoop
+        );
+        multicastReceiver.init(loopback, router, networkAddressFactory, new DatagramProcessorImpl());
+
+        Thread thread = new Thread(datagramIO);
+        thread.start();
+        try (DatagramSocket socket = new DatagramSocket(0, InetAddress.getLoopbackAddress())) {
+            // The loop is already run by the other thread, the receiver's channel is served by it
+            long deadline = System.currentTimeMillis() + 5000;
+            while (!selectorLoop.isRunning() && System.currentTimeMillis() < deadline)
+                Thread.sleep(10);
+            assertTrue(selectorLoop.isRunning());
+            multicastReceiver.run();
+
+            byte[] data = SEARCH_RESPONSE.getBytes(StandardCharsets.UTF_8);
+            socket.send(new DatagramPacket(data, data.length, InetAddress.getLoopbackAddress(), port));
+            IncomingDatagramMessage<?> msg = router.messages.poll(5, TimeUnit.SECONDS);
+            assertNotNull(msg);
+            assertEquals(msg.getSourcePort(), socket.getLocalPort());
+
+            // The loop keeps running as long as a channel remains open
+            multicastReceiver.stop();
+            thread.join(500);
+            assertTrue(thread.isAlive());
+        } finally {
+            multicastReceiver.stop();
+            datagramIO.stop();
+            thread.join(5000);
+        }
+        assertFalse(thread.isAlive());
+        assertFalse(selectorLoop.isRunning());
+    }
+
+    static class TestDatagramIO extends SelectorDatagramIOImpl {
+
+        TestDatagramIO(DatagramSelectorLoop selectorLoop) {
+            super(new DatagramIOConfigurationImpl(), selectorLoop);
+        }
+
+        int getLocalPort() throws IOException {
+            return ((InetSocketAddress) channel.getLocalAddress()).getPort();
+        }
+    }
+
+    static class QueueRouter extends MockRouter {
+
+        final BlockingQueue<IncomingDatagramMessage<?>> messages = new LinkedBlockingQueue<>();
+
+        QueueRouter() {
+            super(null, null);
+        }
+
+        @Override
+        public void received(IncomingDatagramMessage<?> msg) {
+            messages.add(msg);
+        }
+    }
+
+    static class LoopbackNetworkAddressFactory implements NetworkAddressFactory {
+
+        final int multicastPort;
+
+        LoopbackNetworkAddressFactory(int multicastPort) {
+            this.multicastPort = multicastPort;
+        }
+
+        @Override
+        public InetAddress getMulticastGroup() {
+            try {
+                return InetAddress.getByName("239.255.255.250");
+            } catch (IOException ex) {
+                throw new IllegalStateException(ex);
+            }
+        }
+
+        @Override
+        public int getMulticastPort() {
+            return multicastPort;
+        }
+
+        @Override
+        public int getStreamListenPort() {
+            return 0;
+        }
+
+        @Override
+        public Iterator<NetworkInterface> getNetworkInterfaces() {
+            return Collections.emptyIterator();
+        }
+
+        @Override
+        public Iterator<InetAddress> getBindAddresses() {
+            return Collections.singletonList(InetAddress.getLoopbackAddress()).iterator();
+        }
+
+        @Override
+        public boolean hasUsableNetwork() {
+            return true;
+        }
+
+        @Override
+        public Short getAddressNetworkPrefixLength(InetAddress inetAddress) {
+            return 8;
+        }
+
+        @Override
+        public byte[] getHardwareAddress(InetAddress inetAddress) {
+            return null;
+        }
+
+        @Override
+        public InetAddress getBroadcastAddress(InetAddress inetAddress) {
+            return null;
+        }
+
+        @Override
+        public InetAddress getLocalAddress(NetworkInterface networkInterface, boolean isIPv6, InetAddress remoteAddress) {
+            return InetAddress.getLoopbackAddress();
+        }
+
+        @Override
+        public void logInterfaceInformation() {
+        }
+    }
+}